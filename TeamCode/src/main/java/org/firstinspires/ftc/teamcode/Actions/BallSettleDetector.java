@@ -0,0 +1,162 @@
+package org.firstinspires.ftc.teamcode.Actions;
+
+import com.acmerobotics.dashboard.config.Config;
+
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.Subsystems.ColorDetector;
+import org.firstinspires.ftc.teamcode.Subsystems.DistanceDetector;
+import org.firstinspires.ftc.teamcode.Subsystems.TouchDetector;
+
+/**
+ * Decides when a ball that just tripped the TouchDetector has come to rest in its slot, so
+ * IntakeBall can move on as soon as it is seated instead of after a fixed wait.
+ * <p>
+ * A ball is seated once every available sensor has held steady for its window:
+ * - TouchDetector: unchanged for TOUCH_STABLE_MS, whether the ball holds the switches down or has
+ * rolled past them; a bounce restarts it
+ * - DistanceDetector, if initialized: within DISTANCE_BAND_CM for DISTANCE_STABLE_MS
+ * - ColorDetector: brightness (HSV value) within COLOR_VALUE_BAND for COLOR_STABLE_MS; in async
+ * mode only while its samples are fresh
+ * <p>
+ * Like IntakeBall, it reads the detectors' public fields, which the main loop keeps updated.
+ * Time comes from HardwareSnapshot.nowNanos(), so LogReplay reproduces it. Each ball's settle
+ * time is logged to the "ballSettle" DataLog record by logSettled().
+ */
+@Config
+public class BallSettleDetector {
+	/**
+	 * Time the touch sensors must stay unchanged, in milliseconds
+	 */
+	public static double TOUCH_STABLE_MS = 60;
+	/**
+	 * Time the distance reading must stay within DISTANCE_BAND_CM, in milliseconds
+	 */
+	public static double DISTANCE_STABLE_MS = 80;
+	/**
+	 * Largest change of the distance reading that still counts as steady, in centimeters
+	 */
+	public static double DISTANCE_BAND_CM = 0.5;
+	/**
+	 * Time the color brightness must stay within COLOR_VALUE_BAND, in milliseconds
+	 */
+	public static double COLOR_STABLE_MS = 80;
+	/**
+	 * Largest change of the HSV value (0-1) that still counts as steady
+	 */
+	public static double COLOR_VALUE_BAND = 0.04;
+
+	// One row per ball, when it has settled; timedOut is true if the caller's limit ran out
+	private static final DataLog.Record LOG = DataLog.register("ballSettle", "slot", "settleMs", "timedOut");
+
+	/**
+	 * Tracks how long a reading has stayed within a band of where it settled.
+	 */
+	private static final class StabilityWindow {
+		private double reference;
+		// 0 while there is no reading to compare with
+		private long sinceNanos = 0;
+
+		void reset() {
+			sinceNanos = 0;
+		}
+
+		/**
+		 * @return nanoseconds the reading has been within band of the reference
+		 */
+		long update(double value, double band, long nowNanos) {
+			if (sinceNanos == 0 || Math.abs(value - reference) > band) {
+				reference = value;
+				sinceNanos = nowNanos;
+			}
+			return nowNanos - sinceNanos;
+		}
+	}
+
+	private final StabilityWindow touch = new StabilityWindow();
+	private final StabilityWindow distance = new StabilityWindow();
+	private final StabilityWindow color = new StabilityWindow();
+	private long startNanos;
+	private boolean touchStable, distanceStable, colorStable;
+
+	public BallSettleDetector() {
+		reset();
+	}
+
+	/**
+	 * Starts timing a new ball. Call when the TouchDetector first fires.
+	 */
+	public void reset() {
+		startNanos = HardwareSnapshot.nowNanos();
+		touch.reset();
+		distance.reset();
+		color.reset();
+		touchStable = distanceStable = colorStable = false;
+	}
+
+	/**
+	 * Takes this loop's readings. Call once per loop after reset().
+	 *
+	 * @return true once the ball is seated
+	 */
+	public boolean update() {
+		long now = HardwareSnapshot.nowNanos();
+
+		touchStable = touch.update(TouchDetector.getInstance().detected ? 1 : 0, 0.5, now)
+				>= TOUCH_STABLE_MS * 1_000_000;
+
+		if (DistanceDetector.isInitialized()) {
+			distanceStable = distance.update(DistanceDetector.getInstance().rawDistance, DISTANCE_BAND_CM, now)
+					>= DISTANCE_STABLE_MS * 1_000_000;
+		} else {
+			distanceStable = true;
+		}
+
+		ColorDetector colorDetector = ColorDetector.getInstance();
+		if (colorDetector.isAsync()) {
+			ColorDetector.Sample sample = colorDetector.getLatestSample();
+			colorStable = !ColorDetector.isFresh(sample)
+					|| color.update(sample.value, COLOR_VALUE_BAND, now) >= COLOR_STABLE_MS * 1_000_000;
+		} else {
+			colorStable = color.update(colorDetector.avgHSV[2], COLOR_VALUE_BAND, now)
+					>= COLOR_STABLE_MS * 1_000_000;
+		}
+
+		return touchStable && distanceStable && colorStable;
+	}
+
+	/**
+	 * @return milliseconds since reset()
+	 */
+	public double getElapsedMs() {
+		return (HardwareSnapshot.nowNanos() - startNanos) / 1e6;
+	}
+
+	/**
+	 * Logs the time since reset() as this ball's settle time.
+	 *
+	 * @param slot     slot the ball settled in
+	 * @param timedOut true if the caller gave up waiting rather than update() returning true
+	 */
+	public void logSettled(int slot, boolean timedOut) {
+		LOG.set(0, slot).set(1, getElapsedMs()).set(2, timedOut).commit();
+	}
+
+	public boolean isTouchStable() {
+		return touchStable;
+	}
+
+	/**
+	 * @return true if the distance reading is steady, or there is no DistanceDetector
+	 */
+	public boolean isDistanceStable() {
+		return distanceStable;
+	}
+
+	/**
+	 * @return true if the color brightness is steady, or there is no fresh async sample
+	 */
+	public boolean isColorStable() {
+		return colorStable;
+	}
+}
@@ -5,6 +5,8 @@ import androidx.annotation.NonNull;
 import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
 import com.acmerobotics.roadrunner.Action;
 
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
 import org.firstinspires.ftc.teamcode.Subsystems.ColorDetector;
 import org.firstinspires.ftc.teamcode.Subsystems.Intake;
 import org.firstinspires.ftc.teamcode.Subsystems.Spindexer;
@@ -20,95 +22,51 @@ import org.firstinspires.ftc.teamcode.Utilities.BallColor;
  * 2. MOVE_TO_NEXT_SLOT: Rotate spindexer to the target slot
  * 3. RUN_INTAKE_DOOR: Open the transfer door
  * 4. WAIT_FOR_BALL: Wait for TouchDetector to detect the ball
- * 5. WAIT_BALL_SETTLE: Hold position while ball settles (configurable)
- * 6. MOVE_TO_COLOR_SENSOR: Rotate spindexer to COLOR_SENSOR_LOCATION
+ * 5. WAIT_BALL_SETTLE: Hold position until BallSettleDetector says the ball is seated, or at most
+ * BALL_SETTLE_TIME_SECONDS
+ * 6. MOVE_TO_COLOR_SENSOR: Rotate the slot COLOR_SENSOR_LOCATION_DEGREES past the intake
  * 7. DETECT_COLOR: Wait for color sensor to detect the ball color
  * 8. DONE: Stop intake and door motors
  * <p>
- * The action automatically finds the next UNKNOWN slot and rotates to it.
+ * Unless a slot is given, SlotPlanner picks the free slot that can be reached soonest.
  * If all slots are full, the action completes immediately.
+ * <p>
+ * Each ball's settle time is logged to the "ballSettle" DataLog record.
  */
 public class IntakeBall implements Action {
-	private static final double SLOT_TOLERANCE_DEGREES = 5.0;
-	public static double BALL_SETTLE_TIME_SECONDS = 2.0; // Tunable value
-	public static double BALL_SETTLE_TIME_NANOS = BALL_SETTLE_TIME_SECONDS * 1_000_000_000; // 2 seconds in nanoseconds
-	public static double COLOR_SENSOR_LOCATION_DEGREES = 15; // Position where spindexer moves to detect color
+	public static double BALL_SETTLE_TIME_SECONDS = 2.0; // Longest settle wait, if the sensors never agree the ball is seated
+	public static boolean DETECT_SETTLE = true; // false always waits the full BALL_SETTLE_TIME_SECONDS
+	public static double COLOR_SENSOR_LOCATION_DEGREES = 15; // Offset from a slot's intake angle to the color sensor
 	public static double POSITION_ERROR_TOLERANCE_DEGREES = 1.5; // Position tolerance in degrees for spindexer movement
+	// state is the IndexState ordinal
+	private static final DataLog.Record LOG = DataLog.register("intakeBall", "state", "slot");
+	private final BallSettleDetector settleDetector = new BallSettleDetector();
 	private final int slotIndex;
 	private IndexState currentState = IndexState.RUN_INTAKE;
 	private long waitStartTimeNanos;
 
 	/**
-	 * Creates an IntakeBall action that finds and fills the next available slot.
+	 * Creates an IntakeBall action that fills the free slot SlotPlanner reaches soonest.
 	 */
 	public IntakeBall() {
-		// Find the next free slot to index into
-		slotIndex = findNextFreeSlot();
+		int[] order = new SlotPlanner().planIntakeOrder(SlotPlanner.getCurrentAngleDegrees(), SlotPlanner.getSlotColors());
+		slotIndex = order.length > 0 ? order[0] : -1;
 	}
 
 	/**
-	 * Finds the next available slot in the spindexer.
-	 * <p>
-	 * Selection order:
-	 * 1. Current slot if UNKNOWN and within tolerance
-	 * 2. Next UNKNOWN slot in sequence
-	 * 3. If all slots are EMPTY, current slot if within tolerance, otherwise next slot
-	 * 4. -1 if all slots are full (not EMPTY or UNKNOWN)
+	 * Creates an IntakeBall action that fills a specific slot.
 	 *
-	 * @return slot index (0, 1, 2) or -1 if no available slots
+	 * @param slotIndex slot to fill (0, 1, or 2)
 	 */
-	private int findNextFreeSlot() {
-		double currentPositionDegrees = getCurrentPositionDegrees();
-		int currentSlot = (int) Math.round(currentPositionDegrees / 120.0) % 3;
-
-		// Check if current slot is free and we are aligned
-		BallColor currentSlotColor = Spindexer.getInstance().getBallColor(currentSlot);
-		double slotStartDegrees = currentSlot * 120;
-		double degreesFromSlotStart = Math.abs(currentPositionDegrees - slotStartDegrees);
-		if (degreesFromSlotStart > 180) {
-			degreesFromSlotStart = 360 - degreesFromSlotStart;
-		}
-
-		if ((currentSlotColor == BallColor.EMPTY || currentSlotColor == BallColor.UNKNOWN)
-				&& degreesFromSlotStart <= SLOT_TOLERANCE_DEGREES) {
-			return currentSlot;
-		}
-
-		// Check other slots for a free spot
-		for (int i = 1; i < 3; i++) {
-			int nextSlot = (currentSlot + i) % 3;
-			BallColor nextSlotColor = Spindexer.getInstance().getBallColor(nextSlot);
-			if (nextSlotColor == BallColor.EMPTY || nextSlotColor == BallColor.UNKNOWN) {
-				return nextSlot;
-			}
-		}
-
-		// If we are here, it means other slots are full. Check current slot again, without tolerance.
-		if (currentSlotColor == BallColor.EMPTY || currentSlotColor == BallColor.UNKNOWN) {
-			return currentSlot;
-		}
-
-		return -1; // All slots are full
-	}
-
-	/**
-	 * Converts the spindexer encoder ticks to degrees (0-360).
-	 *
-	 * @return current position in degrees (0-360)
-	 */
-	private double getCurrentPositionDegrees() {
-		double currentPositionTicks = Spindexer.getInstance().getCurrentPositionTicks();
-		double currentPositionDegrees = (currentPositionTicks % Spindexer.TICKS_PER_REV) / Spindexer.TICKS_PER_REV * 360;
-		if (currentPositionDegrees < 0) {
-			currentPositionDegrees += 360;
-		}
-		return currentPositionDegrees;
+	public IntakeBall(int slotIndex) {
+		this.slotIndex = slotIndex;
 	}
 
 	@Override
 	public boolean run(@NonNull TelemetryPacket packet) {
 		packet.put("Index State", currentState.toString());
 		packet.put("Slot Index", slotIndex);
+		LOG.set(0, currentState.ordinal()).set(1, slotIndex).commit();
 
 		// If no free slot is available, stop the action
 		if (slotIndex == -1) {
@@ -125,13 +83,11 @@ public class IntakeBall implements Action {
 				break;
 
 			case MOVE_TO_NEXT_SLOT: {
-				double slotStartDegrees = slotIndex * 120;
-				double targetRevolutions = slotStartDegrees / 360;
+				double targetRevolutions = SlotPlanner.intakeAngleDegrees(slotIndex) / 360;
 
-				// Set target position and check if reached
-				double targetTicks = targetRevolutions * Spindexer.TICKS_PER_REV;
-				Spindexer.getInstance().setTargetPosition(targetRevolutions);
-				double error = targetTicks - Spindexer.getInstance().getCurrentPositionTicks();
+				// Set target angle (shortest way around) and check if reached
+				Spindexer.getInstance().setTargetAngle(targetRevolutions);
+				double error = Spindexer.getInstance().getTargetPositionTicks() - Spindexer.getInstance().getCurrentPositionTicks();
 				double errorToleranceTicks = POSITION_ERROR_TOLERANCE_DEGREES * Spindexer.TICKS_PER_REV / 360.0;
 				if (Math.abs(error) < errorToleranceTicks) {
 					currentState = IndexState.RUN_INTAKE_DOOR;
@@ -149,36 +105,59 @@ public class IntakeBall implements Action {
 				if (TouchDetector.getInstance().detected) {
 					// Ball detected - mark slot as UNKNOWN and start settle timer
 					Spindexer.getInstance().setBallColor(slotIndex, BallColor.UNKNOWN);
-					waitStartTimeNanos = System.nanoTime();
+					waitStartTimeNanos = HardwareSnapshot.nowNanos();
+					settleDetector.reset();
 					currentState = IndexState.WAIT_BALL_SETTLE;
 				}
 				break;
 
-			case WAIT_BALL_SETTLE:
+			case WAIT_BALL_SETTLE: {
 				// Keep intake door open during wait period
 				Transfer.getInstance().intakeDoorForward().run(packet);
-				long elapsedNanos = System.nanoTime() - waitStartTimeNanos;
-				if (elapsedNanos >= BALL_SETTLE_TIME_NANOS) {
+				boolean seated = settleDetector.update() && DETECT_SETTLE;
+				boolean timedOut = HardwareSnapshot.nowNanos() - waitStartTimeNanos >= BALL_SETTLE_TIME_SECONDS * 1e9;
+				packet.put("Settle Touch", settleDetector.isTouchStable());
+				packet.put("Settle Distance", settleDetector.isDistanceStable());
+				packet.put("Settle Color", settleDetector.isColorStable());
+				if (seated || timedOut) {
+					packet.put("Settle Time (ms)", settleDetector.getElapsedMs());
+					settleDetector.logSettled(slotIndex, !seated);
 					currentState = IndexState.MOVE_TO_COLOR_SENSOR;
 				}
 				break;
+			}
 
 			case MOVE_TO_COLOR_SENSOR: {
-				double colorSensorRevolutions = COLOR_SENSOR_LOCATION_DEGREES / 360.0;
-				double targetTicks = colorSensorRevolutions * Spindexer.TICKS_PER_REV;
-				Spindexer.getInstance().setTargetPosition(colorSensorRevolutions);
-				double error = targetTicks - Spindexer.getInstance().getCurrentPositionTicks();
+				// The sensor sits COLOR_SENSOR_LOCATION_DEGREES past the intake, relative to this slot
+				double colorSensorRevolutions = SlotPlanner.colorSensorAngleDegrees(slotIndex) / 360.0;
+				Spindexer.getInstance().setTargetAngle(colorSensorRevolutions);
+				double error = Spindexer.getInstance().getTargetPositionTicks() - Spindexer.getInstance().getCurrentPositionTicks();
 				double errorToleranceTicks = POSITION_ERROR_TOLERANCE_DEGREES * Spindexer.TICKS_PER_REV / 360.0;
 				if (Math.abs(error) < errorToleranceTicks) {
 					currentState = IndexState.DETECT_COLOR;
+					waitStartTimeNanos = HardwareSnapshot.nowNanos();
 				}
 				break;
 			}
 
-			case DETECT_COLOR:
-				// Check color sensor readings (ColorDetector.update() is called in main loop)
-				if (ColorDetector.getInstance().isGreen || ColorDetector.getInstance().isPurple) {
-					BallColor detectedColor = ColorDetector.getInstance().isGreen ? BallColor.GREEN : BallColor.PURPLE;
+			case DETECT_COLOR: {
+				ColorDetector colorDetector = ColorDetector.getInstance();
+				boolean green;
+				boolean purple;
+				if (colorDetector.isAsync()) {
+					// Only trust a fresh sample taken after the ball reached the sensor, so a
+					// reading of the previous slot passing by can't be misattributed
+					ColorDetector.Sample sample = colorDetector.getLatestSample();
+					boolean usable = ColorDetector.isFresh(sample) && sample.timestampNanos >= waitStartTimeNanos;
+					green = usable && sample.isGreen;
+					purple = usable && sample.isPurple;
+				} else {
+					// Check color sensor readings (ColorDetector.update() is called in main loop)
+					green = colorDetector.isGreen;
+					purple = colorDetector.isPurple;
+				}
+				if (green || purple) {
+					BallColor detectedColor = green ? BallColor.GREEN : BallColor.PURPLE;
 					Spindexer.getInstance().setBallColor(slotIndex, detectedColor);
 					packet.put("Detected Color", detectedColor.toString());
 					// Stop intake and door motors
@@ -187,6 +166,7 @@ public class IntakeBall implements Action {
 					currentState = IndexState.DONE;
 				}
 				break;
+			}
 
 			case DONE:
 				return false; // Action is complete
@@ -194,7 +174,14 @@ public class IntakeBall implements Action {
 		return true; // Action is still running
 	}
 
-	private enum IndexState {
+	/**
+	 * @return the state the next run() will execute
+	 */
+	public IndexState getState() {
+		return currentState;
+	}
+
+	public enum IndexState {
 		RUN_INTAKE,
 		MOVE_TO_NEXT_SLOT,
 		RUN_INTAKE_DOOR,
@@ -0,0 +1,283 @@
+package org.firstinspires.ftc.teamcode.Actions;
+
+import androidx.annotation.NonNull;
+
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+import com.acmerobotics.roadrunner.Action;
+
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.Subsystems.ColorDetector;
+import org.firstinspires.ftc.teamcode.Subsystems.Intake;
+import org.firstinspires.ftc.teamcode.Subsystems.Spindexer;
+import org.firstinspires.ftc.teamcode.Subsystems.TouchDetector;
+import org.firstinspires.ftc.teamcode.Subsystems.Transfer;
+import org.firstinspires.ftc.teamcode.Utilities.BallColor;
+
+/**
+ * Action that fills every free slot of the spindexer without stopping between balls.
+ * <p>
+ * Unlike a sequence of IntakeBall actions, the intake motor and intake door run for the whole
+ * load, and a ball's color is read on the way to the next slot instead of in a stop of its own:
+ * 1. PRESENT_SLOT: Rotate the next free slot to the intake
+ * 2. WAIT_FOR_BALL: Wait for TouchDetector to detect the ball; the slot becomes UNKNOWN
+ * 3. WAIT_BALL_SETTLE: Hold position until BallSettleDetector says the ball is seated, or at most
+ * IntakeBall.BALL_SETTLE_TIME_SECONDS
+ * 4. Pick the next free slot. If it is the next slot forward, the move carries the loaded slot
+ * past the color sensor (COLOR_SENSOR_LOCATION_DEGREES forward); otherwise DETOUR first turns
+ * the loaded slot to the sensor and leaves as soon as its color is known. Either way the color
+ * is written to Spindexer.setBallColor() whenever it is seen, while the state machine goes on.
+ * 5. When no slot is free, stop the intake and door; CLASSIFY_REMAINING visits the color sensor
+ * with any slot whose color was missed on the way
+ * 6. DONE
+ * <p>
+ * A pass is classified once CLASSIFY_SAMPLES readings agree while the slot is within
+ * COLOR_WINDOW_DEGREES of the sensor. If all slots are full, the action completes immediately.
+ * <p>
+ * Settling is not what a load waits on: in simulation it is under 0.1 s per ball, against about
+ * 0.4 s of ball travel through the intake and 0.5 s per 120 degree move. Neither of those can be
+ * overlapped, so the saving comes from the stops IntakeBall makes around them: the halt at the
+ * color sensor, and the intake and door restarting for every ball. DETOUR is what keeps a partial
+ * load (middle slot already full) from falling behind IntakeBall; without it the missed color
+ * costs a trip back at the end.
+ */
+public class PipelinedIntake implements Action {
+	public static double COLOR_WINDOW_DEGREES = 8; // How far from the color sensor a slot can be read
+	public static int CLASSIFY_SAMPLES = 2; // Agreeing readings needed to classify a ball
+	public static double COLOR_TIMEOUT_SECONDS = 0.3; // Longest a slot is held at the sensor waiting for a color
+	private static final int SLOT_COUNT = 3;
+	// state is the State ordinal; slot is the slot at (or heading to) the intake, classifying the
+	// slot whose color is being read, or -1
+	private static final DataLog.Record LOG = DataLog.register("pipelinedIntake", "state", "slot", "classifying");
+
+	private final SlotPlanner planner = new SlotPlanner();
+	private final BallSettleDetector settleDetector = new BallSettleDetector();
+	// Slots filled by this action whose color hasn't been seen yet
+	private final boolean[] unclassified = new boolean[SLOT_COUNT];
+	// Slots this action has put a ball in; they stay UNKNOWN until classified, which SlotPlanner
+	// would count as free
+	private final boolean[] filled = new boolean[SLOT_COUNT];
+	private State currentState = State.START;
+	private int slot = -1;
+	private long waitStartTimeNanos;
+
+	// Color reading in progress, independent of the state
+	private int classifySlot = -1;
+	private long windowEnteredNanos = 0;
+	private int greenCount, purpleCount;
+
+	@Override
+	public boolean run(@NonNull TelemetryPacket packet) {
+		packet.put("Pipelined Intake State", currentState.toString());
+		packet.put("Pipelined Intake Slot", slot);
+		LOG.set(0, currentState.ordinal()).set(1, slot).set(2, classifySlot).commit();
+
+		boolean classified = classify(packet);
+
+		switch (currentState) {
+			case START:
+				slot = nextSlot(SlotPlanner.getCurrentAngleDegrees(), -1);
+				if (slot == -1) {
+					packet.put("Intake Status", "All slots filled - cannot intake");
+					currentState = State.DONE;
+					return false;
+				}
+				Intake.getInstance().in().run(packet);
+				Transfer.getInstance().intakeDoorForward().run(packet);
+				currentState = State.PRESENT_SLOT;
+				break;
+
+			case PRESENT_SLOT:
+				Spindexer.getInstance().setTargetAngle(SlotPlanner.intakeAngleDegrees(slot) / 360);
+				if (isAt(SlotPlanner.intakeAngleDegrees(slot))) {
+					currentState = State.WAIT_FOR_BALL;
+				}
+				break;
+
+			case WAIT_FOR_BALL:
+				if (TouchDetector.getInstance().detected) {
+					Spindexer.getInstance().setBallColor(slot, BallColor.UNKNOWN);
+					filled[slot] = true;
+					unclassified[slot] = true;
+					waitStartTimeNanos = HardwareSnapshot.nowNanos();
+					settleDetector.reset();
+					currentState = State.WAIT_BALL_SETTLE;
+				}
+				break;
+
+			case WAIT_BALL_SETTLE: {
+				boolean seated = settleDetector.update() && IntakeBall.DETECT_SETTLE;
+				boolean timedOut = HardwareSnapshot.nowNanos() - waitStartTimeNanos >= IntakeBall.BALL_SETTLE_TIME_SECONDS * 1e9;
+				if (seated || timedOut) {
+					packet.put("Settle Time (ms)", settleDetector.getElapsedMs());
+					settleDetector.logSettled(slot, !seated);
+					startClassifying(slot);
+					int loaded = slot;
+					slot = nextSlot(SlotPlanner.intakeAngleDegrees(loaded), loaded);
+					if (slot == -1) {
+						// Full: stop pulling balls in, then read whatever is left
+						Intake.getInstance().stop().run(packet);
+						Transfer.getInstance().intakeDoorStop().run(packet);
+						currentState = State.CLASSIFY_REMAINING;
+					} else if (passesColorSensor(loaded, slot)) {
+						currentState = State.PRESENT_SLOT;
+					} else {
+						currentState = State.DETOUR;
+					}
+				}
+				break;
+			}
+
+			case DETOUR:
+				// Turn the loaded slot to the sensor, and leave as soon as it's read or given up on.
+				// A slot read this loop has cleared classifySlot, so there is no sensor angle to head for
+				if (classified || classifySlot == -1 || colorTimedOut()) {
+					currentState = State.PRESENT_SLOT;
+				} else {
+					Spindexer.getInstance().setTargetAngle(SlotPlanner.colorSensorAngleDegrees(classifySlot) / 360);
+				}
+				break;
+
+			case CLASSIFY_REMAINING:
+				if (classifySlot == -1 || classified || colorTimedOut()) {
+					classifySlot = -1;
+					int next = -1;
+					for (int i = 0; i < SLOT_COUNT && next == -1; i++) {
+						if (unclassified[i]) next = i;
+					}
+					if (next == -1) {
+						currentState = State.DONE;
+						break;
+					}
+					// One more look per slot; if it still can't be read it stays UNKNOWN
+					unclassified[next] = false;
+					startClassifying(next);
+				}
+				Spindexer.getInstance().setTargetAngle(SlotPlanner.colorSensorAngleDegrees(classifySlot) / 360);
+				break;
+
+			case DONE:
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the color of classifySlot while it's within COLOR_WINDOW_DEGREES of the sensor.
+	 * A slot that leaves the window unread stays unclassified for CLASSIFY_REMAINING.
+	 *
+	 * @return true if a color was written this loop
+	 */
+	private boolean classify(TelemetryPacket packet) {
+		if (classifySlot == -1) return false;
+		double error = Math.IEEEremainder(SlotPlanner.getCurrentAngleDegrees()
+				- SlotPlanner.colorSensorAngleDegrees(classifySlot), 360.0);
+		if (Math.abs(error) > COLOR_WINDOW_DEGREES) {
+			if (windowEnteredNanos != 0 && currentState != State.DETOUR && currentState != State.CLASSIFY_REMAINING) {
+				// Passed the sensor without a verdict
+				classifySlot = -1;
+			}
+			return false;
+		}
+		if (windowEnteredNanos == 0) windowEnteredNanos = HardwareSnapshot.nowNanos();
+
+		ColorDetector colorDetector = ColorDetector.getInstance();
+		boolean green, purple;
+		if (colorDetector.isAsync()) {
+			// Only samples taken since the slot reached the sensor, as in IntakeBall
+			ColorDetector.Sample sample = colorDetector.getLatestSample();
+			boolean usable = ColorDetector.isFresh(sample) && sample.timestampNanos >= windowEnteredNanos;
+			green = usable && sample.isGreen;
+			purple = usable && sample.isPurple;
+		} else {
+			green = colorDetector.isGreen;
+			purple = colorDetector.isPurple;
+		}
+		if (green) greenCount++;
+		if (purple) purpleCount++;
+		if (Math.max(greenCount, purpleCount) < CLASSIFY_SAMPLES) return false;
+
+		BallColor color = greenCount >= purpleCount ? BallColor.GREEN : BallColor.PURPLE;
+		Spindexer.getInstance().setBallColor(classifySlot, color);
+		packet.put("Detected Color", color.toString());
+		unclassified[classifySlot] = false;
+		classifySlot = -1;
+		return true;
+	}
+
+	private void startClassifying(int slotIndex) {
+		classifySlot = slotIndex;
+		windowEnteredNanos = 0;
+		greenCount = 0;
+		purpleCount = 0;
+	}
+
+	/**
+	 * @return true once the slot has been at the sensor for COLOR_TIMEOUT_SECONDS
+	 */
+	private boolean colorTimedOut() {
+		return windowEnteredNanos != 0
+				&& HardwareSnapshot.nowNanos() - windowEnteredNanos >= COLOR_TIMEOUT_SECONDS * 1e9;
+	}
+
+	/**
+	 * @return true if the shortest move from one slot's intake angle to another's carries the first
+	 * slot past the color sensor
+	 */
+	private static boolean passesColorSensor(int fromSlot, int toSlot) {
+		double move = Math.IEEEremainder(SlotPlanner.intakeAngleDegrees(toSlot)
+				- SlotPlanner.intakeAngleDegrees(fromSlot), 360.0);
+		return move > IntakeBall.COLOR_SENSOR_LOCATION_DEGREES;
+	}
+
+	/**
+	 * Picks the free slot that can be presented soonest, counting the detour to the color sensor
+	 * when the move wouldn't pass it.
+	 *
+	 * @param fromDegrees spindexer angle the move starts from
+	 * @param loadedSlot  slot that was just filled, or -1
+	 * @return slot index, or -1 if none is free
+	 */
+	private int nextSlot(double fromDegrees, int loadedSlot) {
+		int best = -1;
+		double bestTime = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < SLOT_COUNT; i++) {
+			if (filled[i] || !SlotPlanner.isFree(Spindexer.getInstance().getBallColor(i))) continue;
+			double time;
+			if (loadedSlot == -1 || passesColorSensor(loadedSlot, i)) {
+				time = planner.moveTimeSeconds(fromDegrees, SlotPlanner.intakeAngleDegrees(i));
+			} else {
+				double sensor = SlotPlanner.colorSensorAngleDegrees(loadedSlot);
+				time = planner.moveTimeSeconds(fromDegrees, sensor)
+						+ planner.moveTimeSeconds(sensor, SlotPlanner.intakeAngleDegrees(i));
+			}
+			if (time < bestTime) {
+				bestTime = time;
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	private static boolean isAt(double degrees) {
+		double error = Math.IEEEremainder(SlotPlanner.getCurrentAngleDegrees() - degrees, 360.0);
+		return Math.abs(error) < IntakeBall.POSITION_ERROR_TOLERANCE_DEGREES;
+	}
+
+	/**
+	 * @return the state the next run() will execute
+	 */
+	public State getState() {
+		return currentState;
+	}
+
+	public enum State {
+		START,
+		PRESENT_SLOT,
+		WAIT_FOR_BALL,
+		WAIT_BALL_SETTLE,
+		DETOUR,
+		CLASSIFY_REMAINING,
+		DONE
+	}
+}
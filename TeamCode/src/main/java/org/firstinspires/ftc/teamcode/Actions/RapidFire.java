@@ -0,0 +1,196 @@
+package org.firstinspires.ftc.teamcode.Actions;
+
+import androidx.annotation.NonNull;
+
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+import com.acmerobotics.roadrunner.Action;
+
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.Subsystems.Shooter;
+import org.firstinspires.ftc.teamcode.Subsystems.Spindexer;
+import org.firstinspires.ftc.teamcode.Subsystems.Transfer;
+import org.firstinspires.ftc.teamcode.Utilities.BallColor;
+
+/**
+ * Action that shoots every loaded ball as fast as the flywheels recover.
+ * <p>
+ * It owns the Shooter, Transfer and Spindexer for its whole run, so don't schedule Shooter.run()
+ * or move the spindexer alongside it:
+ * 1. SPIN_UP: Plan the shot order with SlotPlanner, align the first slot (ShootBall) while the
+ * flywheels reach targetRPM
+ * 2. FIRING: Run the transfer until Shooter.getDipCount() goes up, which marks the shot; the slot
+ * is set EMPTY
+ * 3. RECOVERING: Shooter.predictRecoverySeconds() says when the flywheels will be back within
+ * tolerance. Once that is no longer than the move to the next slot, start aligning it, so the
+ * ball arrives as the flywheels recover
+ * 4. INDEXING: Align the next slot; a shot seen on the way counts as well, then back to FIRING
+ * 5. DONE: Stop the transfer and the flywheels
+ * <p>
+ * The transfer only runs while the flywheel speed is within FEED_RPM_TOLERANCE of the target, so
+ * a ball that arrives early waits for the flywheels instead of being shot slow. A slot that
+ * doesn't fire within FEED_TIMEOUT_SECONDS keeps its color and is skipped. The spindexer must be
+ * zeroed.
+ */
+public class RapidFire implements Action {
+	public static double FEED_RPM_TOLERANCE = 100; // Transfer runs while within this of the target
+	public static double FEED_TIMEOUT_SECONDS = 0.6; // Longest wait for a shot at an aligned slot
+	public static double FEED_LEAD_SECONDS = 0; // Start indexing this much earlier than predicted
+	// state is the State ordinal; slot the slot being fired or indexed, or -1; predictedMs the
+	// predicted flywheel recovery time
+	private static final DataLog.Record LOG = DataLog.register("rapidFire", "state", "slot", "shots", "predictedMs");
+
+	private final double targetRPM;
+	private final BallColor[] motif;
+	private final SlotPlanner planner = new SlotPlanner();
+	private State currentState = State.START;
+	private Action shooterAction;
+	private int[] order;
+	private int orderIndex = 0;
+	private ShootBall alignment;
+	private int dipCountBaseline;
+	private long feedStartNanos;
+	private int shots = 0;
+
+	/**
+	 * @param targetRPM flywheel speed to shoot at, e.g. Shooter.AUDIENCE_RPM
+	 * @param motif     requested colors in shot order; loaded balls are shot in the quickest order
+	 *                  that matches as much of it as possible
+	 */
+	public RapidFire(double targetRPM, BallColor... motif) {
+		this.targetRPM = targetRPM;
+		this.motif = motif;
+	}
+
+	@Override
+	public boolean run(@NonNull TelemetryPacket packet) {
+		Shooter shooter = Shooter.getInstance();
+		if (currentState != State.START && currentState != State.DONE) {
+			shooterAction.run(packet);
+		}
+		double predictedSeconds = shooter.predictRecoverySeconds(targetRPM);
+		int slot = order != null && orderIndex < order.length ? order[orderIndex] : -1;
+		packet.put("Rapid Fire State", currentState.toString());
+		packet.put("Rapid Fire Slot", slot);
+		packet.put("Rapid Fire Shots", shots);
+		LOG.set(0, currentState.ordinal()).set(1, slot).set(2, shots).set(3, predictedSeconds * 1000).commit();
+
+		switch (currentState) {
+			case START:
+				order = planner.planShootOrder(SlotPlanner.getCurrentAngleDegrees(), SlotPlanner.getSlotColors(), motif);
+				if (order.length == 0) {
+					packet.put("Shooter Status", "No balls loaded");
+					currentState = State.DONE;
+					return false;
+				}
+				shooterAction = shooter.run(targetRPM);
+				shooterAction.run(packet);
+				alignment = new ShootBall(order[0]);
+				currentState = State.SPIN_UP;
+				break;
+
+			case SPIN_UP: {
+				boolean aligning = alignment.run(packet);
+				if (!aligning && shooter.isAtTargetRPM(targetRPM)) {
+					startFiring();
+				}
+				break;
+			}
+
+			case FIRING:
+				if (shotFired()) {
+					nextShot(packet);
+				} else if (HardwareSnapshot.nowNanos() - feedStartNanos >= FEED_TIMEOUT_SECONDS * 1e9) {
+					// Nothing launched: the slot was empty or jammed, so leave its color as it was
+					packet.put("Shooter Status", "Slot did not fire");
+					packet.put("Unfired Slot", slot);
+					orderIndex++;
+					startNextSlot(packet);
+				}
+				break;
+
+			case RECOVERING: {
+				double moveSeconds = planner.moveTimeSeconds(SlotPlanner.getCurrentAngleDegrees(),
+						SlotPlanner.shootAngleDegrees(slot));
+				if (predictedSeconds <= moveSeconds + FEED_LEAD_SECONDS) {
+					alignment = new ShootBall(slot);
+					currentState = State.INDEXING;
+				}
+				break;
+			}
+
+			case INDEXING:
+				if (shotFired()) {
+					// Launched while still turning into line
+					nextShot(packet);
+				} else if (!alignment.run(packet)) {
+					startFiring();
+				}
+				break;
+
+			case DONE:
+				return false;
+		}
+		if (currentState == State.DONE) return false;
+
+		// A ball that arrives before the flywheels have recovered waits for them
+		boolean feeding = currentState != State.SPIN_UP
+				&& Math.abs(shooter.averageRPM - targetRPM) <= FEED_RPM_TOLERANCE;
+		Transfer.getInstance().setTransferPower(feeding ? Transfer.FORWARD_POWER : Transfer.STOP_POWER);
+		return true;
+	}
+
+	private void startFiring() {
+		dipCountBaseline = Shooter.getInstance().getDipCount();
+		feedStartNanos = HardwareSnapshot.nowNanos();
+		currentState = State.FIRING;
+	}
+
+	/**
+	 * @return true if the flywheels have dipped since the last shot or since firing started
+	 */
+	private boolean shotFired() {
+		return Shooter.getInstance().getDipCount() > dipCountBaseline;
+	}
+
+	private void nextShot(TelemetryPacket packet) {
+		Spindexer.getInstance().setBallColor(order[orderIndex], BallColor.EMPTY);
+		shots++;
+		dipCountBaseline = Shooter.getInstance().getDipCount();
+		orderIndex++;
+		startNextSlot(packet);
+	}
+
+	private void startNextSlot(TelemetryPacket packet) {
+		if (orderIndex >= order.length) {
+			Transfer.getInstance().setTransferPower(Transfer.STOP_POWER);
+			Shooter.getInstance().stop().run(packet);
+			currentState = State.DONE;
+		} else {
+			currentState = State.RECOVERING;
+		}
+	}
+
+	/**
+	 * @return number of shots detected so far
+	 */
+	public int getShots() {
+		return shots;
+	}
+
+	/**
+	 * @return the state the next run() will execute
+	 */
+	public State getState() {
+		return currentState;
+	}
+
+	public enum State {
+		START,
+		SPIN_UP,
+		FIRING,
+		RECOVERING,
+		INDEXING,
+		DONE
+	}
+}
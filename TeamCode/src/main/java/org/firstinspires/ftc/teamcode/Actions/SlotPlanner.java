@@ -0,0 +1,272 @@
+package org.firstinspires.ftc.teamcode.Actions;
+
+import androidx.annotation.NonNull;
+
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+import com.acmerobotics.roadrunner.Action;
+import com.acmerobotics.roadrunner.SequentialAction;
+
+import org.firstinspires.ftc.teamcode.Subsystems.Spindexer;
+import org.firstinspires.ftc.teamcode.Utilities.BallColor;
+import org.firstinspires.ftc.teamcode.Utilities.MotionProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Plans the order in which spindexer slots are filled or shot so the total rotation time is
+ * as short as possible.
+ * <p>
+ * Every candidate order (at most 3! = 6) is scored by summing the time of each shortest-path
+ * move, using the spindexer's current motion profile limits, so the plan matches how the moves
+ * will actually run. Shoot orders are first ranked by how well they match a requested color
+ * order (the DECODE motif), then by time.
+ * <p>
+ * Slot geometry, as spindexer angles:
+ * - Intake: slot * 120
+ * - Color sensor: slot * 120 + COLOR_SENSOR_LOCATION_DEGREES
+ * - Shooter: slot * 120 + SHOOTER_ALIGNMENT_DEGREES
+ * <p>
+ * To use:
+ * - intakeAll() / shootAll(...) return Actions that plan when they first run, then execute
+ * - IntakeBall and ShootBall use the first slot of a plan when no slot is given
+ */
+public class SlotPlanner {
+	public static final double SLOT_SPACING_DEGREES = 120.0;
+	public static final double SHOOTER_ALIGNMENT_DEGREES = 131.011;
+	private static final int SLOT_COUNT = 3;
+	// Every ordering of the three slots; unusable slots are filtered out per plan
+	private static final int[][] ORDERS = {
+			{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+	};
+
+	// Scratch profile used only to time moves
+	private final MotionProfile profile = new MotionProfile(MotionProfile.Shape.S_CURVE, 0, 0, 0);
+
+	public static double intakeAngleDegrees(int slot) {
+		return slot * SLOT_SPACING_DEGREES;
+	}
+
+	public static double colorSensorAngleDegrees(int slot) {
+		return slot * SLOT_SPACING_DEGREES + IntakeBall.COLOR_SENSOR_LOCATION_DEGREES;
+	}
+
+	public static double shootAngleDegrees(int slot) {
+		return (slot * SLOT_SPACING_DEGREES + SHOOTER_ALIGNMENT_DEGREES) % 360.0;
+	}
+
+	/**
+	 * @return the spindexer angle in [0, 360)
+	 */
+	public static double getCurrentAngleDegrees() {
+		double ticks = Spindexer.getInstance().getCurrentPositionTicks();
+		double degrees = (ticks % Spindexer.TICKS_PER_REV) / Spindexer.TICKS_PER_REV * 360;
+		return degrees < 0 ? degrees + 360 : degrees;
+	}
+
+	/**
+	 * @return true if a slot can take a ball (EMPTY, or UNKNOWN as IntakeBall treats it)
+	 */
+	public static boolean isFree(BallColor color) {
+		return color == BallColor.EMPTY || color == BallColor.UNKNOWN;
+	}
+
+	/**
+	 * @return true if a slot holds a ball that can be shot, including one of UNKNOWN color
+	 */
+	public static boolean isLoaded(BallColor color) {
+		return color != BallColor.EMPTY;
+	}
+
+	/**
+	 * Estimates how long the spindexer takes to rotate between two angles the shortest way.
+	 *
+	 * @return move time in seconds
+	 */
+	public double moveTimeSeconds(double fromDegrees, double toDegrees) {
+		double distance = Math.abs(Math.IEEEremainder(toDegrees - fromDegrees, 360.0));
+		if (distance < 1e-9) return 0;
+		profile.setConstraints(Spindexer.PROFILE_SHAPE, Spindexer.MAX_VELOCITY_DEG_PER_SEC,
+				Spindexer.MAX_ACCEL_DEG_PER_SEC2, Spindexer.MAX_JERK_DEG_PER_SEC3);
+		profile.reset(0);
+		profile.setGoal(distance);
+		return profile.getTotalTime();
+	}
+
+	/**
+	 * Orders the free slots for intaking. Each ball is taken at the slot's intake angle, then
+	 * checked at its color sensor angle before moving on.
+	 *
+	 * @param currentDegrees spindexer angle
+	 * @param slotColors     color of each slot
+	 * @return free slots in the order to fill them (empty if all slots are full)
+	 */
+	public int[] planIntakeOrder(double currentDegrees, BallColor[] slotColors) {
+		int[] best = new int[0];
+		double bestTime = Double.POSITIVE_INFINITY;
+		for (int[] order : ORDERS) {
+			int[] candidate = filter(order, slotColors, true);
+			double time = 0;
+			double angle = currentDegrees;
+			for (int slot : candidate) {
+				time += moveTimeSeconds(angle, intakeAngleDegrees(slot));
+				time += moveTimeSeconds(intakeAngleDegrees(slot), colorSensorAngleDegrees(slot));
+				angle = colorSensorAngleDegrees(slot);
+			}
+			if (time < bestTime) {
+				bestTime = time;
+				best = candidate;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Orders the loaded slots for shooting. Orders that follow the motif win; among equally good
+	 * matches the one with the least rotation wins. UNKNOWN balls are shot but never count as a
+	 * match.
+	 *
+	 * @param currentDegrees spindexer angle
+	 * @param slotColors     color of each slot
+	 * @param motif          requested colors in shot order; may be empty or shorter than the plan
+	 * @return loaded slots in the order to shoot them (empty if no balls are loaded)
+	 */
+	public int[] planShootOrder(double currentDegrees, BallColor[] slotColors, BallColor... motif) {
+		int[] best = new int[0];
+		int bestMatches = -1;
+		double bestTime = Double.POSITIVE_INFINITY;
+		for (int[] order : ORDERS) {
+			int[] candidate = filter(order, slotColors, false);
+			int matches = 0;
+			double time = 0;
+			double angle = currentDegrees;
+			for (int i = 0; i < candidate.length; i++) {
+				int slot = candidate[i];
+				if (i < motif.length && motif[i] != null && slotColors[slot] == motif[i]) {
+					matches++;
+				}
+				time += moveTimeSeconds(angle, shootAngleDegrees(slot));
+				angle = shootAngleDegrees(slot);
+			}
+			if (matches > bestMatches || (matches == bestMatches && time < bestTime)) {
+				bestMatches = matches;
+				bestTime = time;
+				best = candidate;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Finds the slot that can be aligned with the shooter soonest, whatever it holds.
+	 *
+	 * @param currentDegrees spindexer angle
+	 * @return slot index (0, 1, or 2)
+	 */
+	public int closestShootSlot(double currentDegrees) {
+		int closest = 0;
+		double closestTime = Double.POSITIVE_INFINITY;
+		for (int slot = 0; slot < SLOT_COUNT; slot++) {
+			double time = moveTimeSeconds(currentDegrees, shootAngleDegrees(slot));
+			if (time < closestTime) {
+				closestTime = time;
+				closest = slot;
+			}
+		}
+		return closest;
+	}
+
+	/**
+	 * Keeps the slots of an order that are free (for intake) or loaded (for shooting).
+	 */
+	private static int[] filter(int[] order, BallColor[] slotColors, boolean intake) {
+		int count = 0;
+		for (int slot : order) {
+			if (intake ? isFree(slotColors[slot]) : isLoaded(slotColors[slot])) count++;
+		}
+		int[] result = new int[count];
+		int i = 0;
+		for (int slot : order) {
+			if (intake ? isFree(slotColors[slot]) : isLoaded(slotColors[slot])) result[i++] = slot;
+		}
+		return result;
+	}
+
+	/**
+	 * @return a snapshot of the spindexer's slot colors
+	 */
+	public static BallColor[] getSlotColors() {
+		BallColor[] colors = new BallColor[SLOT_COUNT];
+		for (int i = 0; i < SLOT_COUNT; i++) {
+			colors[i] = Spindexer.getInstance().getBallColor(i);
+		}
+		return colors;
+	}
+
+	/**
+	 * Returns an Action that fills every free slot, in the planned order, with one IntakeBall
+	 * per slot. The plan is made when the Action first runs.
+	 *
+	 * @return Action that intakes until the spindexer is full
+	 */
+	public Action intakeAll() {
+		return new PlannedAction() {
+			@Override
+			protected Action plan() {
+				int[] order = planIntakeOrder(getCurrentAngleDegrees(), getSlotColors());
+				List<Action> actions = new ArrayList<>();
+				for (int slot : order) {
+					actions.add(new IntakeBall(slot));
+				}
+				return new SequentialAction(actions);
+			}
+		};
+	}
+
+	/**
+	 * Returns an Action that shoots every loaded slot in the planned order. For each slot it
+	 * aligns the slot with the shooter (ShootBall), runs a fresh Action from {@code fire}, then
+	 * marks the slot EMPTY. The plan is made when the Action first runs.
+	 *
+	 * @param fire  creates the Action that launches the aligned ball (e.g. run the transfer and
+	 *              wait for the RPM dip)
+	 * @param motif requested colors in shot order
+	 * @return Action that empties the spindexer
+	 */
+	public Action shootAll(Supplier<Action> fire, BallColor... motif) {
+		return new PlannedAction() {
+			@Override
+			protected Action plan() {
+				int[] order = planShootOrder(getCurrentAngleDegrees(), getSlotColors(), motif);
+				List<Action> actions = new ArrayList<>();
+				for (int slot : order) {
+					actions.add(new ShootBall(slot));
+					actions.add(fire.get());
+					actions.add(telemetryPacket -> {
+						Spindexer.getInstance().setBallColor(slot, BallColor.EMPTY);
+						return false;
+					});
+				}
+				return new SequentialAction(actions);
+			}
+		};
+	}
+
+	/**
+	 * Action that builds its steps from the robot state the first time it runs.
+	 */
+	private abstract static class PlannedAction implements Action {
+		private Action planned = null;
+
+		protected abstract Action plan();
+
+		@Override
+		public boolean run(@NonNull TelemetryPacket packet) {
+			if (planned == null) {
+				planned = plan();
+			}
+			return planned.run(packet);
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package org.firstinspires.ftc.teamcode.LifecycleManagementUtilities;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.qualcomm.robotcore.hardware.DcMotorSimple;
+import com.qualcomm.robotcore.hardware.HardwareDevice;
+import com.qualcomm.robotcore.hardware.Servo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Output stage that coalesces motor and servo commands into at most one write per actuator per
+ * loop, the counterpart of {@link HardwareSnapshot} for outputs.
+ * <p>
+ * Subsystems write to an {@link Output} instead of the device. While the stage is active, set()
+ * only records the value; flush() then writes each actuator whose value moved more than the
+ * epsilon since the last write, walking the actuators grouped by hub and port so consecutive
+ * commands go to the same hub. Setting the same power several times in a loop, or every loop,
+ * costs one hub transaction at most, and usually none.
+ * <p>
+ * Until flush() has been called in the current OpMode, set() writes straight through, so OpModes
+ * that don't use the stage behave exactly as before. The current OpMode starts at initialize(),
+ * or at reset() for OpModes that skip HardwareInitializer; MecanumDrive calls reset() when it is
+ * built, so a stage left active by an OpMode that never shut down can't swallow the drive's
+ * writes.
+ * <p>
+ * The cache only knows about writes made through it. Anything that writes an actuator directly
+ * must call invalidate() on its Output afterwards. Every Output is invalidated when
+ * HardwareInitializer runs, since the SDK zeroes actuators between OpModes.
+ * <p>
+ * To use:
+ * 1. HardwareInitializer.initialize(hardwareMap) initializes the stage
+ * 2. Subsystems create their Outputs with ActuatorOutputs.of(device) and write through them
+ * 3. Call ActuatorOutputs.getInstance().flush() last thing in every loop
+ */
+@Config
+public class ActuatorOutputs {
+	// Smallest change worth a write: motor and CR servo power, and servo position
+	public static double POWER_EPSILON = 0.002;
+	public static double POSITION_EPSILON = 0.001;
+
+	private static ActuatorOutputs instance = null;
+
+	// Sorted by connection info, i.e. by hub and then port
+	private final List<Output> outputs = new ArrayList<>();
+	private boolean active = false;
+	private int setsSinceFlush = 0;
+	private int lastWritesIssued = 0;
+	private int lastWritesSaved = 0;
+	private long totalWritesIssued = 0;
+	private long totalWritesSaved = 0;
+
+	private ActuatorOutputs() {
+	}
+
+	public static void initialize() {
+		if (instance == null) {
+			instance = new ActuatorOutputs();
+		}
+		reset();
+	}
+
+	/**
+	 * Starts a new OpMode: set() writes straight through again until the next flush(). Commands
+	 * the last OpMode left unsent are dropped rather than flushed, and every Output is
+	 * invalidated, since the SDK has stopped the actuators since then.
+	 */
+	public static void reset() {
+		if (instance == null) return;
+		instance.active = false;
+		instance.setsSinceFlush = 0;
+		for (Output output : instance.outputs) {
+			output.hasPending = false;
+			output.invalidate();
+		}
+	}
+
+	public static ActuatorOutputs getInstance() {
+		if (instance == null) {
+			throw new IllegalStateException("ActuatorOutputs not initialized. Call initialize() first.");
+		}
+		return instance;
+	}
+
+	/**
+	 * @return true if flush() has been called in the current OpMode, so set() is coalesced
+	 */
+	public static boolean isActive() {
+		return instance != null && instance.active;
+	}
+
+	public static void shutdown() {
+		if (instance != null && instance.active) {
+			// Don't leave commands from the last loop unsent
+			instance.flush();
+			instance.active = false;
+		}
+	}
+
+	/**
+	 * Returns the Output for a motor or CR servo. The same device always gets the same Output, so
+	 * several users of one actuator share one cache. Before initialize() the Output just writes
+	 * through.
+	 */
+	public static Output of(DcMotorSimple motor) {
+		return register(motor, motor, null);
+	}
+
+	/**
+	 * Returns the Output for a positional servo.
+	 *
+	 * @see #of(DcMotorSimple)
+	 */
+	public static Output of(Servo servo) {
+		return register(servo, null, servo);
+	}
+
+	private static Output register(HardwareDevice device, DcMotorSimple motor, Servo servo) {
+		if (instance == null) {
+			return new Output(null, device, motor, servo);
+		}
+		List<Output> outputs = instance.outputs;
+		for (Output output : outputs) {
+			if (output.device == device) return output;
+		}
+		Output output = new Output(instance, device, motor, servo);
+		int index = 0;
+		while (index < outputs.size() && outputs.get(index).sortKey.compareTo(output.sortKey) <= 0) {
+			index++;
+		}
+		outputs.add(index, output);
+		return output;
+	}
+
+	/**
+	 * Writes every changed actuator. Call once, last thing in the loop.
+	 */
+	public void flush() {
+		active = true;
+		int issued = 0;
+		for (int i = 0; i < outputs.size(); i++) {
+			if (outputs.get(i).flush()) issued++;
+		}
+		lastWritesIssued = issued;
+		lastWritesSaved = Math.max(0, setsSinceFlush - issued);
+		totalWritesIssued += issued;
+		totalWritesSaved += lastWritesSaved;
+		setsSinceFlush = 0;
+	}
+
+	/**
+	 * @return hardware writes made by the last flush()
+	 */
+	public int getWritesIssued() {
+		return lastWritesIssued;
+	}
+
+	/**
+	 * @return set() calls coalesced or suppressed by the last flush()
+	 */
+	public int getWritesSaved() {
+		return lastWritesSaved;
+	}
+
+	/**
+	 * @return hardware writes made by flush() since initialization
+	 */
+	public long getTotalWritesIssued() {
+		return totalWritesIssued;
+	}
+
+	/**
+	 * @return writes avoided since initialization
+	 */
+	public long getTotalWritesSaved() {
+		return totalWritesSaved;
+	}
+
+	/**
+	 * Last commanded value of one actuator.
+	 */
+	public static final class Output {
+		private final ActuatorOutputs stage;
+		private final HardwareDevice device;
+		private final DcMotorSimple motor;
+		private final Servo servo;
+		private final String sortKey;
+		private double pending = 0;
+		private double written = 0;
+		private boolean hasPending = false;
+		private boolean hasWritten = false;
+
+		private Output(ActuatorOutputs stage, HardwareDevice device, DcMotorSimple motor, Servo servo) {
+			this.stage = stage;
+			this.device = device;
+			this.motor = motor;
+			this.servo = servo;
+			String connection = device.getConnectionInfo();
+			this.sortKey = connection != null ? connection : "";
+		}
+
+		/**
+		 * Commands a power (motors, CR servos) or position (servos). While the stage is active the
+		 * write happens at the next flush(), and only if the value changed by more than the epsilon.
+		 */
+		public void set(double value) {
+			if (stage == null || !stage.active) {
+				write(value);
+				return;
+			}
+			pending = value;
+			hasPending = true;
+			stage.setsSinceFlush++;
+		}
+
+		/**
+		 * @return the value that will be written at the next flush, or the last value written
+		 */
+		public double get() {
+			return hasPending ? pending : written;
+		}
+
+		/**
+		 * Forgets the last written value, so the next set() is always written. Call after writing
+		 * the device directly.
+		 */
+		public void invalidate() {
+			hasWritten = false;
+		}
+
+		private boolean flush() {
+			if (!hasPending) return false;
+			hasPending = false;
+			double epsilon = servo != null ? POSITION_EPSILON : POWER_EPSILON;
+			// Always send exact stops and limits, even when they're within epsilon
+			boolean exact = pending == 0 || Math.abs(pending) == 1;
+			if (hasWritten && (exact ? pending == written : Math.abs(pending - written) <= epsilon)) {
+				return false;
+			}
+			write(pending);
+			return true;
+		}
+
+		private void write(double value) {
+			if (motor != null) {
+				motor.setPower(value);
+			} else {
+				servo.setPosition(value);
+			}
+			written = value;
+			hasWritten = true;
+		}
+	}
+}
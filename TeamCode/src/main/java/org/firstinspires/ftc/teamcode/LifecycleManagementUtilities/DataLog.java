@@ -0,0 +1,297 @@
+package org.firstinspires.ftc.teamcode.LifecycleManagementUtilities;
+
+import com.acmerobotics.dashboard.config.Config;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Full-rate binary log of subsystem state, written to a preallocated memory-mapped ring file.
+ * <p>
+ * Each subsystem registers a {@link Record} with a fixed list of columns once, then sets the
+ * columns and commits the record every loop. A commit copies one timestamp and the column values
+ * straight into the mapped file: nothing is allocated, and no system call is made, because the
+ * OS writes the pages back in the background. That also means the data survives a crash of the
+ * app. Once the ring is full the oldest blocks are overwritten.
+ * <p>
+ * Files go to FIRST/datalogs/datalog-&lt;date&gt;-&lt;time&gt;.bin, one per OpMode, and the newest
+ * KEEP_FILES are kept. Decode one on a desktop with DataLogDecoder, in the simulation module, which
+ * writes a CSV per record.
+ * <p>
+ * File layout (big-endian):
+ * - Header, HEADER_SIZE bytes: magic, version, header size, block size, ring size, bytes written,
+ * start time (wall clock ms and System.nanoTime()), then each record's id, name and column names
+ * - Ring of BLOCK_SIZE blocks. A record is a short id, a long timestamp (ns) and a float per
+ * column, and never spans two blocks; id 0 pads the rest of a block
+ * <p>
+ * To use:
+ * 1. HardwareInitializer.initialize(hardwareMap) opens a new file
+ * 2. Register once: private static final DataLog.Record LOG = DataLog.register("name", "a", "b")
+ * 3. Every loop: LOG.set(0, a).set(1, b).commit()
+ * 4. HardwareShutdown.shutdown() closes the file
+ */
+@Config
+public class DataLog {
+	public static boolean ENABLED = true;
+	// Ring size; at a few hundred bytes per loop this holds several matches
+	public static int RING_SIZE_MB = 16;
+	public static int KEEP_FILES = 10;
+
+	static final int MAGIC = 0x444C4F47; // "DLOG"
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16 * 1024;
+	static final int BLOCK_SIZE = 4096;
+	static final int BYTES_WRITTEN_OFFSET = 24;
+	static final int SCHEMA_OFFSET = 48;
+	// Record id and timestamp
+	static final int RECORD_HEADER_SIZE = 2 + 8;
+
+	private static DataLog instance = null;
+	// Registered records, kept across OpModes since subsystems register them only once
+	private static final List<Record> records = new ArrayList<>();
+
+	private final File file;
+	private final RandomAccessFile raf;
+	private final MappedByteBuffer buffer;
+	private final long ringSize;
+	private long bytesWritten = 0;
+	private boolean open = true;
+
+	private DataLog(File file, long ringSize) throws IOException {
+		this.file = file;
+		this.ringSize = ringSize;
+		raf = new RandomAccessFile(file, "rw");
+		raf.setLength(HEADER_SIZE + ringSize);
+		buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + ringSize);
+		buffer.putInt(0, MAGIC);
+		buffer.putInt(4, VERSION);
+		buffer.putInt(8, HEADER_SIZE);
+		buffer.putInt(12, BLOCK_SIZE);
+		buffer.putLong(16, ringSize);
+		buffer.putLong(BYTES_WRITTEN_OFFSET, 0);
+		buffer.putLong(32, System.currentTimeMillis());
+		buffer.putLong(40, System.nanoTime());
+		writeSchemas();
+	}
+
+	/**
+	 * Opens a new log file, closing the previous one. If the file can't be created, or ENABLED is
+	 * false, commits do nothing until the next initialize().
+	 */
+	public static void initialize() {
+		shutdown();
+		instance = null;
+		if (!ENABLED) return;
+		try {
+			File logDir = new File(AppUtil.FIRST_FOLDER, "datalogs");
+			if (!logDir.isDirectory() && !logDir.mkdirs()) return;
+			pruneOldFiles(logDir);
+			String name = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+			// Positions in the mapped buffer are ints, so the ring stays under 2 GB
+			long ringSize = Math.max(1, Math.min(1024, RING_SIZE_MB)) * 1024L * 1024L;
+			instance = new DataLog(new File(logDir, "datalog-" + name + ".bin"), ringSize);
+		} catch (IOException | RuntimeException | LinkageError e) {
+			// Logging is optional; the robot runs the same without it. Off the robot (simulation,
+			// replay) there is no FIRST folder and AppUtil can't even load.
+			instance = null;
+		}
+	}
+
+	public static DataLog getInstance() {
+		if (instance == null) {
+			throw new IllegalStateException("DataLog not initialized. Call initialize() first.");
+		}
+		return instance;
+	}
+
+	/**
+	 * @return true if a log file is open, so commits are written
+	 */
+	public static boolean isActive() {
+		return instance != null && instance.open;
+	}
+
+	public static void shutdown() {
+		if (instance != null) {
+			instance.close();
+		}
+	}
+
+	/**
+	 * Registers a record type, or returns the existing one with the same name and columns.
+	 * Register once, outside the loop, e.g. in a static field or initialize().
+	 *
+	 * @param name    record name, which becomes the CSV file name
+	 * @param columns column names, in the order of set()'s index
+	 */
+	public static Record register(String name, String... columns) {
+		synchronized (records) {
+			for (Record record : records) {
+				if (record.name.equals(name)) {
+					if (!Arrays.equals(record.columns, columns)) {
+						throw new IllegalArgumentException("Record " + name + " already registered with other columns");
+					}
+					return record;
+				}
+			}
+			if (RECORD_HEADER_SIZE + 4 * columns.length > BLOCK_SIZE) {
+				throw new IllegalArgumentException("Record " + name + " has too many columns");
+			}
+			Record record = new Record((short) (records.size() + 1), name, columns.clone());
+			records.add(record);
+			if (instance != null && instance.open) {
+				instance.writeSchemas();
+			}
+			return record;
+		}
+	}
+
+	/**
+	 * @return the file being written
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return bytes committed since the file was opened, including any that were overwritten
+	 */
+	public synchronized long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	private synchronized void writeSchemas() {
+		buffer.position(SCHEMA_OFFSET);
+		buffer.putInt(records.size());
+		for (Record record : records) {
+			int size = 2 + utfSize(record.name) + 2;
+			for (String column : record.columns) {
+				size += utfSize(column);
+			}
+			if (buffer.position() + size > HEADER_SIZE) {
+				throw new IllegalStateException("DataLog header is full; too many records or columns");
+			}
+			buffer.putShort(record.id);
+			putUtf(record.name);
+			buffer.putShort((short) record.columns.length);
+			for (String column : record.columns) {
+				putUtf(column);
+			}
+		}
+	}
+
+	private static int utfSize(String s) {
+		return 2 + s.getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	private void putUtf(String s) {
+		byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+		buffer.putShort((short) bytes.length);
+		buffer.put(bytes);
+	}
+
+	private synchronized void write(Record record, long timestampNanos) {
+		if (!open) return;
+		int size = RECORD_HEADER_SIZE + 4 * record.values.length;
+		int offsetInBlock = (int) (bytesWritten % BLOCK_SIZE);
+		if (offsetInBlock + size > BLOCK_SIZE) {
+			// Pad to the next block so records never span two
+			buffer.putShort(HEADER_SIZE + (int) (bytesWritten % ringSize), (short) 0);
+			bytesWritten += BLOCK_SIZE - offsetInBlock;
+		}
+
+		int position = HEADER_SIZE + (int) (bytesWritten % ringSize);
+		buffer.putShort(position, record.id);
+		buffer.putLong(position + 2, timestampNanos);
+		position += RECORD_HEADER_SIZE;
+		for (float value : record.values) {
+			buffer.putFloat(position, value);
+			position += 4;
+		}
+		bytesWritten += size;
+		buffer.putLong(BYTES_WRITTEN_OFFSET, bytesWritten);
+	}
+
+	private synchronized void close() {
+		if (!open) return;
+		open = false;
+		buffer.force();
+		try {
+			raf.close();
+		} catch (IOException e) {
+			// Everything is already in the mapped file
+		}
+	}
+
+	private static void pruneOldFiles(File logDir) {
+		File[] files = logDir.listFiles((dir, name) -> name.startsWith("datalog-") && name.endsWith(".bin"));
+		if (files == null) return;
+		// Names sort by date; leave room for the file about to be created
+		Arrays.sort(files);
+		for (int i = 0; i < files.length - Math.max(0, KEEP_FILES - 1); i++) {
+			files[i].delete();
+		}
+	}
+
+	/**
+	 * A fixed-schema record. Set the columns, then commit() to write one row.
+	 */
+	public static final class Record {
+		private final short id;
+		private final String name;
+		private final String[] columns;
+		private final float[] values;
+
+		private Record(short id, String name, String[] columns) {
+			this.id = id;
+			this.name = name;
+			this.columns = columns;
+			this.values = new float[columns.length];
+		}
+
+		/**
+		 * Sets a column for the next commit. Columns keep their value until set again.
+		 */
+		public Record set(int column, double value) {
+			values[column] = (float) value;
+			return this;
+		}
+
+		public Record set(int column, boolean value) {
+			values[column] = value ? 1 : 0;
+			return this;
+		}
+
+		/**
+		 * Writes the row, timestamped with this loop's HardwareSnapshot frame when it's active.
+		 */
+		public void commit() {
+			if (!isActive()) return;
+			commit(HardwareSnapshot.isActive()
+					? HardwareSnapshot.getInstance().getFrame().getTimestampNanos()
+					: System.nanoTime());
+		}
+
+		/**
+		 * Writes the row with a given System.nanoTime() timestamp.
+		 */
+		public void commit(long timestampNanos) {
+			DataLog log = instance;
+			if (log != null) {
+				log.write(this, timestampNanos);
+			}
+		}
+	}
+}
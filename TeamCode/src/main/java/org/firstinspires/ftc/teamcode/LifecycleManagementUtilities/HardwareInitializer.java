@@ -15,6 +15,15 @@ import org.firstinspires.ftc.teamcode.Subsystems.Transfer;
  */
 public class HardwareInitializer {
 	public static void initialize(HardwareMap hardwareMap) {
+		// The snapshot must exist before any subsystem reads sensors
+		HardwareSnapshot.initialize(hardwareMap);
+		// Subsystems register their actuators with the output stage as they initialize
+		ActuatorOutputs.initialize();
+		// Opens this OpMode's log file; subsystems commit their records to it every loop
+		DataLog.initialize();
+		// Starts the background writer of the state handed to the next OpMode
+		RobotStateStore.initialize();
+
 		// Initialize subsystems with no dependencies first
 		ColorDetector.initialize(hardwareMap);
 		Transfer.initialize(hardwareMap);
@@ -1,5 +1,6 @@
 package org.firstinspires.ftc.teamcode.LifecycleManagementUtilities;
 
+import org.firstinspires.ftc.teamcode.Roadrunner.PinpointLocalizer;
 import org.firstinspires.ftc.teamcode.Subsystems.ColorDetector;
 import org.firstinspires.ftc.teamcode.Subsystems.Intake;
 import org.firstinspires.ftc.teamcode.Subsystems.RGBIndicator;
@@ -13,6 +14,8 @@ import org.firstinspires.ftc.teamcode.Subsystems.Transfer;
  */
 public class HardwareShutdown {
 	public static void shutdown() {
+		// Save the state for the next OpMode while every subsystem can still be read
+		RobotStateStore.shutdown();
 		// Shut down in reverse order of initialization
 		Spindexer.shutdown();
 		RGBIndicator.shutdown();
@@ -20,5 +23,9 @@ public class HardwareShutdown {
 		Shooter.shutdown();
 		Transfer.shutdown();
 		ColorDetector.shutdown();
+		PinpointLocalizer.shutdown();
+		ActuatorOutputs.shutdown();
+		DataLog.shutdown();
+		HardwareSnapshot.shutdown();
 	}
 }
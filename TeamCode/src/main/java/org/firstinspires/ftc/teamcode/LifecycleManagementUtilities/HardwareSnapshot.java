@@ -0,0 +1,349 @@
+package org.firstinspires.ftc.teamcode.LifecycleManagementUtilities;
+
+import com.qualcomm.hardware.lynx.LynxModule;
+import com.qualcomm.robotcore.hardware.ColorSensor;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.TouchSensor;
+
+import java.util.List;
+
+/**
+ * Reads every hub-attached sensor once at the top of the loop and publishes the values as a
+ * per-loop {@link Frame} that all subsystems read from.
+ * <p>
+ * On the first update() the Lynx modules are switched to MANUAL bulk caching. Each update()
+ * clears the bulk cache, so the first read on each hub issues exactly one bulk read and every
+ * other encoder, velocity or digital read that loop (including reads made directly by other
+ * code) is served from that cache. Unlike AUTO mode, reading a channel twice never triggers a
+ * second bulk read.
+ * <p>
+ * I2C color sensors are not part of the bulk read. They are read at most once per loop, the
+ * first time a frame color value is requested, so loops that don't use color pay nothing.
+ * <p>
+ * Frames are double-buffered and reused: a frame is only valid until the next update(), so
+ * don't keep a reference to one across loops.
+ * <p>
+ * Each finished frame (including any colors read) is committed to the DataLog "frame" record at
+ * the next update(), and replay() loads one back, so LogReplay can run the subsystems on recorded
+ * inputs. Loop code that needs the time should use nowNanos(), which is the frame time while the
+ * snapshot is active, so a replay sees the same times as the match did.
+ * <p>
+ * To use:
+ * 1. HardwareInitializer.initialize(hardwareMap) initializes the snapshot
+ * 2. Call HardwareSnapshot.getInstance().update() first thing in every loop
+ * 3. Subsystems read HardwareSnapshot.getInstance().getFrame() while isActive() is true
+ */
+public class HardwareSnapshot {
+	private static HardwareSnapshot instance = null;
+	// Raw inputs of each frame; the column order is what replay() reads
+	private static final DataLog.Record LOG = DataLog.register("frame",
+			"spindexerPosition", "upperShooterPosition", "lowerShooterPosition",
+			"upperShooterVelocity", "lowerShooterVelocity",
+			"spindexerZeroPressed", "touchLeftPressed", "touchRightPressed",
+			"colorRead", "leftRed", "leftGreen", "leftBlue", "rightRed", "rightGreen", "rightBlue");
+
+	private List<LynxModule> modules;
+	private DcMotorEx spindexerEncoder;
+	private DcMotorEx upperShooter;
+	private DcMotorEx lowerShooter;
+	private TouchSensor spindexerZero;
+	private TouchSensor touchLeft;
+	private TouchSensor touchRight;
+	private ColorSensor colourLeft;
+	private ColorSensor colourRight;
+
+	private Frame current = new Frame();
+	private Frame back = new Frame();
+	private long frameNumber = 0;
+	private boolean active = false;
+	private int colorReadCount = 0;
+
+	private HardwareSnapshot() {
+	}
+
+	public static void initialize(HardwareMap hardwareMap) {
+		if (instance == null) {
+			instance = new HardwareSnapshot();
+			instance.modules = hardwareMap.getAll(LynxModule.class);
+			instance.spindexerEncoder = hardwareMap.get(DcMotorEx.class, "rearRight");
+			instance.upperShooter = hardwareMap.get(DcMotorEx.class, "upperShooter");
+			instance.lowerShooter = hardwareMap.get(DcMotorEx.class, "lowerShooter");
+			instance.spindexerZero = hardwareMap.get(TouchSensor.class, "spindexerZero");
+			instance.colourLeft = hardwareMap.get(ColorSensor.class, "colourLeft");
+			instance.colourRight = hardwareMap.get(ColorSensor.class, "colourRight");
+			// Intake touch sensors are optional; not every configuration has them
+			instance.touchLeft = hardwareMap.tryGet(TouchSensor.class, "touchLeft");
+			instance.touchRight = hardwareMap.tryGet(TouchSensor.class, "touchRight");
+		}
+		// Each OpMode opts in again by calling update(); undo MANUAL mode left over from an
+		// OpMode that never called HardwareShutdown
+		shutdown();
+	}
+
+	public static HardwareSnapshot getInstance() {
+		if (instance == null) {
+			throw new IllegalStateException("HardwareSnapshot not initialized. Call initialize(hardwareMap) first.");
+		}
+		return instance;
+	}
+
+	/**
+	 * @return true if update() has been called in the current OpMode, so subsystems should read
+	 * from the frame instead of the hardware
+	 */
+	public static boolean isActive() {
+		return instance != null && instance.active;
+	}
+
+	/**
+	 * @return the current frame's timestamp while the snapshot is active, else System.nanoTime()
+	 */
+	public static long nowNanos() {
+		return isActive() ? instance.current.timestampNanos : System.nanoTime();
+	}
+
+	public static void shutdown() {
+		if (instance != null && instance.active) {
+			// Leave the hubs the way MecanumDrive expects them
+			for (LynxModule module : instance.modules) {
+				module.setBulkCachingMode(LynxModule.BulkCachingMode.AUTO);
+			}
+			instance.active = false;
+		}
+	}
+
+	/**
+	 * Clears the bulk cache and captures a new frame. Call once, first thing in the loop.
+	 */
+	public void update() {
+		if (active) {
+			// The previous frame is complete now, colors included
+			logFrame(current);
+		} else {
+			for (LynxModule module : modules) {
+				module.setBulkCachingMode(LynxModule.BulkCachingMode.MANUAL);
+			}
+			active = true;
+		}
+		for (LynxModule module : modules) {
+			module.clearBulkCache();
+		}
+
+		Frame frame = back;
+		frame.frameNumber = ++frameNumber;
+		frame.timestampNanos = System.nanoTime();
+		frame.spindexerPosition = spindexerEncoder.getCurrentPosition();
+		frame.upperShooterPosition = upperShooter.getCurrentPosition();
+		frame.lowerShooterPosition = lowerShooter.getCurrentPosition();
+		frame.upperShooterVelocity = upperShooter.getVelocity();
+		frame.lowerShooterVelocity = lowerShooter.getVelocity();
+		frame.spindexerZeroPressed = spindexerZero.isPressed();
+		frame.touchLeftPressed = touchLeft != null && touchLeft.isPressed();
+		frame.touchRightPressed = touchRight != null && touchRight.isPressed();
+		frame.colorRead = false;
+
+		back = current;
+		current = frame;
+	}
+
+	/**
+	 * Loads a frame recorded in the DataLog "frame" record instead of reading the hardware, and
+	 * makes the snapshot active. Colors count as read; a frame whose colors weren't read keeps the
+	 * previous frame's.
+	 *
+	 * @param timestampNanos the record's timestamp
+	 * @param values         the record's columns
+	 */
+	public void replay(long timestampNanos, float[] values) {
+		active = true;
+		Frame previous = current;
+		Frame frame = back;
+		frame.frameNumber = ++frameNumber;
+		frame.timestampNanos = timestampNanos;
+		frame.spindexerPosition = (int) values[0];
+		frame.upperShooterPosition = (int) values[1];
+		frame.lowerShooterPosition = (int) values[2];
+		frame.upperShooterVelocity = values[3];
+		frame.lowerShooterVelocity = values[4];
+		frame.spindexerZeroPressed = values[5] != 0;
+		frame.touchLeftPressed = values[6] != 0;
+		frame.touchRightPressed = values[7] != 0;
+		boolean colorRead = values[8] != 0;
+		frame.leftRed = colorRead ? (int) values[9] : previous.leftRed;
+		frame.leftGreen = colorRead ? (int) values[10] : previous.leftGreen;
+		frame.leftBlue = colorRead ? (int) values[11] : previous.leftBlue;
+		frame.rightRed = colorRead ? (int) values[12] : previous.rightRed;
+		frame.rightGreen = colorRead ? (int) values[13] : previous.rightGreen;
+		frame.rightBlue = colorRead ? (int) values[14] : previous.rightBlue;
+		frame.colorRead = true;
+
+		back = current;
+		current = frame;
+	}
+
+	private static void logFrame(Frame frame) {
+		if (!DataLog.isActive()) return;
+		LOG.set(0, frame.spindexerPosition)
+				.set(1, frame.upperShooterPosition)
+				.set(2, frame.lowerShooterPosition)
+				.set(3, frame.upperShooterVelocity)
+				.set(4, frame.lowerShooterVelocity)
+				.set(5, frame.spindexerZeroPressed)
+				.set(6, frame.touchLeftPressed)
+				.set(7, frame.touchRightPressed)
+				.set(8, frame.colorRead)
+				.set(9, frame.leftRed)
+				.set(10, frame.leftGreen)
+				.set(11, frame.leftBlue)
+				.set(12, frame.rightRed)
+				.set(13, frame.rightGreen)
+				.set(14, frame.rightBlue)
+				.commit(frame.timestampNanos);
+	}
+
+	/**
+	 * @return the frame captured by the most recent update()
+	 */
+	public Frame getFrame() {
+		return current;
+	}
+
+	/**
+	 * @return total number of color sensor captures (six I2C reads each) since initialization
+	 */
+	public int getColorReadCount() {
+		return colorReadCount;
+	}
+
+	private void readColor(Frame frame) {
+		frame.leftRed = colourLeft.red();
+		frame.leftGreen = colourLeft.green();
+		frame.leftBlue = colourLeft.blue();
+		frame.rightRed = colourRight.red();
+		frame.rightGreen = colourRight.green();
+		frame.rightBlue = colourRight.blue();
+		frame.colorRead = true;
+		colorReadCount++;
+	}
+
+	/**
+	 * Sensor values captured during one loop. Read-only to consumers.
+	 */
+	public final class Frame {
+		private long frameNumber;
+		private long timestampNanos;
+		private int spindexerPosition;
+		private int upperShooterPosition;
+		private int lowerShooterPosition;
+		private double upperShooterVelocity;
+		private double lowerShooterVelocity;
+		private boolean spindexerZeroPressed;
+		private boolean touchLeftPressed;
+		private boolean touchRightPressed;
+
+		private boolean colorRead;
+		private int leftRed, leftGreen, leftBlue;
+		private int rightRed, rightGreen, rightBlue;
+
+		private Frame() {
+		}
+
+		private void ensureColor() {
+			if (!colorRead) {
+				readColor(this);
+			}
+		}
+
+		/**
+		 * @return sequence number of this frame, starting at 1
+		 */
+		public long getFrameNumber() {
+			return frameNumber;
+		}
+
+		/**
+		 * @return System.nanoTime() when this frame was captured
+		 */
+		public long getTimestampNanos() {
+			return timestampNanos;
+		}
+
+		/**
+		 * @return raw spindexer encoder position ("rearRight"), in ticks
+		 */
+		public int getSpindexerPosition() {
+			return spindexerPosition;
+		}
+
+		/**
+		 * @return upper shooter encoder position, in ticks
+		 */
+		public int getUpperShooterPosition() {
+			return upperShooterPosition;
+		}
+
+		/**
+		 * @return lower shooter encoder position, in ticks
+		 */
+		public int getLowerShooterPosition() {
+			return lowerShooterPosition;
+		}
+
+		/**
+		 * @return upper shooter velocity, in ticks per second
+		 */
+		public double getUpperShooterVelocity() {
+			return upperShooterVelocity;
+		}
+
+		/**
+		 * @return lower shooter velocity, in ticks per second
+		 */
+		public double getLowerShooterVelocity() {
+			return lowerShooterVelocity;
+		}
+
+		public boolean isSpindexerZeroPressed() {
+			return spindexerZeroPressed;
+		}
+
+		public boolean isTouchLeftPressed() {
+			return touchLeftPressed;
+		}
+
+		public boolean isTouchRightPressed() {
+			return touchRightPressed;
+		}
+
+		public int getLeftRed() {
+			ensureColor();
+			return leftRed;
+		}
+
+		public int getLeftGreen() {
+			ensureColor();
+			return leftGreen;
+		}
+
+		public int getLeftBlue() {
+			ensureColor();
+			return leftBlue;
+		}
+
+		public int getRightRed() {
+			ensureColor();
+			return rightRed;
+		}
+
+		public int getRightGreen() {
+			ensureColor();
+			return rightGreen;
+		}
+
+		public int getRightBlue() {
+			ensureColor();
+			return rightBlue;
+		}
+	}
+}
@@ -0,0 +1,290 @@
+package org.firstinspires.ftc.teamcode.LifecycleManagementUtilities;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.Pose2d;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+import org.firstinspires.ftc.teamcode.Subsystems.Spindexer;
+import org.firstinspires.ftc.teamcode.Utilities.BallColor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/**
+ * Robot state handed from one OpMode to the next, mainly from auto to teleop: the drive pose, the
+ * spindexer's ball colors and the spindexer zero.
+ * <p>
+ * The state is one small fixed-layout file, FIRST/robot-state.bin. It is written to a temp file
+ * and renamed over the old one, so a reader sees either the previous state or the new one, never
+ * half of each. Writes during the OpMode happen on a background thread every SAVE_INTERVAL_MS;
+ * the last one, at shutdown, happens on the caller's thread. Reading it is a single 64 byte read.
+ * <p>
+ * File layout (big-endian), FILE_SIZE bytes:
+ * - magic, version (int each), saved at (wall clock ms, long)
+ * - flags (byte): autonomous, has pose, spindexer zeroed
+ * - ball color of slots 0-2 (BallColor ordinal, byte each)
+ * - pose x, y (inches) and heading (radians) (double each)
+ * - spindexer zero (raw ticks, double) and the raw encoder reading it was saved with (int)
+ * <p>
+ * To use:
+ * 1. HardwareInitializer.initialize(hardwareMap) starts the writer
+ * 2. Autos call setAutonomous(true) in init() and update(pose) every loop
+ * 3. HardwareShutdown.shutdown() writes the final state
+ * 4. The next OpMode calls load() in init(), and uses the pose if State.isHandoff()
+ */
+@Config
+public class RobotStateStore {
+	public static double SAVE_INTERVAL_MS = 250;
+	// A saved auto pose older than this is not used by teleop
+	public static double MAX_AGE_SECONDS = 300;
+
+	static final String FILE_NAME = "robot-state.bin";
+	static final int MAGIC = 0x52535354; // "RSST"
+	static final int VERSION = 1;
+	static final int FILE_SIZE = 64;
+	private static final int FLAG_AUTONOMOUS = 1;
+	private static final int FLAG_HAS_POSE = 2;
+	private static final int FLAG_ZEROED = 4;
+	private static final BallColor[] BALL_COLORS = BallColor.values();
+
+	private static final Object lock = new Object();
+	// Filled on the OpMode thread, copied by the writer thread
+	private static final byte[] pending = new byte[FILE_SIZE];
+	private static boolean pendingDirty = false;
+	private static volatile boolean running = false;
+	private static Thread writerThread = null;
+
+	private static boolean autonomous = false;
+	private static Pose2d pose = null;
+	private static long lastSaveNanos = 0;
+	// State the last OpMode left, read at initialize()
+	private static State previous = null;
+
+	/**
+	 * Starts a new OpMode's state: not autonomous and no pose until update() is called. The last
+	 * OpMode's spindexer zero is passed on unchanged until the spindexer is zeroed again.
+	 */
+	public static void initialize() {
+		shutdownWriter();
+		autonomous = false;
+		pose = null;
+		lastSaveNanos = 0;
+		previous = load();
+		running = true;
+		writerThread = new Thread(RobotStateStore::writeLoop, "RobotStateStore-writer");
+		writerThread.setDaemon(true);
+		writerThread.setPriority(Thread.MIN_PRIORITY);
+		writerThread.start();
+	}
+
+	/**
+	 * Marks the state as written by an auto, which is what teleop hands off from.
+	 */
+	public static void setAutonomous(boolean isAutonomous) {
+		autonomous = isAutonomous;
+	}
+
+	/**
+	 * Records the drive pose, and hands a save to the writer thread every SAVE_INTERVAL_MS. Call it
+	 * every loop.
+	 */
+	public static void update(Pose2d currentPose) {
+		pose = currentPose;
+		if (HardwareSnapshot.nowNanos() - lastSaveNanos >= SAVE_INTERVAL_MS * 1e6) {
+			save();
+		}
+	}
+
+	/**
+	 * Hands a save of the current state to the writer thread, e.g. right after homing.
+	 */
+	public static void save() {
+		lastSaveNanos = HardwareSnapshot.nowNanos();
+		synchronized (lock) {
+			encode(ByteBuffer.wrap(pending));
+			pendingDirty = true;
+			lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Stops the writer thread and writes the final state.
+	 */
+	public static void shutdown() {
+		if (!running) return;
+		shutdownWriter();
+		byte[] bytes = new byte[FILE_SIZE];
+		encode(ByteBuffer.wrap(bytes));
+		write(bytes);
+	}
+
+	/**
+	 * Reads the state saved by the last OpMode.
+	 *
+	 * @return the saved state, or null if there is none or it can't be read
+	 */
+	public static State load() {
+		byte[] bytes = new byte[FILE_SIZE];
+		try (RandomAccessFile raf = new RandomAccessFile(new File(AppUtil.FIRST_FOLDER, FILE_NAME), "r")) {
+			raf.readFully(bytes);
+		} catch (IOException | RuntimeException | LinkageError e) {
+			// Missing or unreadable, or off the robot where AppUtil can't load
+			return null;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+		return new State(buffer);
+	}
+
+	private static void shutdownWriter() {
+		if (writerThread == null) return;
+		running = false;
+		synchronized (lock) {
+			lock.notifyAll();
+		}
+		try {
+			writerThread.join(100);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writerThread = null;
+	}
+
+	private static void encode(ByteBuffer buffer) {
+		Spindexer spindexer = Spindexer.getInstance();
+		boolean zeroed = spindexer.isZeroed();
+		// A zero this OpMode didn't use keeps the encoder reading it was saved with, so
+		// Spindexer.restoreZero() still refuses it if the spindexer has been turned since
+		boolean passOnZero = !zeroed && previous != null && previous.spindexerZeroed;
+		int flags = (autonomous ? FLAG_AUTONOMOUS : 0)
+				| (pose != null ? FLAG_HAS_POSE : 0)
+				| (zeroed || passOnZero ? FLAG_ZEROED : 0);
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(System.currentTimeMillis());
+		buffer.put((byte) flags);
+		for (int i = 0; i < 3; i++) {
+			buffer.put((byte) spindexer.getBallColor(i).ordinal());
+		}
+		buffer.putDouble(pose != null ? pose.position.x : 0);
+		buffer.putDouble(pose != null ? pose.position.y : 0);
+		buffer.putDouble(pose != null ? pose.heading.toDouble() : 0);
+		if (passOnZero) {
+			buffer.putDouble(previous.spindexerZeroTicks);
+			buffer.putInt(previous.spindexerEncoderTicks);
+		} else {
+			buffer.putDouble(spindexer.getZeroPositionTicks());
+			buffer.putInt((int) Math.round(spindexer.getRawPositionTicks()));
+		}
+	}
+
+	private static void writeLoop() {
+		byte[] bytes = new byte[FILE_SIZE];
+		while (true) {
+			synchronized (lock) {
+				while (running && !pendingDirty) {
+					try {
+						lock.wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				// The final state is written by shutdown() itself
+				if (!running) return;
+				System.arraycopy(pending, 0, bytes, 0, FILE_SIZE);
+				pendingDirty = false;
+			}
+			write(bytes);
+		}
+	}
+
+	/**
+	 * Writes the state to a temp file and renames it over the old one. Synchronized so the final
+	 * write can't interleave with one still on the writer thread.
+	 */
+	private static synchronized void write(byte[] bytes) {
+		File file, temp;
+		try {
+			file = new File(AppUtil.FIRST_FOLDER, FILE_NAME);
+			temp = new File(AppUtil.FIRST_FOLDER, FILE_NAME + ".tmp");
+		} catch (LinkageError e) {
+			// Off the robot there is no FIRST folder and AppUtil can't load
+			return;
+		}
+		try {
+			try (FileOutputStream out = new FileOutputStream(temp)) {
+				out.write(bytes);
+				// On disk before the rename, so a power loss can't leave an empty file behind
+				out.getFD().sync();
+			}
+			if (!temp.renameTo(file)) {
+				temp.delete();
+			}
+		} catch (IOException e) {
+			// The next OpMode starts from its own defaults
+			temp.delete();
+		}
+	}
+
+	/**
+	 * State read back by load().
+	 */
+	public static final class State {
+		/**
+		 * Wall clock time of the save, in ms
+		 */
+		public final long savedAtMillis;
+		/**
+		 * True if an auto wrote it
+		 */
+		public final boolean autonomous;
+		/**
+		 * Drive pose, or null if the OpMode didn't track one
+		 */
+		public final Pose2d pose;
+		public final boolean spindexerZeroed;
+		/**
+		 * Spindexer zero and the raw encoder reading at the save, in ticks
+		 */
+		public final double spindexerZeroTicks;
+		public final int spindexerEncoderTicks;
+		private final BallColor[] ballColors = new BallColor[3];
+
+		private State(ByteBuffer buffer) {
+			savedAtMillis = buffer.getLong();
+			int flags = buffer.get();
+			autonomous = (flags & FLAG_AUTONOMOUS) != 0;
+			spindexerZeroed = (flags & FLAG_ZEROED) != 0;
+			for (int i = 0; i < 3; i++) {
+				int ordinal = buffer.get();
+				ballColors[i] = ordinal >= 0 && ordinal < BALL_COLORS.length ? BALL_COLORS[ordinal] : BallColor.UNKNOWN;
+			}
+			double x = buffer.getDouble();
+			double y = buffer.getDouble();
+			double heading = buffer.getDouble();
+			pose = (flags & FLAG_HAS_POSE) != 0 ? new Pose2d(x, y, heading) : null;
+			spindexerZeroTicks = buffer.getDouble();
+			spindexerEncoderTicks = buffer.getInt();
+		}
+
+		public BallColor getBallColor(int slotIndex) {
+			return ballColors[slotIndex];
+		}
+
+		public double getAgeSeconds() {
+			return (System.currentTimeMillis() - savedAtMillis) / 1000.0;
+		}
+
+		/**
+		 * @return true if an auto saved a pose within MAX_AGE_SECONDS, so teleop can carry on
+		 * from it
+		 */
+		public boolean isHandoff() {
+			double age = getAgeSeconds();
+			return autonomous && pose != null && age >= 0 && age <= MAX_AGE_SECONDS;
+		}
+	}
+}
@@ -7,6 +7,7 @@ import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 
 import org.firstinspires.ftc.teamcode.Roadrunner.MecanumDrive;
+import org.firstinspires.ftc.teamcode.Roadrunner.PinpointLocalizer;
 
 @Autonomous
 public class AudienceLeave extends OpMode {
@@ -42,6 +43,8 @@ public class AudienceLeave extends OpMode {
 
 	@Override
 	public void stop() {
+		// Don't let a Pinpoint poller outlive the OpMode
+		PinpointLocalizer.shutdown();
 		telemetry.addData("Status", "OpMode Stopped.");
 		telemetry.update();
 	}
@@ -1,44 +1,67 @@
 package org.firstinspires.ftc.teamcode.OpModes.Auto;
 
 import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+import com.acmerobotics.roadrunner.Action;
 import com.acmerobotics.roadrunner.ParallelAction;
 import com.acmerobotics.roadrunner.Pose2d;
 import com.acmerobotics.roadrunner.SequentialAction;
-import com.acmerobotics.roadrunner.TrajectoryActionBuilder;
 import com.acmerobotics.roadrunner.Vector2d;
 import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
-import com.qualcomm.robotcore.hardware.CRServo;
-import com.qualcomm.robotcore.hardware.DcMotorSimple;
 
+import org.firstinspires.ftc.teamcode.Actions.RapidFire;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.ActuatorOutputs;
 import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareInitializer;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareShutdown;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.RobotStateStore;
 import org.firstinspires.ftc.teamcode.Roadrunner.MecanumDrive;
+import org.firstinspires.ftc.teamcode.Roadrunner.TrajectoryCompiler;
 import org.firstinspires.ftc.teamcode.Subsystems.Intake;
 import org.firstinspires.ftc.teamcode.Subsystems.Shooter;
 import org.firstinspires.ftc.teamcode.Subsystems.Spindexer;
-import org.firstinspires.ftc.teamcode.Subsystems.StupidShooter;
 import org.firstinspires.ftc.teamcode.Subsystems.Transfer;
 import org.firstinspires.ftc.teamcode.Utilities.ActionScheduler;
+import org.firstinspires.ftc.teamcode.Utilities.BallColor;
+import org.firstinspires.ftc.teamcode.Utilities.LoopProfiler;
 
 
 @Autonomous
 public class BlueAudienceAuto extends OpMode {
 	public static double shootingX = 57, shootingY = -23; // this is the position used shooting
 	public static double Goalx = -60, Goaly = -60; // this is the position of the goal
+	// Loop profiler phases, in the order they run in loop()
+	private static final int PHASE_SNAPSHOT = 0;
+	private static final int PHASE_SPINDEXER = 1;
+	private static final int PHASE_SHOOTER = 2;
+	private static final int PHASE_SCHEDULER = 3;
+	private static final int PHASE_LOCALIZER = 4;
+	private static final int PHASE_TELEMETRY = 5;
+	private static final int PHASE_OUTPUTS = 6;
 //	public double topRpM = 2000;
 	Spindexer spindexer;
-	StupidShooter shooter;
+	Shooter shooter;
 	Pose2d beginPose;
 	Transfer transfer;
 	Intake intake;
-	CRServo transferRight;
-	CRServo transferLeft;
 	TelemetryPacket telemetryPacket;
 	MecanumDrive drive;
-	TrajectoryActionBuilder tab1;
-	TrajectoryActionBuilder tab2;
+	TrajectoryCompiler compiler;
+	TrajectoryCompiler.Compiled tab1;
+	TrajectoryCompiler.Compiled tab2;
 	boolean done = false;
 	ActionScheduler actionScheduler;
+	HardwareSnapshot snapshot;
+	ActuatorOutputs outputs;
+	LoopProfiler profiler;
+
+	/**
+	 * Builds the drive at the starting pose, fusing vision if it's configured. The simulation
+	 * overrides it to drive with its own localizer.
+	 */
+	protected MecanumDrive createDrive(Pose2d pose) {
+		return new MecanumDrive(hardwareMap, pose, true);
+	}
 
 	public static double AngleOfShot(double x, double y) {
 		double diff_x = Goalx - x;
@@ -53,12 +76,20 @@ public class BlueAudienceAuto extends OpMode {
 		telemetry.update();
 
 		HardwareInitializer.initialize(hardwareMap);
+		// Teleop starts from the pose this auto saves
+		RobotStateStore.setAutonomous(true);
+		snapshot = HardwareSnapshot.getInstance();
+		outputs = ActuatorOutputs.getInstance();
 
-		shooter = new StupidShooter(hardwareMap);
-		telemetry.addData("Subsystem Init", "StupidShooter initialized");
+		shooter = Shooter.getInstance();
+		telemetry.addData("Subsystem Init", "Shooter initialized");
 		telemetry.update();
 
 		spindexer = Spindexer.getInstance();
+		// The preloads' colors aren't known, so RapidFire shoots every slot
+		for (int i = 0; i < 3; i++) {
+			spindexer.setBallColor(i, BallColor.UNKNOWN);
+		}
 		telemetry.addData("Subsystem Init", "Spindexer initialized");
 		telemetry.update();
 
@@ -68,15 +99,13 @@ public class BlueAudienceAuto extends OpMode {
 
 		intake = Intake.getInstance();
 
-		transferLeft = hardwareMap.get(CRServo.class, "transferLeft");
-		transferRight = hardwareMap.get(CRServo.class, "transferRight");
-		transferRight.setDirection(DcMotorSimple.Direction.REVERSE);
-
 		telemetry.addData("Subsystem Init", "Intake initialized");
 		telemetry.update();
 
 		beginPose = new Pose2d(60, -9, Math.toRadians(0));
-		drive = new MecanumDrive(hardwareMap, beginPose);
+		drive = createDrive(beginPose);
+		// Stopped by HardwareShutdown in stop()
+		drive.startAsyncLocalization();
 		telemetry.addData("Subsystem Init", "Drive initialized");
 		telemetry.addData("Begin Pose", "X: %.2f, Y: %.2f, Heading: %.2f°", beginPose.position.x, beginPose.position.y, Math.toDegrees(beginPose.heading.toDouble()));
 		telemetry.update();
@@ -85,15 +114,21 @@ public class BlueAudienceAuto extends OpMode {
 		telemetry.addData("Subsystem Init", "ActionScheduler initialized");
 		telemetry.update();
 
-		tab1 = drive.actionBuilder(new Pose2d(54, -9, Math.toRadians(0)))
-				.strafeToLinearHeading(new Vector2d(shootingX, shootingY), AngleOfShot(shootingX, shootingY));
-		telemetry.addData("Trajectory", "Tab1 created - Target: (%.1f, %.1f)", shootingX, shootingY);
+		profiler = new LoopProfiler("Snapshot", "Spindexer", "Shooter", "Scheduler", "Localizer", "Telemetry", "Outputs");
+
+		// Trajectories build (or load from the cache) in the background; init_loop shows progress
+		compiler = new TrajectoryCompiler(drive, "BlueAudienceAuto");
+		tab1 = compiler.compile("tab1", () -> drive.actionBuilder(new Pose2d(54, -9, Math.toRadians(0)))
+				.strafeToLinearHeading(new Vector2d(shootingX, shootingY), AngleOfShot(shootingX, shootingY)),
+				shootingX, shootingY, Goalx, Goaly);
+		telemetry.addData("Trajectory", "Tab1 queued - Target: (%.1f, %.1f)", shootingX, shootingY);
 		telemetry.addData("Trajectory", "Tab1 angle: %.2f°", Math.toDegrees(AngleOfShot(shootingX, shootingY)));
 		telemetry.update();
 
-		tab2 = drive.actionBuilder(new Pose2d(shootingX, shootingY, AngleOfShot(shootingX, shootingY)))
-				.strafeToLinearHeading(new Vector2d(35, -23), Math.toRadians(270));
-		telemetry.addData("Trajectory", "Tab2 created - Target: (35.0, -23.0)");
+		tab2 = compiler.compile("tab2", () -> drive.actionBuilder(new Pose2d(shootingX, shootingY, AngleOfShot(shootingX, shootingY)))
+				.strafeToLinearHeading(new Vector2d(35, -23), Math.toRadians(270)),
+				shootingX, shootingY, Goalx, Goaly);
+		telemetry.addData("Trajectory", "Tab2 queued - Target: (35.0, -23.0)");
 		telemetry.addData("Trajectory", "Tab2 angle: 270°");
 		telemetry.update();
 
@@ -101,44 +136,35 @@ public class BlueAudienceAuto extends OpMode {
 		telemetry.update();
 	}
 
+	@Override
+	public void init_loop() {
+		telemetry.addData("Trajectories", "%d/%d ready (%d cached)",
+				compiler.getCompletedCount(), compiler.getCount(), compiler.getCacheHits());
+		telemetry.update();
+	}
+
 	public void start() {
 		telemetry.addData("Status", "Match started - scheduling autonomous sequence");
-		telemetry.addData("Event", "Action Sequence", "1. Move to shooting position + WindUp");
-		telemetry.addData("Event", "Action Sequence", "2. Spindexer + Intake spin");
-		telemetry.addData("Event", "Action Sequence", "3. Wait for shooter spike and shoot");
-		telemetry.addData("Event", "Action Sequence", "4. Repeat spin cycles");
-		telemetry.addData("Event", "Action Sequence", "5. Move to collection position");
+		telemetry.addData("Event", "Action Sequence", "1. Move to shooting position + spin up, zero spindexer");
+		telemetry.addData("Event", "Action Sequence", "2. RapidFire every preload");
 		telemetry.update();
 
+		// The flywheels spin up on the way; Shooter.run() is one control step, so it runs every
+		// loop until the drive arrives, and RapidFire takes over from there
+		Action driveToShot = tab1.get();
+		Action spinUp = shooter.run(Shooter.AUDIENCE_RPM);
 		actionScheduler.schedule(
 				new SequentialAction(
 						new ParallelAction(
-								tab1.build(),
-								shooter.WindUp()
-						),
-						new ParallelAction(
-								spindexer.setDirectPower(0.8),
-								transfer.intakeDoorForward()
-						),
-						shooter.WaitForSpike(),
-						shooter.WindUp(),
-						new ParallelAction(
-								spindexer.setDirectPower(0.8),
-								transfer.intakeDoorForward()
-						),
-						shooter.WaitForSpike(),
-						new ParallelAction(
-								shooter.WindUp()
-						),
-						new ParallelAction(
-								spindexer.setDirectPower(0.8),
+								packet -> {
+									spinUp.run(packet);
+									return driveToShot.run(packet);
+								},
+								spindexer.zero(),
 								transfer.intakeDoorForward()
 						),
-						shooter.WaitForSpike()
-//						tab2.build()
-//						spindexer.setDirectPower(0),
-//						transfer.intakeDoorStop(),
-//						shooter.Stop()
+						new RapidFire(Shooter.AUDIENCE_RPM)
+//						tab2.get()
 				)
 		);
 
@@ -148,21 +174,27 @@ public class BlueAudienceAuto extends OpMode {
 
 	@Override
 	public void loop() {
-		// Update action scheduler
-		actionScheduler.update();
-		shooter.updateRPM();
-		drive.updatePoseEstimate();
+		profiler.startLoop();
 
+		// Read all hub sensors once; everything below uses this loop's frame
+		snapshot.update();
+		profiler.endPhase(PHASE_SNAPSHOT);
 
-		if (shooter.averageRPM > (Shooter.AUDIENCE_RPM - 400)){
-			telemetry.addLine("Transfer");
-			transferLeft.setPower(1);
-			transferRight.setPower(1);
-		}else{
-			telemetry.addLine("Transfer stop");
-			transferLeft.setPower(0);
-			transferRight.setPower(0);
-		}
+		// Update spindexer PID
+		spindexer.update();
+		profiler.endPhase(PHASE_SPINDEXER);
+
+		// Update shooter RPM readings
+		shooter.updateRPM();
+		profiler.endPhase(PHASE_SHOOTER);
+
+		// Update action scheduler; RapidFire runs the shooter and transfer
+		actionScheduler.update();
+		profiler.endPhase(PHASE_SCHEDULER);
+		drive.updatePoseEstimate();
+		// Saved in the background every RobotStateStore.SAVE_INTERVAL_MS
+		RobotStateStore.update(drive.localizer.getPose());
+		profiler.endPhase(PHASE_LOCALIZER);
 
 		// Telemetry - Drive position
 		Pose2d currentPose = drive.localizer.getPose();
@@ -179,5 +211,19 @@ public class BlueAudienceAuto extends OpMode {
 		telemetry.addData("Shooter Target RPM", "%.0f", Shooter.AUDIENCE_RPM);
 
 		telemetry.update();
+		profiler.endPhase(PHASE_TELEMETRY);
+
+		// Send this loop's motor and servo commands, skipping the unchanged ones
+		outputs.flush();
+		profiler.endPhase(PHASE_OUTPUTS);
+
+		profiler.endLoop();
+	}
+
+	@Override
+	public void stop() {
+		compiler.shutdown();
+		// Writes the final pose for teleop and sends any unflushed actuator commands
+		HardwareShutdown.shutdown();
 	}
 }
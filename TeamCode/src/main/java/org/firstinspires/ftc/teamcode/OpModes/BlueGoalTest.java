@@ -7,6 +7,7 @@ import com.qualcomm.robotcore.eventloop.opmode.Autonomous;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 
 import org.firstinspires.ftc.teamcode.Roadrunner.MecanumDrive;
+import org.firstinspires.ftc.teamcode.Roadrunner.PinpointLocalizer;
 
 @Autonomous
 public class BlueGoalTest extends OpMode {
@@ -45,6 +46,8 @@ public class BlueGoalTest extends OpMode {
 
 	@Override
 	public void stop() {
+		// Don't let a Pinpoint poller outlive the OpMode
+		PinpointLocalizer.shutdown();
 		telemetry.addData("Status", "OpMode Stopped.");
 		telemetry.update();
 	}
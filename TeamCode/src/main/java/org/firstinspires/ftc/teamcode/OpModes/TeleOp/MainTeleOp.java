@@ -1,12 +1,14 @@
 package org.firstinspires.ftc.teamcode.OpModes.TeleOp;
 
+import com.acmerobotics.roadrunner.Action;
 import com.acmerobotics.roadrunner.Pose2d;
-import com.acmerobotics.roadrunner.PoseVelocity2d;
-import com.acmerobotics.roadrunner.Vector2d;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.ActuatorOutputs;
 import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareInitializer;
 import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareShutdown;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.RobotStateStore;
 import org.firstinspires.ftc.teamcode.Roadrunner.MecanumDrive;
 import org.firstinspires.ftc.teamcode.Subsystems.Intake;
 import org.firstinspires.ftc.teamcode.Subsystems.RGBIndicator;
@@ -14,6 +16,7 @@ import org.firstinspires.ftc.teamcode.Subsystems.Shooter;
 import org.firstinspires.ftc.teamcode.Subsystems.Spindexer;
 import org.firstinspires.ftc.teamcode.Subsystems.Transfer;
 import org.firstinspires.ftc.teamcode.Utilities.ActionScheduler;
+import org.firstinspires.ftc.teamcode.Utilities.LoopProfiler;
 
 /**
  * Main TeleOp OpMode for driver control
@@ -39,11 +42,34 @@ public class MainTeleOp extends OpMode {
 
 	protected MecanumDrive drive;
 	protected ActionScheduler scheduler;
+	protected HardwareSnapshot snapshot;
+	protected ActuatorOutputs outputs;
 	protected Shooter shooter;
 	protected Intake intake;
 	protected Transfer transfer;
 	protected Spindexer spindexer;
 	protected RGBIndicator rgbIndicator;
+	protected LoopProfiler profiler;
+
+	// Loop profiler phases, in the order they run in loop()
+	protected static final int PHASE_SNAPSHOT = 0;
+	protected static final int PHASE_DRIVE = 1;
+	protected static final int PHASE_SPINDEXER = 2;
+	protected static final int PHASE_SHOOTER = 3;
+	protected static final int PHASE_OPERATOR = 4;
+	protected static final int PHASE_SCHEDULER = 5;
+	protected static final int PHASE_RGB = 6;
+	protected static final int PHASE_TELEMETRY = 7;
+	protected static final int PHASE_OUTPUTS = 8;
+
+	// Discrete RPM ranges (0-maxRPM) mapped to 11 color positions
+	private static final String[] RPM_COLOR_NAMES = {"OFF", "RED", "ORANGE", "YELLOW", "SAGE", "GREEN", "AZURE", "BLUE", "INDIGO", "VIOLET", "WHITE"};
+
+	// Reusable actions for operator commands, created once in init() so button edges don't allocate
+	protected Action shooterRunAction;
+	protected Action spindexerStopAction;
+	protected Action spindexerForwardAction;
+	protected Action spindexerBackwardAction;
 
 	// Button state tracking to prevent continuous input
 	protected boolean leftTriggerPressed = false;
@@ -60,15 +86,43 @@ public class MainTeleOp extends OpMode {
 	public void init() {
 		// Initialize hardware
 		HardwareInitializer.initialize(hardwareMap);
-		drive = new MecanumDrive(hardwareMap, getStartingPose());
+		// Carry on from where auto left the robot, if it just ran
+		RobotStateStore.State handoff = RobotStateStore.load();
+		boolean fromAuto = handoff != null && handoff.isHandoff();
+		drive = createDrive(fromAuto ? handoff.pose : getStartingPose());
+		// Stopped by HardwareShutdown in stop()
+		drive.startAsyncLocalization();
 		scheduler = ActionScheduler.getInstance();
+		snapshot = HardwareSnapshot.getInstance();
+		outputs = ActuatorOutputs.getInstance();
 		shooter = Shooter.getInstance();
 		intake = Intake.getInstance();
 		transfer = Transfer.getInstance();
 		spindexer = Spindexer.getInstance();
 		rgbIndicator = RGBIndicator.getInstance();
+		if (fromAuto) {
+			for (int i = 0; i < 3; i++) {
+				spindexer.setBallColor(i, handoff.getBallColor(i));
+			}
+		}
+
+		profiler = new LoopProfiler("Snapshot", "Drive", "Spindexer", "Shooter", "Operator", "Scheduler", "RGB", "Telemetry", "Outputs");
+
+		scheduler.setZeroAllocationMode(true);
+		shooterRunAction = shooter.run(Shooter.AUDIENCE_RPM);
+		// The joystick drives the spindexer with raw power; without manual mode the PID would take it
+		// back the next loop whenever an earlier OpMode (such as auto) left the spindexer zeroed
+		spindexer.setManual(true);
+		spindexerStopAction = spindexer.setDirectPower(0);
+		spindexerForwardAction = spindexer.setDirectPower(0.25);
+		spindexerBackwardAction = spindexer.setDirectPower(-0.25);
 
 		telemetry.addData("Status", "Initialized - Waiting for START");
+		if (fromAuto) {
+			telemetry.addData("Start Pose", "From auto, saved %.0f s ago", handoff.getAgeSeconds());
+		} else {
+			telemetry.addData("Start Pose", "Default");
+		}
 		telemetry.update();
 	}
 
@@ -78,32 +132,55 @@ public class MainTeleOp extends OpMode {
 		scheduler.schedule(transfer.intakeDoorForward());
 		scheduler.schedule(transfer.transferBackward());
 		scheduler.update();
+
+		// The items are kept between updates and only formatted when telemetry is transmitted,
+		// instead of being rebuilt every loop
+		telemetry.clear();
+		telemetry.setAutoClear(false);
+		addTelemetryItems();
 	}
 
 	@Override
 	public void loop() {
+		profiler.startLoop();
+
+		// Read all hub sensors once; everything below uses this loop's frame
+		snapshot.update();
+		profiler.endPhase(PHASE_SNAPSHOT);
+
 		// Update drive with gamepad input
 		handleDriveInput();
+		profiler.endPhase(PHASE_DRIVE);
 
 		// Update spindexer PID
 		spindexer.update();
+		profiler.endPhase(PHASE_SPINDEXER);
 
 		// Update shooter RPM readings
 		shooter.updateRPM();
+		profiler.endPhase(PHASE_SHOOTER);
 
 		// Handle operator controls (must be before scheduler.update())
 		handleOperatorInput();
+		profiler.endPhase(PHASE_OPERATOR);
 
 		// Update action scheduler
 		scheduler.update();
+		profiler.endPhase(PHASE_SCHEDULER);
 
 		// Update RGB indicator based on shooter RPM (after scheduler.update())
 		updateRGBIndicator();
+		profiler.endPhase(PHASE_RGB);
 
-		// Display telemetry
-		displayTelemetry();
-
+		// Send telemetry; the items were added once in start()
 		telemetry.update();
+		profiler.endPhase(PHASE_TELEMETRY);
+
+		// Send this loop's motor and servo commands, skipping the unchanged ones
+		outputs.flush();
+		profiler.endPhase(PHASE_OUTPUTS);
+
+		profiler.endLoop();
 	}
 
 	@Override
@@ -113,12 +190,21 @@ public class MainTeleOp extends OpMode {
 	}
 
 	/**
-	 * Override this method in subclasses to set the starting pose
+	 * Override this method in subclasses to set the starting pose. It is used unless an auto saved
+	 * its pose to RobotStateStore within RobotStateStore.MAX_AGE_SECONDS.
 	 */
 	protected Pose2d getStartingPose() {
 		return new Pose2d(0, 0, 0);
 	}
 
+	/**
+	 * Builds the drive at the starting pose, fusing vision if it's configured. The simulation
+	 * overrides it to drive with its own localizer.
+	 */
+	protected MecanumDrive createDrive(Pose2d pose) {
+		return new MecanumDrive(hardwareMap, pose, true);
+	}
+
 	/**
 	 * Update RGB indicator color based on shooter RPM using discrete color ranges.
 	 * Predefined colors: Off, Red, Orange, Yellow, Sage, Green, Azure, Blue, Indigo, Violet, White
@@ -130,15 +216,12 @@ public class MainTeleOp extends OpMode {
 		// Clamp RPM to 0-maxRPM range
 		rpm = Math.max(0, Math.min(maxRPM, rpm));
 
-		// Discrete RPM ranges (0-maxRPM) mapped to 11 color positions
-		String[] colorNames = {"OFF", "RED", "ORANGE", "YELLOW", "SAGE", "GREEN", "AZURE", "BLUE", "INDIGO", "VIOLET", "WHITE"};
-
 		// Determine which color range the current RPM falls into
-		int colorIndex = (int) (rpm / maxRPM * (colorNames.length - 1));
-		colorIndex = Math.min(colorIndex, colorNames.length - 1);
+		int colorIndex = (int) (rpm / maxRPM * (RPM_COLOR_NAMES.length - 1));
+		colorIndex = Math.min(colorIndex, RPM_COLOR_NAMES.length - 1);
 
 		// Set the servo to the corresponding discrete position
-		rgbIndicator.setColorByName(colorNames[colorIndex]);
+		rgbIndicator.setColorByName(RPM_COLOR_NAMES[colorIndex]);
 	}
 
 	/**
@@ -154,12 +237,7 @@ public class MainTeleOp extends OpMode {
 		strafePower = Math.abs(strafePower) > 0.05 ? strafePower : 0;
 		turnPower = Math.abs(turnPower) > 0.05 ? turnPower : 0;
 
-		// Create velocity command
-		PoseVelocity2d velocity = new PoseVelocity2d(
-				new Vector2d(forwardPower, strafePower),
-				turnPower
-		);
-		drive.setDrivePowers(velocity);
+		drive.setDrivePowers(forwardPower, strafePower, turnPower);
 	}
 
 	/**
@@ -177,9 +255,9 @@ public class MainTeleOp extends OpMode {
 			leftTriggerPressed = false;
 		}
 
-		// Right Trigger: schedule Shooter.run() once when pressed, Shooter.stop() when released
-		if (gamepad2.right_trigger > 0.5 && !rightTriggerPressed) {
-			scheduler.schedule(shooter.run(Shooter.AUDIENCE_RPM));
+		// Right Trigger: run the shooter controller every loop while held, Shooter.stop() when released
+		if (gamepad2.right_trigger > 0.5) {
+			scheduler.schedule(shooterRunAction);
 			rightTriggerPressed = true;
 		} else if (gamepad2.right_trigger <= 0.5 && rightTriggerPressed) {
 			scheduler.schedule(shooter.stop());
@@ -206,7 +284,7 @@ public class MainTeleOp extends OpMode {
 
 		// Automatic transfer based on RPM (only if neither X nor Y button held)
 		if (!gamepad2.x && !gamepad2.y) {
-			boolean isAboveRPM = rpm >= Shooter.AUDIENCE_RPM;
+			boolean isAboveRPM = shooter.isAtTargetRPM(Shooter.AUDIENCE_RPM);
 			if (isAboveRPM && !transferAboveRPM) {
 				scheduler.schedule(transfer.transferForward());
 			} else if (!isAboveRPM && transferAboveRPM) {
@@ -232,7 +310,7 @@ public class MainTeleOp extends OpMode {
 		// Dead zone: stop spindexer
 		if (leftJoystickY > -0.2 && leftJoystickY < 0.2) {
 			if (!spindexerMidCrossed) {
-				scheduler.schedule(spindexer.setDirectPower(0));
+				scheduler.schedule(spindexerStopAction);
 				spindexerMidCrossed = true;
 				spindexerUpCrossed = false;
 				spindexerDownCrossed = false;
@@ -241,7 +319,7 @@ public class MainTeleOp extends OpMode {
 
 		// Crosses 0.2 threshold going up (from lower to 0.2+)
 		else if (leftJoystickY >= 0.2 && !spindexerUpCrossed) {
-			scheduler.schedule(spindexer.setDirectPower(0.25));
+			scheduler.schedule(spindexerForwardAction);
 			spindexerUpCrossed = true;
 			spindexerMidCrossed = false;
 			spindexerDownCrossed = false;
@@ -249,7 +327,7 @@ public class MainTeleOp extends OpMode {
 
 		// Crosses -0.2 threshold going down (to -0.2 or below)
 		else if (leftJoystickY <= -0.2 && !spindexerDownCrossed) {
-			scheduler.schedule(spindexer.setDirectPower(-0.25));
+			scheduler.schedule(spindexerBackwardAction);
 			spindexerDownCrossed = true;
 			spindexerMidCrossed = false;
 			spindexerUpCrossed = false;
@@ -257,26 +335,31 @@ public class MainTeleOp extends OpMode {
 	}
 
 	/**
-	 * Display telemetry information
+	 * Adds the telemetry items. Called once from start(); values are read through Func producers
+	 * when telemetry is transmitted, so loop() doesn't build or format anything.
 	 */
-	protected void displayTelemetry() {
+	protected void addTelemetryItems() {
 		telemetry.addData("", "=== MAIN TELEOP ===");
 		telemetry.addData("Drive Mode", "Mecanum");
 
 		telemetry.addData("", "=== GAMEPAD 1 (Driver) ===");
-		telemetry.addData("Forward", String.format("%.2f", -gamepad1.left_stick_y));
-		telemetry.addData("Strafe", String.format("%.2f", gamepad1.left_stick_x));
-		telemetry.addData("Turn", String.format("%.2f", gamepad1.right_stick_x));
+		telemetry.addData("Forward", "%.2f", () -> -gamepad1.left_stick_y);
+		telemetry.addData("Strafe", "%.2f", () -> gamepad1.left_stick_x);
+		telemetry.addData("Turn", "%.2f", () -> gamepad1.right_stick_x);
 
 		telemetry.addData("", "=== GAMEPAD 2 (Operator) ===");
 		telemetry.addData("Left Trigger", "Intake");
 		telemetry.addData("Right Trigger", "Shooter");
-		telemetry.addData("Left Joystick Y (Spindexer)", String.format("%.2f", -gamepad2.left_stick_y));
-		telemetry.addData("Spindexer Position", String.format("%.2f rev", spindexer.getCurrentPositionTicks() / Spindexer.TICKS_PER_REV));
+		telemetry.addData("Left Joystick Y (Spindexer)", "%.2f", () -> -gamepad2.left_stick_y);
+		telemetry.addData("Spindexer Position", "%.2f rev", () -> spindexer.getCurrentPositionTicks() / Spindexer.TICKS_PER_REV);
 
 		telemetry.addData("", "=== SHOOTER ===");
-		telemetry.addData("Upper RPM", String.format("%.2f", shooter.upperRPM));
-		telemetry.addData("Lower RPM", String.format("%.2f", shooter.lowerRPM));
-		telemetry.addData("Average RPM", String.format("%.2f", shooter.averageRPM));
+		telemetry.addData("Upper RPM", "%.2f", () -> shooter.upperRPM);
+		telemetry.addData("Lower RPM", "%.2f", () -> shooter.lowerRPM);
+		telemetry.addData("Average RPM", "%.2f", () -> shooter.averageRPM);
+
+		telemetry.addData("", "=== OUTPUTS ===");
+		telemetry.addData("Writes Issued", outputs::getWritesIssued);
+		telemetry.addData("Writes Saved", outputs::getWritesSaved);
 	}
 }
@@ -4,9 +4,12 @@ import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 
 import org.firstinspires.ftc.teamcode.Actions.IntakeBall;
+import org.firstinspires.ftc.teamcode.Actions.PipelinedIntake;
 import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareInitializer;
 import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareShutdown;
 import org.firstinspires.ftc.teamcode.Subsystems.ColorDetector;
+import org.firstinspires.ftc.teamcode.Subsystems.Spindexer;
+import org.firstinspires.ftc.teamcode.Subsystems.TouchDetector;
 import org.firstinspires.ftc.teamcode.Utilities.ActionScheduler;
 import org.firstinspires.ftc.teamcode.Utilities.BallColor;
 
@@ -19,6 +22,7 @@ import org.firstinspires.ftc.teamcode.Utilities.BallColor;
  * - A button: Start IntakeBall action (full sequence)
  * - B button: Stop current action and clear queue
  * - X button: Print detailed action status
+ * - Y button: Start PipelinedIntake action (fill every free slot)
  * <p>
  * Expected Behavior:
  * - A button: Runs complete intake sequence (intake motor, spindexer movement, door operation, color detection)
@@ -33,8 +37,10 @@ import org.firstinspires.ftc.teamcode.Utilities.BallColor;
  * - Check action scheduling and telemetry
  * <p>
  * Notes:
- * - Requires spindexer to be zeroed first (use Test_Spindexer)
+ * - Zeroes the spindexer on START (reusing the saved zero if the encoder still agrees with it);
+ * A and Y are ignored until it is zeroed
  * - Make sure color detector thresholds are calibrated
+ * - Color detection runs in ColorDetector's async mode, so the loop never blocks on I2C
  * - Action automatically manages all subsystem coordination
  * <p>
  * Duration: ≤1 minute (action test)
@@ -47,28 +53,47 @@ public class Test_IntakeBall extends OpMode {
 	private boolean aButtonPrev = false;
 	private boolean bButtonPrev = false;
 	private boolean xButtonPrev = false;
+	private boolean yButtonPrev = false;
 
 	@Override
 	public void init() {
 		// Initialize hardware
 		HardwareInitializer.initialize(hardwareMap);
+		// Both intake actions wait on the touch sensors, which HardwareInitializer doesn't set up
+		TouchDetector.initialize(hardwareMap);
 		scheduler = ActionScheduler.getInstance();
+		// Read the color sensors on their own thread; HardwareShutdown stops it
+		ColorDetector.getInstance().startAsync();
 
 		telemetry.addData("Status", "Initialized - Waiting for START");
 		telemetry.addData("Purpose", "Test IntakeBall action sequence");
-		telemetry.addData("Note", "Ensure spindexer is zeroed first!");
+		telemetry.addData("Note", "Spindexer zeroes on START");
+	}
+
+	@Override
+	public void start() {
+		scheduler.schedule(Spindexer.getInstance().zero());
 	}
 
 	@Override
 	public void loop() {
 		// A button - Start IntakeBall action - edge detection
-		if (gamepad1.a && !aButtonPrev && !actionRunning) {
+		boolean zeroed = Spindexer.getInstance().isZeroed();
+		if (gamepad1.a && !aButtonPrev && !actionRunning && zeroed) {
 			scheduler.schedule(new IntakeBall());
 			actionRunning = true;
 			telemetry.addData("Action", "IntakeBall sequence started");
 		}
 		aButtonPrev = gamepad1.a;
 
+		// Y button - Start PipelinedIntake action - edge detection
+		if (gamepad1.y && !yButtonPrev && !actionRunning && zeroed) {
+			scheduler.schedule(new PipelinedIntake());
+			actionRunning = true;
+			telemetry.addData("Action", "PipelinedIntake sequence started");
+		}
+		yButtonPrev = gamepad1.y;
+
 		// B button - Stop current action and clear queue - edge detection
 		if (gamepad1.b && !bButtonPrev) {
 			scheduler.clearActions();
@@ -83,11 +108,13 @@ public class Test_IntakeBall extends OpMode {
 		}
 		xButtonPrev = gamepad1.x;
 
-		// Update color detector (required for action)
+		// Update color and touch detectors (required for action)
 		scheduler.schedule(ColorDetector.getInstance().update());
+		scheduler.schedule(TouchDetector.getInstance().update());
 
-		// Update action scheduler
+		// Update action scheduler, then the spindexer PID towards the target the actions set
 		scheduler.update();
+		Spindexer.getInstance().update();
 
 		// Check if action is still running
 		if (actionRunning && scheduler.isSchedulerEmpty()) {
@@ -110,7 +137,7 @@ public class Test_IntakeBall extends OpMode {
 		telemetry.addData("", "=== SPINDEXER STATUS ===");
 		telemetry.addData("Position (degrees)", String.format("%.1f", currentDegrees));
 		telemetry.addData("Current Slot", currentSlot);
-		telemetry.addData("Zeroed", currentTicks > -1);
+		telemetry.addData("Zeroed", zeroed);
 
 		// Ball colors in slots
 		telemetry.addData("", "=== STORED BALLS ===");
@@ -134,6 +161,7 @@ public class Test_IntakeBall extends OpMode {
 		telemetry.addData("A", "Start IntakeBall");
 		telemetry.addData("B", "Stop All");
 		telemetry.addData("X", "Print Status");
+		telemetry.addData("Y", "Start PipelinedIntake");
 
 		telemetry.addData("", "=== TEST RESULTS ===");
 		telemetry.addData("Action Execution", actionRunning ? "⚠ RUNNING" : (scheduler.getRunningActionCount() == 0 ? "✓ IDLE" : "✓ COMPLETE"));
@@ -148,6 +176,7 @@ public class Test_IntakeBall extends OpMode {
 		// Clear any running actions and shutdown
 		scheduler.clearActions();
 		HardwareShutdown.shutdown();
+		TouchDetector.shutdown();
 	}
 
 	/**
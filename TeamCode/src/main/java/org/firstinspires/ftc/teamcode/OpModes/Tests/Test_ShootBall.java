@@ -3,10 +3,12 @@ package org.firstinspires.ftc.teamcode.OpModes.Tests;
 import com.qualcomm.robotcore.eventloop.opmode.OpMode;
 import com.qualcomm.robotcore.eventloop.opmode.TeleOp;
 
+import org.firstinspires.ftc.teamcode.Actions.RapidFire;
 import org.firstinspires.ftc.teamcode.Actions.ShootBall;
 import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareInitializer;
 import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareShutdown;
 import org.firstinspires.ftc.teamcode.Subsystems.Shooter;
+import org.firstinspires.ftc.teamcode.Subsystems.Spindexer;
 import org.firstinspires.ftc.teamcode.Utilities.ActionScheduler;
 import org.firstinspires.ftc.teamcode.Utilities.BallColor;
 
@@ -20,6 +22,7 @@ import org.firstinspires.ftc.teamcode.Utilities.BallColor;
  * - B button: Start ShootBall + Shooter action (full sequence)
  * - X button: Stop current action and clear queue
  * - Y button: Print detailed action status
+ * - Dpad up: Start RapidFire action (shoot every loaded ball at AUDIENCE_RPM)
  * <p>
  * Expected Behavior:
  * - A button: Aligns spindexer with shooter (no actual shooting)
@@ -34,8 +37,10 @@ import org.firstinspires.ftc.teamcode.Utilities.BallColor;
  * - Check action scheduling and telemetry
  * <p>
  * Notes:
- * - Requires balls to be loaded in spindexer slots first
- * - Spindexer must be zeroed and positioned properly
+ * - Balls are loaded by hand before init; every slot starts UNKNOWN, so all of them are shot
+ * (an empty slot times out and is skipped)
+ * - Zeroes the spindexer on START (reusing the saved zero if the encoder still agrees with it);
+ * A, B and Dpad up are ignored until it is zeroed
  * - Action can shoot any color or filter by specific color
  * <p>
  * Duration: ≤1 minute (action test)
@@ -49,22 +54,33 @@ public class Test_ShootBall extends OpMode {
 	private boolean bButtonPrev = false;
 	private boolean xButtonPrev = false;
 	private boolean yButtonPrev = false;
+	private boolean dpadUpPrev = false;
 
 	@Override
 	public void init() {
 		// Initialize hardware
 		HardwareInitializer.initialize(hardwareMap);
 		scheduler = ActionScheduler.getInstance();
+		// The hand-loaded balls' colors aren't known
+		for (int i = 0; i < 3; i++) {
+			Spindexer.getInstance().setBallColor(i, BallColor.UNKNOWN);
+		}
 
 		telemetry.addData("Status", "Initialized - Waiting for START");
 		telemetry.addData("Purpose", "Test ShootBall action sequence");
-		telemetry.addData("Note", "Ensure balls are loaded in spindexer!");
+		telemetry.addData("Note", "Ensure balls are loaded in spindexer! Spindexer zeroes on START");
+	}
+
+	@Override
+	public void start() {
+		scheduler.schedule(Spindexer.getInstance().zero());
 	}
 
 	@Override
 	public void loop() {
 		// A button - Start ShootBall action (alignment only) - edge detection
-		if (gamepad1.a && !aButtonPrev && !actionRunning) {
+		boolean zeroed = Spindexer.getInstance().isZeroed();
+		if (gamepad1.a && !aButtonPrev && !actionRunning && zeroed) {
 			scheduler.schedule(new ShootBall()); // Shoot any available ball
 			actionRunning = true;
 			telemetry.addData("Action", "ShootBall (alignment) started");
@@ -72,7 +88,7 @@ public class Test_ShootBall extends OpMode {
 		aButtonPrev = gamepad1.a;
 
 		// B button - Start ShootBall + Shooter action (full sequence) - edge detection
-		if (gamepad1.b && !bButtonPrev && !actionRunning) {
+		if (gamepad1.b && !bButtonPrev && !actionRunning && zeroed) {
 			scheduler.schedule(new ShootBall()); // Align first
 			// Note: In a real sequence, this would be followed by shooter.run() action
 			actionRunning = true;
@@ -94,11 +110,17 @@ public class Test_ShootBall extends OpMode {
 		}
 		yButtonPrev = gamepad1.y;
 
-		// Update spindexer PID controller
-//		scheduler.schedule(org.firstinspires.ftc.teamcode.Subsystems.Spindexer.getInstance().update());
+		// Dpad up - Start RapidFire action - edge detection
+		if (gamepad1.dpad_up && !dpadUpPrev && !actionRunning && zeroed) {
+			scheduler.schedule(new RapidFire(Shooter.AUDIENCE_RPM));
+			actionRunning = true;
+			telemetry.addData("Action", "RapidFire started");
+		}
+		dpadUpPrev = gamepad1.dpad_up;
 
-		// Update action scheduler
+		// Update action scheduler, then the spindexer PID towards the target the actions set
 		scheduler.update();
+		Spindexer.getInstance().update();
 
 		// Check if action is still running
 		if (actionRunning && scheduler.isSchedulerEmpty()) {
@@ -121,7 +143,7 @@ public class Test_ShootBall extends OpMode {
 		telemetry.addData("", "=== SPINDEXER STATUS ===");
 		telemetry.addData("Position (degrees)", String.format("%.1f", currentDegrees));
 		telemetry.addData("Current Slot", currentSlot);
-		telemetry.addData("Zeroed", currentTicks > -1);
+		telemetry.addData("Zeroed", zeroed);
 
 		// Ball colors in slots
 		telemetry.addData("", "=== STORED BALLS ===");
@@ -151,6 +173,7 @@ public class Test_ShootBall extends OpMode {
 		telemetry.addData("B", "Align + Shoot");
 		telemetry.addData("X", "Stop All");
 		telemetry.addData("Y", "Print Status");
+		telemetry.addData("Dpad Up", "Rapid Fire");
 
 		telemetry.addData("", "=== TEST RESULTS ===");
 		telemetry.addData("Action Execution", actionRunning ? "⚠ RUNNING" : (scheduler.getRunningActionCount() == 0 ? "✓ IDLE" : "✓ COMPLETE"));
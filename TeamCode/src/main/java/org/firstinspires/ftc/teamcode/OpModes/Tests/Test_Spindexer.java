@@ -14,13 +14,14 @@ import org.firstinspires.ftc.teamcode.Utilities.ActionScheduler;
  * Purpose: Test the spindexer's zeroing sequence and PID position control
  * <p>
  * Controls - Zeroing and Positioning:
- * - A button: Start Zero Sequence (calibrate to home position via touch sensor)
+ * - A button: Start Zero Sequence (always homes on the touch sensor, ignoring a saved zero)
  * - B button: Move to Position 0 (0 revolutions)
  * - X button: Move to Position 1 (1/3 revolution = 120 degrees)
  * - Y button: Move to Position 2 (2/3 revolution = 240 degrees)
  * <p>
  * Expected Behavior:
- * - Zero Sequence: Moves to touch sensor, backs off slightly, and resets encoder to 0
+ * - Zero Sequence: Moves to touch sensor fast, backs off, approaches slowly and sets zero there;
+ *   the slow approach is skipped if the fast one already found the sensor edge precisely
  * - Position Commands: Smoothly moves spindexer to target position and holds it
  * - PID Control: Provides smooth, accurate position control
  * - Telemetry: Shows current position, error, and PID status
@@ -69,6 +70,8 @@ public class Test_Spindexer extends OpMode {
 		// A button - Start Zero Sequence - edge detection
 		if (gamepad1.a && !aButtonPrev && !isRunningZero && !isMovingToPosition) {
 			isRunningZero = true;
+			// Homing keeps state, so it is scheduled once rather than every loop
+			scheduler.schedule(spindexer.home());
 			telemetry.addData("Action", "Starting Zero Sequence...");
 		}
 		aButtonPrev = gamepad1.a;
@@ -97,11 +100,6 @@ public class Test_Spindexer extends OpMode {
 		}
 		yButtonPrev = gamepad1.y;
 
-		// Run zero sequence if active
-		if (isRunningZero) {
-			scheduler.schedule(spindexer.zero());
-		}
-
 		// Run position movement if active
 		if (isMovingToPosition) {
 			scheduler.schedule(spindexer.toPosition(targetPosition));
@@ -111,6 +111,12 @@ public class drivetest extends OpMode {
 
 	}
 
+	@Override
+	public void stop() {
+		// Don't let a Pinpoint poller outlive the OpMode
+		PinpointLocalizer.shutdown();
+	}
+
 	public static class X {
 		public static double Xp = 0, Xi = 0, Xd = 0, Xf = 0;
 
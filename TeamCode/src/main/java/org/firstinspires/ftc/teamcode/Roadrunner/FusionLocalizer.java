@@ -0,0 +1,563 @@
+package org.firstinspires.ftc.teamcode.Roadrunner;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.Pose2d;
+import com.acmerobotics.roadrunner.PoseVelocity2d;
+import com.acmerobotics.roadrunner.Vector2d;
+
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+
+/**
+ * Localizer that fuses an odometry localizer with absolute field poses from vision (AprilTags)
+ * in an extended Kalman filter, so dead-reckoning drift doesn't build up over a match.
+ * <p>
+ * Every update() is a prediction step: the odometry's pose change since the last update, in the
+ * robot frame, is applied to the estimate, and the covariance grows with the distance and angle
+ * travelled. Vision measurements are correction steps, gated by their Mahalanobis distance so a
+ * misread tag can't pull the estimate away.
+ * <p>
+ * Vision arrives late: by the time a camera frame is processed the robot has moved on, and
+ * frames can even arrive out of order. Each update() and accepted measurement is kept in a
+ * history with the state and covariance after it. A measurement is inserted into the history at
+ * the time its image was captured, splitting the odometry step it falls in, and every later step
+ * is filtered again on top of it (out-of-sequence measurement handling). Measurements older than
+ * the history are dropped.
+ * <p>
+ * State is x, y, heading in the field frame; the history and filter run on primitives, so
+ * nothing is allocated per update apart from what the odometry localizer allocates.
+ * <p>
+ * To use:
+ * 1. localizer = new FusionLocalizer(odometry, new LimelightPoseSource(limelight))
+ * 2. Call update() every loop, like any Localizer; sources are polled from there
+ * 3. Or feed it directly (simulation, replay): addOdometry() and addVisionMeasurement()
+ */
+@Config
+public final class FusionLocalizer implements Localizer {
+	/**
+	 * Growth of the x and y variance per inch driven, in in^2 per inch
+	 */
+	public static double ODOMETRY_XY_VARIANCE_PER_INCH = 0.005;
+	/**
+	 * Growth of the heading variance per radian turned, in rad^2 per rad
+	 */
+	public static double ODOMETRY_HEADING_VARIANCE_PER_RAD = 2e-4;
+	/**
+	 * Standard deviation of the starting pose and of setPose(), in inches
+	 */
+	public static double INITIAL_XY_STD_DEV = 1.0;
+	/**
+	 * Standard deviation of the starting heading and of setPose(), in degrees
+	 */
+	public static double INITIAL_HEADING_STD_DEV_DEG = 2.0;
+	/**
+	 * Largest squared Mahalanobis distance accepted (chi-squared, 3 degrees of freedom; 16.3 is 0.1%)
+	 */
+	public static double MAHALANOBIS_GATE = 16.3;
+	/**
+	 * After this many rejected measurements in a row, the estimate is assumed to be lost and the
+	 * next measurement is accepted regardless of the gate
+	 */
+	public static int MAX_CONSECUTIVE_REJECTIONS = 10;
+	/**
+	 * Odometry updates kept for late measurements; a couple of seconds of loops
+	 */
+	public static int HISTORY_CAPACITY = 256;
+
+	private static final DataLog.Record LOG = DataLog.register("fusion",
+			"xStdDev", "yStdDev", "headingStdDev", "accepted", "rejected");
+	// One row per measurement offered; ageMs is how long before the commit it was captured
+	private static final DataLog.Record VISION_LOG = DataLog.register("vision",
+			"x", "y", "heading", "ageMs", "xyStdDev", "headingStdDev", "accepted");
+
+	// Fields of a history entry in the entries array. MEASURED is NOT_MEASURED, GATED or FORCED,
+	// how the entry's measurement was accepted
+	private static final int DX = 0, DY = 1, DH = 2;
+	private static final int MEASURED = 3, MX = 4, MY = 5, MH = 6, M_XY_VAR = 7, M_HEADING_VAR = 8;
+	private static final int X = 9, Y = 10, H = 11;
+	private static final int P00 = 12, P01 = 13, P02 = 14, P11 = 15, P12 = 16, P22 = 17;
+	private static final int STRIDE = 18;
+	private static final int NOT_MEASURED = 0, GATED = 1, FORCED = 2;
+
+	private final Localizer odometry;
+	private final VisionPoseSource[] sources;
+
+	// Current estimate, and its covariance (upper triangle)
+	private double x, y, heading;
+	private double p00, p01, p02, p11, p12, p22;
+
+	// Odometry pose at the last update, to take the next step from
+	private double odometryX, odometryY, odometryHeading;
+	private boolean hasOdometry = false;
+	private final double[] odometryPose = new double[3];
+
+	// History ring, oldest first. Each entry holds the odometry step from the previous entry (in
+	// the robot frame at the previous entry), the measurement applied there if any, and the state
+	// and covariance after both.
+	private final long[] timestamps;
+	private final double[] entries;
+	private int start = 0;
+	private int size = 0;
+
+	private int consecutiveRejections = 0;
+	private int acceptedCount = 0;
+	private int rejectedCount = 0;
+
+	/**
+	 * @param odometry localizer to take motion from; this localizer updates it
+	 * @param sources  vision sources to poll every update()
+	 */
+	public FusionLocalizer(Localizer odometry, VisionPoseSource... sources) {
+		this.odometry = odometry;
+		this.sources = sources.clone();
+		int capacity = Math.max(2, HISTORY_CAPACITY);
+		timestamps = new long[capacity];
+		entries = new double[capacity * STRIDE];
+		reset(odometry.getPose());
+	}
+
+	public Localizer getOdometry() {
+		return odometry;
+	}
+
+	@Override
+	public Pose2d getPose() {
+		return new Pose2d(x, y, heading);
+	}
+
+	@Override
+	public void getPose(double[] poseOut) {
+		poseOut[0] = x;
+		poseOut[1] = y;
+		poseOut[2] = heading;
+	}
+
+	/**
+	 * Sets the estimate, with the initial uncertainty, and forgets the history.
+	 */
+	@Override
+	public void setPose(Pose2d pose) {
+		reset(pose);
+	}
+
+	private void reset(Pose2d pose) {
+		x = pose.position.x;
+		y = pose.position.y;
+		heading = pose.heading.toDouble();
+		double headingStdDev = Math.toRadians(INITIAL_HEADING_STD_DEV_DEG);
+		p00 = p11 = INITIAL_XY_STD_DEV * INITIAL_XY_STD_DEV;
+		p22 = headingStdDev * headingStdDev;
+		p01 = p02 = p12 = 0;
+		start = 0;
+		size = 0;
+		consecutiveRejections = 0;
+	}
+
+	@Override
+	public PoseVelocity2d update() {
+		double[] velocity = new double[3];
+		update(velocity);
+		return new PoseVelocity2d(new Vector2d(velocity[0], velocity[1]), velocity[2]);
+	}
+
+	/**
+	 * Same as update(); allocates nothing itself, and nothing in the odometry if it overrides
+	 * update(double[]) and getPose(double[]).
+	 */
+	@Override
+	public void update(double[] velocityOut) {
+		odometry.update(velocityOut);
+		odometry.getPose(odometryPose);
+		addOdometry(odometryTimestampNanos(), odometryPose[0], odometryPose[1], odometryPose[2]);
+		for (VisionPoseSource source : sources) {
+			source.poll(this);
+		}
+		LOG.set(0, Math.sqrt(p00))
+				.set(1, Math.sqrt(p11))
+				.set(2, Math.sqrt(p22))
+				.set(3, acceptedCount)
+				.set(4, rejectedCount)
+				.commit();
+	}
+
+	private long odometryTimestampNanos() {
+		if (odometry instanceof PinpointLocalizer) {
+			return ((PinpointLocalizer) odometry).getReadingTimestampNanos();
+		}
+		return HardwareSnapshot.nowNanos();
+	}
+
+	/**
+	 * Prediction step: moves the estimate by the odometry's change since the last call.
+	 *
+	 * @param timestampNanos when the odometry pose was read, from System.nanoTime()
+	 * @param odometryPose   pose reported by the odometry
+	 */
+	public void addOdometry(long timestampNanos, Pose2d odometryPose) {
+		addOdometry(timestampNanos, odometryPose.position.x, odometryPose.position.y,
+				odometryPose.heading.toDouble());
+	}
+
+	/**
+	 * Same as addOdometry(long, Pose2d), with the odometry pose as x, y and heading.
+	 */
+	public void addOdometry(long timestampNanos, double ox, double oy, double oh) {
+		double stepX = 0, stepY = 0, stepHeading = 0;
+		if (hasOdometry) {
+			// Step in the robot frame, which is the same for the odometry and the estimate
+			double cos = Math.cos(odometryHeading);
+			double sin = Math.sin(odometryHeading);
+			stepX = cos * (ox - odometryX) + sin * (oy - odometryY);
+			stepY = -sin * (ox - odometryX) + cos * (oy - odometryY);
+			stepHeading = Math.IEEEremainder(oh - odometryHeading, 2 * Math.PI);
+		}
+		odometryX = ox;
+		odometryY = oy;
+		odometryHeading = oh;
+		hasOdometry = true;
+
+		if (size > 0) {
+			// Keep the history strictly ordered even if the clock source repeats
+			timestampNanos = Math.max(timestampNanos, timestamps[physical(size - 1)] + 1);
+		}
+		predict(stepX, stepY, stepHeading);
+		int entry = insert(size);
+		timestamps[entry] = timestampNanos;
+		setStep(entry, stepX, stepY, stepHeading);
+		entries[entry * STRIDE + MEASURED] = NOT_MEASURED;
+		storeState(entry);
+	}
+
+	/**
+	 * Correction step with an absolute field pose, applied at the time it was measured.
+	 *
+	 * @param timestampNanos when the image was captured, from System.nanoTime()
+	 * @param xyStdDev       standard deviation of x and y, in inches
+	 * @param headingStdDev  standard deviation of heading, in radians
+	 * @return true if the measurement was used; false if it failed the gate or is older than
+	 * the history
+	 */
+	public boolean addVisionMeasurement(long timestampNanos, double measuredX, double measuredY,
+										double measuredHeading, double xyStdDev, double headingStdDev) {
+		boolean accepted = correctAt(timestampNanos, measuredX, measuredY, measuredHeading,
+				xyStdDev * xyStdDev, headingStdDev * headingStdDev);
+		if (accepted) {
+			acceptedCount++;
+			consecutiveRejections = 0;
+		} else {
+			rejectedCount++;
+			consecutiveRejections++;
+		}
+		VISION_LOG.set(0, measuredX)
+				.set(1, measuredY)
+				.set(2, measuredHeading)
+				.set(3, (HardwareSnapshot.nowNanos() - timestampNanos) / 1e6)
+				.set(4, xyStdDev)
+				.set(5, headingStdDev)
+				.set(6, accepted)
+				.commit();
+		return accepted;
+	}
+
+	private boolean correctAt(long timestampNanos, double mx, double my, double mh,
+							  double xyVariance, double headingVariance) {
+		if (size == 0 || timestampNanos < timestamps[physical(0)]) return false;
+		// Once the estimate is lost, the measurement is accepted whatever the gate says
+		boolean forceAccept = consecutiveRejections >= MAX_CONSECUTIVE_REJECTIONS;
+
+		// Last entry at or before the measurement
+		int before = size - 1;
+		while (timestamps[physical(before)] > timestampNanos) {
+			before--;
+		}
+
+		// Part of the following odometry step that happened before the measurement
+		double stepX = 0, stepY = 0, stepHeading = 0;
+		double fraction = 0;
+		boolean inside = before < size - 1;
+		if (inside) {
+			int next = physical(before + 1);
+			fraction = (double) (timestampNanos - timestamps[physical(before)])
+					/ (timestamps[next] - timestamps[physical(before)]);
+			stepX = entries[next * STRIDE + DX] * fraction;
+			stepY = entries[next * STRIDE + DY] * fraction;
+			stepHeading = entries[next * STRIDE + DH] * fraction;
+		}
+
+		loadState(physical(before));
+		predict(stepX, stepY, stepHeading);
+		if (!correct(mx, my, mh, xyVariance, headingVariance, !forceAccept, forceAccept)) {
+			loadState(physical(size - 1));
+			return false;
+		}
+
+		int entry = insert(before + 1);
+		if (entry < 0) {
+			loadState(physical(size - 1));
+			return false;
+		}
+		// Where it landed, in case the oldest entry was dropped to make room
+		int index = (entry - start + timestamps.length) % timestamps.length;
+		timestamps[entry] = timestampNanos;
+		setStep(entry, stepX, stepY, stepHeading);
+		entries[entry * STRIDE + MEASURED] = forceAccept ? FORCED : GATED;
+		entries[entry * STRIDE + MX] = mx;
+		entries[entry * STRIDE + MY] = my;
+		entries[entry * STRIDE + MH] = mh;
+		entries[entry * STRIDE + M_XY_VAR] = xyVariance;
+		entries[entry * STRIDE + M_HEADING_VAR] = headingVariance;
+		storeState(entry);
+
+		if (inside) {
+			// The rest of the split step, from the measurement to the next entry
+			int next = physical(index + 1);
+			double fullX = entries[next * STRIDE + DX];
+			double fullY = entries[next * STRIDE + DY];
+			double fullHeading = entries[next * STRIDE + DH];
+			double cos = Math.cos(stepHeading);
+			double sin = Math.sin(stepHeading);
+			setStep(next, cos * (fullX - stepX) + sin * (fullY - stepY),
+					-sin * (fullX - stepX) + cos * (fullY - stepY),
+					fullHeading - stepHeading);
+		}
+
+		// Filter everything after the measurement again. Later measurements were already accepted,
+		// so they skip the gate, and are applied the way they were the first time: only a forced
+		// one widens the covariance. This gives the same result as receiving them in order.
+		for (int i = index + 1; i < size; i++) {
+			int e = physical(i);
+			predict(entries[e * STRIDE + DX], entries[e * STRIDE + DY], entries[e * STRIDE + DH]);
+			double measured = entries[e * STRIDE + MEASURED];
+			if (measured != NOT_MEASURED) {
+				correct(entries[e * STRIDE + MX], entries[e * STRIDE + MY], entries[e * STRIDE + MH],
+						entries[e * STRIDE + M_XY_VAR], entries[e * STRIDE + M_HEADING_VAR],
+						false, measured == FORCED);
+			}
+			storeState(e);
+		}
+		return true;
+	}
+
+	/**
+	 * EKF prediction of the working state by a robot-frame step.
+	 */
+	private void predict(double stepX, double stepY, double stepHeading) {
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
+		// Jacobian of the new position with respect to the old heading
+		double a = -sin * stepX - cos * stepY;
+		double b = cos * stepX - sin * stepY;
+		x += cos * stepX - sin * stepY;
+		y += sin * stepX + cos * stepY;
+		heading += stepHeading;
+
+		double xyNoise = ODOMETRY_XY_VARIANCE_PER_INCH * Math.hypot(stepX, stepY);
+		double headingNoise = ODOMETRY_HEADING_VARIANCE_PER_RAD * Math.abs(stepHeading);
+		double n00 = p00 + 2 * a * p02 + a * a * p22 + xyNoise;
+		double n01 = p01 + a * p12 + b * p02 + a * b * p22;
+		double n02 = p02 + a * p22;
+		double n11 = p11 + 2 * b * p12 + b * b * p22 + xyNoise;
+		double n12 = p12 + b * p22;
+		p00 = n00;
+		p01 = n01;
+		p02 = n02;
+		p11 = n11;
+		p12 = n12;
+		p22 += headingNoise;
+	}
+
+	/**
+	 * EKF correction of the working state with a full-pose measurement.
+	 *
+	 * @param applyGate   reject the measurement if it's beyond MAHALANOBIS_GATE
+	 * @param forceAccept the estimate is lost: widen the covariance to cover the innovation first
+	 * @return false if the measurement failed the gate (the state is unchanged)
+	 */
+	private boolean correct(double mx, double my, double mh, double xyVariance, double headingVariance,
+							boolean applyGate, boolean forceAccept) {
+		double ex = mx - x;
+		double ey = my - y;
+		double eh = Math.IEEEremainder(mh - heading, 2 * Math.PI);
+
+		if (forceAccept) {
+			// Accepted regardless of the gate: if the estimate is lost, its covariance is too small
+			// for the measurement to move it, so widen it to cover the innovation
+			p00 = Math.max(p00, ex * ex + ey * ey);
+			p11 = Math.max(p11, ex * ex + ey * ey);
+			p22 = Math.max(p22, eh * eh);
+		}
+
+		// Innovation covariance S = P + R, and its inverse
+		double s00 = p00 + xyVariance, s01 = p01, s02 = p02;
+		double s11 = p11 + xyVariance, s12 = p12;
+		double s22 = p22 + headingVariance;
+		double i00 = s11 * s22 - s12 * s12;
+		double i01 = s02 * s12 - s01 * s22;
+		double i02 = s01 * s12 - s02 * s11;
+		double i11 = s00 * s22 - s02 * s02;
+		double i12 = s01 * s02 - s00 * s12;
+		double i22 = s00 * s11 - s01 * s01;
+		double det = s00 * i00 + s01 * i01 + s02 * i02;
+		if (!(det > 0)) return false;
+		i00 /= det;
+		i01 /= det;
+		i02 /= det;
+		i11 /= det;
+		i12 /= det;
+		i22 /= det;
+
+		double distance = ex * (i00 * ex + i01 * ey + i02 * eh)
+				+ ey * (i01 * ex + i11 * ey + i12 * eh)
+				+ eh * (i02 * ex + i12 * ey + i22 * eh);
+		if (applyGate && distance > MAHALANOBIS_GATE) return false;
+
+		// Gain K = P S^-1
+		double k00 = p00 * i00 + p01 * i01 + p02 * i02;
+		double k01 = p00 * i01 + p01 * i11 + p02 * i12;
+		double k02 = p00 * i02 + p01 * i12 + p02 * i22;
+		double k10 = p01 * i00 + p11 * i01 + p12 * i02;
+		double k11 = p01 * i01 + p11 * i11 + p12 * i12;
+		double k12 = p01 * i02 + p11 * i12 + p12 * i22;
+		double k20 = p02 * i00 + p12 * i01 + p22 * i02;
+		double k21 = p02 * i01 + p12 * i11 + p22 * i12;
+		double k22 = p02 * i02 + p12 * i12 + p22 * i22;
+
+		x += k00 * ex + k01 * ey + k02 * eh;
+		y += k10 * ex + k11 * ey + k12 * eh;
+		heading += k20 * ex + k21 * ey + k22 * eh;
+
+		// P = (I - K) P
+		double n00 = p00 - (k00 * p00 + k01 * p01 + k02 * p02);
+		double n01 = p01 - (k00 * p01 + k01 * p11 + k02 * p12);
+		double n02 = p02 - (k00 * p02 + k01 * p12 + k02 * p22);
+		double n11 = p11 - (k10 * p01 + k11 * p11 + k12 * p12);
+		double n12 = p12 - (k10 * p02 + k11 * p12 + k12 * p22);
+		double n22 = p22 - (k20 * p02 + k21 * p12 + k22 * p22);
+		p00 = n00;
+		p01 = n01;
+		p02 = n02;
+		p11 = n11;
+		p12 = n12;
+		p22 = n22;
+		return true;
+	}
+
+	private int physical(int i) {
+		return (start + i) % timestamps.length;
+	}
+
+	/**
+	 * Opens a slot at history index i, shifting later entries back and dropping the oldest entry
+	 * if the history is full.
+	 *
+	 * @return the slot's position in the ring, or -1 if i fell off the front
+	 */
+	private int insert(int i) {
+		if (size == timestamps.length) {
+			start = (start + 1) % timestamps.length;
+			size--;
+			i--;
+			if (i < 0) return -1;
+		}
+		for (int j = size - 1; j >= i; j--) {
+			int from = physical(j);
+			int to = physical(j + 1);
+			timestamps[to] = timestamps[from];
+			System.arraycopy(entries, from * STRIDE, entries, to * STRIDE, STRIDE);
+		}
+		size++;
+		return physical(i);
+	}
+
+	private void setStep(int entry, double stepX, double stepY, double stepHeading) {
+		entries[entry * STRIDE + DX] = stepX;
+		entries[entry * STRIDE + DY] = stepY;
+		entries[entry * STRIDE + DH] = stepHeading;
+	}
+
+	private void storeState(int entry) {
+		int base = entry * STRIDE;
+		entries[base + X] = x;
+		entries[base + Y] = y;
+		entries[base + H] = heading;
+		entries[base + P00] = p00;
+		entries[base + P01] = p01;
+		entries[base + P02] = p02;
+		entries[base + P11] = p11;
+		entries[base + P12] = p12;
+		entries[base + P22] = p22;
+	}
+
+	private void loadState(int entry) {
+		int base = entry * STRIDE;
+		x = entries[base + X];
+		y = entries[base + Y];
+		heading = entries[base + H];
+		p00 = entries[base + P00];
+		p01 = entries[base + P01];
+		p02 = entries[base + P02];
+		p11 = entries[base + P11];
+		p12 = entries[base + P12];
+		p22 = entries[base + P22];
+	}
+
+	/**
+	 * Looks up the fused pose at a time. With a Pinpoint odometry polling on its own thread this
+	 * applies the fused correction to the Pinpoint's interpolated or extrapolated pose; otherwise
+	 * it returns the current estimate.
+	 *
+	 * @param timestampNanos time from System.nanoTime()
+	 */
+	public Pose2d getPoseAt(long timestampNanos) {
+		double[] pose = new double[3];
+		getPoseAt(timestampNanos, pose);
+		return new Pose2d(pose[0], pose[1], pose[2]);
+	}
+
+	/**
+	 * Same as getPoseAt(long), written into poseOut as x, y and heading without allocating.
+	 */
+	public void getPoseAt(long timestampNanos, double[] poseOut) {
+		if (!(odometry instanceof PinpointLocalizer) || !((PinpointLocalizer) odometry).isAsync() || !hasOdometry) {
+			getPose(poseOut);
+			return;
+		}
+		((PinpointLocalizer) odometry).getPoseAt(timestampNanos, poseOut);
+		// The fused correction (estimate * odometry^-1) applied to it: the pose relative to the
+		// last odometry pose, composed with the estimate
+		double cos = Math.cos(odometryHeading);
+		double sin = Math.sin(odometryHeading);
+		double dx = poseOut[0] - odometryX;
+		double dy = poseOut[1] - odometryY;
+		double relativeX = cos * dx + sin * dy;
+		double relativeY = -sin * dx + cos * dy;
+		double relativeHeading = poseOut[2] - odometryHeading;
+		cos = Math.cos(heading);
+		sin = Math.sin(heading);
+		poseOut[0] = x + cos * relativeX - sin * relativeY;
+		poseOut[1] = y + sin * relativeX + cos * relativeY;
+		poseOut[2] = Math.IEEEremainder(heading + relativeHeading, 2 * Math.PI);
+	}
+
+	/**
+	 * @return standard deviation of the position estimate (the larger axis), in inches
+	 */
+	public double getPositionStdDev() {
+		return Math.sqrt(Math.max(p00, p11));
+	}
+
+	/**
+	 * @return standard deviation of the heading estimate, in radians
+	 */
+	public double getHeadingStdDev() {
+		return Math.sqrt(p22);
+	}
+
+	public int getAcceptedCount() {
+		return acceptedCount;
+	}
+
+	public int getRejectedCount() {
+		return rejectedCount;
+	}
+}
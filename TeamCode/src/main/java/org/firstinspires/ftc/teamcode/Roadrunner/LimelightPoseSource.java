@@ -0,0 +1,70 @@
+package org.firstinspires.ftc.teamcode.Roadrunner;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.qualcomm.hardware.limelightvision.LLResult;
+import com.qualcomm.hardware.limelightvision.Limelight3A;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.Pose3D;
+import org.firstinspires.ftc.robotcore.external.navigation.Position;
+
+/**
+ * Feeds the Limelight's AprilTag robot pose (MegaTag 1 botpose) to a FusionLocalizer.
+ * <p>
+ * Each new result is stamped with when its image was captured: the Limelight reports its capture
+ * and processing latency, and the SDK when the result arrived. The standard deviation grows with
+ * the distance to the tags and shrinks with the number of tags seen.
+ * <p>
+ * The active pipeline must be an AprilTag pipeline with the field map uploaded, so botpose is in
+ * the FTC field frame (origin at the field center), which is also Roadrunner's.
+ */
+@Config
+public class LimelightPoseSource implements VisionPoseSource {
+	/**
+	 * Standard deviation of x and y with one tag 1 m away, in inches
+	 */
+	public static double XY_STD_DEV = 2.0;
+	/**
+	 * Standard deviation of heading with one tag 1 m away, in degrees
+	 */
+	public static double HEADING_STD_DEV_DEG = 4.0;
+	/**
+	 * Results whose tags are further than this, in meters, are ignored
+	 */
+	public static double MAX_TAG_DISTANCE_M = 3.5;
+	public static int PIPELINE = 0;
+
+	private final Limelight3A limelight;
+	// Arrival time of the last result passed on, to pass each result only once
+	private long lastResultMillis = 0;
+
+	public LimelightPoseSource(Limelight3A limelight) {
+		this.limelight = limelight;
+		limelight.pipelineSwitch(PIPELINE);
+		limelight.start();
+	}
+
+	@Override
+	public void poll(FusionLocalizer fusion) {
+		LLResult result = limelight.getLatestResult();
+		if (result == null || !result.isValid() || result.getBotposeTagCount() == 0) return;
+		if (result.getControlHubTimeStamp() == lastResultMillis) return;
+		lastResultMillis = result.getControlHubTimeStamp();
+
+		double distance = result.getBotposeAvgDist();
+		if (distance > MAX_TAG_DISTANCE_M) return;
+		Pose3D botpose = result.getBotpose();
+		if (botpose == null) return;
+
+		// The arrival time is on the wall clock; the staleness converts it to System.nanoTime()
+		double ageMs = result.getStaleness() + result.getCaptureLatency() + result.getTargetingLatency();
+		long capturedNanos = System.nanoTime() - (long) (ageMs * 1e6);
+
+		Position position = botpose.getPosition().toUnit(DistanceUnit.INCH);
+		double scale = Math.max(1.0, distance) / Math.sqrt(result.getBotposeTagCount());
+		fusion.addVisionMeasurement(capturedNanos, position.x, position.y,
+				botpose.getOrientation().getYaw(AngleUnit.RADIANS),
+				XY_STD_DEV * scale, Math.toRadians(HEADING_STD_DEV_DEG) * scale);
+	}
+}
@@ -24,4 +24,31 @@ public interface Localizer {
 	 * @return the Localizer's current velocity estimate
 	 */
 	PoseVelocity2d update();
+
+	/**
+	 * Same as getPose(), written into poseOut as x, y (inches) and heading (radians). Localizers
+	 * that keep their pose in primitives override this so it doesn't allocate.
+	 *
+	 * @param poseOut array of at least 3 elements
+	 */
+	default void getPose(double[] poseOut) {
+		Pose2d pose = getPose();
+		poseOut[0] = pose.position.x;
+		poseOut[1] = pose.position.y;
+		poseOut[2] = pose.heading.toDouble();
+	}
+
+	/**
+	 * Same as update(), with the robot-frame velocity written into velocityOut as x, y (inches
+	 * per second) and angular (radians per second). Localizers that can update without
+	 * allocating override this.
+	 *
+	 * @param velocityOut array of at least 3 elements
+	 */
+	default void update(double[] velocityOut) {
+		PoseVelocity2d velocity = update();
+		velocityOut[0] = velocity.linearVel.x;
+		velocityOut[1] = velocity.linearVel.y;
+		velocityOut[2] = velocity.angVel;
+	}
 }
@@ -0,0 +1,132 @@
+package org.firstinspires.ftc.teamcode.Roadrunner;
+
+/**
+ * Control math of the sampled followers: Roadrunner's HolonomicController, MecanumKinematics and
+ * MotorFeedforward for one tick, written out on primitives so nothing is allocated. drivePowers()
+ * is the same for teleop's stick input.
+ * <p>
+ * It follows HolonomicController.compute() term for term:
+ * - the target velocity and acceleration are rotated into the target's frame (txTargetWorld)
+ * - the position error is target minus actual, rotated into the actual robot frame, and the
+ * heading error is wrapped to [-pi, pi]
+ * - the velocity error is the target velocity in the target frame minus the measured
+ * robot-frame velocity
+ * <p>
+ * Nothing here depends on the FTC SDK, so the benchmarks run exactly this code on a desktop JVM.
+ */
+public final class MecanumControl {
+	private final double trackWidth;
+	private final double lateralMultiplier;
+
+	private double axialGain, lateralGain, headingGain;
+	private double axialVelGain, lateralVelGain, headingVelGain;
+	private double kS, kV, kA;
+
+	/**
+	 * @param trackWidth        MecanumKinematics track width, in inches
+	 * @param lateralMultiplier MecanumKinematics lateral multiplier
+	 */
+	public MecanumControl(double trackWidth, double lateralMultiplier) {
+		this.trackWidth = trackWidth;
+		this.lateralMultiplier = lateralMultiplier;
+	}
+
+	/**
+	 * Sets the HolonomicController gains. Cheap enough to call every tick, so dashboard edits
+	 * take effect immediately.
+	 */
+	public void setGains(double axialGain, double lateralGain, double headingGain,
+						 double axialVelGain, double lateralVelGain, double headingVelGain) {
+		this.axialGain = axialGain;
+		this.lateralGain = lateralGain;
+		this.headingGain = headingGain;
+		this.axialVelGain = axialVelGain;
+		this.lateralVelGain = lateralVelGain;
+		this.headingVelGain = headingVelGain;
+	}
+
+	/**
+	 * Sets the wheel feedforward, with kV and kA per inch (MecanumDrive's kV / inPerTick).
+	 */
+	public void setFeedforward(double kS, double kV, double kA) {
+		this.kS = kS;
+		this.kV = kV;
+		this.kA = kA;
+	}
+
+	/**
+	 * Computes the wheel powers that track one sample of a trajectory.
+	 *
+	 * @param target    trajectory, already sampled at the time being tracked
+	 * @param pose      actual pose: x, y (inches) and heading (radians)
+	 * @param robotVel  measured robot-frame velocity: x, y and angular
+	 * @param voltage   battery voltage
+	 * @param powersOut left front, left back, right back and right front power
+	 */
+	public void track(SampledTrajectory target, double[] pose, double[] robotVel, double voltage,
+					  double[] powersOut) {
+		// Target velocity and acceleration in the target frame
+		double targetHeading = target.getHeading();
+		double targetCos = Math.cos(targetHeading);
+		double targetSin = Math.sin(targetHeading);
+		double targetVx = targetCos * target.getVelocityX() + targetSin * target.getVelocityY();
+		double targetVy = -targetSin * target.getVelocityX() + targetCos * target.getVelocityY();
+		double targetAx = targetCos * target.getAccelerationX() + targetSin * target.getAccelerationY();
+		double targetAy = -targetSin * target.getAccelerationX() + targetCos * target.getAccelerationY();
+		double targetOmega = target.getAngularVelocity();
+		double targetAlpha = target.getAngularAcceleration();
+
+		// Pose error in the actual robot frame
+		double cos = Math.cos(pose[2]);
+		double sin = Math.sin(pose[2]);
+		double dx = target.getX() - pose[0];
+		double dy = target.getY() - pose[1];
+		double errorX = cos * dx + sin * dy;
+		double errorY = -sin * dx + cos * dy;
+		double errorHeading = Math.IEEEremainder(targetHeading - pose[2], 2 * Math.PI);
+
+		double commandX = targetVx + axialGain * errorX + axialVelGain * (targetVx - robotVel[0]);
+		double commandY = targetVy + lateralGain * errorY + lateralVelGain * (targetVy - robotVel[1]);
+		double commandOmega = targetOmega + headingGain * errorHeading
+				+ headingVelGain * (targetOmega - robotVel[2]);
+
+		powersOut[0] = wheelFeedforward(commandX - lateralMultiplier * commandY - trackWidth * commandOmega,
+				targetAx - lateralMultiplier * targetAy - trackWidth * targetAlpha) / voltage;
+		powersOut[1] = wheelFeedforward(commandX + lateralMultiplier * commandY - trackWidth * commandOmega,
+				targetAx + lateralMultiplier * targetAy - trackWidth * targetAlpha) / voltage;
+		powersOut[2] = wheelFeedforward(commandX - lateralMultiplier * commandY + trackWidth * commandOmega,
+				targetAx - lateralMultiplier * targetAy + trackWidth * targetAlpha) / voltage;
+		powersOut[3] = wheelFeedforward(commandX + lateralMultiplier * commandY + trackWidth * commandOmega,
+				targetAx + lateralMultiplier * targetAy + trackWidth * targetAlpha) / voltage;
+	}
+
+	/**
+	 * The wheel powers of MecanumDrive.setDrivePowers(): MecanumKinematics(1).inverse(), scaled
+	 * down so that no wheel is above 1.
+	 *
+	 * @param forward   robot-frame x power
+	 * @param strafe    robot-frame y power (left positive)
+	 * @param turn      counterclockwise turn power
+	 * @param powersOut left front, left back, right back and right front power
+	 */
+	public static void drivePowers(double forward, double strafe, double turn, double[] powersOut) {
+		double leftFront = forward - strafe - turn;
+		double leftBack = forward + strafe - turn;
+		double rightBack = forward - strafe + turn;
+		double rightFront = forward + strafe + turn;
+
+		double maxPowerMag = Math.max(1, Math.max(Math.max(leftFront, leftBack), Math.max(rightBack, rightFront)));
+
+		powersOut[0] = leftFront / maxPowerMag;
+		powersOut[1] = leftBack / maxPowerMag;
+		powersOut[2] = rightBack / maxPowerMag;
+		powersOut[3] = rightFront / maxPowerMag;
+	}
+
+	/**
+	 * MotorFeedforward.compute() for one wheel, in inches per second (and per second squared).
+	 */
+	private double wheelFeedforward(double velocity, double acceleration) {
+		return kS * Math.signum(velocity) + kV * velocity + kA * acceleration;
+	}
+}
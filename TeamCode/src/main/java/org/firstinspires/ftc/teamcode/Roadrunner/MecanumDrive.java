@@ -40,6 +40,7 @@ import com.acmerobotics.roadrunner.ftc.LynxFirmware;
 import com.acmerobotics.roadrunner.ftc.OverflowEncoder;
 import com.acmerobotics.roadrunner.ftc.PositionVelocityPair;
 import com.acmerobotics.roadrunner.ftc.RawEncoder;
+import com.qualcomm.hardware.limelightvision.Limelight3A;
 import com.qualcomm.hardware.lynx.LynxModule;
 import com.qualcomm.hardware.rev.RevHubOrientationOnRobot;
 import com.qualcomm.robotcore.hardware.DcMotor;
@@ -51,18 +52,43 @@ import com.qualcomm.robotcore.hardware.VoltageSensor;
 
 import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
 import org.firstinspires.ftc.robotcore.external.navigation.YawPitchRollAngles;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.ActuatorOutputs;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
 import org.firstinspires.ftc.teamcode.Roadrunner.messages.DriveCommandMessage;
 import org.firstinspires.ftc.teamcode.Roadrunner.messages.MecanumCommandMessage;
 import org.firstinspires.ftc.teamcode.Roadrunner.messages.MecanumLocalizerInputsMessage;
 import org.firstinspires.ftc.teamcode.Roadrunner.messages.PoseMessage;
+import org.firstinspires.ftc.teamcode.Utilities.PoseHistory;
 
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 
 @Config
 public final class MecanumDrive {
 	public static Params PARAMS = new Params();
+	// Minimum time between rebuilds of the pose history trail drawn on the field overlay
+	public static double OVERLAY_INTERVAL_MS = 100;
+	// Poses kept for drawing and timestamp lookups (about a second at 200 Hz)
+	private static final int POSE_HISTORY_CAPACITY = 200;
+	// Follow trajectories and turns from tables sampled when they are built, instead of evaluating
+	// them through DualNum math every tick. With the Pinpoint (fused or not) a tick allocates only
+	// the messages logged every 50 ms and, with FOLLOWER_TELEMETRY, the telemetry.
+	public static boolean USE_SAMPLED_FOLLOWER = true;
+	// Time between samples in those tables, in seconds
+	public static double FOLLOWER_SAMPLE_DT = 0.01;
+	// Draw the field overlay and put tracking telemetry while following; these allocate
+	public static boolean FOLLOWER_TELEMETRY = true;
+	// Lets startAsyncLocalization() poll the Pinpoint on its own thread; turn off to keep the
+	// OpModes that call it reading in their loop
+	public static boolean ASYNC_LOCALIZATION = true;
+	// Time from computing a drive command to the wheels receiving it, in milliseconds. With
+	// async localization the followers control the pose predicted this far ahead.
+	public static double ACTUATION_LATENCY_MS = 5;
+	// Lets OpModes that ask for vision fusion correct the Pinpoint with Limelight AprilTag poses
+	// (see FusionLocalizer); turn off to run them on odometry alone
+	public static boolean FUSE_VISION = true;
+	// Matches the period of the DownsampledWriters, so messages are only built when they'd be kept
+	private static final long LOG_INTERVAL_NANOS = 50_000_000;
 	public final MecanumKinematics kinematics = new MecanumKinematics(
 			PARAMS.inPerTick * PARAMS.trackWidthTicks, PARAMS.inPerTick / PARAMS.lateralInPerTick);
 	public final TurnConstraints defaultTurnConstraints = new TurnConstraints(
@@ -75,15 +101,53 @@ public final class MecanumDrive {
 	public final AccelConstraint defaultAccelConstraint =
 			new ProfileAccelConstraint(PARAMS.minProfileAccel, PARAMS.maxProfileAccel);
 	public final DcMotorEx leftFront, leftBack, rightBack, rightFront;
+	private final ActuatorOutputs.Output leftFrontOutput, leftBackOutput, rightBackOutput, rightFrontOutput;
 	public final VoltageSensor voltageSensor;
 	public final LazyImu lazyImu;
 	public final Localizer localizer;
-	private final LinkedList<Pose2d> poseHistory = new LinkedList<>();
+	private final PoseHistory poseHistory = new PoseHistory(POSE_HISTORY_CAPACITY);
+	// Pose history trail as last drawn; rebuilt at most every OVERLAY_INTERVAL_MS
+	private double[] historyXPoints = new double[0];
+	private double[] historyYPoints = new double[0];
+	private static final DataLog.Record LOG = DataLog.register("drive",
+			"x", "y", "heading", "velocityX", "velocityY", "angularVelocity");
+	private long lastOverlayNanos = 0;
+	private long lastPoseLogNanos = 0;
+	private long lastCommandLogNanos = 0;
+	// Drive model, captured at construction like kinematics
+	private final MecanumControl control = new MecanumControl(
+			PARAMS.inPerTick * PARAMS.trackWidthTicks, PARAMS.inPerTick / PARAMS.lateralInPerTick);
+	// Per-tick scratch for the sampled followers: x, y, heading / x, y, angular / wheel powers
+	private final double[] currentPose = new double[3];
+	private final double[] predictedPose = new double[3];
+	private final double[] robotVelocity = new double[3];
+	private final double[] wheelPowers = new double[4];
 	private final DownsampledWriter estimatedPoseWriter = new DownsampledWriter("ESTIMATED_POSE", 50_000_000);
 	private final DownsampledWriter targetPoseWriter = new DownsampledWriter("TARGET_POSE", 50_000_000);
 	private final DownsampledWriter driveCommandWriter = new DownsampledWriter("DRIVE_COMMAND", 50_000_000);
 	private final DownsampledWriter mecanumCommandWriter = new DownsampledWriter("MECANUM_COMMAND", 50_000_000);
 	public MecanumDrive(HardwareMap hardwareMap, Pose2d pose) {
+		this(hardwareMap, pose, false);
+	}
+
+	/**
+	 * @param fuseVision true to fuse Limelight AprilTag poses into the Pinpoint's, if FUSE_VISION
+	 *                   is on and a "limelight" is configured. This starts the Limelight, so only
+	 *                   OpModes that use the fused pose should ask for it.
+	 */
+	public MecanumDrive(HardwareMap hardwareMap, Pose2d pose, boolean fuseVision) {
+		this(hardwareMap, pose, null, fuseVision);
+	}
+
+	/**
+	 * Drives with the given localizer in place of the Pinpoint, e.g. the simulation's drivetrain
+	 * model. The localizer is set to pose.
+	 */
+	public MecanumDrive(HardwareMap hardwareMap, Pose2d pose, Localizer localizer) {
+		this(hardwareMap, pose, localizer, false);
+	}
+
+	private MecanumDrive(HardwareMap hardwareMap, Pose2d pose, Localizer givenLocalizer, boolean fuseVision) {
 		LynxFirmware.throwIfModulesAreOutdated(hardwareMap);
 
 		for (LynxModule module : hardwareMap.getAll(LynxModule.class)) {
@@ -96,6 +160,13 @@ public final class MecanumDrive {
 		leftBack = hardwareMap.get(DcMotorEx.class, "rearLeft");
 		rightBack = hardwareMap.get(DcMotorEx.class, "rearRight");
 		rightFront = hardwareMap.get(DcMotorEx.class, "frontRight");
+		// A new OpMode: don't inherit a coalescing stage the last one left active, since OpModes
+		// without HardwareInitializer never flush and would only ever buffer the wheel powers
+		ActuatorOutputs.reset();
+		leftFrontOutput = ActuatorOutputs.of(leftFront);
+		leftBackOutput = ActuatorOutputs.of(leftBack);
+		rightBackOutput = ActuatorOutputs.of(rightBack);
+		rightFrontOutput = ActuatorOutputs.of(rightFront);
 
 		leftFront.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
 		leftBack.setZeroPowerBehavior(DcMotor.ZeroPowerBehavior.BRAKE);
@@ -113,61 +184,222 @@ public final class MecanumDrive {
 
 		voltageSensor = hardwareMap.voltageSensor.iterator().next();
 
-		localizer = new PinpointLocalizer(hardwareMap, PARAMS.inPerTick, pose);
+		if (givenLocalizer != null) {
+			givenLocalizer.setPose(pose);
+			localizer = givenLocalizer;
+		} else {
+			PinpointLocalizer pinpoint = new PinpointLocalizer(hardwareMap, PARAMS.inPerTick, pose);
+			Limelight3A limelight = fuseVision && FUSE_VISION ? hardwareMap.tryGet(Limelight3A.class, "limelight") : null;
+			localizer = limelight != null
+					? new FusionLocalizer(pinpoint, new LimelightPoseSource(limelight))
+					: pinpoint;
+		}
 
 		FlightRecorder.write("MECANUM_PARAMS", PARAMS);
 	}
 
 	public void setDrivePowers(PoseVelocity2d powers) {
-		MecanumKinematics.WheelVelocities<Time> wheelVels = new MecanumKinematics(1).inverse(
-				PoseVelocity2dDual.constant(powers, 1));
+		setDrivePowers(powers.linearVel.x, powers.linearVel.y, powers.angVel);
+	}
 
-		double maxPowerMag = 1;
-		for (DualNum<Time> power : wheelVels.all()) {
-			maxPowerMag = Math.max(maxPowerMag, power.value());
-		}
+	/**
+	 * Same as setDrivePowers(PoseVelocity2d), without building the PoseVelocity2d and kinematics
+	 * objects, for teleop's per-loop stick input.
+	 *
+	 * @param forward robot-frame x power
+	 * @param strafe  robot-frame y power (left positive)
+	 * @param turn    counterclockwise turn power
+	 */
+	public void setDrivePowers(double forward, double strafe, double turn) {
+		MecanumControl.drivePowers(forward, strafe, turn, wheelPowers);
+		setMotorPowers(wheelPowers[0], wheelPowers[1], wheelPowers[2], wheelPowers[3]);
+	}
 
-		leftFront.setPower(wheelVels.leftFront.get(0) / maxPowerMag);
-		leftBack.setPower(wheelVels.leftBack.get(0) / maxPowerMag);
-		rightBack.setPower(wheelVels.rightBack.get(0) / maxPowerMag);
-		rightFront.setPower(wheelVels.rightFront.get(0) / maxPowerMag);
+	/**
+	 * Writes the wheel powers through ActuatorOutputs, so unchanged powers (e.g. idle sticks)
+	 * don't cost a hub write.
+	 */
+	private void setMotorPowers(double leftFrontPower, double leftBackPower, double rightBackPower, double rightFrontPower) {
+		leftFrontOutput.set(leftFrontPower);
+		leftBackOutput.set(leftBackPower);
+		rightBackOutput.set(rightBackPower);
+		rightFrontOutput.set(rightFrontPower);
 	}
 
 	public PoseVelocity2d updatePoseEstimate() {
-		PoseVelocity2d vel = localizer.update();
-		poseHistory.add(localizer.getPose());
+		double[] velocity = new double[3];
+		updatePoseEstimate(velocity);
+		return new PoseVelocity2d(new Vector2d(velocity[0], velocity[1]), velocity[2]);
+	}
 
-		while (poseHistory.size() > 100) {
-			poseHistory.removeFirst();
+	/**
+	 * Same as updatePoseEstimate(), with the robot-frame velocity written into velocityOut as x,
+	 * y and angular. Allocates nothing with a localizer that overrides Localizer.update(double[])
+	 * and getPose(double[]), apart from the pose message logged every LOG_INTERVAL_NANOS.
+	 */
+	public void updatePoseEstimate(double[] velocityOut) {
+		localizer.update(velocityOut);
+		localizer.getPose(currentPose);
+		long now = System.nanoTime();
+		poseHistory.add(now, currentPose[0], currentPose[1], currentPose[2]);
+
+		if (now - lastPoseLogNanos >= LOG_INTERVAL_NANOS) {
+			lastPoseLogNanos = now;
+			estimatedPoseWriter.write(new PoseMessage(localizer.getPose()));
 		}
 
-		estimatedPoseWriter.write(new PoseMessage(localizer.getPose()));
+		LOG.set(0, currentPose[0])
+				.set(1, currentPose[1])
+				.set(2, currentPose[2])
+				.set(3, velocityOut[0])
+				.set(4, velocityOut[1])
+				.set(5, velocityOut[2])
+				.commit();
+	}
 
+	/**
+	 * @return the timestamped poses recorded by updatePoseEstimate()
+	 */
+	public PoseHistory getPoseHistory() {
+		return poseHistory;
+	}
 
-		return vel;
+	/**
+	 * Looks up where the robot was at a given time, e.g. when a delayed sensor reading was taken.
+	 * When the Pinpoint is polled on its own thread this uses its readings, and times after the
+	 * newest reading are extrapolated, so it also predicts where the robot will be.
+	 *
+	 * @param timestampNanos time from System.nanoTime(), within about the last second
+	 * @return the interpolated pose, or the current pose if no history has been recorded
+	 */
+	public Pose2d getPoseAt(long timestampNanos) {
+		double[] pose = new double[3];
+		getPoseAt(timestampNanos, pose);
+		return new Pose2d(pose[0], pose[1], pose[2]);
 	}
 
-	private void drawPoseHistory(Canvas c) {
-		double[] xPoints = new double[poseHistory.size()];
-		double[] yPoints = new double[poseHistory.size()];
+	/**
+	 * Same as getPoseAt(long), written into poseOut as x, y and heading. Allocates nothing with
+	 * the Pinpoint, fused or not.
+	 */
+	public void getPoseAt(long timestampNanos, double[] poseOut) {
+		if (isLocalizerAsync()) {
+			if (localizer instanceof FusionLocalizer) {
+				((FusionLocalizer) localizer).getPoseAt(timestampNanos, poseOut);
+			} else {
+				((PinpointLocalizer) localizer).getPoseAt(timestampNanos, poseOut);
+			}
+			return;
+		}
+		if (!poseHistory.getPoseAt(timestampNanos, poseOut)) {
+			localizer.getPose(poseOut);
+		}
+	}
+
+	/**
+	 * @return the pose predicted for when a command computed now reaches the wheels, or the
+	 * current pose if the localizer can't predict
+	 */
+	public Pose2d getPredictedPose() {
+		double[] pose = new double[3];
+		getPredictedPose(pose);
+		return new Pose2d(pose[0], pose[1], pose[2]);
+	}
+
+	/**
+	 * Same as getPredictedPose(), written into poseOut as x, y and heading.
+	 */
+	public void getPredictedPose(double[] poseOut) {
+		if (!isLocalizerAsync()) {
+			localizer.getPose(poseOut);
+			return;
+		}
+		getPoseAt(System.nanoTime() + (long) (ACTUATION_LATENCY_MS * 1e6), poseOut);
+	}
+
+	/**
+	 * Polls the Pinpoint on its own thread from now on (see PinpointLocalizer.startAsync()), unless
+	 * ASYNC_LOCALIZATION is off or there is no Pinpoint. The thread runs at MAX_PRIORITY, so only
+	 * OpModes that stop it again in stop(), through HardwareShutdown or
+	 * PinpointLocalizer.shutdown(), should call this.
+	 */
+	public void startAsyncLocalization() {
+		Localizer odometry = getOdometry();
+		if (ASYNC_LOCALIZATION && odometry instanceof PinpointLocalizer) {
+			((PinpointLocalizer) odometry).startAsync();
+		}
+	}
+
+	private boolean isLocalizerAsync() {
+		Localizer odometry = getOdometry();
+		return odometry instanceof PinpointLocalizer && ((PinpointLocalizer) odometry).isAsync();
+	}
 
-		int i = 0;
-		for (Pose2d t : poseHistory) {
-			xPoints[i] = t.position.x;
-			yPoints[i] = t.position.y;
+	/**
+	 * @return the odometry localizer, unwrapped from FusionLocalizer if vision is fused
+	 */
+	private Localizer getOdometry() {
+		return localizer instanceof FusionLocalizer
+				? ((FusionLocalizer) localizer).getOdometry()
+				: localizer;
+	}
+
+	/**
+	 * @return how far ahead of now the followers evaluate the target, matching getPredictedPose()
+	 */
+	private double getControlLeadSeconds() {
+		return isLocalizerAsync() ? ACTUATION_LATENCY_MS / 1000.0 : 0;
+	}
 
-			i++;
+	private void drawPoseHistory(Canvas c) {
+		long now = System.nanoTime();
+		if (now - lastOverlayNanos >= OVERLAY_INTERVAL_MS * 1_000_000) {
+			lastOverlayNanos = now;
+			if (historyXPoints.length != poseHistory.size()) {
+				// Only while the history is filling up; once full the arrays are reused
+				historyXPoints = new double[poseHistory.size()];
+				historyYPoints = new double[poseHistory.size()];
+			}
+			poseHistory.copyPositions(historyXPoints, historyYPoints);
 		}
 
+		// Re-stroke the cached trail every time, so every packet sent still has it
 		c.setStrokeWidth(1);
 		c.setStroke("#3F51B5");
-		c.strokePolyline(xPoints, yPoints);
+		c.strokePolyline(historyXPoints, historyYPoints);
+	}
+
+	/**
+	 * One tick of the sampled follower: MecanumControl computes the same command as
+	 * FollowTrajectoryAction's HolonomicController, kinematics and feedforward, for the predicted
+	 * pose. Nothing is allocated apart from the messages logged every LOG_INTERVAL_NANOS.
+	 *
+	 * @param target   trajectory, already sampled at the current time plus getControlLeadSeconds()
+	 * @param robotVel robot-frame velocity from updatePoseEstimate(double[])
+	 */
+	private void trackSample(SampledTrajectory target, double[] robotVel) {
+		getPredictedPose(predictedPose);
+		control.setGains(PARAMS.axialGain, PARAMS.lateralGain, PARAMS.headingGain,
+				PARAMS.axialVelGain, PARAMS.lateralVelGain, PARAMS.headingVelGain);
+		control.setFeedforward(PARAMS.kS, PARAMS.kV / PARAMS.inPerTick, PARAMS.kA / PARAMS.inPerTick);
+		double voltage = voltageSensor.getVoltage();
+		control.track(target, predictedPose, robotVel, voltage, wheelPowers);
+		setMotorPowers(wheelPowers[0], wheelPowers[1], wheelPowers[2], wheelPowers[3]);
+
+		long now = System.nanoTime();
+		if (now - lastCommandLogNanos >= LOG_INTERVAL_NANOS) {
+			lastCommandLogNanos = now;
+			targetPoseWriter.write(new PoseMessage(new Pose2d(target.getX(), target.getY(), target.getHeading())));
+			mecanumCommandWriter.write(new MecanumCommandMessage(
+					voltage, wheelPowers[0], wheelPowers[1], wheelPowers[2], wheelPowers[3]
+			));
+		}
 	}
 
 	public TrajectoryActionBuilder actionBuilder(Pose2d beginPose) {
 		return new TrajectoryActionBuilder(
-				TurnAction::new,
-				FollowTrajectoryAction::new,
+				turn -> USE_SAMPLED_FOLLOWER ? new SampledTurnAction(turn) : new TurnAction(turn),
+				trajectory -> USE_SAMPLED_FOLLOWER ? new SampledFollowTrajectoryAction(trajectory) : new FollowTrajectoryAction(trajectory),
 				new TrajectoryBuilderParams(
 						1e-6,
 						new ProfileParams(
@@ -345,15 +577,13 @@ public final class MecanumDrive {
 			}
 
 			if (t >= timeTrajectory.duration) {
-				leftFront.setPower(0);
-				leftBack.setPower(0);
-				rightBack.setPower(0);
-				rightFront.setPower(0);
+				setMotorPowers(0, 0, 0, 0);
 
 				return false;
 			}
 
-			Pose2dDual<Time> txWorldTarget = timeTrajectory.get(t);
+			Pose2dDual<Time> txWorldTarget = timeTrajectory.get(
+					Math.min(t + getControlLeadSeconds(), timeTrajectory.duration));
 			targetPoseWriter.write(new PoseMessage(txWorldTarget.value()));
 
 			PoseVelocity2d robotVelRobot = updatePoseEstimate();
@@ -362,7 +592,7 @@ public final class MecanumDrive {
 					PARAMS.axialGain, PARAMS.lateralGain, PARAMS.headingGain,
 					PARAMS.axialVelGain, PARAMS.lateralVelGain, PARAMS.headingVelGain
 			)
-					.compute(txWorldTarget, localizer.getPose(), robotVelRobot);
+					.compute(txWorldTarget, getPredictedPose(), robotVelRobot);
 			driveCommandWriter.write(new DriveCommandMessage(command));
 
 			MecanumKinematics.WheelVelocities<Time> wheelVels = kinematics.inverse(command);
@@ -378,10 +608,7 @@ public final class MecanumDrive {
 					voltage, leftFrontPower, leftBackPower, rightBackPower, rightFrontPower
 			));
 
-			leftFront.setPower(leftFrontPower);
-			leftBack.setPower(leftBackPower);
-			rightBack.setPower(rightBackPower);
-			rightFront.setPower(rightFrontPower);
+			setMotorPowers(leftFrontPower, leftBackPower, rightBackPower, rightFrontPower);
 
 			p.put("x", localizer.getPose().position.x);
 			p.put("y", localizer.getPose().position.y);
@@ -437,15 +664,12 @@ public final class MecanumDrive {
 			}
 
 			if (t >= turn.duration) {
-				leftFront.setPower(0);
-				leftBack.setPower(0);
-				rightBack.setPower(0);
-				rightFront.setPower(0);
+				setMotorPowers(0, 0, 0, 0);
 
 				return false;
 			}
 
-			Pose2dDual<Time> txWorldTarget = turn.get(t);
+			Pose2dDual<Time> txWorldTarget = turn.get(Math.min(t + getControlLeadSeconds(), turn.duration));
 			targetPoseWriter.write(new PoseMessage(txWorldTarget.value()));
 
 			PoseVelocity2d robotVelRobot = updatePoseEstimate();
@@ -454,7 +678,7 @@ public final class MecanumDrive {
 					PARAMS.axialGain, PARAMS.lateralGain, PARAMS.headingGain,
 					PARAMS.axialVelGain, PARAMS.lateralVelGain, PARAMS.headingVelGain
 			)
-					.compute(txWorldTarget, localizer.getPose(), robotVelRobot);
+					.compute(txWorldTarget, getPredictedPose(), robotVelRobot);
 			driveCommandWriter.write(new DriveCommandMessage(command));
 
 			MecanumKinematics.WheelVelocities<Time> wheelVels = kinematics.inverse(command);
@@ -469,10 +693,7 @@ public final class MecanumDrive {
 					voltage, leftFrontPower, leftBackPower, rightBackPower, rightFrontPower
 			));
 
-			leftFront.setPower(feedforward.compute(wheelVels.leftFront) / voltage);
-			leftBack.setPower(feedforward.compute(wheelVels.leftBack) / voltage);
-			rightBack.setPower(feedforward.compute(wheelVels.rightBack) / voltage);
-			rightFront.setPower(feedforward.compute(wheelVels.rightFront) / voltage);
+			setMotorPowers(leftFrontPower, leftBackPower, rightBackPower, rightFrontPower);
 
 			Canvas c = p.fieldOverlay();
 			drawPoseHistory(c);
@@ -495,4 +716,164 @@ public final class MecanumDrive {
 			c.fillCircle(turn.beginPose.position.x, turn.beginPose.position.y, 2);
 		}
 	}
+
+	/**
+	 * FollowTrajectoryAction that runs from a SampledTrajectory built up front.
+	 */
+	public final class SampledFollowTrajectoryAction implements Action {
+		private final SampledTrajectory samples;
+		private final double[] xPoints, yPoints;
+		private double beginTs = -1;
+
+		public SampledFollowTrajectoryAction(TimeTrajectory t) {
+			this(new SampledTrajectory(t, FOLLOWER_SAMPLE_DT));
+		}
+
+		/**
+		 * Follows a trajectory that was already sampled, e.g. one loaded by TrajectoryCompiler.
+		 */
+		public SampledFollowTrajectoryAction(SampledTrajectory samples) {
+			this.samples = samples;
+
+			// Path points about 2 in apart for drawing, as FollowTrajectoryAction does
+			int count = samples.getSampleCount();
+			double[] xs = new double[count];
+			double[] ys = new double[count];
+			int points = 0;
+			for (int i = 0; i < count; i++) {
+				double x = samples.getXAt(i);
+				double y = samples.getYAt(i);
+				if (points == 0 || i == count - 1 || Math.hypot(x - xs[points - 1], y - ys[points - 1]) >= 2) {
+					xs[points] = x;
+					ys[points] = y;
+					points++;
+				}
+			}
+			xPoints = Arrays.copyOf(xs, points);
+			yPoints = Arrays.copyOf(ys, points);
+		}
+
+		public SampledTrajectory getSamples() {
+			return samples;
+		}
+
+		@Override
+		public boolean run(@NonNull TelemetryPacket p) {
+			double t;
+			if (beginTs < 0) {
+				beginTs = Actions.now();
+				t = 0;
+			} else {
+				t = Actions.now() - beginTs;
+			}
+
+			if (t >= samples.getDuration()) {
+				setMotorPowers(0, 0, 0, 0);
+
+				return false;
+			}
+
+			samples.sample(t + getControlLeadSeconds());
+			updatePoseEstimate(robotVelocity);
+			trackSample(samples, robotVelocity);
+
+			if (FOLLOWER_TELEMETRY) {
+				Pose2d pose = localizer.getPose();
+				p.put("x", pose.position.x);
+				p.put("y", pose.position.y);
+				p.put("heading (deg)", Math.toDegrees(pose.heading.toDouble()));
+				p.put("xError", samples.getX() - pose.position.x);
+				p.put("yError", samples.getY() - pose.position.y);
+				p.put("headingError (deg)", Math.toDegrees(Math.IEEEremainder(samples.getHeading() - pose.heading.toDouble(), 2 * Math.PI)));
+
+				Canvas c = p.fieldOverlay();
+				drawPoseHistory(c);
+
+				c.setStroke("#4CAF50");
+				Drawing.drawRobot(c, new Pose2d(samples.getX(), samples.getY(), samples.getHeading()));
+
+				c.setStroke("#3F51B5");
+				Drawing.drawRobot(c, pose);
+
+				c.setStroke("#4CAF50FF");
+				c.setStrokeWidth(1);
+				c.strokePolyline(xPoints, yPoints);
+			}
+
+			return true;
+		}
+
+		@Override
+		public void preview(Canvas c) {
+			c.setStroke("#4CAF507A");
+			c.setStrokeWidth(1);
+			c.strokePolyline(xPoints, yPoints);
+		}
+	}
+
+	/**
+	 * TurnAction that runs from a SampledTrajectory built up front.
+	 */
+	public final class SampledTurnAction implements Action {
+		private final SampledTrajectory samples;
+		private double beginTs = -1;
+
+		public SampledTurnAction(TimeTurn turn) {
+			this(new SampledTrajectory(turn, FOLLOWER_SAMPLE_DT));
+		}
+
+		/**
+		 * Follows a turn that was already sampled, e.g. one loaded by TrajectoryCompiler.
+		 */
+		public SampledTurnAction(SampledTrajectory samples) {
+			this.samples = samples;
+		}
+
+		public SampledTrajectory getSamples() {
+			return samples;
+		}
+
+		@Override
+		public boolean run(@NonNull TelemetryPacket p) {
+			double t;
+			if (beginTs < 0) {
+				beginTs = Actions.now();
+				t = 0;
+			} else {
+				t = Actions.now() - beginTs;
+			}
+
+			if (t >= samples.getDuration()) {
+				setMotorPowers(0, 0, 0, 0);
+
+				return false;
+			}
+
+			samples.sample(t + getControlLeadSeconds());
+			updatePoseEstimate(robotVelocity);
+			trackSample(samples, robotVelocity);
+
+			if (FOLLOWER_TELEMETRY) {
+				Canvas c = p.fieldOverlay();
+				drawPoseHistory(c);
+
+				c.setStroke("#4CAF50");
+				Drawing.drawRobot(c, new Pose2d(samples.getX(), samples.getY(), samples.getHeading()));
+
+				c.setStroke("#3F51B5");
+				Drawing.drawRobot(c, localizer.getPose());
+
+				c.setStroke("#7C4DFFFF");
+				c.fillCircle(samples.getXAt(0), samples.getYAt(0), 2);
+			}
+
+			return true;
+		}
+
+		@Override
+		public void preview(Canvas c) {
+			c.setStroke("#7C4DFF7A");
+			c.fillCircle(samples.getXAt(0), samples.getYAt(0), 2);
+		}
+	}
 }
@@ -3,27 +3,113 @@ package org.firstinspires.ftc.teamcode.Roadrunner;
 import com.acmerobotics.dashboard.config.Config;
 import com.acmerobotics.roadrunner.Pose2d;
 import com.acmerobotics.roadrunner.PoseVelocity2d;
-import com.acmerobotics.roadrunner.Rotation2d;
 import com.acmerobotics.roadrunner.Vector2d;
 import com.qualcomm.hardware.gobilda.GoBildaPinpointDriver;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
 import org.firstinspires.ftc.robotcore.external.navigation.UnnormalizedAngleUnit;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.Utilities.ConcurrentPoseHistory;
+import org.firstinspires.ftc.teamcode.Utilities.LatencyHistogram;
 
-import java.util.Objects;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Localizer for the goBILDA Pinpoint odometry computer.
+ * <p>
+ * By default update() reads the Pinpoint in the calling thread, so the pose is as old as the
+ * start of the loop and only as frequent as the loop. After startAsync(), a background thread
+ * polls the Pinpoint at ASYNC_RATE_HZ instead and stamps each reading with the middle of its I2C
+ * transaction. Readings go into a lock-free history; update() applies the newest one without
+ * touching I2C, and getPoseAt() interpolates between readings, or extrapolates past the newest
+ * one, so callers can ask for the pose at the time their output takes effect.
+ * <p>
+ * With ASYNC_RATE_HZ at 0 the thread instead reads once per update(), starting as soon as
+ * update() has taken the previous reading, so the I2C transaction overlaps with the rest of the
+ * loop without keeping the hub's I2C bus busy between loops.
+ * <p>
+ * With SELECTIVE_READ, a read fetches only the position, heading and velocity registers (24 bytes)
+ * instead of the driver's 40-byte bulk read, and the status is refreshed by a full bulk read every
+ * STATUS_INTERVAL reads. The first bulk read is checked against a selective one, and if they
+ * disagree (firmware that doesn't read consecutive registers) every read stays a bulk read. The
+ * duration of every read is recorded; see getReadLatencyNanos().
+ * <p>
+ * Polling is opt-in (see MecanumDrive.startAsyncLocalization()). Only one localizer polls at a
+ * time: startAsync() stops the previous one, HardwareShutdown or shutdown() stops it at the end of
+ * the OpMode, and a new localizer stops one an earlier OpMode left running, since the SDK keeps
+ * the device and the thread would otherwise keep reading it.
+ */
 @Config
 public final class PinpointLocalizer implements Localizer {
 	public static Params PARAMS = new Params();
+	/**
+	 * Poll rate of the background thread; 0 reads once per update() instead
+	 */
+	public static double ASYNC_RATE_HZ = 300;
+	/**
+	 * Readings kept for getPoseAt(); about a second at the default rate
+	 */
+	public static int ASYNC_HISTORY_CAPACITY = 512;
+	/**
+	 * Furthest getPoseAt() extrapolates past the newest reading, in milliseconds
+	 */
+	public static double MAX_EXTRAPOLATION_MS = 50;
+	/**
+	 * Read only the position, heading and velocity registers instead of the bulk register
+	 */
+	public static boolean SELECTIVE_READ = true;
+	/**
+	 * With SELECTIVE_READ, one read in this many is a bulk read, which also refreshes the status
+	 */
+	public static int STATUS_INTERVAL = 25;
+
+	// Register numbers from the Pinpoint's register map; X_POSITION through H_VELOCITY are six
+	// consecutive floats, in mm, radians, mm/s and radians/s
+	private static final int X_POSITION_REGISTER = 8;
+	private static final int SELECTIVE_READ_BYTES = 24;
+	// Same bad-read limits as the driver: a reading can't jump further than this, in inches and
+	// radians
+	private static final double MAX_POSITION_JUMP = 5000 / 25.4;
+	private static final double MAX_HEADING_JUMP = 120;
+
+	// The localizer whose thread is running, if any
+	private static PinpointLocalizer asyncInstance = null;
+	// Raw readings, in inches and radians; the column order is what update(boolean, ...) takes.
+	// readingAgeMs is how long before the commit the reading was taken, readMs how long the
+	// latest I2C read took.
+	private static final DataLog.Record LOG = DataLog.register("pinpoint",
+			"ready", "x", "y", "heading", "velocityX", "velocityY", "headingVelocity", "readingAgeMs",
+			"readMs");
 	public final GoBildaPinpointDriver driver;
 	public final GoBildaPinpointDriver.EncoderDirection initialParDirection, initialPerpDirection;
-	private Pose2d txWorldPinpoint;
-	private Pose2d txPinpointRobot = new Pose2d(0, 0, 0);
+	private final PinpointPose pinpointPose;
+	private final double[] velocity = new double[3];
+
+	private ConcurrentPoseHistory history = null;
+	private volatile boolean asyncRunning = false;
+	private Thread pollThread = null;
+	private long readingTimestampNanos = 0;
+
+	// Read state, used only by whichever thread reads the device
+	private final double[] reading = new double[6];
+	private long readMidpointNanos = 0;
+	private GoBildaPinpointDriver.DeviceStatus status = GoBildaPinpointDriver.DeviceStatus.NOT_READY;
+	private int readsSinceStatus = 0;
+	// Whether a selective read matches the bulk read; null until checked
+	private Boolean selectiveReadWorks = null;
+	private volatile long lastReadNanos = 0;
+	private final LatencyHistogram readLatency = new LatencyHistogram();
+
 	public PinpointLocalizer(HardwareMap hardwareMap, double inPerTick, Pose2d initialPose) {
 		// TODO: make sure your config has a Pinpoint device with this name
 		//   see https://ftc-docs.firstinspires.org/en/latest/hardware_and_software_configuration/configuring/index.html
 		driver = hardwareMap.get(GoBildaPinpointDriver.class, "pinpoint");
+		// A poller left by an OpMode that didn't shut down would share the driver with this one
+		shutdown();
 
 		double mmPerTick = inPerTick * 25.4;
 		driver.setEncoderResolution(1 / mmPerTick, DistanceUnit.MM);
@@ -38,30 +124,334 @@ public final class PinpointLocalizer implements Localizer {
 
 		driver.resetPosAndIMU();
 
-		txWorldPinpoint = initialPose;
+		pinpointPose = new PinpointPose(initialPose.position.x, initialPose.position.y, initialPose.heading.toDouble());
+	}
+
+	/**
+	 * Creates a localizer with no device, for LogReplay. Feed it with update(boolean, ...); the
+	 * no-argument update() can't be used.
+	 */
+	public PinpointLocalizer(Pose2d initialPose) {
+		driver = null;
+		initialParDirection = null;
+		initialPerpDirection = null;
+		pinpointPose = new PinpointPose(initialPose.position.x, initialPose.position.y, initialPose.heading.toDouble());
 	}
 
 	@Override
 	public Pose2d getPose() {
-		return txWorldPinpoint.times(txPinpointRobot);
+		double[] pose = new double[3];
+		getPose(pose);
+		return new Pose2d(pose[0], pose[1], pose[2]);
+	}
+
+	@Override
+	public void getPose(double[] poseOut) {
+		pinpointPose.getPose(poseOut);
 	}
 
 	@Override
 	public void setPose(Pose2d pose) {
-		txWorldPinpoint = pose.times(txPinpointRobot.inverse());
+		pinpointPose.setPose(pose.position.x, pose.position.y, pose.heading.toDouble());
 	}
 
 	@Override
 	public PoseVelocity2d update() {
+		update(velocity);
+		return new PoseVelocity2d(new Vector2d(velocity[0], velocity[1]), velocity[2]);
+	}
+
+	@Override
+	public void update(double[] velocityOut) {
+		boolean ready;
+		double x, y, heading, velocityX, velocityY, headingVelocity;
+		ConcurrentPoseHistory.Sample sample = asyncRunning ? history.getLatest() : null;
+		if (asyncRunning) {
+			// The poll thread owns the device; use its newest reading
+			ready = sample != null;
+			readingTimestampNanos = ready ? sample.timestampNanos : System.nanoTime();
+			x = ready ? sample.x : 0;
+			y = ready ? sample.y : 0;
+			heading = ready ? sample.heading : 0;
+			velocityX = ready ? sample.velocityX : 0;
+			velocityY = ready ? sample.velocityY : 0;
+			headingVelocity = ready ? sample.headingVelocity : 0;
+			// In once-per-loop mode, start the next read so it overlaps with the rest of the loop
+			if (ASYNC_RATE_HZ <= 0) LockSupport.unpark(pollThread);
+		} else {
+			ready = read();
+			readingTimestampNanos = readMidpointNanos;
+			x = reading[0];
+			y = reading[1];
+			heading = reading[2];
+			velocityX = reading[3];
+			velocityY = reading[4];
+			headingVelocity = reading[5];
+		}
+		LOG.set(0, ready)
+				.set(1, x)
+				.set(2, y)
+				.set(3, heading)
+				.set(4, velocityX)
+				.set(5, velocityY)
+				.set(6, headingVelocity)
+				.set(7, (HardwareSnapshot.nowNanos() - readingTimestampNanos) / 1e6)
+				.set(8, lastReadNanos / 1e6)
+				.commit();
+		pinpointPose.apply(ready, x, y, heading, velocityX, velocityY, headingVelocity);
+		pinpointPose.getVelocity(velocityOut);
+	}
+
+	/**
+	 * Starts polling the Pinpoint on a background thread. Does nothing if it is already running
+	 * or there is no device.
+	 */
+	public void startAsync() {
+		if (asyncRunning || driver == null) return;
+		shutdown();
+		synchronized (readLatency) {
+			readLatency.reset();
+		}
+		history = new ConcurrentPoseHistory(Math.max(2, ASYNC_HISTORY_CAPACITY));
+		asyncRunning = true;
+		asyncInstance = this;
+		pollThread = new Thread(this::pollLoop, "PinpointLocalizer-poll");
+		pollThread.setDaemon(true);
+		// Readings age while they wait to be scheduled
+		pollThread.setPriority(Thread.MAX_PRIORITY);
+		pollThread.start();
+	}
+
+	/**
+	 * Stops the background thread and waits briefly for it to exit. update() goes back to reading
+	 * the Pinpoint in the calling thread.
+	 */
+	public void stopAsync() {
+		if (!asyncRunning) return;
+		asyncRunning = false;
+		pollThread.interrupt();
+		try {
+			pollThread.join(100);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		pollThread = null;
+		if (asyncInstance == this) asyncInstance = null;
+	}
+
+	/**
+	 * @return true while the background thread is polling
+	 */
+	public boolean isAsync() {
+		return asyncRunning;
+	}
+
+	/**
+	 * Stops the background thread of whichever localizer is polling.
+	 */
+	public static void shutdown() {
+		if (asyncInstance != null) {
+			asyncInstance.stopAsync();
+		}
+	}
+
+	private void pollLoop() {
+		boolean oncePerUpdate = ASYNC_RATE_HZ <= 0;
+		long periodNanos = oncePerUpdate ? 0 : (long) (1e9 / ASYNC_RATE_HZ);
+		long deadline = System.nanoTime();
+		try {
+			while (asyncRunning) {
+				if (read()) {
+					history.add(new ConcurrentPoseHistory.Sample(readMidpointNanos,
+							reading[0], reading[1], reading[2], reading[3], reading[4], reading[5]));
+				}
+
+				if (oncePerUpdate) {
+					// Woken by update(); a spurious wakeup only costs an extra read
+					LockSupport.park(this);
+				} else {
+					// Fixed rate; if a read overran, start again from now rather than catching up
+					deadline += periodNanos;
+					long now = System.nanoTime();
+					if (deadline < now) deadline = now;
+					LockSupport.parkNanos(deadline - now);
+				}
+				if (Thread.interrupted()) break;
+			}
+		} catch (RuntimeException e) {
+			// The read failed (e.g. an I2C error); stop polling, and update() falls back to
+			// reading in its own thread
+		} finally {
+			asyncRunning = false;
+		}
+	}
+
+	/**
+	 * Reads the Pinpoint into reading (inches and radians) and readMidpointNanos, with a selective
+	 * or bulk read as described in the class comment, and records how long the read took.
+	 *
+	 * @return true if the device is ready and the reading is valid
+	 */
+	private boolean read() {
+		boolean selective = SELECTIVE_READ && Boolean.TRUE.equals(selectiveReadWorks)
+				&& ++readsSinceStatus < STATUS_INTERVAL;
+		long start = System.nanoTime();
+		boolean valid = selective ? readSelective() : readBulk();
+		long end = System.nanoTime();
+		readMidpointNanos = start + (end - start) / 2;
+		recordReadLatency(end - start);
+
+		if (!selective) {
+			readsSinceStatus = 0;
+			if (SELECTIVE_READ && selectiveReadWorks == null && status == GoBildaPinpointDriver.DeviceStatus.READY) {
+				checkSelectiveRead();
+			}
+		}
+		return valid && status == GoBildaPinpointDriver.DeviceStatus.READY;
+	}
+
+	private boolean readBulk() {
 		driver.update();
-		if (Objects.requireNonNull(driver.getDeviceStatus()) == GoBildaPinpointDriver.DeviceStatus.READY) {
-			txPinpointRobot = new Pose2d(driver.getPosX(DistanceUnit.INCH), driver.getPosY(DistanceUnit.INCH), driver.getHeading(UnnormalizedAngleUnit.RADIANS));
-			Vector2d worldVelocity = new Vector2d(driver.getVelX(DistanceUnit.INCH), driver.getVelY(DistanceUnit.INCH));
-			Vector2d robotVelocity = Rotation2d.fromDouble(-txPinpointRobot.heading.log()).times(worldVelocity);
+		status = driver.getDeviceStatus();
+		reading[0] = driver.getPosX(DistanceUnit.INCH);
+		reading[1] = driver.getPosY(DistanceUnit.INCH);
+		reading[2] = driver.getHeading(UnnormalizedAngleUnit.RADIANS);
+		reading[3] = driver.getVelX(DistanceUnit.INCH);
+		reading[4] = driver.getVelY(DistanceUnit.INCH);
+		reading[5] = driver.getHeadingVelocity(UnnormalizedAngleUnit.RADIANS);
+		return true;
+	}
+
+	/**
+	 * Reads X_POSITION through H_VELOCITY in one transaction. Readings that are NaN or jump
+	 * further than the driver allows are bad reads; reading is left unchanged.
+	 */
+	private boolean readSelective() {
+		byte[] data = driver.getDeviceClient().read(X_POSITION_REGISTER, SELECTIVE_READ_BYTES);
+		if (data.length < SELECTIVE_READ_BYTES) return false;
+		ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+		double x = buffer.getFloat() / 25.4;
+		double y = buffer.getFloat() / 25.4;
+		double heading = buffer.getFloat();
+		double velocityX = buffer.getFloat() / 25.4;
+		double velocityY = buffer.getFloat() / 25.4;
+		double headingVelocity = buffer.getFloat();
+		if (Double.isNaN(x + y + heading + velocityX + velocityY + headingVelocity)
+				|| Math.abs(x - reading[0]) > MAX_POSITION_JUMP
+				|| Math.abs(y - reading[1]) > MAX_POSITION_JUMP
+				|| Math.abs(heading - reading[2]) > MAX_HEADING_JUMP) {
+			return false;
+		}
+		reading[0] = x;
+		reading[1] = y;
+		reading[2] = heading;
+		reading[3] = velocityX;
+		reading[4] = velocityY;
+		reading[5] = headingVelocity;
+		return true;
+	}
+
+	/**
+	 * Compares a selective read with the bulk read just made. Checked once per localizer, right
+	 * after a bulk read, so the robot can't have moved far in between. reading keeps the bulk
+	 * read's values.
+	 */
+	private void checkSelectiveRead() {
+		double[] bulk = reading.clone();
+		try {
+			selectiveReadWorks = readSelective()
+					&& Math.abs(reading[0] - bulk[0]) < 1
+					&& Math.abs(reading[1] - bulk[1]) < 1
+					&& Math.abs(reading[2] - bulk[2]) < 0.05;
+		} catch (RuntimeException e) {
+			selectiveReadWorks = false;
+		}
+		System.arraycopy(bulk, 0, reading, 0, reading.length);
+	}
+
+	private void recordReadLatency(long nanos) {
+		lastReadNanos = nanos;
+		synchronized (readLatency) {
+			readLatency.recordValue(nanos);
+		}
+	}
 
-			return new PoseVelocity2d(robotVelocity, driver.getHeadingVelocity(UnnormalizedAngleUnit.RADIANS));
+	/**
+	 * @return duration of the latest Pinpoint read, in nanoseconds
+	 */
+	public long getLastReadNanos() {
+		return lastReadNanos;
+	}
+
+	/**
+	 * @param percentile e.g. 50 or 99
+	 * @return the given percentile of Pinpoint read durations since startAsync() (or since
+	 * construction, if it was never called), in nanoseconds
+	 */
+	public long getReadLatencyNanos(double percentile) {
+		synchronized (readLatency) {
+			return readLatency.getValueAtPercentile(percentile);
 		}
-		return new PoseVelocity2d(new Vector2d(0, 0), 0);
+	}
+
+	/**
+	 * @return true if reads fetch only the registers needed (false until checked, or if the
+	 * firmware doesn't support it)
+	 */
+	public boolean isSelectiveRead() {
+		return SELECTIVE_READ && Boolean.TRUE.equals(selectiveReadWorks);
+	}
+
+	/**
+	 * Looks up the pose at a time from the background thread's readings, interpolating between
+	 * them or extrapolating past the newest one by up to MAX_EXTRAPOLATION_MS.
+	 *
+	 * @param timestampNanos time from System.nanoTime(), e.g. when a command will take effect
+	 * @return the pose, or the current pose if the thread isn't running or has no readings yet
+	 */
+	public Pose2d getPoseAt(long timestampNanos) {
+		double[] pose = new double[3];
+		getPoseAt(timestampNanos, pose);
+		return new Pose2d(pose[0], pose[1], pose[2]);
+	}
+
+	/**
+	 * Same as getPoseAt(long), written into poseOut as x, y and heading without allocating.
+	 */
+	public void getPoseAt(long timestampNanos, double[] poseOut) {
+		ConcurrentPoseHistory history = this.history;
+		if (!asyncRunning || history == null
+				|| !history.getPoseAt(timestampNanos, (long) (MAX_EXTRAPOLATION_MS * 1e6), poseOut)) {
+			getPose(poseOut);
+			return;
+		}
+		pinpointPose.toWorld(poseOut[0], poseOut[1], poseOut[2], poseOut);
+	}
+
+	/**
+	 * @return when the reading applied by the last update() was taken, from System.nanoTime()
+	 */
+	public long getReadingTimestampNanos() {
+		return readingTimestampNanos;
+	}
+
+	/**
+	 * Sets the reading time reported by getReadingTimestampNanos(), for LogReplay along with
+	 * update(boolean, ...).
+	 */
+	public void setReadingTimestampNanos(long timestampNanos) {
+		readingTimestampNanos = timestampNanos;
+	}
+
+	/**
+	 * Applies one Pinpoint reading, in inches and radians. update() calls this with the device's
+	 * values; LogReplay calls it with recorded ones.
+	 */
+	public PoseVelocity2d update(boolean ready, double x, double y, double heading,
+								 double velocityX, double velocityY, double headingVelocity) {
+		pinpointPose.apply(ready, x, y, heading, velocityX, velocityY, headingVelocity);
+		pinpointPose.getVelocity(velocity);
+		return new PoseVelocity2d(new Vector2d(velocity[0], velocity[1]), velocity[2]);
 	}
 
 	public static class Params {
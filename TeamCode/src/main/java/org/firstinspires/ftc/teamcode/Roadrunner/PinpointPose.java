@@ -0,0 +1,93 @@
+package org.firstinspires.ftc.teamcode.Roadrunner;
+
+/**
+ * The pose math of PinpointLocalizer on primitives: the last reading (txPinpointRobot), the
+ * transform from the Pinpoint's frame to the field (txWorldPinpoint), and the robot-frame
+ * velocity. Lengths are in inches, angles in radians.
+ * <p>
+ * Nothing here depends on the FTC SDK, so the benchmarks run exactly this code on a desktop JVM.
+ */
+public final class PinpointPose {
+	// txWorldPinpoint
+	private double worldX, worldY, worldHeading, worldCos, worldSin;
+	// txPinpointRobot, from the last ready reading
+	private double x = 0, y = 0, heading = 0;
+	private double velocityX = 0, velocityY = 0, angularVelocity = 0;
+
+	/**
+	 * Starts at the given field pose, with the Pinpoint's own pose at zero.
+	 */
+	public PinpointPose(double initialX, double initialY, double initialHeading) {
+		setWorldTransform(initialX, initialY, initialHeading);
+	}
+
+	/**
+	 * Applies one Pinpoint reading. A reading that isn't ready keeps the pose and zeroes the
+	 * velocity.
+	 *
+	 * @param velocityX velocity in the Pinpoint's frame, like the position
+	 */
+	public void apply(boolean ready, double x, double y, double heading,
+					  double velocityX, double velocityY, double headingVelocity) {
+		if (!ready) {
+			this.velocityX = this.velocityY = this.angularVelocity = 0;
+			return;
+		}
+		this.x = x;
+		this.y = y;
+		this.heading = heading;
+		// Rotated into the robot frame
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
+		this.velocityX = cos * velocityX + sin * velocityY;
+		this.velocityY = -sin * velocityX + cos * velocityY;
+		this.angularVelocity = headingVelocity;
+	}
+
+	/**
+	 * Writes the field pose (txWorldPinpoint * txPinpointRobot) as x, y and heading.
+	 */
+	public void getPose(double[] poseOut) {
+		toWorld(x, y, heading, poseOut);
+	}
+
+	/**
+	 * Writes the robot-frame velocity of the last reading as x, y and angular.
+	 */
+	public void getVelocity(double[] velocityOut) {
+		velocityOut[0] = velocityX;
+		velocityOut[1] = velocityY;
+		velocityOut[2] = angularVelocity;
+	}
+
+	/**
+	 * Moves a pose in the Pinpoint's frame, e.g. one from its reading history, into the field
+	 * frame. out may be the array the pose came from.
+	 */
+	public void toWorld(double pinpointX, double pinpointY, double pinpointHeading, double[] out) {
+		double fieldX = worldX + worldCos * pinpointX - worldSin * pinpointY;
+		double fieldY = worldY + worldSin * pinpointX + worldCos * pinpointY;
+		out[0] = fieldX;
+		out[1] = fieldY;
+		out[2] = Math.IEEEremainder(worldHeading + pinpointHeading, 2 * Math.PI);
+	}
+
+	/**
+	 * Makes the current reading correspond to the given field pose: txWorldPinpoint =
+	 * pose * txPinpointRobot^-1.
+	 */
+	public void setPose(double poseX, double poseY, double poseHeading) {
+		double transformHeading = poseHeading - heading;
+		double cos = Math.cos(transformHeading);
+		double sin = Math.sin(transformHeading);
+		setWorldTransform(poseX - (cos * x - sin * y), poseY - (sin * x + cos * y), transformHeading);
+	}
+
+	private void setWorldTransform(double x, double y, double heading) {
+		worldX = x;
+		worldY = y;
+		worldHeading = Math.IEEEremainder(heading, 2 * Math.PI);
+		worldCos = Math.cos(heading);
+		worldSin = Math.sin(heading);
+	}
+}
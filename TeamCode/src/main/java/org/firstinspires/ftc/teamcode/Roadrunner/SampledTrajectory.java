@@ -0,0 +1,232 @@
+package org.firstinspires.ftc.teamcode.Roadrunner;
+
+import com.acmerobotics.roadrunner.Pose2dDual;
+import com.acmerobotics.roadrunner.PoseVelocity2dDual;
+import com.acmerobotics.roadrunner.Time;
+import com.acmerobotics.roadrunner.TimeTrajectory;
+import com.acmerobotics.roadrunner.TimeTurn;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+
+/**
+ * A TimeTrajectory or TimeTurn sampled at a fixed time step into primitive arrays.
+ * <p>
+ * Building evaluates the Roadrunner trajectory (and all its DualNum math) once per sample. At run
+ * time sample(t) interpolates linearly between the two neighbouring samples and stores the result
+ * in this object, so following a trajectory allocates nothing. Poses, velocities and
+ * accelerations are all in the field frame. Heading is unwrapped so it interpolates smoothly
+ * across +-pi.
+ * <p>
+ * The tables can be written to a stream and read back from a (memory-mapped) buffer, which is how
+ * TrajectoryCompiler caches them between runs.
+ */
+public final class SampledTrajectory {
+	private final double dt;
+	private final double duration;
+	private final int count;
+
+	private final double[] x, y, heading;
+	private final double[] vx, vy, omega;
+	private final double[] ax, ay, alpha;
+
+	// Result of the last sample()
+	private double sampleX, sampleY, sampleHeading;
+	private double sampleVx, sampleVy, sampleOmega;
+	private double sampleAx, sampleAy, sampleAlpha;
+
+	private interface Source {
+		Pose2dDual<Time> get(double t);
+	}
+
+	/**
+	 * @param trajectory trajectory to sample
+	 * @param dt         time between samples, in seconds
+	 */
+	public SampledTrajectory(TimeTrajectory trajectory, double dt) {
+		this(trajectory::get, trajectory.duration, dt);
+	}
+
+	/**
+	 * @param turn turn to sample
+	 * @param dt   time between samples, in seconds
+	 */
+	public SampledTrajectory(TimeTurn turn, double dt) {
+		this(turn::get, turn.duration, dt);
+	}
+
+	private SampledTrajectory(Source source, double duration, double dt) {
+		this.dt = dt;
+		this.duration = duration;
+		// Samples at 0, dt, 2dt, ..., with the last one exactly at the end
+		count = Math.max(2, (int) Math.ceil(duration / dt) + 1);
+		x = new double[count];
+		y = new double[count];
+		heading = new double[count];
+		vx = new double[count];
+		vy = new double[count];
+		omega = new double[count];
+		ax = new double[count];
+		ay = new double[count];
+		alpha = new double[count];
+
+		for (int i = 0; i < count; i++) {
+			Pose2dDual<Time> pose = source.get(timeAt(i));
+			PoseVelocity2dDual<Time> velocity = pose.velocity();
+			x[i] = pose.position.x.get(0);
+			y[i] = pose.position.y.get(0);
+			double h = pose.heading.value().toDouble();
+			heading[i] = i == 0 ? h : heading[i - 1] + Math.IEEEremainder(h - heading[i - 1], 2 * Math.PI);
+			vx[i] = velocity.linearVel.x.get(0);
+			vy[i] = velocity.linearVel.y.get(0);
+			omega[i] = velocity.angVel.get(0);
+			ax[i] = velocity.linearVel.x.get(1);
+			ay[i] = velocity.linearVel.y.get(1);
+			alpha[i] = velocity.angVel.get(1);
+		}
+	}
+
+	private SampledTrajectory(double dt, double duration, double[][] tables) {
+		this.dt = dt;
+		this.duration = duration;
+		count = tables[0].length;
+		x = tables[0];
+		y = tables[1];
+		heading = tables[2];
+		vx = tables[3];
+		vy = tables[4];
+		omega = tables[5];
+		ax = tables[6];
+		ay = tables[7];
+		alpha = tables[8];
+	}
+
+	/**
+	 * Writes the tables; read them back with {@link #read(ByteBuffer)}.
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeDouble(dt);
+		out.writeDouble(duration);
+		out.writeInt(count);
+		for (double[] table : new double[][]{x, y, heading, vx, vy, omega, ax, ay, alpha}) {
+			for (double value : table) {
+				out.writeDouble(value);
+			}
+		}
+	}
+
+	/**
+	 * Reads tables written by {@link #write(DataOutputStream)}, advancing the buffer past them.
+	 *
+	 * @throws IOException if the data is truncated or malformed
+	 */
+	public static SampledTrajectory read(ByteBuffer in) throws IOException {
+		if (in.remaining() < 2 * Double.BYTES + Integer.BYTES) {
+			throw new IOException("Truncated trajectory header");
+		}
+		double dt = in.getDouble();
+		double duration = in.getDouble();
+		int count = in.getInt();
+		if (!(dt > 0) || !(duration >= 0) || count < 2 || (long) count * 9 * Double.BYTES > in.remaining()) {
+			throw new IOException("Malformed trajectory: dt " + dt + ", duration " + duration + ", count " + count);
+		}
+		DoubleBuffer doubles = in.asDoubleBuffer();
+		double[][] tables = new double[9][count];
+		for (double[] table : tables) {
+			doubles.get(table);
+		}
+		in.position(in.position() + count * 9 * Double.BYTES);
+		return new SampledTrajectory(dt, duration, tables);
+	}
+
+	private double timeAt(int i) {
+		return Math.min(i * dt, duration);
+	}
+
+	public double getDuration() {
+		return duration;
+	}
+
+	public int getSampleCount() {
+		return count;
+	}
+
+	/**
+	 * @param i sample index, from 0 (start) to getSampleCount() - 1 (end)
+	 */
+	public double getXAt(int i) {
+		return x[i];
+	}
+
+	public double getYAt(int i) {
+		return y[i];
+	}
+
+	public double getHeadingAt(int i) {
+		return heading[i];
+	}
+
+	/**
+	 * Interpolates the trajectory at time t (clamped to [0, duration]). Read the result with the
+	 * getters.
+	 */
+	public void sample(double t) {
+		t = Math.max(0, Math.min(duration, t));
+		int i = Math.min((int) (t / dt), count - 2);
+		double start = timeAt(i);
+		double span = timeAt(i + 1) - start;
+		double f = span > 0 ? Math.min(1, (t - start) / span) : 1;
+		int j = i + 1;
+
+		sampleX = x[i] + (x[j] - x[i]) * f;
+		sampleY = y[i] + (y[j] - y[i]) * f;
+		sampleHeading = heading[i] + (heading[j] - heading[i]) * f;
+		sampleVx = vx[i] + (vx[j] - vx[i]) * f;
+		sampleVy = vy[i] + (vy[j] - vy[i]) * f;
+		sampleOmega = omega[i] + (omega[j] - omega[i]) * f;
+		sampleAx = ax[i] + (ax[j] - ax[i]) * f;
+		sampleAy = ay[i] + (ay[j] - ay[i]) * f;
+		sampleAlpha = alpha[i] + (alpha[j] - alpha[i]) * f;
+	}
+
+	public double getX() {
+		return sampleX;
+	}
+
+	public double getY() {
+		return sampleY;
+	}
+
+	/**
+	 * @return heading in radians, unwrapped (may be outside [-pi, pi])
+	 */
+	public double getHeading() {
+		return sampleHeading;
+	}
+
+	public double getVelocityX() {
+		return sampleVx;
+	}
+
+	public double getVelocityY() {
+		return sampleVy;
+	}
+
+	public double getAngularVelocity() {
+		return sampleOmega;
+	}
+
+	public double getAccelerationX() {
+		return sampleAx;
+	}
+
+	public double getAccelerationY() {
+		return sampleAy;
+	}
+
+	public double getAngularAcceleration() {
+		return sampleAlpha;
+	}
+}
@@ -0,0 +1,339 @@
+package org.firstinspires.ftc.teamcode.Roadrunner;
+
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.roadrunner.Action;
+import com.acmerobotics.roadrunner.SequentialAction;
+import com.acmerobotics.roadrunner.TrajectoryActionBuilder;
+
+import org.firstinspires.ftc.robotcore.internal.system.AppUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Builds an OpMode's trajectories on worker threads during init, and caches them on disk.
+ * <p>
+ * compile() returns at once; the TrajectoryActionBuilder chain is built in the background and,
+ * when the sampled follower is on, its sampled tables are written to
+ * FIRST/trajectories/&lt;OpMode&gt;-&lt;name&gt;.bin. Later runs map that file and read the tables
+ * back instead of building, as long as the cache key still matches. The key covers:
+ * - the name and the inputs passed to compile() (waypoints, headings, ...)
+ * - the MecanumDrive.PARAMS fields that shape a trajectory (drive model and profile limits)
+ * - MecanumDrive.FOLLOWER_SAMPLE_DT
+ * - the installed app, so every deploy rebuilds once, since the builder code may have changed
+ * <p>
+ * Only chains of trajectories and turns are cached. Chains with waits or markers are still built
+ * in the background, but every run.
+ * <p>
+ * To use:
+ * 1. In init(), after creating the drive: compiler = new TrajectoryCompiler(drive, "MyAuto")
+ * 2. path = compiler.compile("path", () -&gt; drive.actionBuilder(...)..., x, y, heading)
+ * 3. Show compiler.getCompletedCount() / getCount() in init_loop()
+ * 4. In start(), path.get() returns the Action (waiting if it isn't ready yet)
+ * 5. Call compiler.shutdown() in stop()
+ */
+@Config
+public class TrajectoryCompiler {
+	public static int WORKER_THREADS = 2;
+	public static boolean USE_DISK_CACHE = true;
+
+	private static final File CACHE_DIR = cacheDir();
+	private static final int MAGIC = 0x54524A43; // "TRJC"
+	private static final int VERSION = 1;
+	private static final byte SEGMENT_TRAJECTORY = 0;
+	private static final byte SEGMENT_TURN = 1;
+
+	private final MecanumDrive drive;
+	private final String opModeName;
+	private final ExecutorService executor;
+	private final List<Compiled> compiled = new ArrayList<>();
+
+	/**
+	 * @param drive      drive whose builders are compiled
+	 * @param opModeName prefix for the cache files, unique per OpMode
+	 */
+	public TrajectoryCompiler(MecanumDrive drive, String opModeName) {
+		this.drive = drive;
+		this.opModeName = opModeName;
+		executor = Executors.newFixedThreadPool(Math.max(1, WORKER_THREADS), runnable -> {
+			Thread thread = new Thread(runnable, "TrajectoryCompiler");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Starts building a trajectory chain in the background, or loading it from the cache.
+	 *
+	 * @param name    name of the chain, unique within the OpMode
+	 * @param builder creates the chain, e.g. () -&gt; drive.actionBuilder(pose).strafeTo(...)
+	 * @param inputs  every value the chain depends on that isn't a literal in the builder code
+	 * @return handle to get the Action from
+	 */
+	public Compiled compile(String name, Supplier<TrajectoryActionBuilder> builder, double... inputs) {
+		Compiled result = new Compiled(name, builder, cacheKey(name, inputs));
+		result.future = executor.submit(result::load);
+		compiled.add(result);
+		return result;
+	}
+
+	/**
+	 * @return true once every chain is ready
+	 */
+	public boolean isDone() {
+		return getCompletedCount() == compiled.size();
+	}
+
+	public int getCount() {
+		return compiled.size();
+	}
+
+	public int getCompletedCount() {
+		int count = 0;
+		for (Compiled c : compiled) {
+			if (c.isDone()) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return chains loaded from the disk cache instead of built
+	 */
+	public int getCacheHits() {
+		int count = 0;
+		for (Compiled c : compiled) {
+			if (c.isDone() && c.cached) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Stops the worker threads. Chains that are already done can still be used.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private static long cacheKey(String name, double[] inputs) {
+		MecanumDrive.Params params = MecanumDrive.PARAMS;
+		long key = mix(0xCBF29CE484222325L, name.hashCode());
+		for (double input : inputs) {
+			key = mix(key, Double.doubleToLongBits(input));
+		}
+		double[] shape = {
+				params.inPerTick, params.lateralInPerTick, params.trackWidthTicks,
+				params.maxWheelVel, params.minProfileAccel, params.maxProfileAccel,
+				params.maxAngVel, params.maxAngAccel, MecanumDrive.FOLLOWER_SAMPLE_DT
+		};
+		for (double value : shape) {
+			key = mix(key, Double.doubleToLongBits(value));
+		}
+		return mix(key, appVersion());
+	}
+
+	private static long mix(long key, long value) {
+		// FNV-1a over the eight bytes of the value
+		for (int i = 0; i < 8; i++) {
+			key ^= (value >>> (i * 8)) & 0xFF;
+			key *= 0x100000001B3L;
+		}
+		return key;
+	}
+
+	/**
+	 * @return when the app was last installed, or 0 if that can't be found
+	 */
+	private static long appVersion() {
+		try {
+			return new File(AppUtil.getDefContext().getPackageCodePath()).lastModified();
+		} catch (RuntimeException | LinkageError e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * @return FIRST/trajectories, or null off the robot where AppUtil can't load
+	 */
+	private static File cacheDir() {
+		try {
+			return new File(AppUtil.FIRST_FOLDER, "trajectories");
+		} catch (LinkageError e) {
+			return null;
+		}
+	}
+
+	/**
+	 * A trajectory chain being built or loaded in the background.
+	 */
+	public final class Compiled {
+		private final String name;
+		private final Supplier<TrajectoryActionBuilder> builder;
+		private final long key;
+		private Future<Void> future;
+		// Set by the worker before the future completes
+		private volatile boolean cached = false;
+		private SampledTrajectory[] segments = null;
+		private boolean[] turns = null;
+		private Action action = null;
+
+		private Compiled(String name, Supplier<TrajectoryActionBuilder> builder, long key) {
+			this.name = name;
+			this.builder = builder;
+			this.key = key;
+		}
+
+		public boolean isDone() {
+			return future.isDone();
+		}
+
+		/**
+		 * @return true if the chain was loaded from the disk cache
+		 */
+		public boolean isCached() {
+			return cached;
+		}
+
+		/**
+		 * Returns the chain's Action, waiting for it to be built if it isn't ready. A cached chain
+		 * returns a fresh Action on every call; an uncached one returns the Action it built.
+		 */
+		public Action get() {
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while building trajectory " + name, e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Building trajectory " + name + " failed", e.getCause());
+			}
+
+			if (segments == null) return action;
+			List<Action> actions = new ArrayList<>();
+			for (int i = 0; i < segments.length; i++) {
+				actions.add(turns[i]
+						? drive.new SampledTurnAction(segments[i])
+						: drive.new SampledFollowTrajectoryAction(segments[i]));
+			}
+			return new SequentialAction(actions);
+		}
+
+		private File cacheFile() {
+			return new File(CACHE_DIR, opModeName + "-" + name + ".bin");
+		}
+
+		/**
+		 * Runs on a worker thread.
+		 */
+		private Void load() {
+			if (USE_DISK_CACHE && CACHE_DIR != null && readCache()) {
+				cached = true;
+				return null;
+			}
+
+			Action built = builder.get().build();
+			List<Action> flat = new ArrayList<>();
+			if (!flatten(built, flat)) {
+				action = built;
+				return null;
+			}
+
+			segments = new SampledTrajectory[flat.size()];
+			turns = new boolean[flat.size()];
+			for (int i = 0; i < flat.size(); i++) {
+				Action segment = flat.get(i);
+				turns[i] = segment instanceof MecanumDrive.SampledTurnAction;
+				segments[i] = turns[i]
+						? ((MecanumDrive.SampledTurnAction) segment).getSamples()
+						: ((MecanumDrive.SampledFollowTrajectoryAction) segment).getSamples();
+			}
+			if (USE_DISK_CACHE && CACHE_DIR != null) writeCache();
+			return null;
+		}
+
+		/**
+		 * Collects the sampled trajectories and turns of a built chain, in order.
+		 *
+		 * @return false if the chain contains anything else
+		 */
+		private boolean flatten(Action action, List<Action> out) {
+			if (action instanceof MecanumDrive.SampledFollowTrajectoryAction
+					|| action instanceof MecanumDrive.SampledTurnAction) {
+				out.add(action);
+				return true;
+			}
+			if (action instanceof SequentialAction) {
+				for (Action child : ((SequentialAction) action).getInitialActions()) {
+					if (!flatten(child, out)) return false;
+				}
+				return true;
+			}
+			return false;
+		}
+
+		private boolean readCache() {
+			File file = cacheFile();
+			if (!file.isFile()) return false;
+			try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+			     FileChannel channel = raf.getChannel()) {
+				ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				if (in.remaining() < 20 || in.getInt() != MAGIC || in.getInt() != VERSION
+						|| in.getLong() != key) {
+					return false;
+				}
+				int count = in.getInt();
+				if (count < 0 || count > in.remaining()) return false;
+				SampledTrajectory[] loadedSegments = new SampledTrajectory[count];
+				boolean[] loadedTurns = new boolean[count];
+				for (int i = 0; i < count; i++) {
+					loadedTurns[i] = in.get() == SEGMENT_TURN;
+					loadedSegments[i] = SampledTrajectory.read(in);
+				}
+				segments = loadedSegments;
+				turns = loadedTurns;
+				return true;
+			} catch (IOException | RuntimeException e) {
+				// Unreadable or stale; rebuild and overwrite it
+				return false;
+			}
+		}
+
+		private void writeCache() {
+			File file = cacheFile();
+			File temp = new File(CACHE_DIR, file.getName() + ".tmp");
+			try {
+				if (!CACHE_DIR.isDirectory() && !CACHE_DIR.mkdirs()) return;
+				try (DataOutputStream out = new DataOutputStream(
+						new BufferedOutputStream(new FileOutputStream(temp)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					out.writeLong(key);
+					out.writeInt(segments.length);
+					for (int i = 0; i < segments.length; i++) {
+						out.writeByte(turns[i] ? SEGMENT_TURN : SEGMENT_TRAJECTORY);
+						segments[i].write(out);
+					}
+				}
+				// Replace the old file only once the new one is complete
+				if (!temp.renameTo(file)) {
+					temp.delete();
+				}
+			} catch (IOException e) {
+				// The cache is only an optimization; the chain built fine
+				temp.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package org.firstinspires.ftc.teamcode.Roadrunner;
+
+/**
+ * Source of absolute field poses (e.g. from AprilTags) for FusionLocalizer.
+ */
+public interface VisionPoseSource {
+	/**
+	 * Passes any measurements that arrived since the last call to
+	 * fusion.addVisionMeasurement(), stamped with when their image was captured. Called once per
+	 * FusionLocalizer.update(), after the odometry prediction.
+	 */
+	void poll(FusionLocalizer fusion);
+}
@@ -40,6 +40,8 @@ import com.qualcomm.robotcore.hardware.DcMotorSimple;
 
 import org.firstinspires.ftc.robotcore.external.navigation.UnnormalizedAngleUnit;
 import org.firstinspires.ftc.robotcore.internal.opmode.OpModeMeta;
+import org.firstinspires.ftc.teamcode.Roadrunner.FusionLocalizer;
+import org.firstinspires.ftc.teamcode.Roadrunner.Localizer;
 import org.firstinspires.ftc.teamcode.Roadrunner.MecanumDrive;
 import org.firstinspires.ftc.teamcode.Roadrunner.OTOSLocalizer;
 import org.firstinspires.ftc.teamcode.Roadrunner.PinpointLocalizer;
@@ -133,12 +135,16 @@ public final class TuningOpModes {
 			dvf = hardwareMap -> {
 				MecanumDrive md = new MecanumDrive(hardwareMap, new Pose2d(0, 0, 0));
 				LazyImu lazyImu = md.lazyImu;
+				// The tuners read the odometry itself, not the fused pose
+				Localizer localizer = md.localizer instanceof FusionLocalizer
+						? ((FusionLocalizer) md.localizer).getOdometry()
+						: md.localizer;
 
 				List<EncoderGroup> encoderGroups = new ArrayList<>();
 				List<EncoderRef> leftEncs = new ArrayList<>(), rightEncs = new ArrayList<>();
 				List<EncoderRef> parEncs = new ArrayList<>(), perpEncs = new ArrayList<>();
-				if (md.localizer instanceof MecanumDrive.DriveLocalizer) {
-					MecanumDrive.DriveLocalizer dl = (MecanumDrive.DriveLocalizer) md.localizer;
+				if (localizer instanceof MecanumDrive.DriveLocalizer) {
+					MecanumDrive.DriveLocalizer dl = (MecanumDrive.DriveLocalizer) localizer;
 					encoderGroups.add(new LynxQuadratureEncoderGroup(
 							hardwareMap.getAll(LynxModule.class),
 							Arrays.asList(dl.leftFront, dl.leftBack, dl.rightFront, dl.rightBack)
@@ -147,8 +153,8 @@ public final class TuningOpModes {
 					leftEncs.add(new EncoderRef(0, 1));
 					rightEncs.add(new EncoderRef(0, 2));
 					rightEncs.add(new EncoderRef(0, 3));
-				} else if (md.localizer instanceof ThreeDeadWheelLocalizer) {
-					ThreeDeadWheelLocalizer dl = (ThreeDeadWheelLocalizer) md.localizer;
+				} else if (localizer instanceof ThreeDeadWheelLocalizer) {
+					ThreeDeadWheelLocalizer dl = (ThreeDeadWheelLocalizer) localizer;
 					encoderGroups.add(new LynxQuadratureEncoderGroup(
 							hardwareMap.getAll(LynxModule.class),
 							Arrays.asList(dl.par0, dl.par1, dl.perp)
@@ -156,28 +162,31 @@ public final class TuningOpModes {
 					parEncs.add(new EncoderRef(0, 0));
 					parEncs.add(new EncoderRef(0, 1));
 					perpEncs.add(new EncoderRef(0, 2));
-				} else if (md.localizer instanceof TwoDeadWheelLocalizer) {
-					TwoDeadWheelLocalizer dl = (TwoDeadWheelLocalizer) md.localizer;
+				} else if (localizer instanceof TwoDeadWheelLocalizer) {
+					TwoDeadWheelLocalizer dl = (TwoDeadWheelLocalizer) localizer;
 					encoderGroups.add(new LynxQuadratureEncoderGroup(
 							hardwareMap.getAll(LynxModule.class),
 							Arrays.asList(dl.par, dl.perp)
 					));
 					parEncs.add(new EncoderRef(0, 0));
 					perpEncs.add(new EncoderRef(0, 1));
-				} else if (md.localizer instanceof OTOSLocalizer) {
-					OTOSLocalizer ol = (OTOSLocalizer) md.localizer;
+				} else if (localizer instanceof OTOSLocalizer) {
+					OTOSLocalizer ol = (OTOSLocalizer) localizer;
 					encoderGroups.add(new OTOSEncoderGroup(ol.otos));
 					parEncs.add(new EncoderRef(0, 0));
 					perpEncs.add(new EncoderRef(0, 1));
 					lazyImu = new OTOSIMU(ol.otos);
-				} else if (md.localizer instanceof PinpointLocalizer) {
-					PinpointView pv = makePinpointView((PinpointLocalizer) md.localizer);
+				} else if (localizer instanceof PinpointLocalizer) {
+					PinpointLocalizer pl = (PinpointLocalizer) localizer;
+					// The view reads the driver on the OpMode thread, which can't share it with a poller
+					pl.stopAsync();
+					PinpointView pv = makePinpointView(pl);
 					encoderGroups.add(new PinpointEncoderGroup(pv));
 					parEncs.add(new EncoderRef(0, 0));
 					perpEncs.add(new EncoderRef(0, 1));
 					lazyImu = new PinpointIMU(pv);
 				} else {
-					throw new RuntimeException("unknown localizer: " + md.localizer.getClass().getName());
+					throw new RuntimeException("unknown localizer: " + localizer.getClass().getName());
 				}
 
 				return new DriveView(
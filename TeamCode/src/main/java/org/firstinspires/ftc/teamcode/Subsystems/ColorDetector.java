@@ -1,7 +1,5 @@
 package org.firstinspires.ftc.teamcode.Subsystems;
 
-import android.graphics.Color;
-
 import androidx.annotation.NonNull;
 
 import com.acmerobotics.dashboard.config.Config;
@@ -9,6 +7,10 @@ import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
 import com.acmerobotics.roadrunner.Action;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.Utilities.ColorClassifier;
+
 /**
  * Singleton subsystem that manages dual color sensors for ball color detection.
  * <p>
@@ -19,6 +21,12 @@ import com.qualcomm.robotcore.hardware.HardwareMap;
  * 1. Call initialize(hardwareMap) once during robot initialization
  * 2. Call getInstance().update().run(packet) in the main loop
  * 3. Read isGreen and isPurple boolean fields for detection results
+ * <p>
+ * Asynchronous mode: after startAsync(), a background reader thread polls both sensors every
+ * ASYNC_POLL_INTERVAL_MS and publishes an immutable, timestamped {@link Sample}. update() then
+ * copies the latest sample into the public fields instead of doing six blocking I2C reads in the
+ * main loop. Consumers that care about age should use getLatestSample() and isFresh(). If a read
+ * fails the thread stops, isAsync() turns false and update() reads inline again.
  */
 @Config
 public class ColorDetector {
@@ -44,8 +52,18 @@ public class ColorDetector {
 	 * Minimum saturation required to consider a color valid
 	 */
 	public static double MIN_SATURATION = 0.4;
+	/**
+	 * Delay between reads on the async reader thread, in milliseconds
+	 */
+	public static long ASYNC_POLL_INTERVAL_MS = 10;
+	/**
+	 * Oldest async sample, in milliseconds, that isFresh() accepts
+	 */
+	public static double MAX_SAMPLE_AGE_MS = 100;
 
 	private static ColorDetector instance = null;
+	private static final DataLog.Record LOG = DataLog.register("color",
+			"red", "green", "blue", "hue", "saturation", "value", "isGreen", "isPurple");
 	// Public fields to store the last read values
 	/**
 	 * Average red value from both sensors (0-255)
@@ -74,6 +92,11 @@ public class ColorDetector {
 	private com.qualcomm.robotcore.hardware.ColorSensor colourLeft;
 	private com.qualcomm.robotcore.hardware.ColorSensor colourRight;
 
+	// Single writer (the reader thread), any number of readers; samples are never mutated
+	private volatile Sample latestSample = null;
+	private volatile boolean asyncRunning = false;
+	private Thread readerThread = null;
+
 	private ColorDetector() {
 	}
 
@@ -93,7 +116,81 @@ public class ColorDetector {
 	}
 
 	public static void shutdown() {
-		// No cleanup needed currently
+		if (instance != null) {
+			instance.stopAsync();
+		}
+	}
+
+	/**
+	 * Starts the background reader thread. Does nothing if it is already running.
+	 */
+	public void startAsync() {
+		if (asyncRunning) return;
+		latestSample = null;
+		asyncRunning = true;
+		readerThread = new Thread(this::readLoop, "ColorDetector-reader");
+		readerThread.setDaemon(true);
+		readerThread.start();
+	}
+
+	/**
+	 * Stops the background reader thread and waits briefly for it to exit.
+	 * update() goes back to reading the sensors in the calling thread.
+	 */
+	public void stopAsync() {
+		if (!asyncRunning) return;
+		asyncRunning = false;
+		readerThread.interrupt();
+		try {
+			readerThread.join(100);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		readerThread = null;
+		latestSample = null;
+	}
+
+	/**
+	 * @return true while the background reader thread is running
+	 */
+	public boolean isAsync() {
+		return asyncRunning;
+	}
+
+	/**
+	 * @return the most recent sample published by the reader thread, or null if none yet
+	 */
+	public Sample getLatestSample() {
+		return latestSample;
+	}
+
+	/**
+	 * @param sample sample to check, may be null
+	 * @return true if the sample exists and is no older than MAX_SAMPLE_AGE_MS
+	 */
+	public static boolean isFresh(Sample sample) {
+		return sample != null && sample.getAgeNanos() <= MAX_SAMPLE_AGE_MS * 1_000_000;
+	}
+
+	private void readLoop() {
+		try {
+			while (asyncRunning) {
+				int red = (colourLeft.red() + colourRight.red()) / 2;
+				int green = (colourLeft.green() + colourRight.green()) / 2;
+				int blue = (colourLeft.blue() + colourRight.blue()) / 2;
+				latestSample = new Sample(System.nanoTime(), red, green, blue);
+				try {
+					Thread.sleep(ASYNC_POLL_INTERVAL_MS);
+				} catch (InterruptedException e) {
+					break;
+				}
+			}
+		} catch (RuntimeException e) {
+			// A read failed (e.g. an I2C error); stop reading, and update() and isAsync() callers
+			// fall back to reading the sensors in their own thread
+		} finally {
+			asyncRunning = false;
+		}
 	}
 
 	/**
@@ -102,22 +199,72 @@ public class ColorDetector {
 	 * Updates the public isGreen and isPurple fields.
 	 */
 	private void updateValues() {
-		int leftRed = colourLeft.red();
-		int leftGreen = colourLeft.green();
-		int leftBlue = colourLeft.blue();
+		if (asyncRunning) {
+			// Never block on I2C; keep the previous values until the first sample arrives
+			Sample sample = latestSample;
+			if (sample != null) {
+				avgRed = sample.red;
+				avgGreen = sample.green;
+				avgBlue = sample.blue;
+				avgHSV[0] = sample.hue;
+				avgHSV[1] = sample.saturation;
+				avgHSV[2] = sample.value;
+				isGreen = sample.isGreen;
+				isPurple = sample.isPurple;
+			}
+			logValues();
+			return;
+		}
 
-		int rightRed = colourRight.red();
-		int rightGreen = colourRight.green();
-		int rightBlue = colourRight.blue();
+		int leftRed, leftGreen, leftBlue;
+		int rightRed, rightGreen, rightBlue;
+		if (HardwareSnapshot.isActive()) {
+			// Shares one set of I2C reads per loop with any other consumer
+			HardwareSnapshot.Frame frame = HardwareSnapshot.getInstance().getFrame();
+			leftRed = frame.getLeftRed();
+			leftGreen = frame.getLeftGreen();
+			leftBlue = frame.getLeftBlue();
+			rightRed = frame.getRightRed();
+			rightGreen = frame.getRightGreen();
+			rightBlue = frame.getRightBlue();
+		} else {
+			leftRed = colourLeft.red();
+			leftGreen = colourLeft.green();
+			leftBlue = colourLeft.blue();
+			rightRed = colourRight.red();
+			rightGreen = colourRight.green();
+			rightBlue = colourRight.blue();
+		}
 
 		avgRed = (leftRed + rightRed) / 2;
 		avgGreen = (leftGreen + rightGreen) / 2;
 		avgBlue = (leftBlue + rightBlue) / 2;
 
-		Color.RGBToHSV(avgRed, avgGreen, avgBlue, avgHSV);
+		ColorClassifier.rgbToHsv(avgRed, avgGreen, avgBlue, avgHSV);
+
+		isGreen = isGreen(avgHSV);
+		isPurple = isPurple(avgHSV);
+		logValues();
+	}
+
+	private void logValues() {
+		LOG.set(0, avgRed)
+				.set(1, avgGreen)
+				.set(2, avgBlue)
+				.set(3, avgHSV[0])
+				.set(4, avgHSV[1])
+				.set(5, avgHSV[2])
+				.set(6, isGreen)
+				.set(7, isPurple)
+				.commit();
+	}
+
+	private static boolean isGreen(float[] hsv) {
+		return ColorClassifier.isInHueRange(hsv, GREEN_HUE_MIN, GREEN_HUE_MAX, MIN_SATURATION);
+	}
 
-		isGreen = (avgHSV[1] > MIN_SATURATION && avgHSV[0] > GREEN_HUE_MIN && avgHSV[0] < GREEN_HUE_MAX);
-		isPurple = (avgHSV[1] > MIN_SATURATION && avgHSV[0] > PURPLE_HUE_MIN && avgHSV[0] < PURPLE_HUE_MAX);
+	private static boolean isPurple(float[] hsv) {
+		return ColorClassifier.isInHueRange(hsv, PURPLE_HUE_MIN, PURPLE_HUE_MAX, MIN_SATURATION);
 	}
 
 	/**
@@ -146,7 +293,50 @@ public class ColorDetector {
 			packet.put("Average Value", avgHSV[2]);
 			packet.put("Is Green", isGreen);
 			packet.put("Is Purple", isPurple);
+			if (asyncRunning) {
+				Sample sample = latestSample;
+				packet.put("Color Sample Age (ms)", sample != null ? sample.getAgeNanos() / 1e6 : -1);
+			}
 			return false; // Action finishes immediately after one frame
 		}
 	}
+
+	/**
+	 * One averaged reading of both sensors, published by the async reader thread. Immutable.
+	 */
+	public static final class Sample {
+		/**
+		 * System.nanoTime() when the reads completed
+		 */
+		public final long timestampNanos;
+		public final int red;
+		public final int green;
+		public final int blue;
+		public final float hue;
+		public final float saturation;
+		public final float value;
+		public final boolean isGreen;
+		public final boolean isPurple;
+
+		private Sample(long timestampNanos, int red, int green, int blue) {
+			this.timestampNanos = timestampNanos;
+			this.red = red;
+			this.green = green;
+			this.blue = blue;
+			float[] hsv = new float[3];
+			ColorClassifier.rgbToHsv(red, green, blue, hsv);
+			this.hue = hsv[0];
+			this.saturation = hsv[1];
+			this.value = hsv[2];
+			this.isGreen = ColorDetector.isGreen(hsv);
+			this.isPurple = ColorDetector.isPurple(hsv);
+		}
+
+		/**
+		 * @return nanoseconds since this sample was taken
+		 */
+		public long getAgeNanos() {
+			return System.nanoTime() - timestampNanos;
+		}
+	}
 }
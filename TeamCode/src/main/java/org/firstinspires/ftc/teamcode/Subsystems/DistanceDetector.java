@@ -9,6 +9,7 @@ import com.qualcomm.robotcore.hardware.DistanceSensor;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
 import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
 
 /**
  * Singleton subsystem that manages a distance sensor for object detection.
@@ -33,6 +34,7 @@ public class DistanceDetector {
 	public static double OBJECT_THRESHOLD_CM = 2.0;
 
 	private static DistanceDetector instance = null;
+	private static final DataLog.Record LOG = DataLog.register("distance", "rawDistance", "isObject");
 	// Public fields to store the last read values
 	/**
 	 * Raw distance reading in centimeters
@@ -61,6 +63,13 @@ public class DistanceDetector {
 		return instance;
 	}
 
+	/**
+	 * @return true once initialize() has been called; the sensor is optional for BallSettleDetector
+	 */
+	public static boolean isInitialized() {
+		return instance != null;
+	}
+
 	public static void shutdown() {
 		// No cleanup needed currently
 	}
@@ -73,6 +82,7 @@ public class DistanceDetector {
 	private void updateValues() {
 		rawDistance = frontDistance.getDistance(DistanceUnit.CM);
 		isObject = rawDistance <= OBJECT_THRESHOLD_CM;
+		LOG.set(0, rawDistance).set(1, isObject).commit();
 	}
 
 	/**
@@ -6,6 +6,8 @@ import com.acmerobotics.roadrunner.InstantAction;
 import com.qualcomm.robotcore.hardware.DcMotor;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.ActuatorOutputs;
+
 @Config
 public class Intake {
 
@@ -15,6 +17,12 @@ public class Intake {
 	public static double STOP_POWER = 0.0;
 	private static Intake instance = null;
 	private DcMotor intake;
+	private ActuatorOutputs.Output intakeOutput;
+
+	// Cached actions; they read the power constants when run, so they can be reused freely
+	private final Action inAction = new InstantAction(() -> intakeOutput.set(IN_POWER));
+	private final Action outAction = new InstantAction(() -> intakeOutput.set(OUT_POWER));
+	private final Action stopAction = new InstantAction(() -> intakeOutput.set(STOP_POWER));
 
 	private Intake() {
 	}
@@ -23,6 +31,7 @@ public class Intake {
 		if (instance == null) {
 			instance = new Intake();
 			instance.intake = hardwareMap.get(DcMotor.class, "intake");
+			instance.intakeOutput = ActuatorOutputs.of(instance.intake);
 		}
 	}
 
@@ -40,30 +49,33 @@ public class Intake {
 	/**
 	 * Returns an InstantAction that runs the intake motor forward.
 	 * This action completes immediately after setting power.
+	 * The same instance is returned on every call.
 	 *
 	 * @return Action that starts intake motor forward
 	 */
 	public Action in() {
-		return new InstantAction(() -> intake.setPower(IN_POWER));
+		return inAction;
 	}
 
 	/**
 	 * Returns an InstantAction that runs the intake motor backward.
 	 * This action completes immediately after setting power.
+	 * The same instance is returned on every call.
 	 *
 	 * @return Action that starts intake motor backward
 	 */
 	public Action out() {
-		return new InstantAction(() -> intake.setPower(OUT_POWER));
+		return outAction;
 	}
 
 	/**
 	 * Returns an InstantAction that stops the intake motor.
 	 * This action completes immediately after setting power to zero.
+	 * The same instance is returned on every call.
 	 *
 	 * @return Action that stops intake motor
 	 */
 	public Action stop() {
-		return new InstantAction(() -> intake.setPower(STOP_POWER));
+		return stopAction;
 	}
 }
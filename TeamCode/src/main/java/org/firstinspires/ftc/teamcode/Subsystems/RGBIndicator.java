@@ -6,6 +6,8 @@ import com.acmerobotics.roadrunner.InstantAction;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.Servo;
 
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.ActuatorOutputs;
+
 @Config
 public class RGBIndicator {
 
@@ -43,6 +45,7 @@ public class RGBIndicator {
 	};
 	private static RGBIndicator instance = null;
 	private Servo rgbServo;
+	private ActuatorOutputs.Output rgbOutput;
 
 	private RGBIndicator() {
 	}
@@ -51,6 +54,7 @@ public class RGBIndicator {
 		if (instance == null) {
 			instance = new RGBIndicator();
 			instance.rgbServo = hardwareMap.get(Servo.class, "rgbIndicator");
+			instance.rgbOutput = ActuatorOutputs.of(instance.rgbServo);
 		}
 	}
 
@@ -136,7 +140,7 @@ public class RGBIndicator {
 			colorIndex = 0;
 		}
 
-		rgbServo.setPosition(SERVO_POSITIONS[colorIndex]);
+		rgbOutput.set(SERVO_POSITIONS[colorIndex]);
 	}
 
 	/**
@@ -149,7 +153,7 @@ public class RGBIndicator {
 			return;
 		}
 		double position = hexToServoPosition(hexColor);
-		rgbServo.setPosition(position);
+		rgbOutput.set(position);
 	}
 
 	/**
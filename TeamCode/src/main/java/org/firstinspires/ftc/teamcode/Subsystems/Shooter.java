@@ -8,31 +8,127 @@ import com.acmerobotics.roadrunner.Action;
 import com.acmerobotics.roadrunner.InstantAction;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
+import com.qualcomm.robotcore.hardware.VoltageSensor;
 
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.ActuatorOutputs;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.Utilities.FlywheelController;
+import org.firstinspires.ftc.teamcode.Utilities.SelectableVelocityEstimator;
+import org.firstinspires.ftc.teamcode.Utilities.VelocityEstimator;
+
+/**
+ * Singleton subsystem for the two shooter flywheels.
+ * <p>
+ * Each flywheel has its own {@link FlywheelController}: kS/kV/kA feedforward compensated for
+ * battery voltage, a PI trim, and a full-power recovery mode that kicks in when a shot drags
+ * the speed down. isAtTargetRPM() uses a low-pass filtered RPM that has to stay within
+ * RPM_TOLERANCE for SETTLE_TIME_MS, so a single noisy reading can't release a shot.
+ * <p>
+ * To use:
+ * 1. Call initialize(hardwareMap) once during robot initialization
+ * 2. Schedule run(targetRPM) every loop while the shooter should spin
+ * 3. Gate feeding on isAtTargetRPM(targetRPM)
+ */
 @Config
 public class Shooter {
 	// --- Motor Power Constants ---
 	/**
-	 * The power level for the "on" state of the bang-bang controller. This is the power
-	 * used when the shooter's RPM is below the target range.
+	 * The power level to completely stop the motors.
 	 */
-	public static double BANG_BANG_HIGH_POWER = 0.72;
+	public static double STOP_POWER = 0.0;
+
+	// --- Feedforward (volts) ---
 	/**
-	 * The power level for the "off" or "idle" state of the bang-bang controller. This is the
-	 * minimum power applied when the RPM is above the target range to keep it spinning.
+	 * Static friction voltage, in volts.
 	 */
-	public static double BANG_BANG_LOW_POWER = 0.5;
+	public static double KS = 0.0;
 	/**
-	 * The power level to completely stop the motors.
+	 * Velocity feedforward, in volts per RPM. 12 V / 6000 RPM for a bare 6000 RPM motor.
 	 */
-	public static double STOP_POWER = 0.0;
+	public static double KV = 0.002;
+	/**
+	 * Acceleration feedforward, in volts per RPM/s. Roughly KV times the flywheel's time constant.
+	 */
+	public static double KA = 0.0012;
+
+	// --- PI Trim (volts) ---
+	/**
+	 * Proportional trim, in volts per RPM of error.
+	 */
+	public static double KP = 0.004;
+	/**
+	 * Integral trim, in volts per RPM*s of accumulated error.
+	 */
+	public static double KI = 0.01;
+	/**
+	 * Largest voltage the integral term may contribute.
+	 */
+	public static double MAX_INTEGRAL_VOLTS = 1.5;
+
+	// --- Reference & Recovery ---
+	/**
+	 * How fast the reference ramps to a new target, in RPM per second.
+	 */
+	public static double MAX_ACCEL_RPM_PER_SECOND = 6000.0;
+	/**
+	 * A drop this far below the reference (e.g. after a shot) switches to full-power recovery.
+	 */
+	public static double RECOVERY_DIP_RPM = 150.0;
+	/**
+	 * Recovery ends once the speed is within this many RPM of the reference.
+	 */
+	public static double RECOVERY_EXIT_RPM = 40.0;
+	/**
+	 * Nominal voltage used before the first battery reading.
+	 */
+	public static double NOMINAL_VOLTAGE = 12.0;
+	/**
+	 * Minimum time between battery voltage reads, in milliseconds. Each read is a separate hub
+	 * transaction, so it is not done every loop.
+	 */
+	public static double VOLTAGE_READ_INTERVAL_MS = 250.0;
 
-	// --- RPM & Control Constants ---
+	// --- RPM & Settle Constants ---
+	/**
+	 * The shooter is considered "at target speed" once the filtered RPM has stayed within
+	 * `targetRPM +/- RPM_TOLERANCE` for SETTLE_TIME_MS.
+	 */
+	public static double RPM_TOLERANCE = 50.0;
+	/**
+	 * How long the filtered RPM must stay in the tolerance band, in milliseconds.
+	 */
+	public static double SETTLE_TIME_MS = 60.0;
+	/**
+	 * Weight of the newest sample in the filtered RPM (1 = no filtering).
+	 */
+	public static double SETTLE_FILTER_ALPHA = 0.3;
+	// --- Velocity Estimation ---
+	/**
+	 * Which estimator turns encoder samples into upperRPM/lowerRPM.
+	 */
+	public static VelocityEstimator.Mode VELOCITY_ESTIMATOR = VelocityEstimator.Mode.KALMAN;
+	/**
+	 * Time constant of the EMA estimator, in seconds.
+	 */
+	public static double EMA_TIME_CONSTANT_SECONDS = 0.03;
 	/**
-	 * The tolerance for the bang-bang controller. The shooter is considered "at target speed"
-	 * if the RPM is within `targetRPM +/- RPM_TOLERANCE`. A value of 100 is a good starting point.
+	 * Kalman acceleration noise, in (ticks/s^2)^2 per Hz. Higher follows shot dips faster.
 	 */
-	public static double RPM_TOLERANCE = 1.0;
+	public static double KALMAN_PROCESS_NOISE = 1e5;
+	/**
+	 * Kalman position measurement variance, in ticks^2. Quantization alone is 1/12.
+	 */
+	public static double KALMAN_POSITION_NOISE = 0.1;
+	/**
+	 * Kalman variance of the hub's velocity reading, in (ticks/s)^2. 0 ignores the hub velocity.
+	 */
+	public static double KALMAN_VELOCITY_NOISE = 625;
+	/**
+	 * Number of loop samples the finite-difference estimator differences over.
+	 */
+	public static int FINITE_DIFFERENCE_WINDOW = 5;
+
 	/**
 	 * The number of encoder ticks per single revolution of the shooter motor's output shaft.
 	 */
@@ -49,13 +145,46 @@ public class Shooter {
 
 	// --- Singleton Instance ---
 	private static Shooter instance = null;
+	private static final DataLog.Record LOG = DataLog.register("shooter",
+			"targetRPM", "upperRPM", "lowerRPM", "filteredRPM", "upperRPMVariance", "lowerRPMVariance",
+			"batteryVoltage", "recovering", "dipCount");
+	private static final DataLog.Record CONTROL_LOG = DataLog.register("shooterControl",
+			"targetRPM", "batteryVoltage", "upperPower", "lowerPower");
 
 	// --- Motor & State Variables ---
 	private DcMotorEx upperShooter;
 	private DcMotorEx lowerShooter;
+	private ActuatorOutputs.Output upperOutput;
+	private ActuatorOutputs.Output lowerOutput;
+	private VoltageSensor voltageSensor;
 	public double averageRPM = 0.0;
 	public double upperRPM = 0.0;
 	public double lowerRPM = 0.0;
+	/**
+	 * Low-pass filtered averageRPM used by isAtTargetRPM()
+	 */
+	public double filteredRPM = 0.0;
+	/**
+	 * Variance of the upperRPM and lowerRPM estimates, in RPM^2
+	 */
+	public double upperRPMVariance = 0.0;
+	public double lowerRPMVariance = 0.0;
+
+	private final SelectableVelocityEstimator upperEstimator = createVelocityEstimator();
+	private final SelectableVelocityEstimator lowerEstimator = createVelocityEstimator();
+
+	private final FlywheelController upperController = new FlywheelController(KS, KV, KA, KP, KI);
+	private final FlywheelController lowerController = new FlywheelController(KS, KV, KA, KP, KI);
+	private double batteryVoltage = NOMINAL_VOLTAGE;
+	private long lastVoltageReadNanos = 0;
+	private boolean filterPrimed = false;
+	// Target of the running controller and when the filtered RPM entered its tolerance band
+	private double activeTargetRPM = 0.0;
+	private long inBandSinceNanos = 0;
+	private long lastSampleNanos = 0;
+
+	// Cached stop action; it is stateless so the same instance can be scheduled repeatedly
+	private final Action stopAction = new InstantAction(this::stopMotors);
 
 	private Shooter() {}
 
@@ -64,6 +193,11 @@ public class Shooter {
 			instance = new Shooter();
 			instance.upperShooter = hardwareMap.get(DcMotorEx.class, "upperShooter");
 			instance.lowerShooter = hardwareMap.get(DcMotorEx.class, "lowerShooter");
+			instance.upperOutput = ActuatorOutputs.of(instance.upperShooter);
+			instance.lowerOutput = ActuatorOutputs.of(instance.lowerShooter);
+			// Voltage compensation is skipped (NOMINAL_VOLTAGE is used) if there is no hub sensor
+			instance.voltageSensor = hardwareMap.voltageSensor.iterator().hasNext()
+					? hardwareMap.voltageSensor.iterator().next() : null;
 
 			// Set zero power behavior. BRAKE helps motors stop faster and resist movement.
 			instance.upperShooter.setZeroPowerBehavior(DcMotorEx.ZeroPowerBehavior.BRAKE);
@@ -81,90 +215,214 @@ public class Shooter {
 	public static void shutdown() {
 		if(instance != null) {
 			// Ensure motors are stopped when the op-mode ends.
-			instance.upperShooter.setPower(STOP_POWER);
-			instance.lowerShooter.setPower(STOP_POWER);
+			instance.stopMotors();
 		}
 	}
 
+	private void stopMotors() {
+		upperOutput.set(STOP_POWER);
+		lowerOutput.set(STOP_POWER);
+		upperController.reset();
+		lowerController.reset();
+		activeTargetRPM = 0.0;
+		inBandSinceNanos = 0;
+	}
+
 	/**
-	 * Updates the RPM readings for both shooter motors based on their velocity.
+	 * Updates the RPM readings for both shooter motors from the VELOCITY_ESTIMATOR estimate of
+	 * their encoder samples, timestamped with the loop's HardwareSnapshot frame when active.
 	 * This should be called continuously in your main robot loop to provide feedback for the controller.
 	 */
 	public void updateRPM() {
-		double upperVelocity = upperShooter.getVelocity(); // ticks per second
-		double lowerVelocity = lowerShooter.getVelocity(); // ticks per second
+		configureVelocityEstimator(upperEstimator);
+		configureVelocityEstimator(lowerEstimator);
+		long timestampNanos;
+		if (HardwareSnapshot.isActive()) {
+			HardwareSnapshot.Frame frame = HardwareSnapshot.getInstance().getFrame();
+			// Skip repeat calls within a loop so the estimators see each sample once
+			if (frame.getTimestampNanos() == lastSampleNanos) return;
+			timestampNanos = frame.getTimestampNanos();
+			upperEstimator.update(timestampNanos, frame.getUpperShooterPosition(), frame.getUpperShooterVelocity());
+			lowerEstimator.update(timestampNanos, frame.getLowerShooterPosition(), frame.getLowerShooterVelocity());
+		} else {
+			timestampNanos = System.nanoTime();
+			upperEstimator.update(timestampNanos, upperShooter.getCurrentPosition(), upperShooter.getVelocity());
+			lowerEstimator.update(timestampNanos, lowerShooter.getCurrentPosition(), lowerShooter.getVelocity());
+		}
+		lastSampleNanos = timestampNanos;
 
-		upperRPM = (upperVelocity / TICKS_PER_REVOLUTION) * 60.0;
-		lowerRPM = (lowerVelocity / TICKS_PER_REVOLUTION) * 60.0;
+		double rpmPerTickPerSecond = 60.0 / TICKS_PER_REVOLUTION;
+		upperRPM = upperEstimator.getVelocity() * rpmPerTickPerSecond;
+		lowerRPM = lowerEstimator.getVelocity() * rpmPerTickPerSecond;
+		upperRPMVariance = upperEstimator.getVariance() * rpmPerTickPerSecond * rpmPerTickPerSecond;
+		lowerRPMVariance = lowerEstimator.getVariance() * rpmPerTickPerSecond * rpmPerTickPerSecond;
 
 		averageRPM = (upperRPM + lowerRPM) / 2.0;
+
+		if (filterPrimed) {
+			filteredRPM += SETTLE_FILTER_ALPHA * (averageRPM - filteredRPM);
+		} else {
+			filteredRPM = averageRPM;
+			filterPrimed = true;
+		}
+
+		if (activeTargetRPM > 0 && Math.abs(filteredRPM - activeTargetRPM) <= RPM_TOLERANCE) {
+			if (inBandSinceNanos == 0) {
+				inBandSinceNanos = HardwareSnapshot.nowNanos();
+			}
+		} else {
+			inBandSinceNanos = 0;
+		}
+
+		LOG.set(0, activeTargetRPM)
+				.set(1, upperRPM)
+				.set(2, lowerRPM)
+				.set(3, filteredRPM)
+				.set(4, upperRPMVariance)
+				.set(5, lowerRPMVariance)
+				.set(6, batteryVoltage)
+				.set(7, isRecovering())
+				.set(8, getDipCount())
+				.commit(timestampNanos);
 	}
 
 	/**
-	 * Checks if the shooter's average RPM is within the tolerance band of a given target.
-	 * Use this method to determine if it's safe to feed a note for shooting.
+	 * Checks if the shooter has settled at a given target.
+	 * Use this method to determine if it's safe to feed a ball for shooting.
+	 * <p>
+	 * For the target of the running controller, the filtered RPM must have stayed within
+	 * RPM_TOLERANCE for SETTLE_TIME_MS. For any other target only the filtered RPM is checked.
+	 *
 	 * @param targetRPM The RPM you are aiming for.
-	 * @return true if the current averageRPM is within the tolerance, false otherwise.
+	 * @return true if the shooter is settled at the target, false otherwise.
 	 */
 	public boolean isAtTargetRPM(double targetRPM) {
-		return Math.abs(averageRPM - targetRPM) <= RPM_TOLERANCE;
+		if (Math.abs(filteredRPM - targetRPM) > RPM_TOLERANCE) {
+			return false;
+		}
+		if (targetRPM != activeTargetRPM) {
+			return true;
+		}
+		return inBandSinceNanos != 0 && HardwareSnapshot.nowNanos() - inBandSinceNanos >= SETTLE_TIME_MS * 1_000_000;
+	}
+
+	/**
+	 * @return true if either flywheel is in full-power recovery after a dip
+	 */
+	public boolean isRecovering() {
+		return upperController.isRecovering() || lowerController.isRecovering();
 	}
 
 	/**
-	 * Returns an Action that runs the shooter motors to maintain a target RPM using separate bang-bang controllers.
+	 * @return number of recoveries entered by the upper flywheel, which tracks shots fired
+	 */
+	public int getDipCount() {
+		return upperController.getDipCount();
+	}
+
+	/**
+	 * Predicts how long the flywheels need at full power to get back within RPM_TOLERANCE of a
+	 * target, e.g. after a shot. Uses the first-order model behind the feedforward: time constant
+	 * KA / KV, and a free speed of (batteryVoltage - KS) / KV.
+	 *
+	 * @param targetRPM the RPM to recover to
+	 * @return seconds from the latest averageRPM; 0 if already within tolerance, infinite if the
+	 * battery can't reach the target
+	 */
+	public double predictRecoverySeconds(double targetRPM) {
+		double thresholdRPM = targetRPM - RPM_TOLERANCE;
+		if (averageRPM >= thresholdRPM) return 0;
+		if (KV <= 0) return Double.POSITIVE_INFINITY;
+		double freeRPM = (batteryVoltage - KS) / KV;
+		if (freeRPM <= thresholdRPM) return Double.POSITIVE_INFINITY;
+		return KA / KV * Math.log((freeRPM - averageRPM) / (freeRPM - thresholdRPM));
+	}
+
+	private void updateBatteryVoltage() {
+		if (voltageSensor == null) return;
+		long now = HardwareSnapshot.nowNanos();
+		if (lastVoltageReadNanos == 0 || now - lastVoltageReadNanos >= VOLTAGE_READ_INTERVAL_MS * 1_000_000) {
+			double voltage = voltageSensor.getVoltage();
+			// A disconnected sensor reads 0; keep the previous value rather than dividing by it
+			if (voltage > 0) {
+				batteryVoltage = voltage;
+			}
+			lastVoltageReadNanos = now;
+		}
+	}
+
+	/**
+	 * @return an estimator set up from the current Dashboard values
+	 */
+	static SelectableVelocityEstimator createVelocityEstimator() {
+		return new SelectableVelocityEstimator(VELOCITY_ESTIMATOR, EMA_TIME_CONSTANT_SECONDS,
+				KALMAN_PROCESS_NOISE, KALMAN_POSITION_NOISE, KALMAN_VELOCITY_NOISE, FINITE_DIFFERENCE_WINDOW);
+	}
+
+	/**
+	 * Applies the current Dashboard values to an estimator. Doesn't allocate.
+	 */
+	static void configureVelocityEstimator(SelectableVelocityEstimator estimator) {
+		estimator.setMode(VELOCITY_ESTIMATOR);
+		estimator.getEma().setTimeConstant(EMA_TIME_CONSTANT_SECONDS);
+		estimator.getKalman().setNoise(KALMAN_PROCESS_NOISE, KALMAN_POSITION_NOISE, KALMAN_VELOCITY_NOISE);
+		estimator.getFiniteDifference().setWindowSize(FINITE_DIFFERENCE_WINDOW);
+	}
+
+	private void configureController(FlywheelController controller) {
+		controller.setGains(KS, KV, KA, KP, KI);
+		controller.setMaxIntegralVolts(MAX_INTEGRAL_VOLTS);
+		controller.setMaxAcceleration(MAX_ACCEL_RPM_PER_SECOND);
+		controller.setRecovery(RECOVERY_DIP_RPM, RECOVERY_EXIT_RPM);
+	}
+
+	/**
+	 * Returns an Action that runs one velocity-control step for each shooter motor.
 	 * Each motor is controlled independently based on its own RPM feedback.
-	 * This action must be run continuously and will maintain the target speed until cancelled.
+	 * The action finishes after one frame, so schedule it every loop while the shooter should spin.
 	 *
 	 * @param targetRPM The desired revolutions per minute for the shooter.
-	 * @return Action that runs the shooter with independent bang-bang controllers.
+	 * @return Action that runs the shooter flywheel controllers.
 	 */
 	public Action run(double targetRPM) {
 		return new Action() {
-			private boolean upperHighPowerActive = true; // Start by powering up to reach the target.
-			private boolean lowerHighPowerActive = true; // Start by powering up to reach the target.
-
 			@Override
 			public boolean run(@NonNull TelemetryPacket packet) {
 				// First, get the latest RPM reading. This is the "feedback" part of the loop.
 				updateRPM();
-
-				// --- Upper Motor Bang-Bang Controller Logic ---
-				// If RPM is too low, activate high power mode.
-				if (upperRPM < targetRPM - RPM_TOLERANCE) {
-					upperHighPowerActive = true;
-				}
-				// If RPM is too high, switch to low power (idle) mode.
-				else if (upperRPM > targetRPM + RPM_TOLERANCE) {
-					upperHighPowerActive = false;
-				}
-				// If inside the tolerance band, the state does not change.
-				// This prevents the motor from rapidly switching on/off (chattering).
-
-				// --- Lower Motor Bang-Bang Controller Logic ---
-				// If RPM is too low, activate high power mode.
-				if (lowerRPM < targetRPM - RPM_TOLERANCE) {
-					lowerHighPowerActive = true;
-				}
-				// If RPM is too high, switch to low power (idle) mode.
-				else if (lowerRPM > targetRPM + RPM_TOLERANCE) {
-					lowerHighPowerActive = false;
+				updateBatteryVoltage();
+				if (targetRPM != activeTargetRPM) {
+					activeTargetRPM = targetRPM;
+					inBandSinceNanos = 0;
 				}
-				// If inside the tolerance band, the state does not change.
 
-				// Set power for each motor based on its controller's state.
-				double upperPower = upperHighPowerActive ? BANG_BANG_HIGH_POWER : BANG_BANG_LOW_POWER;
-				double lowerPower = lowerHighPowerActive ? BANG_BANG_HIGH_POWER : BANG_BANG_LOW_POWER;
+				// Re-read the gains every loop so Dashboard edits apply immediately
+				configureController(upperController);
+				configureController(lowerController);
+				long now = HardwareSnapshot.nowNanos();
+				double upperPower = upperController.calculate(targetRPM, upperRPM, batteryVoltage, now);
+				double lowerPower = lowerController.calculate(targetRPM, lowerRPM, batteryVoltage, now);
 
-				upperShooter.setPower(upperPower + UPPER_OFFSET);
-				lowerShooter.setPower(lowerPower + LOWER_OFFSET);
+				upperOutput.set(upperPower + UPPER_OFFSET);
+				lowerOutput.set(lowerPower + LOWER_OFFSET);
+				CONTROL_LOG.set(0, targetRPM)
+						.set(1, batteryVoltage)
+						.set(2, upperPower + UPPER_OFFSET)
+						.set(3, lowerPower + LOWER_OFFSET)
+						.commit();
 
 				// Optional: Add telemetry for debugging via FTC Dashboard
 				packet.put("Shooter Target RPM", targetRPM);
+				packet.put("Shooter Reference RPM", upperController.getReferenceRPM());
 				packet.put("Shooter Upper RPM", upperRPM);
 				packet.put("Shooter Lower RPM", lowerRPM);
 				packet.put("Shooter Average RPM", averageRPM);
+				packet.put("Shooter Filtered RPM", filteredRPM);
+				packet.put("Shooter Upper RPM Std Dev", Math.sqrt(upperRPMVariance));
 				packet.put("Upper Motor Power", upperPower);
 				packet.put("Lower Motor Power", lowerPower);
+				packet.put("Shooter Battery Voltage", batteryVoltage);
+				packet.put("Shooter Recovering", isRecovering());
 				packet.put("Shooter At Target", isAtTargetRPM(targetRPM));
 
 				return false;
@@ -174,13 +432,11 @@ public class Shooter {
 
 	/**
 	 * Returns an InstantAction that immediately stops both shooter motors.
+	 * The same instance is returned on every call.
 	 *
 	 * @return Action that stops both shooter motors.
 	 */
 	public Action stop() {
-		return new InstantAction(() -> {
-			upperShooter.setPower(STOP_POWER);
-			lowerShooter.setPower(STOP_POWER);
-		});
+		return stopAction;
 	}
 }
@@ -13,7 +13,12 @@ import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.TouchSensor;
 
 import org.firstinspires.ftc.teamcode.Actions.IntakeBall;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.ActuatorOutputs;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLog;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.RobotStateStore;
 import org.firstinspires.ftc.teamcode.Utilities.BallColor;
+import org.firstinspires.ftc.teamcode.Utilities.MotionProfile;
 import org.firstinspires.ftc.teamcode.Utilities.PIDFController;
 
 @Config
@@ -26,27 +31,72 @@ public class Spindexer {
 	public static double zeroOffset = 0 * (8192.0 / 360.0);
 
 	// PID coefficients for position control. Tune these via the FTC Dashboard.
+	// The controller runs in timed mode: I is per tick*second and D is per tick/second.
 	public static double P = 0.01, I = 0, D = 0, F = 0;
+	// Derivative low-pass time constant, in seconds, and controller update rate (0 = every loop)
+	public static double D_FILTER_SECONDS = 0.02;
+	public static double CONTROL_RATE_HZ = 0;
+
+	// Motion profile limits. The PID tracks the profile setpoint instead of jumping to the target.
+	public static MotionProfile.Shape PROFILE_SHAPE = MotionProfile.Shape.S_CURVE;
+	public static double MAX_VELOCITY_DEG_PER_SEC = 280;
+	public static double MAX_ACCEL_DEG_PER_SEC2 = 3000;
+	public static double MAX_JERK_DEG_PER_SEC3 = 40000;
+
+	// Feedforward from the profile, in power per deg/s (KV), per deg/s^2 (KA), and static (KS).
+	// KV = 1 / free speed in deg/s; the spindexer's free speed is about 300 deg/s (50 RPM).
+	// KA = servo time constant (~0.05 s) * KV.
+	public static double KS = 0, KV = 1.0 / 300, KA = 0.05 / 300;
+
+	// Homing (home(), and zero() without a saved zero). Positive power turns towards increasing encoder ticks, the direction the
+	// switch is always approached from so the same edge is found every time.
+	public static double HOMING_FAST_POWER = 1.0;
+	public static double HOMING_SLOW_POWER = 0.15;
+	public static double HOMING_BACK_OFF_POWER = -0.5;
+	// How far to back off past the switch edge before the slow approach, in degrees
+	public static double HOMING_BACK_OFF_DEGREES = 6;
+	// The slow approach is skipped if the fast one already found the edge this closely, in degrees
+	public static double HOMING_ACCURACY_DEGREES = 0.5;
+	public static double HOMING_TIMEOUT_SECONDS = 4;
+	// A saved zero is reused if the encoder still reads within this of where it was saved, in ticks
+	public static double RESTORE_TOLERANCE_TICKS = 45;
+
+	// Longest loop gap the profile advances across in one step, in seconds
+	private static final double MAX_PROFILE_DT = 0.1;
 
 	private static Spindexer instance = null;
 
+	private static final DataLog.Record LOG = DataLog.register("spindexer",
+			"goalTicks", "setpointTicks", "positionTicks", "errorTicks", "setpointVelocityTicks", "power");
+	// One row whenever the zero is set; restored is true if it came from the saved zero
+	private static final DataLog.Record ZERO_LOG = DataLog.register("spindexerZero",
+			"zeroTicks", "restored");
+
 	private CRServo spindexer;
+	private ActuatorOutputs.Output spindexerOutput;
 	private DcMotorEx spindexerEncoder;
 	private TouchSensor spindexerZero;
 
 	private PIDFController controller;
+	private final MotionProfile profile = new MotionProfile(PROFILE_SHAPE, 0, 0, 0);
+	private boolean profileInitialized = false;
+	private long lastUpdateNanos = 0;
 	private double targetPosition = 0;
 	private boolean isZeroed = false;
 
 	// This boolean is used by the ZeroAction to prevent the update() method's PID
 	// from interfering with the direct power calls during the zeroing sequence.
-	private final boolean isZeroing = false;
+	private boolean isZeroing = false;
+
+	// Set while the operator drives the spindexer with setDirectPower(); update() leaves the power
+	// alone until the next setTargetAngle() or setTargetPosition()
+	private boolean isManual = false;
 
 	// Stores the encoder position when the magnetic limit switch triggers
-	private final double calibrationPosition = 0;
+	private double calibrationPosition = 0;
 
 	// Stores the true zero position, accounting for the sensor offset
-	private final double actualZeroPosition = 0;
+	private double actualZeroPosition = 0;
 
 	// Store detected ball colors for each slot (0, 1, 2)
 	private final BallColor[] ballColors = new BallColor[3];
@@ -62,6 +112,7 @@ public class Spindexer {
 		if (instance == null) {
 			instance = new Spindexer();
 			instance.spindexer = hardwareMap.get(CRServo.class, "spindexer");
+			instance.spindexerOutput = ActuatorOutputs.of(instance.spindexer);
 			instance.spindexerEncoder = hardwareMap.get(DcMotorEx.class, "rearRight"); // Encoder plugged into a motor port
 			instance.spindexerZero = hardwareMap.get(TouchSensor.class, "spindexerZero");
 
@@ -81,7 +132,22 @@ public class Spindexer {
 	}
 
 	public static void shutdown() {
-		// No cleanup needed currently
+		// No cleanup needed currently; RobotStateStore saves the zero
+	}
+
+	/**
+	 * @return the raw encoder position, from this loop's HardwareSnapshot frame when active
+	 */
+	public double getRawPositionTicks() {
+		return HardwareSnapshot.isActive()
+				? HardwareSnapshot.getInstance().getFrame().getSpindexerPosition()
+				: spindexerEncoder.getCurrentPosition();
+	}
+
+	private boolean isZeroSwitchPressed() {
+		return HardwareSnapshot.isActive()
+				? HardwareSnapshot.getInstance().getFrame().isSpindexerZeroPressed()
+				: spindexerZero.isPressed();
 	}
 
 	/**
@@ -89,7 +155,7 @@ public class Spindexer {
 	 * This accounts for both the sensor trigger point and the actual zero calibration.
 	 */
 	private double getAdjustedPosition() {
-		return spindexerEncoder.getCurrentPosition() - actualZeroPosition;
+		return getRawPositionTicks() - actualZeroPosition;
 	}
 
 	/**
@@ -97,25 +163,127 @@ public class Spindexer {
 	 * controller to run and for the spindexer to hold its position.
 	 */
 	public void update() {
-		if (!isZeroed || isZeroing) {
+		long now = HardwareSnapshot.nowNanos();
+		double dt = lastUpdateNanos == 0 ? 0 : Math.min((now - lastUpdateNanos) / 1e9, MAX_PROFILE_DT);
+		lastUpdateNanos = now;
+
+		if (!isZeroed || isZeroing || isManual || !profileInitialized) {
 			// Do not run PID controller if the spindexer is not zeroed or is currently zeroing.
 			return;
 		}
 
-		controller.setSetpoint(targetPosition);
+		profile.update(dt);
+		controller.setDerivativeFilter(D_FILTER_SECONDS);
+		controller.setFixedRate(CONTROL_RATE_HZ);
 		double currentPosition = getAdjustedPosition();
-		double power = controller.getOutput(currentPosition);
-		spindexer.setPower(power);
+		double power = controller.getOutputAt(currentPosition, profile.getPosition(), now);
+
+		// Feedforward from the profile, converted from ticks to degrees
+		double ticksPerDegree = TICKS_PER_REV / 360.0;
+		double velocity = profile.getVelocity() / ticksPerDegree;
+		double acceleration = profile.getAcceleration() / ticksPerDegree;
+		power += KS * Math.signum(velocity) + KV * velocity + KA * acceleration;
+		power = Math.max(-1.0, Math.min(1.0, power));
+		spindexerOutput.set(power);
+
+		LOG.set(0, targetPosition)
+				.set(1, profile.getPosition())
+				.set(2, currentPosition)
+				.set(3, profile.getPosition() - currentPosition)
+				.set(4, profile.getVelocity())
+				.set(5, power)
+				.commit();
 	}
 
+	/**
+	 * Starts a profiled move to an absolute encoder position.
+	 */
+	private void setGoalTicks(double ticks) {
+		isManual = false;
+		if (!profileInitialized) {
+			// Start the first move from wherever the spindexer is
+			profile.reset(getAdjustedPosition());
+			profileInitialized = true;
+		}
+		double ticksPerDegree = TICKS_PER_REV / 360.0;
+		profile.setConstraints(PROFILE_SHAPE, MAX_VELOCITY_DEG_PER_SEC * ticksPerDegree,
+				MAX_ACCEL_DEG_PER_SEC2 * ticksPerDegree, MAX_JERK_DEG_PER_SEC3 * ticksPerDegree);
+		profile.setGoal(ticks);
+		targetPosition = ticks;
+	}
+
+	/**
+	 * Returns an Action that zeroes the spindexer: it reuses the saved zero if the encoder still
+	 * agrees with it (see restoreZero()), and homes on the limit switch otherwise.
+	 *
+	 * @return Action that finishes once the spindexer is zeroed, or homing has timed out
+	 */
 	public Action zero() {
-		return new ZeroAction();
+		return new ZeroAction(false);
+	}
+
+	/**
+	 * Returns an Action that homes on the limit switch, even if a saved zero could be reused.
+	 * Fast approach, back off, slow approach; the slow approach is skipped if the fast one
+	 * already found the switch edge within HOMING_ACCURACY_DEGREES.
+	 *
+	 * @return Action that finishes once the spindexer is zeroed, or homing has timed out
+	 */
+	public Action home() {
+		return new ZeroAction(true);
+	}
+
+	/**
+	 * Reuses the zero saved in RobotStateStore by the last OpMode, if the encoder still reads
+	 * within RESTORE_TOLERANCE_TICKS of where it was saved. A hub power cycle resets the encoder,
+	 * so it then has to be homed again.
+	 *
+	 * @return true if the spindexer is zeroed
+	 */
+	public boolean restoreZero() {
+		if (isZeroed) return true;
+		RobotStateStore.State state = RobotStateStore.load();
+		if (state == null || !state.spindexerZeroed) return false;
+		if (Math.abs(getRawPositionTicks() - state.spindexerEncoderTicks) > RESTORE_TOLERANCE_TICKS) return false;
+		setZero(state.spindexerZeroTicks, true);
+		return true;
+	}
+
+	/**
+	 * Marks the spindexer zeroed with a known zero, e.g. one recorded in a DataLog, and holds the
+	 * current position.
+	 *
+	 * @param zeroTicks raw encoder position of the zero
+	 */
+	public void setZeroPosition(double zeroTicks) {
+		setZero(zeroTicks, false);
+	}
+
+	public boolean isZeroed() {
+		return isZeroed;
+	}
+
+	/**
+	 * @return the raw encoder position of the zero, in ticks
+	 */
+	public double getZeroPositionTicks() {
+		return actualZeroPosition;
+	}
+
+	private void setZero(double zeroTicks, boolean restored) {
+		actualZeroPosition = zeroTicks;
+		isZeroed = true;
+		isZeroing = false;
+		// Start the profile over from where the spindexer is, and hold there
+		profileInitialized = false;
+		setGoalTicks(getAdjustedPosition());
+		ZERO_LOG.set(0, zeroTicks).set(1, restored).commit();
 	}
 
 	private Action setTargetRevolutions(double revolutions) {
 		return new InstantAction(() -> {
 			if (isZeroed) {
-				targetPosition = revolutions * TICKS_PER_REV;
+				setGoalTicks(revolutions * TICKS_PER_REV);
 			}
 		});
 	}
@@ -123,11 +291,10 @@ public class Spindexer {
 	public Action toPosition(double revolutions) {
 		return packet -> {
 			// If not zeroed, keep running (return true) to wait until zeroed
-			isZeroed = true;
 			if (!isZeroed) return true;
 
 			// Set the target for the PID controller running in the background
-			targetPosition = revolutions * TICKS_PER_REV;
+			setGoalTicks(revolutions * TICKS_PER_REV);
 
 			// This action is considered "done" when the error is small.
 			// This allows it to be a "blocking" call in a sequence.
@@ -159,12 +326,65 @@ public class Spindexer {
 		return getAdjustedPosition();
 	}
 
+	/**
+	 * Starts a profiled move to an absolute position, counting whole revolutions.
+	 */
 	public void setTargetPosition(double revolutions) {
 		if (isZeroed) {
-			targetPosition = revolutions * TICKS_PER_REV;
+			setGoalTicks(revolutions * TICKS_PER_REV);
+		}
+	}
+
+	/**
+	 * Starts a profiled move to an angle, taking the shortest way around. Calling it again with the
+	 * same angle keeps the current move.
+	 *
+	 * @param revolutions target angle as a fraction of a revolution (e.g. 120 degrees = 1/3)
+	 */
+	public void setTargetAngle(double revolutions) {
+		if (!isZeroed) return;
+		double angleTicks = revolutions * TICKS_PER_REV;
+		if (profileInitialized && Math.abs(Math.IEEEremainder(targetPosition - angleTicks, TICKS_PER_REV)) < 1e-6) {
+			return; // Already heading to this angle
+		}
+		// The equivalent of the angle closest to where the spindexer is now
+		double turns = Math.round((getAdjustedPosition() - angleTicks) / TICKS_PER_REV);
+		setGoalTicks(angleTicks + turns * TICKS_PER_REV);
+	}
+
+	/**
+	 * @return the position of the current move's goal, in ticks
+	 */
+	public double getTargetPositionTicks() {
+		return targetPosition;
+	}
+
+	/**
+	 * @return true if the profile has finished and the spindexer is within tolerance of the goal
+	 */
+	public boolean isAtTarget(double toleranceTicks) {
+		return profile.isFinished() && Math.abs(targetPosition - getAdjustedPosition()) < toleranceTicks;
+	}
+
+	/**
+	 * Switches manual control on or off. In manual mode update() skips the PID, so powers set with
+	 * setDirectPower() stay in effect. The next setTargetAngle() or setTargetPosition() leaves
+	 * manual mode and starts its move from wherever the spindexer is then.
+	 */
+	public void setManual(boolean manual) {
+		isManual = manual;
+		if (manual) {
+			profileInitialized = false;
 		}
 	}
 
+	/**
+	 * @return true if update() is leaving the power to setDirectPower()
+	 */
+	public boolean isManual() {
+		return isManual;
+	}
+
 	/**
 	 * Force set the spindexer power to a value between -1 and 1.
 	 * Clamps the power to the valid range.
@@ -173,43 +393,122 @@ public class Spindexer {
 		return new InstantAction(() -> {
 			// Clamp power between -1 and 1
 			double clampedPower = Math.max(-1.0, Math.min(1.0, power));
-			spindexer.setPower(clampedPower);
+			spindexerOutput.set(clampedPower);
 		});
 	}
 
+	private enum ZeroState {
+		START,
+		MOVE_OFF_SENSOR,
+		FAST_TOWARDS_SENSOR,
+		BACK_OFF,
+		SLOW_TOWARDS_SENSOR,
+		DONE
+	}
+
 	private class ZeroAction implements Action {
-//		private long startTime = System.currentTimeMillis();
+		private final boolean forceHoming;
+		private ZeroState currentState = ZeroState.START;
+		private long startNanos;
+		private double backOffPosition;
+		// Encoder position in the previous loop, to place the switch edge between two readings
+		private double previousPosition;
+
+		ZeroAction(boolean forceHoming) {
+			this.forceHoming = forceHoming;
+		}
 
 		@Override
 		public boolean run(@NonNull TelemetryPacket packet) {
-//			double currentEncoderPos = spindexerEncoder.getCurrentPosition();
-//			boolean sensorPressed = spindexerZero.isPressed();
-//			long elapsedTime = System.currentTimeMillis() - startTime;
-//
-//			packet.put("ZEROING: Encoder Position", currentEncoderPos);
-//			packet.put("ZEROING: Sensor Pressed", sensorPressed);
-//			packet.put("ZEROING: Elapsed time (ms)", elapsedTime);
-//
-//			isZeroing = true;
-//			spindexer.setPower(0.1);
-//
-//			if (sensorPressed) {
-//				spindexer.setPower(0);
-//				// Record the encoder position when the sensor triggers
-//				calibrationPosition = spindexerEncoder.getCurrentPosition();
-//				// Calculate true zero position accounting for the sensor offset
-//				actualZeroPosition = calibrationPosition + zeroOffset;
-//				targetPosition = 0;
-//				packet.put("ZEROING: COMPLETE - Calibration position", calibrationPosition);
-//				packet.put("ZEROING: COMPLETE - Actual zero position", actualZeroPosition);
-//				packet.put("ZEROING: COMPLETE - Zero offset applied", zeroOffset);
-//				isZeroed = true;
-//				isZeroing = false;
-//				return true; // Action is complete
-//			}
-//
-//			return false; // Action is still running
+			packet.put("Zeroing State", currentState.toString());
+			double position = getRawPositionTicks();
+			boolean pressed = isZeroSwitchPressed();
+			double ticksPerDegree = TICKS_PER_REV / 360.0;
+
+			if (currentState != ZeroState.START && currentState != ZeroState.DONE
+					&& HardwareSnapshot.nowNanos() - startNanos >= HOMING_TIMEOUT_SECONDS * 1e9) {
+				// The switch was never found; leave the spindexer unzeroed rather than guess
+				spindexerOutput.set(0);
+				isZeroing = false;
+				packet.put("ZEROING: FAILED - timed out in", currentState.toString());
+				currentState = ZeroState.DONE;
+				return false;
+			}
+
+			switch (currentState) {
+				case START:
+					if (!forceHoming && restoreZero()) {
+						packet.put("ZEROING: COMPLETE - Restored zero", actualZeroPosition);
+						currentState = ZeroState.DONE;
+						return false;
+					}
+					isZeroing = true;
+					isZeroed = false;
+					startNanos = HardwareSnapshot.nowNanos();
+					if (pressed) {
+						spindexerOutput.set(HOMING_BACK_OFF_POWER);
+						currentState = ZeroState.MOVE_OFF_SENSOR;
+					} else {
+						spindexerOutput.set(HOMING_FAST_POWER);
+						currentState = ZeroState.FAST_TOWARDS_SENSOR;
+					}
+					break;
+
+				case MOVE_OFF_SENSOR:
+					if (!pressed) {
+						backOffPosition = position - HOMING_BACK_OFF_DEGREES * ticksPerDegree;
+						currentState = ZeroState.BACK_OFF;
+					}
+					break;
+
+				case FAST_TOWARDS_SENSOR:
+					if (pressed) {
+						double edge = (previousPosition + position) / 2;
+						if (Math.abs(position - previousPosition) <= HOMING_ACCURACY_DEGREES * ticksPerDegree) {
+							// Moved little enough in one loop that the edge is already pinned down
+							finish(edge, packet);
+							return false;
+						}
+						backOffPosition = edge - HOMING_BACK_OFF_DEGREES * ticksPerDegree;
+						spindexerOutput.set(HOMING_BACK_OFF_POWER);
+						currentState = ZeroState.BACK_OFF;
+					}
+					break;
+
+				case BACK_OFF:
+					if (position <= backOffPosition) {
+						spindexerOutput.set(HOMING_SLOW_POWER);
+						currentState = ZeroState.SLOW_TOWARDS_SENSOR;
+					}
+					break;
+
+				case SLOW_TOWARDS_SENSOR:
+					if (pressed) {
+						finish((previousPosition + position) / 2, packet);
+						return false;
+					}
+					break;
+
+				case DONE:
+					return false;
+			}
+			previousPosition = position;
 			return true;
 		}
+
+		private void finish(double edge, TelemetryPacket packet) {
+			spindexerOutput.set(0);
+			// Record the encoder position when the sensor triggers
+			calibrationPosition = edge;
+			// Calculate true zero position accounting for the sensor offset
+			setZero(calibrationPosition + zeroOffset, false);
+			// Saved now as well as at shutdown, in case the OpMode doesn't end cleanly
+			RobotStateStore.save();
+			packet.put("ZEROING: COMPLETE - Calibration position", calibrationPosition);
+			packet.put("ZEROING: COMPLETE - Actual zero position", actualZeroPosition);
+			packet.put("ZEROING: COMPLETE - Zero offset applied", zeroOffset);
+			packet.put("ZEROING: COMPLETE - Time (ms)", (HardwareSnapshot.nowNanos() - startNanos) / 1e6);
+			currentState = ZeroState.DONE;
+		}
 	}
 }
@@ -7,13 +7,24 @@ import com.acmerobotics.roadrunner.Action;
 import com.qualcomm.robotcore.hardware.DcMotorEx;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.ActuatorOutputs;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.Utilities.SelectableVelocityEstimator;
+
 public class StupidShooter {
 	public static double TICKS_PER_REV = 28;
 	public double averageRPM = 0;
 	DcMotorEx upperShooter;
 	DcMotorEx lowerShooter;
+	// Shared with Shooter's Outputs, since both drive the same motors
+	ActuatorOutputs.Output upperOutput;
+	ActuatorOutputs.Output lowerOutput;
 	double upperRPM;
 	double lowerRPM;
+	// Same estimator settings as Shooter, so both read the flywheels the same way
+	private final SelectableVelocityEstimator upperEstimator = Shooter.createVelocityEstimator();
+	private final SelectableVelocityEstimator lowerEstimator = Shooter.createVelocityEstimator();
+	private long lastSampleNanos = 0;
 	double needForSpeed = 2400;
 
 	// --- Motor Power Constants ---
@@ -55,14 +66,30 @@ public class StupidShooter {
 	public StupidShooter(HardwareMap hardwareMap) {
 		upperShooter = hardwareMap.get(DcMotorEx.class, "upperShooter");
 		lowerShooter = hardwareMap.get(DcMotorEx.class, "lowerShooter");
+		upperOutput = ActuatorOutputs.of(upperShooter);
+		lowerOutput = ActuatorOutputs.of(lowerShooter);
 	}
 
 	public void updateRPM() {
-		double upperVelocity = upperShooter.getVelocity();
-		double lowerVelocity = lowerShooter.getVelocity();
+		Shooter.configureVelocityEstimator(upperEstimator);
+		Shooter.configureVelocityEstimator(lowerEstimator);
+		long timestampNanos;
+		if (HardwareSnapshot.isActive()) {
+			HardwareSnapshot.Frame frame = HardwareSnapshot.getInstance().getFrame();
+			// Actions call this several times per loop; feed each sample to the estimators once
+			if (frame.getTimestampNanos() == lastSampleNanos) return;
+			timestampNanos = frame.getTimestampNanos();
+			upperEstimator.update(timestampNanos, frame.getUpperShooterPosition(), frame.getUpperShooterVelocity());
+			lowerEstimator.update(timestampNanos, frame.getLowerShooterPosition(), frame.getLowerShooterVelocity());
+		} else {
+			timestampNanos = System.nanoTime();
+			upperEstimator.update(timestampNanos, upperShooter.getCurrentPosition(), upperShooter.getVelocity());
+			lowerEstimator.update(timestampNanos, lowerShooter.getCurrentPosition(), lowerShooter.getVelocity());
+		}
+		lastSampleNanos = timestampNanos;
 
-		upperRPM = (upperVelocity / TICKS_PER_REV) * 60;
-		lowerRPM = (lowerVelocity / TICKS_PER_REV) * 60;
+		upperRPM = (upperEstimator.getVelocity() / TICKS_PER_REV) * 60;
+		lowerRPM = (lowerEstimator.getVelocity() / TICKS_PER_REV) * 60;
 
 		averageRPM = (upperRPM + lowerRPM) / 2;
 	}
@@ -119,8 +146,8 @@ public class StupidShooter {
 			double upperPower = upperHighPowerActive ? BANG_BANG_HIGH_POWER : BANG_BANG_LOW_POWER;
 			double lowerPower = lowerHighPowerActive ? BANG_BANG_HIGH_POWER : BANG_BANG_LOW_POWER;
 
-			upperShooter.setPower(upperPower + UPPER_OFFSET);
-			lowerShooter.setPower(lowerPower + LOWER_OFFSET);
+			upperOutput.set(upperPower + UPPER_OFFSET);
+			lowerOutput.set(lowerPower + LOWER_OFFSET);
 
 			return averageRPM < needForSpeed;
 		}
@@ -137,8 +164,8 @@ public class StupidShooter {
 	public class Stop implements Action {
 		@Override
 		public boolean run(@NonNull TelemetryPacket telemetryPacket) {
-			upperShooter.setPower(0);
-			lowerShooter.setPower(0);
+			upperOutput.set(0);
+			lowerOutput.set(0);
 			return false;
 		}
 	}
@@ -7,6 +7,8 @@ import com.acmerobotics.roadrunner.Action;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 import com.qualcomm.robotcore.hardware.TouchSensor;
 
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+
 /**
  * Singleton subsystem that manages dual touch sensors for contact detection.
  * <p>
@@ -65,8 +67,14 @@ public class TouchDetector {
 	 * Updates the public touchLeft, touchRight, and detected fields.
 	 */
 	private void updateValues() {
-		touchLeft = sensorLeft.isPressed();
-		touchRight = sensorRight.isPressed();
+		if (HardwareSnapshot.isActive()) {
+			HardwareSnapshot.Frame frame = HardwareSnapshot.getInstance().getFrame();
+			touchLeft = frame.isTouchLeftPressed();
+			touchRight = frame.isTouchRightPressed();
+		} else {
+			touchLeft = sensorLeft.isPressed();
+			touchRight = sensorRight.isPressed();
+		}
 		detected = touchLeft || touchRight; // True if either sensor is pressed
 	}
 
@@ -7,6 +7,8 @@ import com.qualcomm.robotcore.hardware.CRServo;
 import com.qualcomm.robotcore.hardware.DcMotorSimple;
 import com.qualcomm.robotcore.hardware.HardwareMap;
 
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.ActuatorOutputs;
+
 @Config
 public class Transfer {
 	// Servo power constants
@@ -18,6 +20,18 @@ public class Transfer {
 	private CRServo transferRight;
 	private CRServo intakeDoorLeft;
 	private CRServo intakeDoorRight;
+	private ActuatorOutputs.Output transferLeftOutput;
+	private ActuatorOutputs.Output transferRightOutput;
+	private ActuatorOutputs.Output intakeDoorLeftOutput;
+	private ActuatorOutputs.Output intakeDoorRightOutput;
+
+	// Cached actions; they read the power constants when run, so they can be reused freely
+	private final Action transferForwardAction = new InstantAction(() -> setTransferPower(FORWARD_POWER));
+	private final Action transferBackwardAction = new InstantAction(() -> setTransferPower(BACKWARD_POWER));
+	private final Action transferStopAction = new InstantAction(() -> setTransferPower(STOP_POWER));
+	private final Action intakeDoorForwardAction = new InstantAction(() -> setIntakeDoorPower(FORWARD_POWER));
+	private final Action intakeDoorBackwardAction = new InstantAction(() -> setIntakeDoorPower(BACKWARD_POWER));
+	private final Action intakeDoorStopAction = new InstantAction(() -> setIntakeDoorPower(STOP_POWER));
 
 	private Transfer() {
 	}
@@ -30,9 +44,15 @@ public class Transfer {
 			instance.intakeDoorLeft = hardwareMap.get(CRServo.class, "intakeDoorLeft");
 			instance.intakeDoorRight = hardwareMap.get(CRServo.class, "intakeDoorRight");
 
-			instance.setTransferDirections();
-			instance.setIntakeDoorDirections();
+			instance.transferLeftOutput = ActuatorOutputs.of(instance.transferLeft);
+			instance.transferRightOutput = ActuatorOutputs.of(instance.transferRight);
+			instance.intakeDoorLeftOutput = ActuatorOutputs.of(instance.intakeDoorLeft);
+			instance.intakeDoorRightOutput = ActuatorOutputs.of(instance.intakeDoorRight);
 		}
+		// The SDK resets every CRServo to FORWARD when an OpMode starts, so set the directions
+		// again for each OpMode, not only when the singleton is created
+		instance.setTransferDirections();
+		instance.setIntakeDoorDirections();
 	}
 
 	public static Transfer getInstance() {
@@ -62,43 +82,34 @@ public class Transfer {
 	/**
 	 * Returns an InstantAction that moves the transfer servos forward.
 	 * This action completes immediately after setting servo power.
+	 * The same instance is returned on every call.
 	 *
 	 * @return Action that starts transfer servos forward
 	 */
 	public Action transferForward() {
-		return new InstantAction(() -> {
-			setTransferDirections();
-			transferLeft.setPower(FORWARD_POWER);
-			transferRight.setPower(FORWARD_POWER);
-		});
+		return transferForwardAction;
 	}
 
 	/**
 	 * Returns an InstantAction that moves the transfer servos backward.
 	 * This action completes immediately after setting servo power.
+	 * The same instance is returned on every call.
 	 *
 	 * @return Action that starts transfer servos backward
 	 */
 	public Action transferBackward() {
-		return new InstantAction(() -> {
-			setTransferDirections();
-			transferLeft.setPower(BACKWARD_POWER);
-			transferRight.setPower(BACKWARD_POWER);
-		});
+		return transferBackwardAction;
 	}
 
 	/**
 	 * Returns an InstantAction that stops the transfer servos.
 	 * This action completes immediately after setting power to zero.
+	 * The same instance is returned on every call.
 	 *
 	 * @return Action that stops transfer servos
 	 */
 	public Action transferStop() {
-		return new InstantAction(() -> {
-			setTransferDirections();
-			transferLeft.setPower(STOP_POWER);
-			transferRight.setPower(STOP_POWER);
-		});
+		return transferStopAction;
 	}
 
 	// Actions for intake door servos
@@ -106,55 +117,55 @@ public class Transfer {
 	/**
 	 * Returns an InstantAction that moves the intake door servos forward (opens).
 	 * This action completes immediately after setting servo power.
+	 * The same instance is returned on every call.
 	 *
 	 * @return Action that opens intake door
 	 */
 	public Action intakeDoorForward() {
-		return new InstantAction(() -> {
-			setIntakeDoorDirections();
-			intakeDoorLeft.setPower(FORWARD_POWER);
-			intakeDoorRight.setPower(FORWARD_POWER);
-		});
+		return intakeDoorForwardAction;
 	}
 
 	/**
 	 * Returns an InstantAction that moves the intake door servos backward (closes).
 	 * This action completes immediately after setting servo power.
+	 * The same instance is returned on every call.
 	 *
 	 * @return Action that closes intake door
 	 */
 	public Action intakeDoorBackward() {
-		return new InstantAction(() -> {
-			setIntakeDoorDirections();
-			intakeDoorLeft.setPower(BACKWARD_POWER);
-			intakeDoorRight.setPower(BACKWARD_POWER);
-		});
+		return intakeDoorBackwardAction;
 	}
 
 	/**
 	 * Returns an InstantAction that stops the intake door servos.
 	 * This action completes immediately after setting power to zero.
+	 * The same instance is returned on every call.
 	 *
 	 * @return Action that stops intake door
 	 */
 	public Action intakeDoorStop() {
-		return new InstantAction(() -> {
-			setIntakeDoorDirections();
-			intakeDoorLeft.setPower(STOP_POWER);
-			intakeDoorRight.setPower(STOP_POWER);
-		});
+		return intakeDoorStopAction;
 	}
 
 	// Direct servo control methods for continuous operation
 
+	/**
+	 * Directly sets the transfer servo power (for continuous control).
+	 *
+	 * @param power The power to set (-1.0 to 1.0)
+	 */
+	public void setTransferPower(double power) {
+		transferLeftOutput.set(power);
+		transferRightOutput.set(power);
+	}
+
 	/**
 	 * Directly sets the intake door servo power (for continuous control).
 	 *
 	 * @param power The power to set (-1.0 to 1.0)
 	 */
 	public void setIntakeDoorPower(double power) {
-		setIntakeDoorDirections();
-		intakeDoorLeft.setPower(power);
-		intakeDoorRight.setPower(power);
+		intakeDoorLeftOutput.set(power);
+		intakeDoorRightOutput.set(power);
 	}
 }
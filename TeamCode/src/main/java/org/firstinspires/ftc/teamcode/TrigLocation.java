@@ -26,7 +26,7 @@ public class TrigLocation {
 	}
 
 	public double TurnToRed() {
-		currentPos = localizer.getPose();
+		currentPos = currentPose();
 		double diffX = redGoal.x - currentPos.position.x;
 		double diffY = redGoal.y - currentPos.position.y;
 
@@ -38,6 +38,11 @@ public class TrigLocation {
 		return normalizeAngle(redAjecentAngle);
 	}
 
+	// Aim from where the robot will be when the command takes effect, if the drive can predict it
+	private Pose2d currentPose() {
+		return drive != null ? drive.getPredictedPose() : localizer.getPose();
+	}
+
 	public double normalizeAngle(double angle) {
 		while (angle > Math.PI) angle -= 2 * Math.PI;
 		while (angle < -Math.PI) angle += 2 * Math.PI;
@@ -45,7 +50,7 @@ public class TrigLocation {
 	}
 
 	public double TurnToBlue() {
-		currentPos = localizer.getPose();
+		currentPos = currentPose();
 		double diffX = bluGoal.x - currentPos.position.x;
 		double diffY = bluGoal.y - currentPos.position.y;
 
@@ -1,24 +1,76 @@
 package org.firstinspires.ftc.teamcode.Utilities;
 
+import android.os.Debug;
+
 import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
 import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
 import com.acmerobotics.roadrunner.Action;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * ActionScheduler is a singleton utility that manages the scheduling and execution of Actions.
  * It allows actions to be queued and executed in the teleop loop without blocking.
+ * <p>
+ * Running actions are stored in two preallocated arrays that are swapped on every update
+ * instead of building a new list each loop. In zero-allocation mode the scheduler also reuses
+ * a small pool of TelemetryPackets and only hands one to the dashboard every
+ * PACKET_INTERVAL_MS, so the scheduler itself allocates nothing in steady state.
+ * <p>
+ * That covers the scheduler, not the loop around it. Actions still box the numbers they put in
+ * the packet, and sent packets and Driver Station telemetry are serialized on the loop thread,
+ * so the loop allocation count only reads zero on loops that put no boxed values and send
+ * nothing. "Scheduler Own Allocations" is the scheduler's share alone.
  */
+@Config
 public class ActionScheduler {
+	/**
+	 * Starting capacity of each action buffer. Buffers only grow if more actions are running at once.
+	 */
+	public static int INITIAL_CAPACITY = 32;
+	/**
+	 * Minimum time between dashboard packets in zero-allocation mode. Should be at least the
+	 * dashboard transmission interval (100 ms by default) so a pooled packet is never reused
+	 * before it has been sent.
+	 */
+	public static double PACKET_INTERVAL_MS = 100;
+	/**
+	 * When true, the per-loop thread allocation count is measured and reported to the dashboard.
+	 * The count is for the whole thread, so it includes everything else the OpMode allocates
+	 * in that loop, e.g. telemetry.
+	 */
+	public static boolean TRACK_ALLOCATIONS = false;
+
+	private static final int PACKET_POOL_SIZE = 3;
+
 	private static ActionScheduler instance;
 	private final FtcDashboard dashboard;
-	private List<Action> runningActions;
+
+	// Double-buffered action storage: update() copies still-running actions from
+	// runningActions into nextActions, then swaps the two arrays.
+	private Action[] runningActions;
+	private Action[] nextActions;
+	private int runningCount = 0;
+	private int nextCount = 0;
+	private boolean updating = false;
+
+	// Zero-allocation mode state
+	private boolean zeroAllocationMode = false;
+	private final TelemetryPacket[] packetPool = new TelemetryPacket[PACKET_POOL_SIZE];
+	private int packetIndex = 0;
+	private long lastPacketSentNanos = 0;
+
+	// Allocation accounting
+	private int schedulerAllocations = 0;
+	private int lastSchedulerAllocations = 0;
+	private boolean allocCountingStarted = false;
+	private long lastThreadAllocCount = -1;
+	private long loopAllocationCount = 0;
 
 	private ActionScheduler() {
 		this.dashboard = FtcDashboard.getInstance();
-		this.runningActions = new ArrayList<>();
+		int capacity = Math.max(1, INITIAL_CAPACITY);
+		this.runningActions = new Action[capacity];
+		this.nextActions = new Action[capacity];
 	}
 
 	/**
@@ -33,13 +85,42 @@ public class ActionScheduler {
 		return instance;
 	}
 
+	/**
+	 * Enables or disables zero-allocation mode. When enabled, update() reuses pooled telemetry
+	 * packets and throttles dashboard sends to PACKET_INTERVAL_MS instead of sending a new
+	 * packet every loop.
+	 *
+	 * @param enabled true to enable zero-allocation mode
+	 */
+	public void setZeroAllocationMode(boolean enabled) {
+		if (enabled && packetPool[0] == null) {
+			for (int i = 0; i < PACKET_POOL_SIZE; i++) {
+				packetPool[i] = new TelemetryPacket();
+			}
+			schedulerAllocations += PACKET_POOL_SIZE;
+		}
+		zeroAllocationMode = enabled;
+	}
+
+	/**
+	 * @return true if the scheduler is running in zero-allocation mode
+	 */
+	public boolean isZeroAllocationMode() {
+		return zeroAllocationMode;
+	}
+
 	/**
 	 * Schedule an action to be executed.
+	 * Actions scheduled from inside another action's run() start on the next update.
 	 *
 	 * @param action the action to schedule
 	 */
 	public void schedule(Action action) {
-		runningActions.add(action);
+		if (updating) {
+			appendNext(action);
+		} else {
+			appendRunning(action);
+		}
 	}
 
 	/**
@@ -47,18 +128,37 @@ public class ActionScheduler {
 	 * Calls run() on each active action and removes actions that are complete.
 	 */
 	public void update() {
-		TelemetryPacket packet = new TelemetryPacket();
-		List<Action> newActions = new ArrayList<>();
+		if (zeroAllocationMode) {
+			TelemetryPacket packet = packetPool[packetIndex];
+			update(packet);
 
-		for (Action action : runningActions) {
-			action.preview(packet.fieldOverlay());
-			if (action.run(packet)) {
-				newActions.add(action);
+			long now = System.nanoTime();
+			if (now - lastPacketSentNanos >= PACKET_INTERVAL_MS * 1_000_000) {
+				if (TRACK_ALLOCATIONS) {
+					packet.put("Scheduler Loop Allocations", loopAllocationCount);
+					packet.put("Scheduler Own Allocations", lastSchedulerAllocations);
+				}
+				sendTelemetry(packet);
+				lastPacketSentNanos = now;
+
+				// Move on to the oldest pooled packet; by now the dashboard has transmitted it
+				packetIndex = (packetIndex + 1) % PACKET_POOL_SIZE;
+				TelemetryPacket next = packetPool[packetIndex];
+				next.clearLines();
+				next.fieldOverlay().clear();
+			} else {
+				// Not sending this loop, so drop the drawing operations to keep the overlay bounded
+				packet.fieldOverlay().clear();
 			}
+			return;
 		}
 
-		runningActions = newActions;
-		dashboard.sendTelemetryPacket(packet);
+		TelemetryPacket packet = new TelemetryPacket();
+		update(packet);
+		if (TRACK_ALLOCATIONS) {
+			packet.put("Scheduler Loop Allocations", loopAllocationCount);
+		}
+		sendTelemetry(packet);
 	}
 
 	/**
@@ -68,16 +168,27 @@ public class ActionScheduler {
 	 * @param packet the telemetry packet to use
 	 */
 	public void update(TelemetryPacket packet) {
-		List<Action> newActions = new ArrayList<>();
+		sampleLoopAllocations();
+		lastSchedulerAllocations = schedulerAllocations;
+		schedulerAllocations = 0;
 
-		for (Action action : runningActions) {
+		updating = true;
+		for (int i = 0; i < runningCount; i++) {
+			Action action = runningActions[i];
+			runningActions[i] = null;
 			action.preview(packet.fieldOverlay());
 			if (action.run(packet)) {
-				newActions.add(action);
+				appendNext(action);
 			}
 		}
+		updating = false;
 
-		runningActions = newActions;
+		// Swap buffers; actions scheduled during this update are already in nextActions
+		Action[] swap = runningActions;
+		runningActions = nextActions;
+		runningCount = nextCount;
+		nextActions = swap;
+		nextCount = 0;
 	}
 
 	/**
@@ -86,7 +197,9 @@ public class ActionScheduler {
 	 * @param packet the packet to send
 	 */
 	public void sendTelemetry(TelemetryPacket packet) {
-		dashboard.sendTelemetryPacket(packet);
+		if (dashboard != null) {
+			dashboard.sendTelemetryPacket(packet);
+		}
 	}
 
 	/**
@@ -95,14 +208,17 @@ public class ActionScheduler {
 	 * @return the count of running actions
 	 */
 	public int getRunningActionCount() {
-		return runningActions.size();
+		return runningCount;
 	}
 
 	/**
 	 * Clear all running actions.
 	 */
 	public void clearActions() {
-		runningActions.clear();
+		for (int i = 0; i < runningCount; i++) {
+			runningActions[i] = null;
+		}
+		runningCount = 0;
 	}
 
 	/**
@@ -111,6 +227,62 @@ public class ActionScheduler {
 	 * @return false if there are running actions, true otherwise
 	 */
 	public boolean isSchedulerEmpty() {
-		return runningActions.isEmpty();
+		return runningCount == 0;
+	}
+
+	/**
+	 * Number of objects allocated on the calling thread between the previous two updates,
+	 * i.e. over one full loop. Only measured while TRACK_ALLOCATIONS is enabled.
+	 *
+	 * @return objects allocated during the last loop, or 0 if tracking is disabled
+	 */
+	public long getLoopAllocationCount() {
+		return loopAllocationCount;
+	}
+
+	/**
+	 * Number of objects the scheduler itself allocated during the previous loop
+	 * (buffer growth and packet pool creation). Zero in steady state.
+	 *
+	 * @return scheduler allocations during the last loop
+	 */
+	public int getSchedulerAllocationCount() {
+		return lastSchedulerAllocations;
+	}
+
+	private void sampleLoopAllocations() {
+		if (!TRACK_ALLOCATIONS) {
+			lastThreadAllocCount = -1;
+			loopAllocationCount = 0;
+			return;
+		}
+		if (!allocCountingStarted) {
+			Debug.startAllocCounting();
+			allocCountingStarted = true;
+		}
+		long count = Debug.getThreadAllocCount();
+		loopAllocationCount = lastThreadAllocCount < 0 ? 0 : count - lastThreadAllocCount;
+		lastThreadAllocCount = count;
+	}
+
+	private void appendRunning(Action action) {
+		if (runningCount == runningActions.length) {
+			runningActions = grow(runningActions);
+		}
+		runningActions[runningCount++] = action;
+	}
+
+	private void appendNext(Action action) {
+		if (nextCount == nextActions.length) {
+			nextActions = grow(nextActions);
+		}
+		nextActions[nextCount++] = action;
+	}
+
+	private Action[] grow(Action[] buffer) {
+		Action[] grown = new Action[buffer.length * 2];
+		System.arraycopy(buffer, 0, grown, 0, buffer.length);
+		schedulerAllocations++;
+		return grown;
 	}
 }
@@ -0,0 +1,58 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+/**
+ * RGB-to-HSV conversion and hue-range classification for ColorDetector.
+ * <p>
+ * rgbToHsv() is a port of Skia's SkRGBToHSV, which android.graphics.Color.RGBToHSV calls, so it
+ * gives the same results without Android. The benchmarks and simulation run this code as is.
+ */
+public final class ColorClassifier {
+	private ColorClassifier() {
+	}
+
+	/**
+	 * Converts an RGB reading to hue (0-360), saturation (0-1) and value (max / 255, so above 1
+	 * for sensor readings above 255), like android.graphics.Color.RGBToHSV.
+	 *
+	 * @param hsv receives hue, saturation and value (length at least 3)
+	 */
+	public static void rgbToHsv(int red, int green, int blue, float[] hsv) {
+		int max = Math.max(red, Math.max(green, blue));
+		int min = Math.min(red, Math.min(green, blue));
+		int delta = max - min;
+
+		float value = max / 255f;
+		if (delta == 0) {
+			hsv[0] = 0;
+			hsv[1] = 0;
+			hsv[2] = value;
+			return;
+		}
+
+		float saturation = (float) delta / max;
+		float hue;
+		if (red == max) {
+			hue = (float) (green - blue) / delta;
+		} else if (green == max) {
+			hue = 2 + (float) (blue - red) / delta;
+		} else {
+			hue = 4 + (float) (red - green) / delta;
+		}
+		hue *= 60;
+		if (hue < 0) {
+			hue += 360;
+		}
+
+		hsv[0] = hue;
+		hsv[1] = saturation;
+		hsv[2] = value;
+	}
+
+	/**
+	 * @return true if the color is saturated enough and its hue is strictly between hueMin and
+	 * hueMax
+	 */
+	public static boolean isInHueRange(float[] hsv, double hueMin, double hueMax, double minSaturation) {
+		return hsv[1] > minSaturation && hsv[0] > hueMin && hsv[0] < hueMax;
+	}
+}
@@ -0,0 +1,133 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-capacity history of timestamped poses and velocities, written by one thread and read by
+ * any number of others without locks.
+ * <p>
+ * The writer publishes immutable {@link Sample}s into a ring and then advances a volatile count,
+ * so a reader always sees complete samples. Readers walk back from the newest sample; if the
+ * writer laps them and overwrites a slot mid-walk, the timestamps stop decreasing and the walk
+ * ends there. Unlike {@link PoseHistory}, lookups past the newest sample extrapolate with its
+ * velocity, so callers can ask for the pose at a time that hasn't been measured yet.
+ * <p>
+ * Timestamps must be added in increasing order, from System.nanoTime().
+ */
+public class ConcurrentPoseHistory {
+	/**
+	 * One timestamped reading. Velocities are in the same frame as the pose, per second.
+	 */
+	public static final class Sample {
+		public final long timestampNanos;
+		public final double x, y, heading;
+		public final double velocityX, velocityY, headingVelocity;
+
+		public Sample(long timestampNanos, double x, double y, double heading,
+					  double velocityX, double velocityY, double headingVelocity) {
+			this.timestampNanos = timestampNanos;
+			this.x = x;
+			this.y = y;
+			this.heading = heading;
+			this.velocityX = velocityX;
+			this.velocityY = velocityY;
+			this.headingVelocity = headingVelocity;
+		}
+	}
+
+	private final AtomicReferenceArray<Sample> samples;
+	// Samples added so far; written only by the writer, after the slot
+	private volatile long count = 0;
+
+	/**
+	 * @param capacity number of samples kept
+	 */
+	public ConcurrentPoseHistory(int capacity) {
+		if (capacity < 2) {
+			throw new IllegalArgumentException("capacity must be at least 2");
+		}
+		samples = new AtomicReferenceArray<>(capacity);
+	}
+
+	/**
+	 * Adds a sample. Call from one thread only.
+	 */
+	public void add(Sample sample) {
+		long n = count;
+		samples.set((int) (n % samples.length()), sample);
+		count = n + 1;
+	}
+
+	/**
+	 * Empties the history. Call only while nothing is adding samples.
+	 */
+	public void clear() {
+		count = 0;
+		for (int i = 0; i < samples.length(); i++) {
+			samples.set(i, null);
+		}
+	}
+
+	public int capacity() {
+		return samples.length();
+	}
+
+	/**
+	 * @return the newest sample, or null if none has been added
+	 */
+	public Sample getLatest() {
+		long n = count;
+		return n == 0 ? null : samples.get((int) ((n - 1) % samples.length()));
+	}
+
+	/**
+	 * Looks up the pose at a time. Between two samples it interpolates; after the newest sample it
+	 * extrapolates with the newest velocity, for at most maxExtrapolationNanos; before the oldest
+	 * sample still held it returns that sample.
+	 *
+	 * @param timestampNanos        time to look up, from System.nanoTime()
+	 * @param maxExtrapolationNanos how far past the newest sample to extrapolate
+	 * @param out                   receives x, y, heading (length at least 3)
+	 * @return false if the history is empty
+	 */
+	public boolean getPoseAt(long timestampNanos, long maxExtrapolationNanos, double[] out) {
+		long n = count;
+		if (n == 0) return false;
+		int capacity = samples.length();
+		Sample newer = samples.get((int) ((n - 1) % capacity));
+
+		if (timestampNanos >= newer.timestampNanos) {
+			double dt = Math.min(timestampNanos - newer.timestampNanos, maxExtrapolationNanos) / 1e9;
+			out[0] = newer.x + newer.velocityX * dt;
+			out[1] = newer.y + newer.velocityY * dt;
+			out[2] = newer.heading + newer.headingVelocity * dt;
+			return true;
+		}
+
+		// Lookups are almost always for recent times, so walk back from the newest sample. The
+		// oldest slot may be being overwritten, so it is never read.
+		long oldest = Math.max(0, n - capacity + 1);
+		for (long i = n - 2; i >= oldest; i--) {
+			Sample older = samples.get((int) (i % capacity));
+			if (older == null || older.timestampNanos >= newer.timestampNanos) {
+				// Overwritten by the writer since count was read
+				break;
+			}
+			if (older.timestampNanos <= timestampNanos) {
+				double t = (double) (timestampNanos - older.timestampNanos)
+						/ (newer.timestampNanos - older.timestampNanos);
+				out[0] = older.x + (newer.x - older.x) * t;
+				out[1] = older.y + (newer.y - older.y) * t;
+				// Interpolate heading the short way around
+				out[2] = older.heading + Math.IEEEremainder(newer.heading - older.heading, 2 * Math.PI) * t;
+				return true;
+			}
+			newer = older;
+		}
+
+		out[0] = newer.x;
+		out[1] = newer.y;
+		out[2] = newer.heading;
+		return true;
+	}
+}
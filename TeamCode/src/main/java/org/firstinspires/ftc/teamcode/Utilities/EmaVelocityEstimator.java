@@ -0,0 +1,68 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+/**
+ * Exponential moving average of the hub-reported velocity.
+ * <p>
+ * The smoothing factor is derived from the time between samples and a time constant, so the
+ * filter behaves the same regardless of loop rate. The variance is the variance of the average,
+ * computed from a moving average of the squared residuals.
+ */
+public class EmaVelocityEstimator implements VelocityEstimator {
+	private double timeConstantSeconds;
+
+	private double velocity = 0;
+	private double residualVariance = 0;
+	private double lastAlpha = 1;
+	private long lastTimestampNanos = 0;
+	private boolean initialized = false;
+
+	/**
+	 * @param timeConstantSeconds time constant of the low-pass filter, in seconds
+	 */
+	public EmaVelocityEstimator(double timeConstantSeconds) {
+		this.timeConstantSeconds = timeConstantSeconds;
+	}
+
+	public void setTimeConstant(double timeConstantSeconds) {
+		this.timeConstantSeconds = timeConstantSeconds;
+	}
+
+	@Override
+	public void update(long timestampNanos, double positionTicks, double measuredVelocity) {
+		if (!initialized) {
+			velocity = measuredVelocity;
+			residualVariance = 0;
+			lastTimestampNanos = timestampNanos;
+			initialized = true;
+			return;
+		}
+		double dt = (timestampNanos - lastTimestampNanos) / 1e9;
+		lastTimestampNanos = timestampNanos;
+		if (dt <= 0) return;
+
+		double alpha = timeConstantSeconds > 0 ? 1 - Math.exp(-dt / timeConstantSeconds) : 1;
+		double residual = measuredVelocity - velocity;
+		velocity += alpha * residual;
+		residualVariance += alpha * (residual * residual - residualVariance);
+		lastAlpha = alpha;
+	}
+
+	@Override
+	public double getVelocity() {
+		return velocity;
+	}
+
+	@Override
+	public double getVariance() {
+		// Variance of an EMA of white noise with variance s^2 is s^2 * alpha / (2 - alpha)
+		return residualVariance * lastAlpha / (2 - lastAlpha);
+	}
+
+	@Override
+	public void reset() {
+		initialized = false;
+		velocity = 0;
+		residualVariance = 0;
+		lastAlpha = 1;
+	}
+}
@@ -0,0 +1,94 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+/**
+ * Velocity from the change in encoder position over the last N samples, kept in a ring buffer.
+ * <p>
+ * Differencing over several loops divides the one-tick quantization error by the window length,
+ * at the cost of about half a window of lag. The variance is the variance of the mean of the
+ * single-step velocities within the window.
+ */
+public class FiniteDifferenceVelocityEstimator implements VelocityEstimator {
+	private final long[] timestamps;
+	private final double[] positions;
+	private int windowSize;
+
+	private int head = 0; // index of the newest sample
+	private int count = 0;
+	private double velocity = 0;
+	private double variance = 0;
+
+	/**
+	 * @param capacity   largest window that can be used, in samples
+	 * @param windowSize number of samples to difference over (at least 2)
+	 */
+	public FiniteDifferenceVelocityEstimator(int capacity, int windowSize) {
+		timestamps = new long[capacity];
+		positions = new double[capacity];
+		setWindowSize(windowSize);
+	}
+
+	/**
+	 * @param windowSize number of samples to difference over, clamped to [2, capacity]
+	 */
+	public void setWindowSize(int windowSize) {
+		this.windowSize = Math.max(2, Math.min(timestamps.length, windowSize));
+	}
+
+	@Override
+	public void update(long timestampNanos, double positionTicks, double measuredVelocity) {
+		if (count > 0 && timestampNanos <= timestamps[head]) return;
+
+		head = (head + 1) % timestamps.length;
+		timestamps[head] = timestampNanos;
+		positions[head] = positionTicks;
+		if (count < timestamps.length) count++;
+
+		int samples = Math.min(count, windowSize);
+		if (samples < 2) {
+			velocity = measuredVelocity;
+			variance = 0;
+			return;
+		}
+
+		int oldest = index(samples - 1);
+		velocity = (positionTicks - positions[oldest]) / ((timestampNanos - timestamps[oldest]) / 1e9);
+
+		// Spread of the single-step velocities around the window velocity
+		double sumSquares = 0;
+		for (int i = 0; i < samples - 1; i++) {
+			int newer = index(i);
+			int older = index(i + 1);
+			double step = (positions[newer] - positions[older]) / ((timestamps[newer] - timestamps[older]) / 1e9);
+			double deviation = step - velocity;
+			sumSquares += deviation * deviation;
+		}
+		int steps = samples - 1;
+		variance = steps > 1 ? sumSquares / (steps - 1) / steps : 0;
+	}
+
+	/**
+	 * @param age 0 for the newest sample, 1 for the one before, ...
+	 */
+	private int index(int age) {
+		int i = head - age;
+		return i < 0 ? i + timestamps.length : i;
+	}
+
+	@Override
+	public double getVelocity() {
+		return velocity;
+	}
+
+	@Override
+	public double getVariance() {
+		return variance;
+	}
+
+	@Override
+	public void reset() {
+		head = 0;
+		count = 0;
+		velocity = 0;
+		variance = 0;
+	}
+}
@@ -0,0 +1,189 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+/**
+ * Velocity controller for a single flywheel motor.
+ * <p>
+ * The output is built in volts and divided by the measured battery voltage, so the same gains
+ * give the same speed on a fresh or a sagging battery:
+ * <pre>
+ * volts = kS * sign(ref) + kV * ref + kA * refAccel + kP * error + kI * integral(error)
+ * power = volts / batteryVoltage
+ * </pre>
+ * The reference moves towards the target no faster than the configured acceleration, so the kA
+ * term supplies the torque needed to follow it instead of waiting for the PI terms to wind up.
+ * <p>
+ * Recovery: when the measured speed drops more than the dip threshold below the reference (e.g.
+ * a ball was just launched, or the flywheel is still spinning up) the controller applies full
+ * power until the speed is back within the exit threshold, then hands control back to
+ * feedforward + PI. The integrator is frozen while recovering or saturated so it doesn't wind up.
+ * <p>
+ * Usage: call calculate() once per loop with the latest measurement and write the result to the
+ * motor. Call reset() whenever the motor has been driven by something else.
+ */
+public class FlywheelController {
+	private static final double MAX_DT_SECONDS = 0.5;
+
+	private double kS;
+	private double kV;
+	private double kA;
+	private double kP;
+	private double kI;
+
+	private double maxIntegralVolts = 2.0;
+	private double maxAccelRPMPerSecond = Double.POSITIVE_INFINITY;
+	private double recoveryDipRPM = Double.POSITIVE_INFINITY;
+	private double recoveryExitRPM = 0;
+
+	private double referenceRPM = 0;
+	private double referenceAccel = 0;
+	private double integral = 0;
+	private long lastNanos = 0;
+	private boolean firstRun = true;
+	private boolean recovering = false;
+	private int dipCount = 0;
+
+	/**
+	 * @param kS static friction voltage, in volts
+	 * @param kV velocity gain, in volts per RPM
+	 * @param kA acceleration gain, in volts per RPM/s
+	 * @param kP proportional gain, in volts per RPM of error
+	 * @param kI integral gain, in volts per RPM*s of accumulated error
+	 */
+	public FlywheelController(double kS, double kV, double kA, double kP, double kI) {
+		setGains(kS, kV, kA, kP, kI);
+	}
+
+	/**
+	 * Updates all gains. The accumulated integral is kept.
+	 */
+	public void setGains(double kS, double kV, double kA, double kP, double kI) {
+		this.kS = kS;
+		this.kV = kV;
+		this.kA = kA;
+		this.kP = kP;
+		this.kI = kI;
+	}
+
+	/**
+	 * @param maxIntegralVolts largest magnitude the integral term may contribute, in volts
+	 */
+	public void setMaxIntegralVolts(double maxIntegralVolts) {
+		this.maxIntegralVolts = maxIntegralVolts;
+	}
+
+	/**
+	 * @param maxAccelRPMPerSecond how fast the reference may move towards a new target, in RPM/s
+	 */
+	public void setMaxAcceleration(double maxAccelRPMPerSecond) {
+		this.maxAccelRPMPerSecond = maxAccelRPMPerSecond;
+	}
+
+	/**
+	 * @param dipRPM  enter recovery when the speed is more than this far below the reference
+	 * @param exitRPM leave recovery once the speed is within this of the reference
+	 */
+	public void setRecovery(double dipRPM, double exitRPM) {
+		this.recoveryDipRPM = dipRPM;
+		this.recoveryExitRPM = exitRPM;
+	}
+
+	/**
+	 * Computes the motor power for this loop.
+	 *
+	 * @param targetRPM      desired speed, in RPM (0 or positive)
+	 * @param measuredRPM    measured speed, in RPM
+	 * @param batteryVoltage current battery voltage, in volts
+	 * @return motor power in [0, 1]
+	 */
+	public double calculate(double targetRPM, double measuredRPM, double batteryVoltage) {
+		return calculate(targetRPM, measuredRPM, batteryVoltage, System.nanoTime());
+	}
+
+	/**
+	 * Computes the motor power for this loop, timed by the caller's clock.
+	 *
+	 * @param timestampNanos when measuredRPM was measured, from System.nanoTime()
+	 * @see #calculate(double, double, double)
+	 */
+	public double calculate(double targetRPM, double measuredRPM, double batteryVoltage, long timestampNanos) {
+		long now = timestampNanos;
+		double dt = firstRun ? 0 : (now - lastNanos) / 1e9;
+		lastNanos = now;
+		if (dt > MAX_DT_SECONDS) {
+			// Not called for a while (e.g. the shooter was stopped); don't integrate over the gap
+			reset();
+			dt = 0;
+		}
+		if (firstRun) {
+			// Start the reference at the current speed so a running flywheel isn't yanked back to 0
+			referenceRPM = Math.max(0, measuredRPM);
+			firstRun = false;
+		}
+
+		// Slew the reference towards the target
+		double previousReference = referenceRPM;
+		double maxStep = maxAccelRPMPerSecond * dt;
+		referenceRPM += Math.max(-maxStep, Math.min(maxStep, targetRPM - referenceRPM));
+		referenceAccel = dt > 0 ? (referenceRPM - previousReference) / dt : 0;
+
+		double error = referenceRPM - measuredRPM;
+
+		if (!recovering && targetRPM > 0 && error > recoveryDipRPM) {
+			recovering = true;
+			dipCount++;
+		} else if (recovering && error < recoveryExitRPM) {
+			recovering = false;
+		}
+		if (recovering) {
+			return 1.0;
+		}
+
+		double volts = (referenceRPM > 0 ? kS : 0) + kV * referenceRPM + kA * referenceAccel
+				+ kP * error + kI * integral;
+		double power = batteryVoltage > 0 ? volts / batteryVoltage : 0;
+
+		// Conditional integration: only accumulate while the output can still respond
+		boolean saturatedHigh = power >= 1.0 && error > 0;
+		boolean saturatedLow = power <= 0.0 && error < 0;
+		if (!saturatedHigh && !saturatedLow) {
+			integral += error * dt;
+			if (kI != 0) {
+				double maxIntegral = maxIntegralVolts / Math.abs(kI);
+				integral = Math.max(-maxIntegral, Math.min(maxIntegral, integral));
+			}
+		}
+
+		return Math.max(0.0, Math.min(1.0, power));
+	}
+
+	/**
+	 * Clears the integral, reference, and recovery state. The dip count is kept.
+	 */
+	public void reset() {
+		integral = 0;
+		referenceAccel = 0;
+		recovering = false;
+		firstRun = true;
+	}
+
+	/**
+	 * @return the slewed reference speed used in the last calculate(), in RPM
+	 */
+	public double getReferenceRPM() {
+		return referenceRPM;
+	}
+
+	/**
+	 * @return true if the last calculate() applied full power to recover from a dip
+	 */
+	public boolean isRecovering() {
+		return recovering;
+	}
+
+	/**
+	 * @return number of times recovery has been entered since construction
+	 */
+	public int getDipCount() {
+		return dipCount;
+	}
+}
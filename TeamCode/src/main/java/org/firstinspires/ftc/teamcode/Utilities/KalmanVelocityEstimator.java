@@ -0,0 +1,116 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+/**
+ * Two-state (position, velocity) Kalman filter with a constant-velocity model. Each sample
+ * corrects the state with the encoder position and then with the hub-reported velocity, as two
+ * sequential scalar updates.
+ * <p>
+ * Acceleration is modelled as white noise with spectral density {@code processNoise}; raise it
+ * to follow sudden speed changes (e.g. shots) faster, lower it for a smoother estimate. The
+ * position noise covers encoder quantization (1/12 tick^2) and read jitter; the velocity noise
+ * is the variance of the hub's own velocity reading. The covariance matrix is kept in three
+ * fields so update() doesn't allocate.
+ */
+public class KalmanVelocityEstimator implements VelocityEstimator {
+	private double processNoise;
+	private double positionNoise;
+	private double velocityNoise;
+
+	// State estimate
+	private double position = 0;
+	private double velocity = 0;
+	// Covariance [[p00, p01], [p01, p11]] (symmetric)
+	private double p00 = 0;
+	private double p01 = 0;
+	private double p11 = 0;
+
+	private long lastTimestampNanos = 0;
+	private boolean initialized = false;
+
+	/**
+	 * @param processNoise  acceleration noise spectral density, in (ticks/s^2)^2 per Hz
+	 * @param positionNoise position measurement variance, in ticks^2
+	 * @param velocityNoise hub velocity measurement variance, in (ticks/s)^2; 0 ignores it
+	 */
+	public KalmanVelocityEstimator(double processNoise, double positionNoise, double velocityNoise) {
+		setNoise(processNoise, positionNoise, velocityNoise);
+	}
+
+	public void setNoise(double processNoise, double positionNoise, double velocityNoise) {
+		this.processNoise = processNoise;
+		this.positionNoise = positionNoise;
+		this.velocityNoise = velocityNoise;
+	}
+
+	@Override
+	public void update(long timestampNanos, double positionTicks, double measuredVelocity) {
+		if (!initialized) {
+			// Seed from the hub's velocity so the filter doesn't start from a standstill
+			position = positionTicks;
+			velocity = measuredVelocity;
+			p00 = positionNoise;
+			p01 = 0;
+			p11 = measuredVelocity * measuredVelocity + 1;
+			lastTimestampNanos = timestampNanos;
+			initialized = true;
+			return;
+		}
+		double dt = (timestampNanos - lastTimestampNanos) / 1e9;
+		lastTimestampNanos = timestampNanos;
+		if (dt <= 0) return;
+
+		// Predict: x = F x, P = F P F' + Q
+		position += velocity * dt;
+		double dt2 = dt * dt;
+		double q00 = processNoise * dt2 * dt / 3;
+		double q01 = processNoise * dt2 / 2;
+		double q11 = processNoise * dt;
+		double n00 = p00 + 2 * dt * p01 + dt2 * p11 + q00;
+		double n01 = p01 + dt * p11 + q01;
+		double n11 = p11 + q11;
+
+		// Correct with the position measurement (H = [1, 0])
+		double s = n00 + positionNoise;
+		double k0 = n00 / s;
+		double k1 = n01 / s;
+		double innovation = positionTicks - position;
+		position += k0 * innovation;
+		velocity += k1 * innovation;
+		p00 = (1 - k0) * n00;
+		p01 = (1 - k0) * n01;
+		p11 = n11 - k1 * n01;
+
+		// Correct with the hub velocity (H = [0, 1])
+		if (velocityNoise > 0) {
+			s = p11 + velocityNoise;
+			k0 = p01 / s;
+			k1 = p11 / s;
+			innovation = measuredVelocity - velocity;
+			position += k0 * innovation;
+			velocity += k1 * innovation;
+			p00 -= k0 * p01;
+			p01 -= k0 * p11;
+			p11 -= k1 * p11;
+		}
+	}
+
+	@Override
+	public double getVelocity() {
+		return velocity;
+	}
+
+	@Override
+	public double getVariance() {
+		return p11;
+	}
+
+	@Override
+	public void reset() {
+		initialized = false;
+		position = 0;
+		velocity = 0;
+		p00 = 0;
+		p01 = 0;
+		p11 = 0;
+	}
+}
@@ -0,0 +1,125 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+/**
+ * Fixed-size, HDR-style histogram of nanosecond durations.
+ * <p>
+ * Values are stored in log-linear buckets: every power-of-two range is split into
+ * SUB_BUCKET_COUNT / 2 equal buckets, which keeps the relative error of any reported
+ * percentile below about 3% from 1 ns up to MAX_TRACKABLE_NANOS. All storage is allocated
+ * up front, so recording a value never allocates.
+ */
+public class LatencyHistogram {
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+	/**
+	 * Largest duration that is tracked exactly; longer values are clamped into the top bucket.
+	 */
+	public static final long MAX_TRACKABLE_NANOS = 1L << 34; // ~17 seconds
+
+	private final long[] counts;
+	private long totalCount = 0;
+	private long sumNanos = 0;
+	private long minNanos = Long.MAX_VALUE;
+	private long maxNanos = 0;
+
+	public LatencyHistogram() {
+		counts = new long[bucketIndex(MAX_TRACKABLE_NANOS) + 1];
+	}
+
+	/**
+	 * Maps a value to its bucket. Values below SUB_BUCKET_COUNT get their own bucket; above
+	 * that, the exponent selects the power-of-two range and the top bits select the sub-bucket.
+	 */
+	private static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS + 1;
+		int mantissa = (int) (value >>> exponent); // in [SUB_BUCKET_HALF, SUB_BUCKET_COUNT)
+		return exponent * SUB_BUCKET_HALF + mantissa;
+	}
+
+	/**
+	 * Returns the midpoint of the value range covered by a bucket.
+	 */
+	private static long bucketMidpoint(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKET_HALF - 1;
+		long mantissa = index - exponent * SUB_BUCKET_HALF;
+		long low = mantissa << exponent;
+		return low + ((1L << exponent) >>> 1);
+	}
+
+	/**
+	 * Records a single duration.
+	 *
+	 * @param nanos duration in nanoseconds; negative values are ignored
+	 */
+	public void recordValue(long nanos) {
+		if (nanos < 0) {
+			return;
+		}
+		long clamped = Math.min(nanos, MAX_TRACKABLE_NANOS);
+		counts[bucketIndex(clamped)]++;
+		totalCount++;
+		sumNanos += nanos;
+		if (nanos < minNanos) minNanos = nanos;
+		if (nanos > maxNanos) maxNanos = nanos;
+	}
+
+	/**
+	 * Returns the value at a given percentile.
+	 *
+	 * @param percentile percentile in the range 0-100
+	 * @return the duration in nanoseconds at that percentile, or 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (totalCount == 0) {
+			return 0;
+		}
+		long target = (long) Math.ceil(percentile / 100.0 * totalCount);
+		target = Math.max(1, Math.min(totalCount, target));
+
+		long cumulative = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+			if (cumulative >= target) {
+				// Never report beyond what was actually observed
+				return Math.max(minNanos, Math.min(maxNanos, bucketMidpoint(i)));
+			}
+		}
+		return maxNanos;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	public long getMaxValue() {
+		return maxNanos;
+	}
+
+	public long getMinValue() {
+		return totalCount == 0 ? 0 : minNanos;
+	}
+
+	public double getMean() {
+		return totalCount == 0 ? 0 : (double) sumNanos / totalCount;
+	}
+
+	/**
+	 * Clears all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = 0;
+		}
+		totalCount = 0;
+		sumNanos = 0;
+		minNanos = Long.MAX_VALUE;
+		maxNanos = 0;
+	}
+}
@@ -0,0 +1,159 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+import com.acmerobotics.dashboard.FtcDashboard;
+import com.acmerobotics.dashboard.config.Config;
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+
+/**
+ * Lightweight per-loop timing profiler for OpModes.
+ * <p>
+ * Each loop is split into named phases. Phase and whole-loop durations are recorded in
+ * nanoseconds into fixed-size {@link LatencyHistogram}s, and p50/p99/max are sent to
+ * FTC Dashboard every REPORT_INTERVAL_MS. Recording does not allocate.
+ * <p>
+ * To use:
+ * 1. Create one profiler in init() with the phase names, e.g. new LoopProfiler("Drive", "Scheduler")
+ * 2. Call startLoop() at the top of loop()
+ * 3. Call endPhase(index) after each phase, in the same order as the names
+ * 4. Call endLoop() at the bottom of loop()
+ */
+@Config
+public class LoopProfiler {
+	/**
+	 * Minimum time between dashboard reports.
+	 */
+	public static double REPORT_INTERVAL_MS = 500;
+	/**
+	 * When false, startLoop/endPhase/endLoop do nothing.
+	 */
+	public static boolean ENABLED = true;
+
+	private final String[] phaseNames;
+	private final LatencyHistogram[] phaseHistograms;
+	private final LatencyHistogram loopHistogram = new LatencyHistogram();
+
+	// Dashboard keys are built once so reporting doesn't concatenate strings every time
+	private final String[] phaseP50Keys;
+	private final String[] phaseP99Keys;
+	private final String[] phaseMaxKeys;
+
+	private long loopStartNanos = 0;
+	private long phaseStartNanos = 0;
+	private long lastLoopStartNanos = 0;
+	private long lastLoopPeriodNanos = 0;
+	private long lastReportNanos = 0;
+	private boolean inLoop = false;
+
+	/**
+	 * @param phaseNames names of the phases, in the order they run inside the loop
+	 */
+	public LoopProfiler(String... phaseNames) {
+		this.phaseNames = phaseNames.clone();
+		phaseHistograms = new LatencyHistogram[phaseNames.length];
+		phaseP50Keys = new String[phaseNames.length];
+		phaseP99Keys = new String[phaseNames.length];
+		phaseMaxKeys = new String[phaseNames.length];
+		for (int i = 0; i < phaseNames.length; i++) {
+			phaseHistograms[i] = new LatencyHistogram();
+			phaseP50Keys[i] = "Profiler " + phaseNames[i] + " p50 (ms)";
+			phaseP99Keys[i] = "Profiler " + phaseNames[i] + " p99 (ms)";
+			phaseMaxKeys[i] = "Profiler " + phaseNames[i] + " max (ms)";
+		}
+	}
+
+	/**
+	 * Marks the start of a loop iteration and of its first phase.
+	 */
+	public void startLoop() {
+		if (!ENABLED) return;
+		long now = System.nanoTime();
+		if (lastLoopStartNanos != 0) {
+			lastLoopPeriodNanos = now - lastLoopStartNanos;
+		}
+		lastLoopStartNanos = now;
+		loopStartNanos = now;
+		phaseStartNanos = now;
+		inLoop = true;
+	}
+
+	/**
+	 * Records the time since the previous mark (startLoop or endPhase) against a phase.
+	 *
+	 * @param phase index of the phase in the names passed to the constructor
+	 */
+	public void endPhase(int phase) {
+		if (!ENABLED || !inLoop) return;
+		long now = System.nanoTime();
+		phaseHistograms[phase].recordValue(now - phaseStartNanos);
+		phaseStartNanos = now;
+	}
+
+	/**
+	 * Records the whole-loop duration and reports to the dashboard if REPORT_INTERVAL_MS has elapsed.
+	 */
+	public void endLoop() {
+		if (!ENABLED || !inLoop) return;
+		long now = System.nanoTime();
+		loopHistogram.recordValue(now - loopStartNanos);
+		inLoop = false;
+
+		if (now - lastReportNanos >= REPORT_INTERVAL_MS * 1_000_000) {
+			lastReportNanos = now;
+			FtcDashboard dashboard = FtcDashboard.getInstance();
+			if (dashboard != null) {
+				TelemetryPacket packet = new TelemetryPacket();
+				report(packet);
+				dashboard.sendTelemetryPacket(packet);
+			}
+		}
+	}
+
+	/**
+	 * Adds the current loop and phase statistics to a telemetry packet.
+	 *
+	 * @param packet the packet to add the statistics to
+	 */
+	public void report(TelemetryPacket packet) {
+		packet.put("Profiler Loop p50 (ms)", toMillis(loopHistogram.getValueAtPercentile(50)));
+		packet.put("Profiler Loop p99 (ms)", toMillis(loopHistogram.getValueAtPercentile(99)));
+		packet.put("Profiler Loop max (ms)", toMillis(loopHistogram.getMaxValue()));
+		packet.put("Profiler Loop Rate (Hz)", lastLoopPeriodNanos > 0 ? 1e9 / lastLoopPeriodNanos : 0);
+		for (int i = 0; i < phaseNames.length; i++) {
+			packet.put(phaseP50Keys[i], toMillis(phaseHistograms[i].getValueAtPercentile(50)));
+			packet.put(phaseP99Keys[i], toMillis(phaseHistograms[i].getValueAtPercentile(99)));
+			packet.put(phaseMaxKeys[i], toMillis(phaseHistograms[i].getMaxValue()));
+		}
+	}
+
+	/**
+	 * @return histogram of whole-loop durations
+	 */
+	public LatencyHistogram getLoopHistogram() {
+		return loopHistogram;
+	}
+
+	/**
+	 * @param phase index of the phase
+	 * @return histogram of that phase's durations
+	 */
+	public LatencyHistogram getPhaseHistogram(int phase) {
+		return phaseHistograms[phase];
+	}
+
+	/**
+	 * Clears all recorded timings.
+	 */
+	public void reset() {
+		loopHistogram.reset();
+		for (LatencyHistogram histogram : phaseHistograms) {
+			histogram.reset();
+		}
+		lastLoopStartNanos = 0;
+		lastLoopPeriodNanos = 0;
+		inLoop = false;
+	}
+
+	private static double toMillis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+}
@@ -0,0 +1,247 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+/**
+ * 1D motion profile with velocity, acceleration and (optionally) jerk limits.
+ * <p>
+ * setGoal() plans the whole move at once as a short table of constant-jerk segments, and
+ * update() samples it at the elapsed time, so the setpoint lands exactly on the goal with no
+ * overshoot. A TRAPEZOID move accelerates at the limit, cruises, and decelerates; an S_CURVE move
+ * also ramps the acceleration in and out at the jerk limit (seven segments).
+ * <p>
+ * If the goal changes mid-move, the new plan starts from the current setpoint position and
+ * velocity. S-curves are only planned from rest; a retarget while moving uses a trapezoid from
+ * the current velocity, braking first if it has to.
+ * <p>
+ * The segment table is preallocated, so planning and sampling don't allocate. Units are up to
+ * the caller (e.g. ticks, ticks/s, ticks/s^2, ticks/s^3).
+ */
+public class MotionProfile {
+	/**
+	 * Profile shape
+	 */
+	public enum Shape {
+		/**
+		 * Velocity and acceleration limited; acceleration changes instantly
+		 */
+		TRAPEZOID,
+		/**
+		 * Velocity, acceleration and jerk limited
+		 */
+		S_CURVE
+	}
+
+	// One braking segment, then up to seven for a move
+	private static final int MAX_SEGMENTS = 8;
+
+	private Shape shape;
+	private double maxVelocity;
+	private double maxAcceleration;
+	private double maxJerk;
+
+	private final double[] segmentDuration = new double[MAX_SEGMENTS];
+	private final double[] segmentPosition = new double[MAX_SEGMENTS];
+	private final double[] segmentVelocity = new double[MAX_SEGMENTS];
+	private final double[] segmentAcceleration = new double[MAX_SEGMENTS];
+	private final double[] segmentJerk = new double[MAX_SEGMENTS];
+	private int segmentCount = 0;
+	private double totalTime = 0;
+	private double elapsed = 0;
+	// End state of the last appended segment, while planning
+	private double planPosition;
+	private double planVelocity;
+
+	private double goal = 0;
+	private double position = 0;
+	private double velocity = 0;
+	private double acceleration = 0;
+
+	public MotionProfile(Shape shape, double maxVelocity, double maxAcceleration, double maxJerk) {
+		setConstraints(shape, maxVelocity, maxAcceleration, maxJerk);
+	}
+
+	/**
+	 * Updates the limits. Takes effect on the next setGoal().
+	 */
+	public void setConstraints(Shape shape, double maxVelocity, double maxAcceleration, double maxJerk) {
+		this.shape = shape;
+		this.maxVelocity = Math.abs(maxVelocity);
+		this.maxAcceleration = Math.abs(maxAcceleration);
+		this.maxJerk = Math.abs(maxJerk);
+	}
+
+	/**
+	 * Holds the setpoint at a measured position, e.g. before the first move or after manual control.
+	 */
+	public void reset(double position) {
+		this.position = position;
+		this.goal = position;
+		velocity = 0;
+		acceleration = 0;
+		segmentCount = 0;
+		totalTime = 0;
+		elapsed = 0;
+	}
+
+	/**
+	 * Plans a move from the current setpoint to a new goal. Does nothing if the goal is unchanged.
+	 */
+	public void setGoal(double goal) {
+		if (goal == this.goal) return;
+		this.goal = goal;
+
+		segmentCount = 0;
+		totalTime = 0;
+		elapsed = 0;
+		planPosition = position;
+		planVelocity = velocity;
+		if (maxVelocity <= 0 || maxAcceleration <= 0) {
+			// No limits to plan with; jump straight to the goal
+			position = goal;
+			velocity = 0;
+			acceleration = 0;
+			return;
+		}
+
+		double direction = goal >= planPosition ? 1 : -1;
+		double speed = planVelocity * direction;
+		if (speed < 0 || speed * speed / (2 * maxAcceleration) > Math.abs(goal - planPosition)) {
+			// Moving away from the goal, or too fast to stop before it: brake to a stop first
+			double brakeAcceleration = -Math.signum(planVelocity) * maxAcceleration;
+			addSegment(Math.abs(planVelocity) / maxAcceleration, brakeAcceleration, 0);
+			speed = 0;
+			direction = goal >= planPosition ? 1 : -1;
+		}
+
+		double distance = Math.abs(goal - planPosition);
+		if (shape == Shape.S_CURVE && maxJerk > 0 && speed == 0) {
+			planSCurve(distance, direction);
+		} else {
+			planTrapezoid(distance, speed, direction);
+		}
+	}
+
+	private void planTrapezoid(double distance, double speed, double direction) {
+		double a = maxAcceleration;
+		// Peak speed that still leaves room to brake to a stop at the goal
+		double peak = Math.min(maxVelocity, Math.sqrt(a * distance + speed * speed / 2));
+		peak = Math.max(peak, Math.min(speed, maxVelocity));
+		double accelTime = Math.abs(peak - speed) / a;
+		double accelDistance = (speed + peak) / 2 * accelTime;
+		double brakeTime = peak / a;
+		double brakeDistance = peak * brakeTime / 2;
+		double cruiseTime = peak > 0 ? Math.max(0, distance - accelDistance - brakeDistance) / peak : 0;
+
+		addSegment(accelTime, Math.signum(peak - speed) * a * direction, 0);
+		addSegment(cruiseTime, 0, 0);
+		addSegment(brakeTime, -a * direction, 0);
+	}
+
+	private void planSCurve(double distance, double direction) {
+		double a = maxAcceleration;
+		double j = maxJerk;
+		double peak = maxVelocity;
+		// Acceleration only reaches the limit if there is time to ramp it in and out
+		double peakAcceleration = peak * j >= a * a ? a : Math.sqrt(peak * j);
+		double accelDistance = peak * (peak / peakAcceleration + peakAcceleration / j) / 2;
+		if (2 * accelDistance > distance) {
+			// Too short to reach maxVelocity: solve distance = peak * (peak / a + a / j) for peak
+			double ratio = a / j;
+			peak = (-ratio + Math.sqrt(ratio * ratio + 4 * distance / a)) * a / 2;
+			if (peak * j < a * a) {
+				// Too short to reach maxAcceleration either: distance = 2 * peak^1.5 / sqrt(j)
+				peak = Math.cbrt(distance * distance * j / 4);
+				peakAcceleration = Math.sqrt(peak * j);
+			} else {
+				peakAcceleration = a;
+			}
+			accelDistance = distance / 2;
+		}
+
+		double jerkTime = peakAcceleration / j;
+		double constantAccelTime = Math.max(0, peak / peakAcceleration - jerkTime);
+		double cruiseTime = peak > 0 ? Math.max(0, distance - 2 * accelDistance) / peak : 0;
+		double pa = peakAcceleration * direction;
+		double pj = j * direction;
+
+		addSegment(jerkTime, 0, pj);
+		addSegment(constantAccelTime, pa, 0);
+		addSegment(jerkTime, pa, -pj);
+		addSegment(cruiseTime, 0, 0);
+		addSegment(jerkTime, 0, -pj);
+		addSegment(constantAccelTime, -pa, 0);
+		addSegment(jerkTime, -pa, pj);
+	}
+
+	private void addSegment(double duration, double startAcceleration, double jerk) {
+		if (duration <= 0 || segmentCount == MAX_SEGMENTS) return;
+		int i = segmentCount++;
+		segmentDuration[i] = duration;
+		segmentPosition[i] = planPosition;
+		segmentVelocity[i] = planVelocity;
+		segmentAcceleration[i] = startAcceleration;
+		segmentJerk[i] = jerk;
+		totalTime += duration;
+
+		double t = duration;
+		planPosition += planVelocity * t + startAcceleration * t * t / 2 + jerk * t * t * t / 6;
+		planVelocity += startAcceleration * t + jerk * t * t / 2;
+	}
+
+	/**
+	 * Advances the setpoint by dt seconds.
+	 */
+	public void update(double dt) {
+		if (dt <= 0) return;
+		elapsed += dt;
+		if (elapsed >= totalTime) {
+			position = goal;
+			velocity = 0;
+			acceleration = 0;
+			return;
+		}
+
+		double segmentStart = 0;
+		for (int i = 0; i < segmentCount; i++) {
+			if (elapsed < segmentStart + segmentDuration[i]) {
+				double t = elapsed - segmentStart;
+				double a0 = segmentAcceleration[i];
+				double jerk = segmentJerk[i];
+				position = segmentPosition[i] + segmentVelocity[i] * t + a0 * t * t / 2 + jerk * t * t * t / 6;
+				velocity = segmentVelocity[i] + a0 * t + jerk * t * t / 2;
+				acceleration = a0 + jerk * t;
+				return;
+			}
+			segmentStart += segmentDuration[i];
+		}
+	}
+
+	public double getGoal() {
+		return goal;
+	}
+
+	public double getPosition() {
+		return position;
+	}
+
+	public double getVelocity() {
+		return velocity;
+	}
+
+	public double getAcceleration() {
+		return acceleration;
+	}
+
+	/**
+	 * @return planned duration of the current move, in seconds
+	 */
+	public double getTotalTime() {
+		return totalTime;
+	}
+
+	/**
+	 * @return true once the setpoint has reached the goal
+	 */
+	public boolean isFinished() {
+		return elapsed >= totalTime;
+	}
+}
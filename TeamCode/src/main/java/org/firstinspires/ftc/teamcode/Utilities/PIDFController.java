@@ -1,5 +1,25 @@
 package org.firstinspires.ftc.teamcode.Utilities;
 
+/**
+ * PIDF controller with two modes of operation.
+ * <p>
+ * Per-call mode (getOutput): the I and D terms work per call, so the effective gains change with
+ * the loop rate. Kept for existing callers.
+ * <p>
+ * Timed mode (getOutputAt): every call passes a monotonic timestamp, and the gains are per
+ * second, so tuned values hold when the loop speeds up or slows down:
+ * <pre>
+ * output = F * setpoint + P * error + integral - D * filtered(d measurement / dt)
+ * integral += (I * error + Kb * (limited output - unlimited output)) * dt
+ * </pre>
+ * - The derivative is taken on the measurement, so setpoint steps don't kick, and is low-pass
+ * filtered with a configurable time constant (setDerivativeFilter)
+ * - Anti-windup uses back-calculation: while the output is limited, the integral is bled back
+ * towards the limit at rate Kb (setBackCalculationGain, default I / P) instead of being reset
+ * - The output ramp rate is per second
+ * - With setFixedRate(hz), the output is recomputed at most hz times per second and held in
+ * between, so filtering and noise behave the same at any faster loop rate
+ */
 public class PIDFController {
 	//**********************************
 	// Class private variables
@@ -31,6 +51,16 @@ public class PIDFController {
 
 	private double setpointRange = 0;
 
+	// Timed mode state
+	private static final double MAX_DT_SECONDS = 0.5;
+	private double derivativeFilterSeconds = 0;
+	private double backCalculationGain = Double.NaN;
+	private double fixedPeriodNanos = 0;
+	private double integralOutput = 0;
+	private double filteredDerivative = 0;
+	private long lastStepNanos = 0;
+	private boolean firstTimedRun = true;
+
 	//**********************************
 	// Constructor functions
 	//**********************************
@@ -229,6 +259,33 @@ public class PIDFController {
 		this.reversed = reversed;
 	}
 
+	/**
+	 * Sets the low-pass filter on the derivative term in timed mode.
+	 *
+	 * @param timeConstantSeconds filter time constant; 0 disables filtering
+	 */
+	public void setDerivativeFilter(double timeConstantSeconds) {
+		derivativeFilterSeconds = Math.max(0, timeConstantSeconds);
+	}
+
+	/**
+	 * Sets how fast the integral is pulled back while the output is limited, in timed mode.
+	 *
+	 * @param gain back-calculation gain, in 1/s; NaN uses I / P
+	 */
+	public void setBackCalculationGain(double gain) {
+		backCalculationGain = gain;
+	}
+
+	/**
+	 * Limits how often timed mode recomputes the output. Between updates the last output is held.
+	 *
+	 * @param hz update rate; 0 recomputes on every call
+	 */
+	public void setFixedRate(double hz) {
+		fixedPeriodNanos = hz > 0 ? 1e9 / hz : 0;
+	}
+
 	//**********************************
 	// Primary operating functions
 	//**********************************
@@ -329,6 +386,92 @@ public class PIDFController {
 		return getOutput(actual, setpoint);
 	}
 
+	/**
+	 * Calculates the output in timed mode. I is per second of accumulated error and D is per unit
+	 * of measurement change per second.
+	 *
+	 * @param actual         The monitored value, typically as a sensor input.
+	 * @param setpoint       The target value for the system
+	 * @param timestampNanos when actual was measured, from System.nanoTime()
+	 * @return calculated output value for driving the system
+	 */
+	public double getOutputAt(double actual, double setpoint, long timestampNanos) {
+		this.setpoint = setpoint;
+
+		double dt = firstTimedRun ? 0 : (timestampNanos - lastStepNanos) / 1e9;
+		if (dt > MAX_DT_SECONDS) {
+			// Not called for a while; don't integrate or differentiate across the gap
+			reset();
+			dt = 0;
+		}
+		if (!firstTimedRun && (dt <= 0 || (fixedPeriodNanos > 0 && dt * 1e9 < fixedPeriodNanos))) {
+			// Same sample again, or too soon for the fixed rate: hold the last output
+			return lastOutput;
+		}
+
+		// Ramp the setpoint used for calculations if user has opted to do so
+		if (setpointRange != 0) {
+			setpoint = constrain(setpoint, actual - setpointRange, actual + setpointRange);
+		}
+
+		double error = setpoint - actual;
+		double Foutput = F * setpoint;
+		double Poutput = P * error;
+
+		if (firstTimedRun) {
+			lastActual = actual;
+			lastOutput = Poutput + Foutput;
+			filteredDerivative = 0;
+			firstTimedRun = false;
+		}
+
+		// Derivative on measurement, low-pass filtered
+		if (dt > 0) {
+			double rawDerivative = (actual - lastActual) / dt;
+			double alpha = derivativeFilterSeconds > 0 ? dt / (derivativeFilterSeconds + dt) : 1;
+			filteredDerivative += alpha * (rawDerivative - filteredDerivative);
+		}
+		lastActual = actual;
+		lastStepNanos = timestampNanos;
+		double Doutput = -D * filteredDerivative;
+
+		if (maxIOutput != 0) {
+			integralOutput = constrain(integralOutput, -maxIOutput, maxIOutput);
+		}
+
+		double unlimited = Foutput + Poutput + integralOutput + Doutput;
+		double output = unlimited;
+		if (outputRampRate != 0 && dt > 0) {
+			output = constrain(output, lastOutput - outputRampRate * dt, lastOutput + outputRampRate * dt);
+		}
+		if (minOutput != maxOutput) {
+			output = constrain(output, minOutput, maxOutput);
+		}
+
+		// Back-calculation anti-windup: integrate the error, minus however much the limits cut off
+		double kb = Double.isNaN(backCalculationGain) ? (P != 0 ? I / P : 0) : backCalculationGain;
+		integralOutput += (I * error + kb * (output - unlimited)) * dt;
+		if (maxIOutput != 0) {
+			integralOutput = constrain(integralOutput, -maxIOutput, maxIOutput);
+		}
+
+		if (outputFilter != 0) {
+			output = lastOutput * outputFilter + output * (1 - outputFilter);
+		}
+
+		lastOutput = output;
+		return output;
+	}
+
+	/**
+	 * Calculates the output in timed mode, using the last setpoint.
+	 *
+	 * @see #getOutputAt(double, double, long)
+	 */
+	public double getOutputAt(double actual, long timestampNanos) {
+		return getOutputAt(actual, setpoint, timestampNanos);
+	}
+
 	/**
 	 * Resets the controller. This erases the I term buildup, and removes
 	 * D gain on the next loop.<br>
@@ -339,6 +482,9 @@ public class PIDFController {
 	public void reset() {
 		firstRun = true;
 		errorSum = 0;
+		firstTimedRun = true;
+		integralOutput = 0;
+		filteredDerivative = 0;
 	}
 
 	/**
@@ -349,6 +495,8 @@ public class PIDFController {
 	 * Can be very useful for fast-reacting control loops, such as ones
 	 * with large P or D values and feed-forward systems.
 	 *
+	 * In timed mode the rate is per second instead of per cycle.
+	 *
 	 * @param rate, with units being the same as the output
 	 */
 	public void setOutputRampRate(double rate) {
@@ -0,0 +1,168 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+import com.acmerobotics.roadrunner.Pose2d;
+
+/**
+ * Fixed-capacity history of timestamped poses, stored in primitive ring buffers.
+ * <p>
+ * add() overwrites the oldest pose once the buffer is full, and nothing allocates after
+ * construction. Poses can be read by index (0 = oldest) or looked up by timestamp, which
+ * interpolates between the two neighbouring samples. That lets latency compensation ask where the
+ * robot was when a delayed measurement (e.g. a camera frame) was taken.
+ * <p>
+ * Timestamps must be added in increasing order, from System.nanoTime().
+ */
+public class PoseHistory {
+	private final long[] timestamps;
+	private final double[] xs;
+	private final double[] ys;
+	private final double[] headings;
+	private int start = 0;
+	private int size = 0;
+
+	/**
+	 * @param capacity number of poses kept
+	 */
+	public PoseHistory(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1");
+		}
+		timestamps = new long[capacity];
+		xs = new double[capacity];
+		ys = new double[capacity];
+		headings = new double[capacity];
+	}
+
+	public void add(long timestampNanos, double x, double y, double heading) {
+		int index;
+		if (size < timestamps.length) {
+			index = (start + size) % timestamps.length;
+			size++;
+		} else {
+			index = start;
+			start = (start + 1) % timestamps.length;
+		}
+		timestamps[index] = timestampNanos;
+		xs[index] = x;
+		ys[index] = y;
+		headings[index] = heading;
+	}
+
+	public void add(long timestampNanos, Pose2d pose) {
+		add(timestampNanos, pose.position.x, pose.position.y, pose.heading.toDouble());
+	}
+
+	public void clear() {
+		start = 0;
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return timestamps.length;
+	}
+
+	private int physical(int i) {
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("index " + i + ", size " + size);
+		}
+		return (start + i) % timestamps.length;
+	}
+
+	/**
+	 * @param i index from 0 (oldest) to size() - 1 (newest)
+	 */
+	public long getTimestampNanos(int i) {
+		return timestamps[physical(i)];
+	}
+
+	public double getX(int i) {
+		return xs[physical(i)];
+	}
+
+	public double getY(int i) {
+		return ys[physical(i)];
+	}
+
+	public double getHeading(int i) {
+		return headings[physical(i)];
+	}
+
+	/**
+	 * Copies the positions, oldest first, into the given arrays.
+	 *
+	 * @return number of points copied (at most the arrays' length)
+	 */
+	public int copyPositions(double[] xOut, double[] yOut) {
+		int count = Math.min(size, Math.min(xOut.length, yOut.length));
+		// Copy the newest points if the arrays are shorter than the history
+		int first = size - count;
+		for (int i = 0; i < count; i++) {
+			int index = (start + first + i) % timestamps.length;
+			xOut[i] = xs[index];
+			yOut[i] = ys[index];
+		}
+		return count;
+	}
+
+	/**
+	 * Looks up the pose at a time, interpolating between samples. Times before the oldest or after
+	 * the newest sample return that sample.
+	 *
+	 * @param timestampNanos time to look up, from System.nanoTime()
+	 * @param out            receives x, y, heading (length at least 3)
+	 * @return false if the history is empty
+	 */
+	public boolean getPoseAt(long timestampNanos, double[] out) {
+		if (size == 0) return false;
+		if (timestampNanos <= getTimestampNanos(0)) {
+			copy(physical(0), out);
+			return true;
+		}
+		if (timestampNanos >= getTimestampNanos(size - 1)) {
+			copy(physical(size - 1), out);
+			return true;
+		}
+
+		// Binary search for the last sample at or before the timestamp
+		int low = 0;
+		int high = size - 1;
+		while (high - low > 1) {
+			int mid = (low + high) >>> 1;
+			if (getTimestampNanos(mid) <= timestampNanos) {
+				low = mid;
+			} else {
+				high = mid;
+			}
+		}
+
+		int a = physical(low);
+		int b = physical(high);
+		double t = (double) (timestampNanos - timestamps[a]) / (timestamps[b] - timestamps[a]);
+		out[0] = xs[a] + (xs[b] - xs[a]) * t;
+		out[1] = ys[a] + (ys[b] - ys[a]) * t;
+		// Interpolate heading the short way around
+		out[2] = headings[a] + Math.IEEEremainder(headings[b] - headings[a], 2 * Math.PI) * t;
+		return true;
+	}
+
+	/**
+	 * Allocating version of {@link #getPoseAt(long, double[])}.
+	 *
+	 * @return the interpolated pose, or null if the history is empty
+	 */
+	public Pose2d getPoseAt(long timestampNanos) {
+		double[] pose = new double[3];
+		if (!getPoseAt(timestampNanos, pose)) return null;
+		return new Pose2d(pose[0], pose[1], pose[2]);
+	}
+
+	private void copy(int index, double[] out) {
+		out[0] = xs[index];
+		out[1] = ys[index];
+		out[2] = headings[index];
+	}
+}
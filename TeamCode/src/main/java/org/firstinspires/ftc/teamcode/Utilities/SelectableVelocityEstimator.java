@@ -0,0 +1,94 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+/**
+ * Holds one of each estimator and forwards to the selected one, so the mode can be switched
+ * at runtime (e.g. from FTC Dashboard) without allocating.
+ * <p>
+ * Every estimator sees every sample, so switching modes is seamless. RAW reports the hub
+ * velocity with a variance of 0 (not estimated).
+ */
+public class SelectableVelocityEstimator implements VelocityEstimator {
+	private static final int FINITE_DIFFERENCE_CAPACITY = 32;
+
+	private final EmaVelocityEstimator ema;
+	private final KalmanVelocityEstimator kalman;
+	private final FiniteDifferenceVelocityEstimator finiteDifference;
+	private Mode mode;
+	private double rawVelocity = 0;
+
+	/**
+	 * @param mode initial mode; the estimators start with the given defaults
+	 */
+	public SelectableVelocityEstimator(Mode mode, double emaTimeConstantSeconds,
+									   double kalmanProcessNoise, double kalmanPositionNoise, double kalmanVelocityNoise,
+									   int finiteDifferenceWindow) {
+		this.mode = mode;
+		ema = new EmaVelocityEstimator(emaTimeConstantSeconds);
+		kalman = new KalmanVelocityEstimator(kalmanProcessNoise, kalmanPositionNoise, kalmanVelocityNoise);
+		finiteDifference = new FiniteDifferenceVelocityEstimator(FINITE_DIFFERENCE_CAPACITY, finiteDifferenceWindow);
+	}
+
+	public void setMode(Mode mode) {
+		this.mode = mode;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public EmaVelocityEstimator getEma() {
+		return ema;
+	}
+
+	public KalmanVelocityEstimator getKalman() {
+		return kalman;
+	}
+
+	public FiniteDifferenceVelocityEstimator getFiniteDifference() {
+		return finiteDifference;
+	}
+
+	@Override
+	public void update(long timestampNanos, double positionTicks, double measuredVelocity) {
+		rawVelocity = measuredVelocity;
+		ema.update(timestampNanos, positionTicks, measuredVelocity);
+		kalman.update(timestampNanos, positionTicks, measuredVelocity);
+		finiteDifference.update(timestampNanos, positionTicks, measuredVelocity);
+	}
+
+	@Override
+	public double getVelocity() {
+		switch (mode) {
+			case EMA:
+				return ema.getVelocity();
+			case KALMAN:
+				return kalman.getVelocity();
+			case FINITE_DIFFERENCE:
+				return finiteDifference.getVelocity();
+			default:
+				return rawVelocity;
+		}
+	}
+
+	@Override
+	public double getVariance() {
+		switch (mode) {
+			case EMA:
+				return ema.getVariance();
+			case KALMAN:
+				return kalman.getVariance();
+			case FINITE_DIFFERENCE:
+				return finiteDifference.getVariance();
+			default:
+				return 0;
+		}
+	}
+
+	@Override
+	public void reset() {
+		rawVelocity = 0;
+		ema.reset();
+		kalman.reset();
+		finiteDifference.reset();
+	}
+}
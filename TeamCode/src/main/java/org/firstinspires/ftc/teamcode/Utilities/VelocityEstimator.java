@@ -0,0 +1,55 @@
+package org.firstinspires.ftc.teamcode.Utilities;
+
+/**
+ * Estimates the velocity of an encoder from samples taken once per loop.
+ * <p>
+ * Implementations keep their history in preallocated fields, so update() never allocates.
+ * All values are in encoder units: ticks, ticks per second and (ticks per second)^2.
+ */
+public interface VelocityEstimator {
+	/**
+	 * Estimator implementations selectable through {@link SelectableVelocityEstimator}.
+	 */
+	enum Mode {
+		/**
+		 * Hub-reported velocity, unfiltered
+		 */
+		RAW,
+		/**
+		 * {@link EmaVelocityEstimator}
+		 */
+		EMA,
+		/**
+		 * {@link KalmanVelocityEstimator}
+		 */
+		KALMAN,
+		/**
+		 * {@link FiniteDifferenceVelocityEstimator}
+		 */
+		FINITE_DIFFERENCE
+	}
+
+	/**
+	 * Adds one sample. Call once per loop with the loop's timestamp.
+	 *
+	 * @param timestampNanos   System.nanoTime() when the sample was read
+	 * @param positionTicks    encoder position, in ticks
+	 * @param measuredVelocity velocity reported by the hub, in ticks per second
+	 */
+	void update(long timestampNanos, double positionTicks, double measuredVelocity);
+
+	/**
+	 * @return estimated velocity, in ticks per second
+	 */
+	double getVelocity();
+
+	/**
+	 * @return variance of the velocity estimate, in (ticks per second)^2
+	 */
+	double getVariance();
+
+	/**
+	 * Forgets all history. The next update() re-initializes the estimate.
+	 */
+	void reset();
+}
@@ -0,0 +1,58 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.Utilities.ColorClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ColorDetector's RGB averaging, RGB-to-HSV conversion and green/purple classification, through
+ * ColorClassifier. Thresholds are ColorDetector's defaults; keep them in sync.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ColorClassificationBenchmark {
+	private static final double GREEN_HUE_MIN = 100;
+	private static final double GREEN_HUE_MAX = 140;
+	private static final double PURPLE_HUE_MIN = 250;
+	private static final double PURPLE_HUE_MAX = 290;
+	private static final double MIN_SATURATION = 0.4;
+
+	// Left/right sensor readings: green ball, purple ball, empty slot
+	private static final int[][] READINGS = {
+			{40, 160, 70, 44, 150, 66},
+			{110, 60, 200, 104, 58, 190},
+			{30, 30, 30, 28, 31, 29},
+	};
+
+	private final float[] avgHSV = new float[3];
+	private int index;
+
+	@Setup
+	public void setup() {
+		index = 0;
+	}
+
+	@Benchmark
+	public void classify(Blackhole blackhole) {
+		int[] reading = READINGS[index];
+		index = index == READINGS.length - 1 ? 0 : index + 1;
+
+		int avgRed = (reading[0] + reading[3]) / 2;
+		int avgGreen = (reading[1] + reading[4]) / 2;
+		int avgBlue = (reading[2] + reading[5]) / 2;
+
+		ColorClassifier.rgbToHsv(avgRed, avgGreen, avgBlue, avgHSV);
+
+		blackhole.consume(ColorClassifier.isInHueRange(avgHSV, GREEN_HUE_MIN, GREEN_HUE_MAX, MIN_SATURATION));
+		blackhole.consume(ColorClassifier.isInHueRange(avgHSV, PURPLE_HUE_MIN, PURPLE_HUE_MAX, MIN_SATURATION));
+	}
+}
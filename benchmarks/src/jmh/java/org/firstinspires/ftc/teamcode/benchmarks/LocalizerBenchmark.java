@@ -0,0 +1,80 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.Roadrunner.PinpointPose;
+import org.firstinspires.ftc.teamcode.Utilities.ConcurrentPoseHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pose math of PinpointLocalizer, through PinpointPose and ConcurrentPoseHistory:
+ * - pinpointUpdate: update(double[]) and getPose(double[]) after a reading
+ * - pinpointPoseAt: getPoseAt(long, double[]) with the async poller's history
+ * Device reads are replaced by synthetic readings that advance every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LocalizerBenchmark {
+	// PinpointLocalizer's defaults: ASYNC_HISTORY_CAPACITY, MAX_EXTRAPOLATION_MS and ASYNC_RATE_HZ
+	private static final int HISTORY_CAPACITY = 512;
+	private static final long MAX_EXTRAPOLATION_NANOS = 50_000_000L;
+	private static final long READ_PERIOD_NANOS = 1_000_000_000L / 300;
+	// Lookups sweep from this far behind the newest reading to half the extrapolation limit past it
+	private static final long LOOKBACK_NANOS = 100_000_000L;
+
+	private final double[] pose = new double[3];
+	private final double[] velocity = new double[3];
+	private PinpointPose pinpointPose;
+	private ConcurrentPoseHistory history;
+	private double pinpointX, pinpointY, pinpointHeading;
+	private long newestNanos, queryNanos;
+
+	@Setup
+	public void setup() {
+		pinpointPose = new PinpointPose(60, -9, 0);
+		pinpointX = pinpointY = pinpointHeading = 0;
+
+		history = new ConcurrentPoseHistory(HISTORY_CAPACITY);
+		for (int i = 0; i < HISTORY_CAPACITY; i++) {
+			history.add(new ConcurrentPoseHistory.Sample(i * READ_PERIOD_NANOS,
+					i * 0.2, i * -0.08, i * 0.004, 20.0, -8.0, 0.4));
+		}
+		newestNanos = (HISTORY_CAPACITY - 1) * READ_PERIOD_NANOS;
+		queryNanos = newestNanos - LOOKBACK_NANOS;
+	}
+
+	@Benchmark
+	public void pinpointUpdate(Blackhole blackhole) {
+		pinpointX += 0.05;
+		pinpointY -= 0.02;
+		pinpointHeading += 0.001;
+
+		pinpointPose.apply(true, pinpointX, pinpointY, pinpointHeading, 20.0, -8.0, 0.2);
+		pinpointPose.getVelocity(velocity);
+		pinpointPose.getPose(pose);
+
+		blackhole.consume(velocity);
+		blackhole.consume(pose);
+	}
+
+	@Benchmark
+	public void pinpointPoseAt(Blackhole blackhole) {
+		queryNanos += 1_000_000L;
+		if (queryNanos > newestNanos + MAX_EXTRAPOLATION_NANOS / 2) {
+			queryNanos = newestNanos - LOOKBACK_NANOS;
+		}
+
+		if (history.getPoseAt(queryNanos, MAX_EXTRAPOLATION_NANOS, pose)) {
+			pinpointPose.toWorld(pose[0], pose[1], pose[2], pose);
+		}
+		blackhole.consume(pose);
+	}
+}
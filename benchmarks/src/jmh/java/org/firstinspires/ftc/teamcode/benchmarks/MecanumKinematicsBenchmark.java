@@ -0,0 +1,42 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.Roadrunner.MecanumControl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The kinematics in MecanumDrive.setDrivePowers(), which MainTeleOp calls every loop:
+ * MecanumControl.drivePowers(). The motor writes are replaced by a Blackhole.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MecanumKinematicsBenchmark {
+	private final double[] wheelPowers = new double[4];
+	private double forward, strafe, turn;
+
+	@Setup
+	public void setup() {
+		forward = 0.6;
+		strafe = -0.3;
+		turn = 0.4;
+	}
+
+	@Benchmark
+	public void setDrivePowers(Blackhole blackhole) {
+		MecanumControl.drivePowers(forward, strafe, turn, wheelPowers);
+
+		blackhole.consume(wheelPowers[0]);
+		blackhole.consume(wheelPowers[1]);
+		blackhole.consume(wheelPowers[2]);
+		blackhole.consume(wheelPowers[3]);
+	}
+}
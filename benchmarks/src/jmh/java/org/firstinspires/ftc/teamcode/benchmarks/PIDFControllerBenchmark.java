@@ -0,0 +1,91 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import org.firstinspires.ftc.teamcode.Utilities.PIDFController;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PIDFController.getOutputAt() as called by Spindexer.update() every loop: the derivative filter
+ * and fixed rate are set, then the output is computed for the encoder position, the profile's
+ * setpoint and the loop's timestamp. Timestamps advance by LOOP_PERIOD_NANOS per invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PIDFControllerBenchmark {
+	// Spindexer defaults: P, I, D, F, D_FILTER_SECONDS and CONTROL_RATE_HZ
+	private static final double P = 0.01, I = 0, D = 0, F = 0;
+	private static final double D_FILTER_SECONDS = 0.02;
+	private static final double CONTROL_RATE_HZ = 0;
+	// A 100 Hz OpMode loop
+	private static final long LOOP_PERIOD_NANOS = 10_000_000L;
+
+	private PIDFController controller;
+	private PIDFController fixedRateController;
+	private PIDFController fullController;
+	private double actual, setpoint;
+	private long timestampNanos;
+
+	@Setup
+	public void setup() {
+		controller = new PIDFController(P, I, D, F);
+		controller.setOutputLimits(-1, 1);
+
+		// Spindexer with CONTROL_RATE_HZ set to half the loop rate, so every other call holds
+		fixedRateController = new PIDFController(P, I, D, F);
+		fixedRateController.setOutputLimits(-1, 1);
+
+		// Every optional stage enabled, to cover the slowest path
+		fullController = new PIDFController(0.01, 0.0005, 0.002, 0.0001);
+		fullController.setOutputLimits(-1, 1);
+		fullController.setMaxIOutput(0.3);
+		fullController.setOutputRampRate(0.1);
+		fullController.setOutputFilter(0.2);
+		fullController.setSetpointRange(2000);
+
+		actual = 0;
+		setpoint = 0;
+		timestampNanos = 0;
+	}
+
+	/**
+	 * Walks the measurement behind a moving setpoint, so the branch pattern resembles a profiled
+	 * move, and advances the loop time.
+	 */
+	private void step() {
+		setpoint = setpoint >= 8192 ? 0 : setpoint + 8;
+		actual = setpoint - 40;
+		timestampNanos += LOOP_PERIOD_NANOS;
+	}
+
+	@Benchmark
+	public double spindexerUpdate() {
+		step();
+		controller.setDerivativeFilter(D_FILTER_SECONDS);
+		controller.setFixedRate(CONTROL_RATE_HZ);
+		return controller.getOutputAt(actual, setpoint, timestampNanos);
+	}
+
+	@Benchmark
+	public double spindexerFixedRate() {
+		step();
+		fixedRateController.setDerivativeFilter(D_FILTER_SECONDS);
+		fixedRateController.setFixedRate(1e9 / LOOP_PERIOD_NANOS / 2);
+		return fixedRateController.getOutputAt(actual, setpoint, timestampNanos);
+	}
+
+	@Benchmark
+	public double allStagesEnabled() {
+		step();
+		fullController.setDerivativeFilter(D_FILTER_SECONDS);
+		fullController.setFixedRate(CONTROL_RATE_HZ);
+		return fullController.getOutputAt(actual, setpoint, timestampNanos);
+	}
+}
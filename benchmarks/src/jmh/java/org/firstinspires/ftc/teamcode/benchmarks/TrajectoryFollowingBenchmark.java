@@ -0,0 +1,149 @@
+package org.firstinspires.ftc.teamcode.benchmarks;
+
+import com.acmerobotics.roadrunner.AngularVelConstraint;
+import com.acmerobotics.roadrunner.HolonomicController;
+import com.acmerobotics.roadrunner.MecanumKinematics;
+import com.acmerobotics.roadrunner.MinVelConstraint;
+import com.acmerobotics.roadrunner.MotorFeedforward;
+import com.acmerobotics.roadrunner.Pose2d;
+import com.acmerobotics.roadrunner.Pose2dDual;
+import com.acmerobotics.roadrunner.PoseVelocity2d;
+import com.acmerobotics.roadrunner.PoseVelocity2dDual;
+import com.acmerobotics.roadrunner.ProfileAccelConstraint;
+import com.acmerobotics.roadrunner.ProfileParams;
+import com.acmerobotics.roadrunner.Time;
+import com.acmerobotics.roadrunner.TimeTrajectory;
+import com.acmerobotics.roadrunner.TrajectoryActionBuilder;
+import com.acmerobotics.roadrunner.TrajectoryBuilderParams;
+import com.acmerobotics.roadrunner.TurnConstraints;
+import com.acmerobotics.roadrunner.Vector2d;
+
+import org.firstinspires.ftc.teamcode.Roadrunner.MecanumControl;
+import org.firstinspires.ftc.teamcode.Roadrunner.SampledTrajectory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The math of one follower tick, both ways MecanumDrive can follow:
+ * - followTrajectoryStep: FollowTrajectoryAction, i.e. TimeTrajectory.get(), HolonomicController,
+ * inverse kinematics and MotorFeedforward through Roadrunner's DualNum math
+ * - sampledFollowStep: SampledFollowTrajectoryAction (the default), i.e. SampledTrajectory.sample()
+ * and MecanumControl.track(), the TeamCode classes themselves
+ * <p>
+ * Parameters match MecanumDrive.Params; the trajectory is BlueAudienceAuto's first move to the
+ * shooting position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrajectoryFollowingBenchmark {
+	// MecanumDrive.Params defaults
+	private static final double IN_PER_TICK = 0.001984;
+	private static final double LATERAL_IN_PER_TICK = -0.001466;
+	private static final double TRACK_WIDTH_TICKS = 13055.303784;
+	private static final double KS = 1.071985, KV = 0.000348, KA = 0.00007;
+	private static final double MAX_WHEEL_VEL = 50, MIN_PROFILE_ACCEL = -30, MAX_PROFILE_ACCEL = 50;
+	private static final double MAX_ANG_VEL = Math.PI, MAX_ANG_ACCEL = Math.PI;
+	private static final double AXIAL_GAIN = 3.0, LATERAL_GAIN = 3.0, HEADING_GAIN = 4.0;
+	private static final double VOLTAGE = 12.5;
+	// MecanumDrive.FOLLOWER_SAMPLE_DT
+	private static final double SAMPLE_DT = 0.01;
+
+	private MecanumKinematics kinematics;
+	private TimeTrajectory trajectory;
+	private Pose2d pose;
+	private PoseVelocity2d robotVel;
+	private double t;
+
+	private SampledTrajectory samples;
+	private MecanumControl control;
+	private final double[] poseArray = new double[3];
+	private final double[] robotVelArray = new double[3];
+	private final double[] wheelPowers = new double[4];
+
+	@Setup
+	public void setup() {
+		kinematics = new MecanumKinematics(IN_PER_TICK * TRACK_WIDTH_TICKS, IN_PER_TICK / LATERAL_IN_PER_TICK);
+
+		// Capture the TimeTrajectory the builder would hand to FollowTrajectoryAction
+		List<TimeTrajectory> trajectories = new ArrayList<>();
+		new TrajectoryActionBuilder(
+				turn -> p -> false,
+				traj -> {
+					trajectories.add(traj);
+					return p -> false;
+				},
+				new TrajectoryBuilderParams(1e-6, new ProfileParams(0.25, 0.1, 1e-2)),
+				new Pose2d(54, -9, 0), 0.0,
+				new TurnConstraints(MAX_ANG_VEL, -MAX_ANG_ACCEL, MAX_ANG_ACCEL),
+				new MinVelConstraint(Arrays.asList(
+						kinematics.new WheelVelConstraint(MAX_WHEEL_VEL),
+						new AngularVelConstraint(MAX_ANG_VEL))),
+				new ProfileAccelConstraint(MIN_PROFILE_ACCEL, MAX_PROFILE_ACCEL)
+		)
+				.strafeToLinearHeading(new Vector2d(57, -23), Math.toRadians(-134))
+				.build();
+		trajectory = trajectories.get(0);
+
+		pose = new Pose2d(55, -12, Math.toRadians(-20));
+		robotVel = new PoseVelocity2d(new Vector2d(10, -4), -0.5);
+		t = 0;
+
+		samples = new SampledTrajectory(trajectory, SAMPLE_DT);
+		control = new MecanumControl(IN_PER_TICK * TRACK_WIDTH_TICKS, IN_PER_TICK / LATERAL_IN_PER_TICK);
+		control.setGains(AXIAL_GAIN, LATERAL_GAIN, HEADING_GAIN, 0.0, 0.0, 0.0);
+		control.setFeedforward(KS, KV / IN_PER_TICK, KA / IN_PER_TICK);
+		poseArray[0] = pose.position.x;
+		poseArray[1] = pose.position.y;
+		poseArray[2] = pose.heading.toDouble();
+		robotVelArray[0] = robotVel.linearVel.x;
+		robotVelArray[1] = robotVel.linearVel.y;
+		robotVelArray[2] = robotVel.angVel;
+	}
+
+	@Benchmark
+	public void followTrajectoryStep(Blackhole blackhole) {
+		t += 0.005;
+		if (t >= trajectory.duration) {
+			t = 0;
+		}
+
+		Pose2dDual<Time> txWorldTarget = trajectory.get(t);
+
+		PoseVelocity2dDual<Time> command = new HolonomicController(
+				AXIAL_GAIN, LATERAL_GAIN, HEADING_GAIN, 0.0, 0.0, 0.0
+		)
+				.compute(txWorldTarget, pose, robotVel);
+
+		MecanumKinematics.WheelVelocities<Time> wheelVels = kinematics.inverse(command);
+
+		final MotorFeedforward feedforward = new MotorFeedforward(KS, KV / IN_PER_TICK, KA / IN_PER_TICK);
+		blackhole.consume(feedforward.compute(wheelVels.leftFront) / VOLTAGE);
+		blackhole.consume(feedforward.compute(wheelVels.leftBack) / VOLTAGE);
+		blackhole.consume(feedforward.compute(wheelVels.rightBack) / VOLTAGE);
+		blackhole.consume(feedforward.compute(wheelVels.rightFront) / VOLTAGE);
+	}
+
+	@Benchmark
+	public void sampledFollowStep(Blackhole blackhole) {
+		t += 0.005;
+		if (t >= samples.getDuration()) {
+			t = 0;
+		}
+
+		samples.sample(t);
+		control.track(samples, poseArray, robotVelArray, VOLTAGE, wheelPowers);
+		blackhole.consume(wheelPowers);
+	}
+}
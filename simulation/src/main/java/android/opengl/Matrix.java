@@ -0,0 +1,132 @@
+package android.opengl;
+
+/**
+ * Desktop stand-in for android.opengl.Matrix, with the methods the FTC SDK's OpenGLMatrix calls.
+ * Matrices are 4x4, column-major, as on Android.
+ */
+public class Matrix {
+	public static void setIdentityM(float[] sm, int smOffset) {
+		for (int i = 0; i < 16; i++) {
+			sm[smOffset + i] = 0;
+		}
+		for (int i = 0; i < 16; i += 5) {
+			sm[smOffset + i] = 1;
+		}
+	}
+
+	public static void multiplyMM(float[] result, int resultOffset, float[] lhs, int lhsOffset,
+								  float[] rhs, int rhsOffset) {
+		float[] product = new float[16];
+		for (int column = 0; column < 4; column++) {
+			for (int row = 0; row < 4; row++) {
+				float sum = 0;
+				for (int k = 0; k < 4; k++) {
+					sum += lhs[lhsOffset + k * 4 + row] * rhs[rhsOffset + column * 4 + k];
+				}
+				product[column * 4 + row] = sum;
+			}
+		}
+		System.arraycopy(product, 0, result, resultOffset, 16);
+	}
+
+	public static boolean invertM(float[] mInv, int mInvOffset, float[] m, int mOffset) {
+		// Gauss-Jordan elimination with partial pivoting, in double precision
+		double[][] a = new double[4][8];
+		for (int row = 0; row < 4; row++) {
+			for (int column = 0; column < 4; column++) {
+				a[row][column] = m[mOffset + column * 4 + row];
+			}
+			a[row][4 + row] = 1;
+		}
+		for (int column = 0; column < 4; column++) {
+			int pivot = column;
+			for (int row = column + 1; row < 4; row++) {
+				if (Math.abs(a[row][column]) > Math.abs(a[pivot][column])) pivot = row;
+			}
+			if (a[pivot][column] == 0) return false;
+			double[] swap = a[column];
+			a[column] = a[pivot];
+			a[pivot] = swap;
+			double scale = a[column][column];
+			for (int k = 0; k < 8; k++) {
+				a[column][k] /= scale;
+			}
+			for (int row = 0; row < 4; row++) {
+				if (row == column) continue;
+				double factor = a[row][column];
+				for (int k = 0; k < 8; k++) {
+					a[row][k] -= factor * a[column][k];
+				}
+			}
+		}
+		for (int row = 0; row < 4; row++) {
+			for (int column = 0; column < 4; column++) {
+				mInv[mInvOffset + column * 4 + row] = (float) a[row][4 + column];
+			}
+		}
+		return true;
+	}
+
+	public static void setRotateM(float[] rm, int rmOffset, float a, float x, float y, float z) {
+		setIdentityM(rm, rmOffset);
+		double radians = Math.toRadians(a);
+		float s = (float) Math.sin(radians);
+		float c = (float) Math.cos(radians);
+		float length = (float) Math.sqrt(x * x + y * y + z * z);
+		if (length != 1 && length != 0) {
+			x /= length;
+			y /= length;
+			z /= length;
+		}
+		float nc = 1 - c;
+		rm[rmOffset] = x * x * nc + c;
+		rm[rmOffset + 1] = y * x * nc + z * s;
+		rm[rmOffset + 2] = x * z * nc - y * s;
+		rm[rmOffset + 4] = x * y * nc - z * s;
+		rm[rmOffset + 5] = y * y * nc + c;
+		rm[rmOffset + 6] = y * z * nc + x * s;
+		rm[rmOffset + 8] = x * z * nc + y * s;
+		rm[rmOffset + 9] = y * z * nc - x * s;
+		rm[rmOffset + 10] = z * z * nc + c;
+	}
+
+	public static void rotateM(float[] rm, int rmOffset, float[] m, int mOffset,
+							   float a, float x, float y, float z) {
+		float[] rotation = new float[16];
+		setRotateM(rotation, 0, a, x, y, z);
+		multiplyMM(rm, rmOffset, m, mOffset, rotation, 0);
+	}
+
+	public static void rotateM(float[] m, int mOffset, float a, float x, float y, float z) {
+		rotateM(m, mOffset, m, mOffset, a, x, y, z);
+	}
+
+	public static void scaleM(float[] sm, int smOffset, float[] m, int mOffset, float x, float y, float z) {
+		for (int i = 0; i < 4; i++) {
+			sm[smOffset + i] = m[mOffset + i] * x;
+			sm[smOffset + 4 + i] = m[mOffset + 4 + i] * y;
+			sm[smOffset + 8 + i] = m[mOffset + 8 + i] * z;
+			sm[smOffset + 12 + i] = m[mOffset + 12 + i];
+		}
+	}
+
+	public static void scaleM(float[] m, int mOffset, float x, float y, float z) {
+		scaleM(m, mOffset, m, mOffset, x, y, z);
+	}
+
+	public static void translateM(float[] tm, int tmOffset, float[] m, int mOffset, float x, float y, float z) {
+		for (int i = 0; i < 12; i++) {
+			tm[tmOffset + i] = m[mOffset + i];
+		}
+		for (int i = 0; i < 4; i++) {
+			tm[tmOffset + 12 + i] = m[mOffset + i] * x + m[mOffset + 4 + i] * y
+					+ m[mOffset + 8 + i] * z + m[mOffset + 12 + i];
+		}
+	}
+
+	public static void translateM(float[] m, int mOffset, float x, float y, float z) {
+		for (int i = 0; i < 4; i++) {
+			m[mOffset + 12 + i] += m[mOffset + i] * x + m[mOffset + 4 + i] * y + m[mOffset + 8 + i] * z;
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package android.os;
+
+/**
+ * Desktop stand-in for android.os.Debug, with the allocation counter ActionScheduler reads when
+ * TRACK_ALLOCATIONS is on. The JVM has no per-thread allocation count, so it always reads 0.
+ */
+public class Debug {
+	public static void startAllocCounting() {
+	}
+
+	public static void stopAllocCounting() {
+	}
+
+	public static int getThreadAllocCount() {
+		return 0;
+	}
+}
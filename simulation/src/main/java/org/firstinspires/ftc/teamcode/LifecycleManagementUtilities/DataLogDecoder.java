@@ -0,0 +1,212 @@
+package org.firstinspires.ftc.teamcode.LifecycleManagementUtilities;
+
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Desktop decoder for DataLog files. Writes one CSV per record type, with a time column in
+ * seconds since the oldest row in the log followed by the record's columns. read() gives the
+ * rows to other desktop tools, such as LogReplay.
+ * <p>
+ * Uses only the JDK, so it also runs straight from source. Pull a log off the robot with
+ * adb pull /sdcard/FIRST/datalogs, then:
+ * <pre>
+ * ./gradlew :simulation:decodeLog -Plog=datalogs/datalog-XXXX.bin [-Pout=output dir]
+ * java simulation/src/main/java/org/firstinspires/ftc/teamcode/LifecycleManagementUtilities/DataLogDecoder.java datalog-XXXX.bin [output dir]
+ * </pre>
+ * The output goes to a directory named after the log unless one is given.
+ */
+public class DataLogDecoder {
+	// Must match DataLog; this file has no other dependencies so it can run on its own
+	private static final int MAGIC = 0x444C4F47;
+	private static final int VERSION = 1;
+	private static final int BYTES_WRITTEN_OFFSET = 24;
+	private static final int SCHEMA_OFFSET = 48;
+	private static final int RECORD_HEADER_SIZE = 2 + 8;
+
+	private static final class Schema {
+		final String name;
+		final String[] columns;
+		final float[] values;
+
+		Schema(String name, String[] columns) {
+			this.name = name;
+			this.columns = columns;
+			this.values = new float[columns.length];
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: DataLogDecoder <datalog.bin> [output dir]");
+			System.exit(1);
+		}
+		File input = new File(args[0]);
+		File outputDir = args.length > 1
+				? new File(args[1])
+				: new File(input.getParentFile(), input.getName().replaceFirst("\\.bin$", ""));
+		decode(input, outputDir);
+	}
+
+	/**
+	 * Receives the rows of a log, oldest first.
+	 */
+	public interface Visitor {
+		/**
+		 * @param name           record name
+		 * @param columns        record's column names
+		 * @param timestampNanos System.nanoTime() on the robot when the row was committed
+		 * @param values         the row; reused for the next row of the same record
+		 */
+		void row(String name, String[] columns, long timestampNanos, float[] values) throws IOException;
+	}
+
+	/**
+	 * Summary of a log, returned by read().
+	 */
+	public static final class Info {
+		public final long bytesWritten;
+		public final long ringSize;
+		// System.nanoTime() on the robot when the log was opened
+		public final long startNanos;
+		public final long corruptBlocks;
+
+		private Info(long bytesWritten, long ringSize, long startNanos, long corruptBlocks) {
+			this.bytesWritten = bytesWritten;
+			this.ringSize = ringSize;
+			this.startNanos = startNanos;
+			this.corruptBlocks = corruptBlocks;
+		}
+
+		public boolean isWrapped() {
+			return bytesWritten > ringSize;
+		}
+	}
+
+	/**
+	 * Reads every row still in a log, in the order they were committed.
+	 */
+	public static Info read(File input, Visitor visitor) throws IOException {
+		byte[] bytes = new byte[(int) input.length()];
+		try (DataInputStream in = new DataInputStream(new FileInputStream(input))) {
+			in.readFully(bytes);
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		if (buffer.getInt(0) != MAGIC) throw new IOException(input + " is not a DataLog file");
+		if (buffer.getInt(4) != VERSION) throw new IOException("Unsupported DataLog version " + buffer.getInt(4));
+		int headerSize = buffer.getInt(8);
+		int blockSize = buffer.getInt(12);
+		long ringSize = buffer.getLong(16);
+		long bytesWritten = buffer.getLong(BYTES_WRITTEN_OFFSET);
+		long startNanos = buffer.getLong(40);
+
+		Map<Short, Schema> schemas = new HashMap<>();
+		buffer.position(SCHEMA_OFFSET);
+		int schemaCount = buffer.getInt();
+		for (int i = 0; i < schemaCount; i++) {
+			short id = buffer.getShort();
+			String name = getUtf(buffer);
+			String[] columns = new String[buffer.getShort()];
+			for (int c = 0; c < columns.length; c++) {
+				columns[c] = getUtf(buffer);
+			}
+			schemas.put(id, new Schema(name, columns));
+		}
+
+		// Once the ring has wrapped, the oldest intact block is the one after the write position
+		long end = bytesWritten;
+		long start = Math.max(0, (end + blockSize - 1) / blockSize * blockSize - ringSize);
+		long corrupt = 0;
+		for (long blockStart = start; blockStart < end; blockStart += blockSize) {
+			long blockEnd = Math.min(blockStart + blockSize, end);
+			long position = blockStart;
+			while (position + RECORD_HEADER_SIZE <= blockEnd) {
+				int offset = headerSize + (int) (position % ringSize);
+				short id = buffer.getShort(offset);
+				if (id == 0) break;
+				Schema schema = schemas.get(id);
+				if (schema == null) {
+					// Corrupt block; move on to the next one
+					corrupt++;
+					break;
+				}
+				long timestamp = buffer.getLong(offset + 2);
+				for (int c = 0; c < schema.values.length; c++) {
+					schema.values[c] = buffer.getFloat(offset + RECORD_HEADER_SIZE + 4 * c);
+				}
+				visitor.row(schema.name, schema.columns, timestamp, schema.values);
+				position += RECORD_HEADER_SIZE + 4L * schema.columns.length;
+			}
+		}
+		return new Info(bytesWritten, ringSize, startNanos, corrupt);
+	}
+
+	public static void decode(File input, File outputDir) throws IOException {
+		if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+			throw new IOException("Can't create " + outputDir);
+		}
+
+		Map<String, Writer> writers = new LinkedHashMap<>();
+		Map<String, Long> rows = new LinkedHashMap<>();
+		long[] startNanos = {Long.MIN_VALUE};
+		Info info;
+		try {
+			info = read(input, (name, columns, timestampNanos, values) -> {
+				Writer out = writers.get(name);
+				if (out == null) {
+					out = open(new File(outputDir, name + ".csv"), columns);
+					writers.put(name, out);
+				}
+				if (startNanos[0] == Long.MIN_VALUE) startNanos[0] = timestampNanos;
+				StringBuilder row = new StringBuilder();
+				row.append((timestampNanos - startNanos[0]) / 1e9);
+				for (float value : values) {
+					row.append(',').append(value);
+				}
+				out.write(row.append('\n').toString());
+				rows.merge(name, 1L, Long::sum);
+			});
+		} finally {
+			for (Writer out : writers.values()) {
+				out.close();
+			}
+		}
+
+		System.out.println(input.getName() + ": " + info.bytesWritten + " bytes written"
+				+ (info.isWrapped() ? ", wrapped (oldest data overwritten)" : ""));
+		for (Map.Entry<String, Long> entry : rows.entrySet()) {
+			System.out.println("  " + entry.getKey() + ": " + entry.getValue() + " rows");
+		}
+		if (info.corruptBlocks > 0) {
+			System.out.println("  " + info.corruptBlocks + " corrupt blocks skipped");
+		}
+	}
+
+	private static Writer open(File file, String[] columns) throws IOException {
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+		out.write("time_s");
+		for (String column : columns) {
+			out.write(',');
+			out.write(column);
+		}
+		out.write('\n');
+		return out;
+	}
+
+	private static String getUtf(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getShort()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
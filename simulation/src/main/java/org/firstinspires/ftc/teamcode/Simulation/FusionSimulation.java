@@ -0,0 +1,222 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.acmerobotics.roadrunner.Pose2d;
+import com.acmerobotics.roadrunner.PoseVelocity2d;
+import com.acmerobotics.roadrunner.Vector2d;
+
+import org.firstinspires.ftc.teamcode.Roadrunner.FusionLocalizer;
+import org.firstinspires.ftc.teamcode.Roadrunner.Localizer;
+
+/**
+ * Drives the simulated drivetrain around for a match with drifting odometry and delayed,
+ * noisy SimTagSource fixes, and reports how far the odometry alone and the FusionLocalizer end
+ * up from the true pose.
+ * <p>
+ * Everything runs on simulated time, so results are repeatable for a given seed. Use it to tune
+ * FusionLocalizer's noise parameters and gate against a known drift before trying them on the
+ * robot.
+ * <p>
+ * outOfOrderDifference() checks the out-of-sequence handling: with jittered latency the fixes
+ * arrive out of order, and the result must be the same as when they arrive in order.
+ */
+public class FusionSimulation {
+	/**
+	 * Odometry distance error, as a fraction of distance driven
+	 */
+	public static double ODOMETRY_SCALE_ERROR = 0.015;
+	/**
+	 * Odometry heading error, as a fraction of angle turned
+	 */
+	public static double ODOMETRY_HEADING_SCALE_ERROR = 0.005;
+	/**
+	 * Odometry heading drift while moving or not, in degrees per minute
+	 */
+	public static double ODOMETRY_HEADING_DRIFT_DEG_PER_MIN = 1.0;
+
+	/**
+	 * Position error statistics of a run, in inches.
+	 */
+	public static class Result {
+		public final double seconds;
+		public final double odometryRmsError, odometryMaxError;
+		public final double fusedRmsError, fusedMaxError;
+		public final int delivered, accepted, rejected;
+		/**
+		 * Fused pose at the end, once every fix still in the pipeline has been delivered
+		 */
+		public final Pose2d fusedPose;
+
+		Result(double seconds, double odometryRmsError, double odometryMaxError,
+			   double fusedRmsError, double fusedMaxError, int delivered, int accepted, int rejected,
+			   Pose2d fusedPose) {
+			this.seconds = seconds;
+			this.odometryRmsError = odometryRmsError;
+			this.odometryMaxError = odometryMaxError;
+			this.fusedRmsError = fusedRmsError;
+			this.fusedMaxError = fusedMaxError;
+			this.delivered = delivered;
+			this.accepted = accepted;
+			this.rejected = rejected;
+			this.fusedPose = fusedPose;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%.0f s: odometry error rms %.2f in, max %.2f in; fused rms %.2f in, max %.2f in; "
+							+ "%d fixes, %d accepted, %d rejected",
+					seconds, odometryRmsError, odometryMaxError, fusedRmsError, fusedMaxError,
+					delivered, accepted, rejected);
+		}
+	}
+
+	/**
+	 * Odometry that integrates the true motion with scale errors and heading drift.
+	 */
+	private static class DriftingOdometry implements Localizer {
+		private final SimDrivetrain drivetrain;
+		private Pose2d lastTrue;
+		private double x, y, heading;
+		private double lastSeconds = 0;
+		private double seconds = 0;
+
+		DriftingOdometry(SimDrivetrain drivetrain) {
+			this.drivetrain = drivetrain;
+			lastTrue = drivetrain.getTruePose();
+			x = lastTrue.position.x;
+			y = lastTrue.position.y;
+			heading = lastTrue.heading.toDouble();
+		}
+
+		void setTime(double seconds) {
+			this.seconds = seconds;
+		}
+
+		@Override
+		public Pose2d getPose() {
+			return new Pose2d(x, y, heading);
+		}
+
+		@Override
+		public void setPose(Pose2d pose) {
+			x = pose.position.x;
+			y = pose.position.y;
+			heading = pose.heading.toDouble();
+		}
+
+		@Override
+		public PoseVelocity2d update() {
+			Pose2d truth = drivetrain.getTruePose();
+			Pose2d step = lastTrue.inverse().times(truth);
+			lastTrue = truth;
+
+			double scale = 1 + ODOMETRY_SCALE_ERROR;
+			double stepX = step.position.x * scale;
+			double stepY = step.position.y * scale;
+			double cos = Math.cos(heading);
+			double sin = Math.sin(heading);
+			x += cos * stepX - sin * stepY;
+			y += sin * stepX + cos * stepY;
+			heading += step.heading.toDouble() * (1 + ODOMETRY_HEADING_SCALE_ERROR)
+					+ Math.toRadians(ODOMETRY_HEADING_DRIFT_DEG_PER_MIN / 60) * (seconds - lastSeconds);
+			lastSeconds = seconds;
+			return new PoseVelocity2d(new Vector2d(0, 0), 0);
+		}
+	}
+
+	/**
+	 * @param seconds   simulated time to drive for
+	 * @param dtSeconds simulated time per loop
+	 * @param seed      seed for the tag noise
+	 */
+	public static Result run(double seconds, double dtSeconds, long seed) {
+		SimMotor leftFront = new SimMotor("frontLeft", 537.7);
+		SimMotor leftBack = new SimMotor("rearLeft", 537.7);
+		SimMotor rightBack = new SimMotor("rearRight", 537.7);
+		SimMotor rightFront = new SimMotor("frontRight", 537.7);
+		SimDrivetrain drivetrain = new SimDrivetrain(leftFront, leftBack, rightBack, rightFront);
+
+		long[] clock = {0};
+		DriftingOdometry odometry = new DriftingOdometry(drivetrain);
+		FusionLocalizer fusion = new FusionLocalizer(odometry);
+		SimTagSource tags = new SimTagSource(drivetrain::getTruePose, () -> clock[0], seed);
+
+		int loops = (int) Math.round(seconds / dtSeconds);
+		double odometrySquared = 0, odometryMax = 0;
+		double fusedSquared = 0, fusedMax = 0;
+		for (int i = 0; i < loops; i++) {
+			double t = i * dtSeconds;
+			// Wander around with a mix of driving, strafing and turning
+			double vx = 0.5 * Math.sin(0.3 * t);
+			double vy = 0.4 * Math.cos(0.23 * t);
+			double omega = 0.3 * Math.sin(0.11 * t);
+			leftFront.setPower(vx - vy - omega);
+			leftBack.setPower(vx + vy - omega);
+			rightBack.setPower(vx - vy + omega);
+			rightFront.setPower(vx + vy + omega);
+			drivetrain.step(dtSeconds, 12.0);
+
+			clock[0] = (long) ((t + dtSeconds) * 1e9);
+			odometry.setTime(t + dtSeconds);
+			odometry.update();
+			fusion.addOdometry(clock[0], odometry.getPose());
+			tags.poll(fusion);
+
+			Vector2d truth = drivetrain.getTruePose().position;
+			double odometryError = odometry.getPose().position.minus(truth).norm();
+			double fusedError = fusion.getPose().position.minus(truth).norm();
+			odometrySquared += odometryError * odometryError;
+			fusedSquared += fusedError * fusedError;
+			odometryMax = Math.max(odometryMax, odometryError);
+			fusedMax = Math.max(fusedMax, fusedError);
+		}
+
+		int delivered = tags.getDeliveredCount();
+		int accepted = fusion.getAcceptedCount();
+		int rejected = fusion.getRejectedCount();
+		tags.flush(fusion);
+		return new Result(seconds, Math.sqrt(odometrySquared / loops), odometryMax,
+				Math.sqrt(fusedSquared / loops), fusedMax, delivered, accepted, rejected, fusion.getPose());
+	}
+
+	/**
+	 * Runs the same match twice with SimTagSource.LATENCY_JITTER_MS set to jitterMs: once with the
+	 * fixes delivered as they arrive, out of order, and once held back into capture order. Outliers
+	 * are turned off, so the gate accepts the same fixes in both runs.
+	 *
+	 * @return distance between the two final fused poses, in inches; 0 up to rounding if
+	 * out-of-sequence fixes are filtered the same as in-order ones
+	 */
+	public static double outOfOrderDifference(double seconds, double dtSeconds, long seed, double jitterMs) {
+		double jitter = SimTagSource.LATENCY_JITTER_MS;
+		double outliers = SimTagSource.OUTLIER_PROBABILITY;
+		boolean inOrder = SimTagSource.DELIVER_IN_ORDER;
+		try {
+			SimTagSource.LATENCY_JITTER_MS = jitterMs;
+			SimTagSource.OUTLIER_PROBABILITY = 0;
+			SimTagSource.DELIVER_IN_ORDER = false;
+			Pose2d reordered = run(seconds, dtSeconds, seed).fusedPose;
+			SimTagSource.DELIVER_IN_ORDER = true;
+			Pose2d ordered = run(seconds, dtSeconds, seed).fusedPose;
+			return reordered.position.minus(ordered.position).norm();
+		} finally {
+			SimTagSource.LATENCY_JITTER_MS = jitter;
+			SimTagSource.OUTLIER_PROBABILITY = outliers;
+			SimTagSource.DELIVER_IN_ORDER = inOrder;
+		}
+	}
+
+	/**
+	 * Runs a 150 s match at 100 Hz, then the out-of-order check on it with 200 ms of jitter.
+	 * Optional argument: seed (default 1). Exits with status 1 if the out-of-order result differs.
+	 */
+	public static void main(String[] args) {
+		long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+		System.out.println(run(150, 0.01, seed));
+		double difference = outOfOrderDifference(150, 0.01, seed, 200);
+		System.out.printf("Out-of-order fixes: final pose %.2e in from in-order delivery%n", difference);
+		if (difference > 1e-6) {
+			System.out.println("DIFFERENT");
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,382 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.acmerobotics.dashboard.telemetry.TelemetryPacket;
+import com.acmerobotics.roadrunner.Pose2d;
+
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.teamcode.Actions.IntakeBall;
+import org.firstinspires.ftc.teamcode.Actions.PipelinedIntake;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.DataLogDecoder;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareInitializer;
+import org.firstinspires.ftc.teamcode.LifecycleManagementUtilities.HardwareSnapshot;
+import org.firstinspires.ftc.teamcode.Roadrunner.FusionLocalizer;
+import org.firstinspires.ftc.teamcode.Roadrunner.PinpointLocalizer;
+import org.firstinspires.ftc.teamcode.Subsystems.ColorDetector;
+import org.firstinspires.ftc.teamcode.Subsystems.DistanceDetector;
+import org.firstinspires.ftc.teamcode.Subsystems.Shooter;
+import org.firstinspires.ftc.teamcode.Subsystems.Spindexer;
+import org.firstinspires.ftc.teamcode.Subsystems.TouchDetector;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Runs recorded match data back through the real subsystem code off the robot, and compares what
+ * the code computes now with what it computed in the match.
+ * <p>
+ * The input is a DataLog file. Each loop's "frame" record (encoders, flywheel velocities, touch
+ * sensors, colors) is loaded with HardwareSnapshot.replay(), so the subsystems read exactly the
+ * values and timestamps they read on the robot. Then, for each unit that ran in that loop:
+ * - Spindexer: the recorded zero and goal are applied and update() runs; power is compared
+ * - Shooter: updateRPM() and run(target) run at the recorded battery voltage; RPMs and powers are compared
+ * - ColorDetector and IntakeBall: the color update and the IntakeBall state machine run; hue and state are compared.
+ * PipelinedIntake is replayed the same way. Recorded DistanceDetector readings are fed in too,
+ * for the settle detection
+ * - PinpointLocalizer: the recorded Pinpoint reading is applied; the pose is compared
+ * - FusionLocalizer, if the drive used one: the recorded vision measurements are applied as well
+ * <p>
+ * Every unit is driven by recorded inputs, so a difference in one doesn't cascade into the
+ * others. With unchanged code and tunables the replay matches the match exactly (up to float
+ * rounding in the log); after changing gains or filters the report shows how far, and from when,
+ * the outputs move. There are no sleeps, so a match replays in well under a second.
+ * <p>
+ * Subsystems are singletons, so run one replay per JVM. Needs the same classpath as
+ * SimulationRunner, plus Roadrunner core and FTC Dashboard.
+ */
+public class LogReplay {
+	/**
+	 * Absolute difference between a replayed and a recorded value that still counts as a match.
+	 */
+	public static double ABSOLUTE_TOLERANCE = 1e-3;
+	/**
+	 * Additional tolerance as a fraction of the recorded value, for float rounding in the log.
+	 */
+	public static double RELATIVE_TOLERANCE = 1e-5;
+	// Largest float rounding of a logged spindexer goal (a few revolutions of ticks)
+	private static final double GOAL_ROUNDING_TICKS = 0.01;
+
+	/**
+	 * Comparison of one output between the replay and the recording.
+	 */
+	public static class Channel {
+		public final String name;
+		public int samples = 0;
+		public int mismatches = 0;
+		public double maxError = 0;
+		private double sumSquaredError = 0;
+		/**
+		 * Seconds from the start of the log to the first mismatch, or NaN if there was none.
+		 */
+		public double firstMismatchSeconds = Double.NaN;
+
+		Channel(String name) {
+			this.name = name;
+		}
+
+		void compare(double replayed, double recorded, double seconds) {
+			double error = Math.abs(replayed - recorded);
+			samples++;
+			sumSquaredError += error * error;
+			maxError = Math.max(maxError, error);
+			if (!(error <= ABSOLUTE_TOLERANCE + RELATIVE_TOLERANCE * Math.abs(recorded))) {
+				if (mismatches == 0) firstMismatchSeconds = seconds;
+				mismatches++;
+			}
+		}
+
+		public double getRmsError() {
+			return samples > 0 ? Math.sqrt(sumSquaredError / samples) : 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-24s %8d samples  %8d mismatches  max %-12.6g rms %-12.6g first mismatch %s",
+					name, samples, mismatches, maxError, getRmsError(),
+					Double.isNaN(firstMismatchSeconds) ? "-" : String.format("%.3f s", firstMismatchSeconds));
+		}
+	}
+
+	/**
+	 * Summary of a replay.
+	 */
+	public static class Result {
+		public final int loops;
+		public final double recordedSeconds;
+		public final double wallSeconds;
+		public final List<Channel> channels;
+
+		Result(int loops, double recordedSeconds, double wallSeconds, List<Channel> channels) {
+			this.loops = loops;
+			this.recordedSeconds = recordedSeconds;
+			this.wallSeconds = wallSeconds;
+			this.channels = channels;
+		}
+
+		/**
+		 * @return true if every compared output stayed within tolerance
+		 */
+		public boolean matches() {
+			for (Channel channel : channels) {
+				if (channel.mismatches > 0) return false;
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder s = new StringBuilder(String.format(
+					"%d loops, %.2f s recorded, %.3f s wall (%.0fx real time)%n",
+					loops, recordedSeconds, wallSeconds, wallSeconds > 0 ? recordedSeconds / wallSeconds : 0));
+			for (Channel channel : channels) {
+				s.append(channel).append(String.format("%n"));
+			}
+			return s.append(matches() ? "MATCH" : "DIFFERENT").toString();
+		}
+	}
+
+	/**
+	 * Rows committed during one robot loop, grouped by the loop's frame timestamp.
+	 */
+	private static class Loop {
+		final long timestampNanos;
+		final Map<String, float[]> rows = new LinkedHashMap<>();
+
+		Loop(long timestampNanos) {
+			this.timestampNanos = timestampNanos;
+		}
+
+		float[] get(String name) {
+			return rows.get(name);
+		}
+	}
+
+	private final Map<String, Channel> channels = new LinkedHashMap<>();
+	private final TelemetryPacket packet = new TelemetryPacket();
+	private PinpointLocalizer localizer = null;
+	private FusionLocalizer fusion = null;
+	private IntakeBall intakeBall = null;
+	private int lastIntakeSlot = -1;
+	private PipelinedIntake pipelinedIntake = null;
+	private float lastSpindexerGoal = Float.NaN;
+	private boolean localizerAligned = false;
+
+	private LogReplay() {
+	}
+
+	/**
+	 * Replays a log through the subsystems, initializing them on a fresh SimulatedRobot.
+	 */
+	public static Result replay(File log) throws IOException {
+		List<Loop> loops = readLoops(log);
+
+		SimulatedRobot robot = new SimulatedRobot();
+		HardwareInitializer.initialize(robot.hardwareMap);
+		TouchDetector.initialize(robot.hardwareMap);
+
+		LogReplay replay = new LogReplay();
+		long startNanos = System.nanoTime();
+		for (Loop loop : loops) {
+			replay.step(loop, robot, (loop.timestampNanos - loops.get(0).timestampNanos) / 1e9);
+		}
+		long endNanos = System.nanoTime();
+
+		double recordedSeconds = loops.isEmpty() ? 0
+				: (loops.get(loops.size() - 1).timestampNanos - loops.get(0).timestampNanos) / 1e9;
+		return new Result(loops.size(), recordedSeconds, (endNanos - startNanos) / 1e9,
+				new ArrayList<>(replay.channels.values()));
+	}
+
+	private static List<Loop> readLoops(File log) throws IOException {
+		TreeMap<Long, Loop> byTimestamp = new TreeMap<>();
+		DataLogDecoder.read(log, (name, columns, timestampNanos, values) -> {
+			Loop loop = byTimestamp.get(timestampNanos);
+			if (loop == null) {
+				loop = new Loop(timestampNanos);
+				byTimestamp.put(timestampNanos, loop);
+			}
+			loop.rows.put(name, values.clone());
+		});
+		// Rows committed outside a frame (snapshot inactive) have no inputs to replay
+		List<Loop> loops = new ArrayList<>();
+		for (Loop loop : byTimestamp.values()) {
+			if (loop.get("frame") != null) loops.add(loop);
+		}
+		return loops;
+	}
+
+	private Channel channel(String name) {
+		Channel channel = channels.get(name);
+		if (channel == null) {
+			channel = new Channel(name);
+			channels.put(name, channel);
+		}
+		return channel;
+	}
+
+	/**
+	 * Replays one loop, in the order the OpModes run it: actions, then subsystem updates.
+	 */
+	private void step(Loop loop, SimulatedRobot robot, double seconds) {
+		HardwareSnapshot.getInstance().replay(loop.timestampNanos, loop.get("frame"));
+		TouchDetector.getInstance().update().run(packet);
+
+		float[] color = loop.get("color");
+		if (color != null) {
+			ColorDetector detector = ColorDetector.getInstance();
+			detector.update().run(packet);
+			channel("color.hue").compare(detector.avgHSV[0], color[3], seconds);
+		}
+
+		float[] distance = loop.get("distance");
+		if (distance != null) {
+			// The distance sensor isn't in the frame; feed the recorded reading to the simulated one.
+			// It was only initialized on the robot if the OpMode used it.
+			DistanceDetector.initialize(robot.hardwareMap);
+			robot.frontDistance.setDistance(distance[0], DistanceUnit.CM);
+			DistanceDetector.getInstance().update().run(packet);
+		}
+
+		float[] intake = loop.get("intakeBall");
+		if (intake != null) {
+			int slot = (int) intake[1];
+			boolean restarted = intake[0] == IntakeBall.IndexState.RUN_INTAKE.ordinal()
+					&& (intakeBall == null || intakeBall.getState() != IntakeBall.IndexState.RUN_INTAKE);
+			if (intakeBall == null || restarted || slot != lastIntakeSlot) {
+				// A new IntakeBall started on the robot
+				intakeBall = new IntakeBall(slot);
+				lastIntakeSlot = slot;
+			}
+			channel("intakeBall.state").compare(intakeBall.getState().ordinal(), intake[0], seconds);
+			intakeBall.run(packet);
+		}
+
+		float[] pipelined = loop.get("pipelinedIntake");
+		if (pipelined != null) {
+			if (pipelinedIntake == null || (pipelined[0] == PipelinedIntake.State.START.ordinal()
+					&& pipelinedIntake.getState() != PipelinedIntake.State.START)) {
+				// A new PipelinedIntake started on the robot
+				pipelinedIntake = new PipelinedIntake();
+			}
+			channel("pipelinedIntake.state").compare(pipelinedIntake.getState().ordinal(), pipelined[0], seconds);
+			pipelinedIntake.run(packet);
+		}
+
+		// The OpModes update the spindexer every loop; it only logs once it's zeroed and has a goal
+		Spindexer spindexerInstance = Spindexer.getInstance();
+		float[] spindexerZero = loop.get("spindexerZero");
+		float[] spindexer = loop.get("spindexer");
+		if (spindexerZero != null) {
+			// Homed or restored on the robot; the homing itself isn't replayed
+			spindexerInstance.setZeroPosition(spindexerZero[0]);
+		} else if (spindexer != null && !spindexerInstance.isZeroed()) {
+			// Logs from before the zero was recorded used the raw encoder position
+			spindexerInstance.setZeroPosition(0);
+		}
+		// The log holds the goal as a float, so compare with the last logged goal, not the target.
+		// Skip goals a replayed action has already set: re-setting the rounded value would re-plan
+		// the profile mid-move.
+		if (spindexer != null && spindexer[0] != lastSpindexerGoal) {
+			if (Math.abs(spindexer[0] - spindexerInstance.getTargetPositionTicks()) > GOAL_ROUNDING_TICKS) {
+				spindexerInstance.toPosition(spindexer[0] / Spindexer.TICKS_PER_REV).run(packet);
+			}
+			lastSpindexerGoal = spindexer[0];
+		}
+		spindexerInstance.update();
+		if (spindexer != null) {
+			channel("spindexer.power").compare(robot.spindexer.getPower(), spindexer[5], seconds);
+		}
+
+		float[] shooter = loop.get("shooter");
+		float[] control = loop.get("shooterControl");
+		if (shooter != null || control != null) {
+			Shooter instance = Shooter.getInstance();
+			instance.updateRPM();
+			if (control != null) {
+				robot.battery.setVoltage(control[1]);
+				instance.run(control[0]).run(packet);
+				channel("shooter.upperPower").compare(robot.upperShooter.getPower(), clamp(control[2]), seconds);
+				channel("shooter.lowerPower").compare(robot.lowerShooter.getPower(), clamp(control[3]), seconds);
+			}
+			if (shooter != null) {
+				channel("shooter.upperRPM").compare(instance.upperRPM, shooter[1], seconds);
+				channel("shooter.lowerRPM").compare(instance.lowerRPM, shooter[2], seconds);
+				channel("shooter.filteredRPM").compare(instance.filteredRPM, shooter[3], seconds);
+			}
+		}
+
+		float[] pinpoint = loop.get("pinpoint");
+		if (pinpoint != null) {
+			if (localizer == null) {
+				localizer = new PinpointLocalizer(new Pose2d(0, 0, 0));
+			}
+			localizer.update(pinpoint[0] != 0, pinpoint[1], pinpoint[2], pinpoint[3],
+					pinpoint[4], pinpoint[5], pinpoint[6]);
+			float[] drive = loop.get("drive");
+			if (loop.get("fusion") != null) {
+				stepFusion(loop, pinpoint, drive, seconds);
+			} else if (drive != null) {
+				if (!localizerAligned) {
+					// The log doesn't hold the start pose; take it from the first recorded pose
+					localizer.setPose(new Pose2d(drive[0], drive[1], drive[2]));
+					localizerAligned = true;
+				}
+				comparePose(localizer.getPose(), drive, seconds);
+			}
+		}
+	}
+
+	/**
+	 * Replays a loop in which the drive used a FusionLocalizer on top of the Pinpoint.
+	 */
+	private void stepFusion(Loop loop, float[] pinpoint, float[] drive, double seconds) {
+		if (fusion == null) {
+			fusion = new FusionLocalizer(localizer);
+			if (drive != null) {
+				// The first update is a zero step, so the first recorded pose is the start pose
+				fusion.setPose(new Pose2d(drive[0], drive[1], drive[2]));
+			}
+		}
+		// Logs from before readingAgeMs was recorded get the loop's time
+		long readingNanos = loop.timestampNanos - (pinpoint.length > 7 ? (long) (pinpoint[7] * 1e6) : 0);
+		fusion.addOdometry(readingNanos, localizer.getPose());
+
+		float[] vision = loop.get("vision");
+		if (vision != null) {
+			boolean accepted = fusion.addVisionMeasurement(loop.timestampNanos - (long) (vision[3] * 1e6),
+					vision[0], vision[1], vision[2], vision[4], vision[5]);
+			channel("vision.accepted").compare(accepted ? 1 : 0, vision[6], seconds);
+		}
+		if (drive != null) {
+			comparePose(fusion.getPose(), drive, seconds);
+		}
+	}
+
+	private void comparePose(Pose2d pose, float[] drive, double seconds) {
+		channel("drive.x").compare(pose.position.x, drive[0], seconds);
+		channel("drive.y").compare(pose.position.y, drive[1], seconds);
+		double headingError = Math.IEEEremainder(pose.heading.toDouble() - drive[2], 2 * Math.PI);
+		channel("drive.heading").compare(drive[2] + headingError, drive[2], seconds);
+	}
+
+	private static double clamp(double power) {
+		return Math.max(-1.0, Math.min(1.0, power));
+	}
+
+	/**
+	 * Replays a DataLog file and prints the comparison. Exits with status 1 if any output differs.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: LogReplay <datalog.bin>");
+			System.exit(2);
+		}
+		Result result = replay(new File(args[0]));
+		System.out.println(result);
+		System.exit(result.matches() ? 0 : 1);
+	}
+}
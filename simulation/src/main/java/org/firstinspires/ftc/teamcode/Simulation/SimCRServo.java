@@ -0,0 +1,95 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.qualcomm.robotcore.hardware.CRServo;
+import com.qualcomm.robotcore.hardware.ServoController;
+
+/**
+ * Simulated continuous rotation servo. Stores the commanded power; {@link SimulatedRobot}
+ * reads it back through {@link #getAppliedPower()}.
+ */
+public class SimCRServo implements CRServo {
+	private final String name;
+	private double power = 0;
+	private Direction direction = Direction.FORWARD;
+	private int powerWrites = 0;
+
+	public SimCRServo(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * @return power in the servo's own frame (direction applied)
+	 */
+	public double getAppliedPower() {
+		return direction == Direction.REVERSE ? -power : power;
+	}
+
+	/**
+	 * @return number of setPower calls since construction
+	 */
+	public int getPowerWriteCount() {
+		return powerWrites;
+	}
+
+	@Override
+	public ServoController getController() {
+		return null;
+	}
+
+	@Override
+	public int getPortNumber() {
+		return 0;
+	}
+
+	@Override
+	public void setDirection(Direction direction) {
+		this.direction = direction;
+	}
+
+	@Override
+	public Direction getDirection() {
+		return direction;
+	}
+
+	@Override
+	public void setPower(double power) {
+		this.power = Math.max(-1.0, Math.min(1.0, power));
+		powerWrites++;
+	}
+
+	@Override
+	public double getPower() {
+		return power;
+	}
+
+	@Override
+	public Manufacturer getManufacturer() {
+		return Manufacturer.Other;
+	}
+
+	@Override
+	public String getDeviceName() {
+		return "Simulated CR Servo";
+	}
+
+	@Override
+	public String getConnectionInfo() {
+		return "sim:" + name;
+	}
+
+	@Override
+	public int getVersion() {
+		return 1;
+	}
+
+	@Override
+	public void resetDeviceConfigurationForOpMode() {
+		power = 0;
+		direction = Direction.FORWARD;
+	}
+
+	@Override
+	public void close() {
+		power = 0;
+	}
+}
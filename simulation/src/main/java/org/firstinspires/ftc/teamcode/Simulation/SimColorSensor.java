@@ -0,0 +1,114 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.qualcomm.robotcore.hardware.ColorSensor;
+import com.qualcomm.robotcore.hardware.I2cAddr;
+
+/**
+ * Simulated color sensor. {@link SimulatedRobot} sets the raw channel values each physics step
+ * based on what is in front of the sensor.
+ */
+public class SimColorSensor implements ColorSensor {
+	private final String name;
+	private int red = 0, green = 0, blue = 0, alpha = 0;
+	private boolean ledEnabled = true;
+	private I2cAddr i2cAddress = I2cAddr.create7bit(0x52);
+	private int reads = 0;
+
+	public SimColorSensor(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Sets the raw channel values returned by the sensor.
+	 */
+	public void setColor(int red, int green, int blue, int alpha) {
+		this.red = red;
+		this.green = green;
+		this.blue = blue;
+		this.alpha = alpha;
+	}
+
+	/**
+	 * @return number of channel reads since construction, one per simulated I2C transaction
+	 */
+	public int getReadCount() {
+		return reads;
+	}
+
+	@Override
+	public int red() {
+		reads++;
+		return red;
+	}
+
+	@Override
+	public int green() {
+		reads++;
+		return green;
+	}
+
+	@Override
+	public int blue() {
+		reads++;
+		return blue;
+	}
+
+	@Override
+	public int alpha() {
+		reads++;
+		return alpha;
+	}
+
+	@Override
+	public int argb() {
+		reads++;
+		return (Math.min(alpha, 255) << 24) | (Math.min(red, 255) << 16) | (Math.min(green, 255) << 8) | Math.min(blue, 255);
+	}
+
+	@Override
+	public void enableLed(boolean enable) {
+		ledEnabled = enable;
+	}
+
+	public boolean isLedEnabled() {
+		return ledEnabled;
+	}
+
+	@Override
+	public void setI2cAddress(I2cAddr newAddress) {
+		i2cAddress = newAddress;
+	}
+
+	@Override
+	public I2cAddr getI2cAddress() {
+		return i2cAddress;
+	}
+
+	@Override
+	public Manufacturer getManufacturer() {
+		return Manufacturer.Other;
+	}
+
+	@Override
+	public String getDeviceName() {
+		return "Simulated Color Sensor";
+	}
+
+	@Override
+	public String getConnectionInfo() {
+		return "sim:" + name;
+	}
+
+	@Override
+	public int getVersion() {
+		return 1;
+	}
+
+	@Override
+	public void resetDeviceConfigurationForOpMode() {
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,54 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.qualcomm.robotcore.hardware.DistanceSensor;
+
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+
+/**
+ * Simulated distance sensor returning a settable distance.
+ */
+public class SimDistanceSensor implements DistanceSensor {
+	private final String name;
+	private double distanceCm = DistanceUnit.infinity;
+
+	public SimDistanceSensor(String name) {
+		this.name = name;
+	}
+
+	public void setDistance(double distance, DistanceUnit unit) {
+		distanceCm = unit.toCm(distance);
+	}
+
+	@Override
+	public double getDistance(DistanceUnit unit) {
+		return distanceCm == DistanceUnit.infinity ? DistanceUnit.infinity : unit.fromCm(distanceCm);
+	}
+
+	@Override
+	public Manufacturer getManufacturer() {
+		return Manufacturer.Other;
+	}
+
+	@Override
+	public String getDeviceName() {
+		return "Simulated Distance Sensor";
+	}
+
+	@Override
+	public String getConnectionInfo() {
+		return "sim:" + name;
+	}
+
+	@Override
+	public int getVersion() {
+		return 1;
+	}
+
+	@Override
+	public void resetDeviceConfigurationForOpMode() {
+	}
+
+	@Override
+	public void close() {
+	}
+}
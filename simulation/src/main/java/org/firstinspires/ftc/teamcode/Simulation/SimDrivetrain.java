@@ -0,0 +1,103 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.acmerobotics.roadrunner.Pose2d;
+import com.acmerobotics.roadrunner.PoseVelocity2d;
+import com.acmerobotics.roadrunner.Vector2d;
+
+import org.firstinspires.ftc.teamcode.Roadrunner.Localizer;
+
+/**
+ * Simulated mecanum drivetrain and odometry.
+ * <p>
+ * Integrates the field pose from the four drive motor powers using mecanum forward kinematics
+ * with a first-order lag on each wheel. SimulationRunner hands it to MecanumDrive as its Localizer
+ * in place of a PinpointLocalizer.
+ * Like the Pinpoint, the reported pose only changes when update() is called.
+ */
+public class SimDrivetrain implements Localizer {
+	/**
+	 * Wheel surface speed at full power, in inches per second.
+	 */
+	public static double MAX_WHEEL_VEL = 60;
+	/**
+	 * Effective track width used by the forward kinematics, in inches.
+	 */
+	public static double TRACK_WIDTH = 14;
+	/**
+	 * Time constant of each wheel's response to a power change, in seconds.
+	 */
+	public static double WHEEL_TIME_CONSTANT = 0.08;
+
+	private final SimMotor leftFront, leftBack, rightBack, rightFront;
+
+	// Wheel surface velocities, robot forward positive
+	private double leftFrontVel = 0, leftBackVel = 0, rightBackVel = 0, rightFrontVel = 0;
+
+	// True robot state
+	private double x = 0, y = 0, heading = 0;
+	private double vxRobot = 0, vyRobot = 0, omega = 0;
+
+	// State reported through the Localizer interface, latched by update()
+	private double reportedX = 0, reportedY = 0, reportedHeading = 0;
+
+	public SimDrivetrain(SimMotor leftFront, SimMotor leftBack, SimMotor rightBack, SimMotor rightFront) {
+		this.leftFront = leftFront;
+		this.leftBack = leftBack;
+		this.rightBack = rightBack;
+		this.rightFront = rightFront;
+	}
+
+	/**
+	 * Advances the drivetrain physics.
+	 *
+	 * @param dt       time step in seconds
+	 * @param voltage  battery voltage
+	 */
+	public void step(double dt, double voltage) {
+		// Commanded powers are in the robot frame: MecanumDrive reverses the left motors to
+		// account for their mirrored mounting, so the code-frame power is already "forward"
+		double scale = MAX_WHEEL_VEL * voltage / 12.0;
+		double alpha = dt / (WHEEL_TIME_CONSTANT + dt);
+		leftFrontVel += alpha * (leftFront.getPower() * scale - leftFrontVel);
+		leftBackVel += alpha * (leftBack.getPower() * scale - leftBackVel);
+		rightBackVel += alpha * (rightBack.getPower() * scale - rightBackVel);
+		rightFrontVel += alpha * (rightFront.getPower() * scale - rightFrontVel);
+
+		vxRobot = (leftFrontVel + leftBackVel + rightBackVel + rightFrontVel) / 4;
+		vyRobot = (-leftFrontVel + leftBackVel - rightBackVel + rightFrontVel) / 4;
+		omega = (-leftFrontVel - leftBackVel + rightBackVel + rightFrontVel) / (4 * TRACK_WIDTH / 2);
+
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
+		x += (vxRobot * cos - vyRobot * sin) * dt;
+		y += (vxRobot * sin + vyRobot * cos) * dt;
+		heading += omega * dt;
+	}
+
+	/**
+	 * @return the true simulated pose, regardless of when update() was last called
+	 */
+	public Pose2d getTruePose() {
+		return new Pose2d(x, y, heading);
+	}
+
+	@Override
+	public Pose2d getPose() {
+		return new Pose2d(reportedX, reportedY, reportedHeading);
+	}
+
+	@Override
+	public void setPose(Pose2d pose) {
+		x = reportedX = pose.position.x;
+		y = reportedY = pose.position.y;
+		heading = reportedHeading = pose.heading.toDouble();
+	}
+
+	@Override
+	public PoseVelocity2d update() {
+		reportedX = x;
+		reportedY = y;
+		reportedHeading = heading;
+		return new PoseVelocity2d(new Vector2d(vxRobot, vyRobot), omega);
+	}
+}
@@ -0,0 +1,47 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.qualcomm.robotcore.hardware.HardwareDevice;
+import com.qualcomm.robotcore.hardware.HardwareMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HardwareMap for simulated devices.
+ * <p>
+ * The SDK's lookup queries the Control Hub's system properties on every call, which only works
+ * on Android. This map resolves devices from its own name table instead, so it also works on a
+ * desktop JVM. Devices must be registered with put(name, device).
+ */
+public class SimHardwareMap extends HardwareMap {
+	private final Map<String, HardwareDevice> devicesByName = new HashMap<>();
+
+	public SimHardwareMap() {
+		super(null, null);
+	}
+
+	@Override
+	public void put(String deviceName, HardwareDevice device) {
+		super.put(deviceName, device);
+		devicesByName.put(deviceName.trim(), device);
+	}
+
+	@Override
+	public <T> T tryGet(Class<? extends T> classOrInterface, String deviceName) {
+		HardwareDevice device = devicesByName.get(deviceName.trim());
+		if (device != null && classOrInterface.isInstance(device)) {
+			return classOrInterface.cast(device);
+		}
+		return null;
+	}
+
+	@Override
+	public <T> T get(Class<? extends T> classOrInterface, String deviceName) {
+		T device = tryGet(classOrInterface, deviceName);
+		if (device == null) {
+			throw new IllegalArgumentException(String.format("Unable to find a simulated hardware device with name \"%s\" and type %s",
+					deviceName, classOrInterface.getSimpleName()));
+		}
+		return device;
+	}
+}
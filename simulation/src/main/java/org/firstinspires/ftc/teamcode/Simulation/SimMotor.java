@@ -0,0 +1,326 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.qualcomm.robotcore.hardware.DcMotorController;
+import com.qualcomm.robotcore.hardware.DcMotorEx;
+import com.qualcomm.robotcore.hardware.PIDCoefficients;
+import com.qualcomm.robotcore.hardware.PIDFCoefficients;
+import com.qualcomm.robotcore.hardware.configuration.typecontainers.MotorConfigurationType;
+
+import org.firstinspires.ftc.robotcore.external.navigation.AngleUnit;
+import org.firstinspires.ftc.robotcore.external.navigation.CurrentUnit;
+
+/**
+ * Simulated DcMotorEx.
+ * <p>
+ * Stores the commanded power and exposes an encoder whose position and velocity are driven by
+ * {@link SimulatedRobot}'s physics. Like a real motor, REVERSE direction negates both the
+ * applied power and the encoder readings, so the physics works in the motor's own frame via
+ * {@link #getAppliedPower()} and {@link #setEncoderState(double, double)}.
+ */
+public class SimMotor implements DcMotorEx {
+	private final String name;
+	private final double ticksPerRev;
+
+	private double power = 0;
+	private Direction direction = Direction.FORWARD;
+	private RunMode mode = RunMode.RUN_WITHOUT_ENCODER;
+	private ZeroPowerBehavior zeroPowerBehavior = ZeroPowerBehavior.FLOAT;
+	private boolean enabled = true;
+	private int targetPosition = 0;
+	private int targetPositionTolerance = 10;
+	private double currentAlertAmps = 0;
+
+	// Encoder state in the motor's own frame
+	private double positionTicks = 0;
+	private double velocityTicksPerSecond = 0;
+	private double resetOffsetTicks = 0;
+
+	private int powerWrites = 0;
+
+	/**
+	 * @param name        configuration name of the motor
+	 * @param ticksPerRev encoder ticks per output revolution
+	 */
+	public SimMotor(String name, double ticksPerRev) {
+		this.name = name;
+		this.ticksPerRev = ticksPerRev;
+	}
+
+	/**
+	 * @return power in the motor's own frame (direction applied), or 0 if disabled
+	 */
+	public double getAppliedPower() {
+		if (!enabled) return 0;
+		return direction == Direction.REVERSE ? -power : power;
+	}
+
+	/**
+	 * Sets the encoder state in the motor's own frame. Called by the physics step.
+	 *
+	 * @param positionTicks          encoder position in ticks
+	 * @param velocityTicksPerSecond encoder velocity in ticks per second
+	 */
+	public void setEncoderState(double positionTicks, double velocityTicksPerSecond) {
+		this.positionTicks = positionTicks;
+		this.velocityTicksPerSecond = velocityTicksPerSecond;
+	}
+
+	/**
+	 * @return raw encoder position in the motor's own frame
+	 */
+	public double getEncoderPositionTicks() {
+		return positionTicks;
+	}
+
+	/**
+	 * @return raw encoder velocity in the motor's own frame
+	 */
+	public double getEncoderVelocityTicksPerSecond() {
+		return velocityTicksPerSecond;
+	}
+
+	/**
+	 * @return number of setPower calls since construction
+	 */
+	public int getPowerWriteCount() {
+		return powerWrites;
+	}
+
+	private double sign() {
+		return direction == Direction.REVERSE ? -1 : 1;
+	}
+
+	// --- DcMotorSimple ---
+
+	@Override
+	public void setDirection(Direction direction) {
+		this.direction = direction;
+	}
+
+	@Override
+	public Direction getDirection() {
+		return direction;
+	}
+
+	@Override
+	public void setPower(double power) {
+		this.power = Math.max(-1.0, Math.min(1.0, power));
+		powerWrites++;
+	}
+
+	@Override
+	public double getPower() {
+		return power;
+	}
+
+	// --- DcMotor ---
+
+	@Override
+	public MotorConfigurationType getMotorType() {
+		return MotorConfigurationType.getUnspecifiedMotorType();
+	}
+
+	@Override
+	public void setMotorType(MotorConfigurationType motorType) {
+	}
+
+	@Override
+	public DcMotorController getController() {
+		return null;
+	}
+
+	@Override
+	public int getPortNumber() {
+		return 0;
+	}
+
+	@Override
+	public void setZeroPowerBehavior(ZeroPowerBehavior zeroPowerBehavior) {
+		this.zeroPowerBehavior = zeroPowerBehavior;
+	}
+
+	@Override
+	public ZeroPowerBehavior getZeroPowerBehavior() {
+		return zeroPowerBehavior;
+	}
+
+	@Override
+	@Deprecated
+	public void setPowerFloat() {
+		zeroPowerBehavior = ZeroPowerBehavior.FLOAT;
+		setPower(0);
+	}
+
+	@Override
+	public boolean getPowerFloat() {
+		return zeroPowerBehavior == ZeroPowerBehavior.FLOAT && power == 0;
+	}
+
+	@Override
+	public void setTargetPosition(int position) {
+		targetPosition = position;
+	}
+
+	@Override
+	public int getTargetPosition() {
+		return targetPosition;
+	}
+
+	@Override
+	public boolean isBusy() {
+		return mode == RunMode.RUN_TO_POSITION
+				&& Math.abs(getCurrentPosition() - targetPosition) > targetPositionTolerance;
+	}
+
+	@Override
+	public int getCurrentPosition() {
+		return (int) Math.round(sign() * (positionTicks - resetOffsetTicks));
+	}
+
+	@Override
+	public void setMode(RunMode mode) {
+		if (mode == RunMode.STOP_AND_RESET_ENCODER) {
+			resetOffsetTicks = positionTicks;
+			power = 0;
+		}
+		this.mode = mode;
+	}
+
+	@Override
+	public RunMode getMode() {
+		return mode;
+	}
+
+	// --- DcMotorEx ---
+
+	@Override
+	public void setMotorEnable() {
+		enabled = true;
+	}
+
+	@Override
+	public void setMotorDisable() {
+		enabled = false;
+	}
+
+	@Override
+	public boolean isMotorEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setVelocity(double angularRate) {
+		// Velocity PID is not simulated; approximate with open-loop power against free speed
+		setPower(angularRate / (ticksPerRev * 10));
+	}
+
+	@Override
+	public void setVelocity(double angularRate, AngleUnit unit) {
+		setVelocity(unit.toRadians(angularRate) / (2 * Math.PI) * ticksPerRev);
+	}
+
+	@Override
+	public double getVelocity() {
+		return sign() * velocityTicksPerSecond;
+	}
+
+	@Override
+	public double getVelocity(AngleUnit unit) {
+		double radiansPerSecond = getVelocity() / ticksPerRev * 2 * Math.PI;
+		return unit == AngleUnit.DEGREES ? Math.toDegrees(radiansPerSecond) : radiansPerSecond;
+	}
+
+	@Override
+	@Deprecated
+	public void setPIDCoefficients(RunMode mode, PIDCoefficients pidCoefficients) {
+	}
+
+	@Override
+	public void setPIDFCoefficients(RunMode mode, PIDFCoefficients pidfCoefficients) {
+	}
+
+	@Override
+	public void setVelocityPIDFCoefficients(double p, double i, double d, double f) {
+	}
+
+	@Override
+	public void setPositionPIDFCoefficients(double p) {
+	}
+
+	@Override
+	@Deprecated
+	public PIDCoefficients getPIDCoefficients(RunMode mode) {
+		return new PIDCoefficients();
+	}
+
+	@Override
+	public PIDFCoefficients getPIDFCoefficients(RunMode mode) {
+		return new PIDFCoefficients();
+	}
+
+	@Override
+	public void setTargetPositionTolerance(int tolerance) {
+		targetPositionTolerance = tolerance;
+	}
+
+	@Override
+	public int getTargetPositionTolerance() {
+		return targetPositionTolerance;
+	}
+
+	@Override
+	public double getCurrent(CurrentUnit unit) {
+		double amps = Math.abs(getAppliedPower()) * 9.2;
+		return unit == CurrentUnit.MILLIAMPS ? amps * 1000 : amps;
+	}
+
+	@Override
+	public double getCurrentAlert(CurrentUnit unit) {
+		return unit == CurrentUnit.MILLIAMPS ? currentAlertAmps * 1000 : currentAlertAmps;
+	}
+
+	@Override
+	public void setCurrentAlert(double current, CurrentUnit unit) {
+		currentAlertAmps = unit == CurrentUnit.MILLIAMPS ? current / 1000 : current;
+	}
+
+	@Override
+	public boolean isOverCurrent() {
+		return currentAlertAmps > 0 && getCurrent(CurrentUnit.AMPS) > currentAlertAmps;
+	}
+
+	// --- HardwareDevice ---
+
+	@Override
+	public Manufacturer getManufacturer() {
+		return Manufacturer.Other;
+	}
+
+	@Override
+	public String getDeviceName() {
+		return "Simulated Motor";
+	}
+
+	@Override
+	public String getConnectionInfo() {
+		return "sim:" + name;
+	}
+
+	@Override
+	public int getVersion() {
+		return 1;
+	}
+
+	@Override
+	public void resetDeviceConfigurationForOpMode() {
+		power = 0;
+		direction = Direction.FORWARD;
+		mode = RunMode.RUN_WITHOUT_ENCODER;
+		enabled = true;
+	}
+
+	@Override
+	public void close() {
+		power = 0;
+	}
+}
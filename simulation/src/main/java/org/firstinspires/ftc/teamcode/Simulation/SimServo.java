@@ -0,0 +1,97 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.qualcomm.robotcore.hardware.Servo;
+import com.qualcomm.robotcore.hardware.ServoController;
+
+/**
+ * Simulated positional servo. The servo is assumed to reach its commanded position instantly.
+ */
+public class SimServo implements Servo {
+	private final String name;
+	private double position = 0;
+	private double minPosition = 0;
+	private double maxPosition = 1;
+	private Direction direction = Direction.FORWARD;
+
+	public SimServo(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public ServoController getController() {
+		return null;
+	}
+
+	@Override
+	public int getPortNumber() {
+		return 0;
+	}
+
+	@Override
+	public void setDirection(Direction direction) {
+		this.direction = direction;
+	}
+
+	@Override
+	public Direction getDirection() {
+		return direction;
+	}
+
+	@Override
+	public void setPosition(double position) {
+		this.position = Math.max(MIN_POSITION, Math.min(MAX_POSITION, position));
+	}
+
+	@Override
+	public double getPosition() {
+		return position;
+	}
+
+	/**
+	 * @return the physical position after scaleRange and direction are applied
+	 */
+	public double getScaledPosition() {
+		double pos = direction == Direction.REVERSE ? MAX_POSITION - position : position;
+		return minPosition + pos * (maxPosition - minPosition);
+	}
+
+	@Override
+	public void scaleRange(double min, double max) {
+		if (min < MIN_POSITION || max > MAX_POSITION || min >= max) {
+			throw new IllegalArgumentException("Invalid servo range [" + min + ", " + max + "]");
+		}
+		minPosition = min;
+		maxPosition = max;
+	}
+
+	@Override
+	public Manufacturer getManufacturer() {
+		return Manufacturer.Other;
+	}
+
+	@Override
+	public String getDeviceName() {
+		return "Simulated Servo";
+	}
+
+	@Override
+	public String getConnectionInfo() {
+		return "sim:" + name;
+	}
+
+	@Override
+	public int getVersion() {
+		return 1;
+	}
+
+	@Override
+	public void resetDeviceConfigurationForOpMode() {
+		minPosition = MIN_POSITION;
+		maxPosition = MAX_POSITION;
+		direction = Direction.FORWARD;
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,139 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.acmerobotics.roadrunner.Pose2d;
+
+import org.firstinspires.ftc.teamcode.Roadrunner.FusionLocalizer;
+import org.firstinspires.ftc.teamcode.Roadrunner.VisionPoseSource;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Simulated AprilTag pose source, in place of LimelightPoseSource.
+ * <p>
+ * Captures the true pose every PERIOD_MS, adds Gaussian noise (and, with OUTLIER_PROBABILITY, a
+ * gross error like a misidentified tag), and delivers it LATENCY_MS later stamped with its
+ * capture time, like a camera pipeline. Time comes from the given clock, so it runs on simulated
+ * time.
+ * <p>
+ * With LATENCY_JITTER_MS above PERIOD_MS, captures arrive out of order, unless DELIVER_IN_ORDER
+ * holds each one back until the ones captured before it have been delivered.
+ */
+public class SimTagSource implements VisionPoseSource {
+	public static double PERIOD_MS = 50;
+	public static double LATENCY_MS = 80;
+	/**
+	 * Extra latency per capture, uniform between 0 and this
+	 */
+	public static double LATENCY_JITTER_MS = 0;
+	public static boolean DELIVER_IN_ORDER = false;
+	public static double XY_STD_DEV = 1.5;
+	public static double HEADING_STD_DEV_DEG = 2;
+	public static double OUTLIER_PROBABILITY = 0.02;
+	/**
+	 * Size of an outlier's position error, in inches
+	 */
+	public static double OUTLIER_ERROR = 24;
+
+	private static final class Capture {
+		final long timestampNanos;
+		final long arrivalNanos;
+		final double x, y, heading;
+
+		Capture(long timestampNanos, long arrivalNanos, double x, double y, double heading) {
+			this.timestampNanos = timestampNanos;
+			this.arrivalNanos = arrivalNanos;
+			this.x = x;
+			this.y = y;
+			this.heading = heading;
+		}
+	}
+
+	private final Supplier<Pose2d> truePose;
+	private final LongSupplier clockNanos;
+	private final Random random;
+	private final ArrayDeque<Capture> pending = new ArrayDeque<>();
+	private long nextCaptureNanos;
+	private int delivered = 0;
+
+	/**
+	 * @param truePose   true robot pose, e.g. SimDrivetrain::getTruePose
+	 * @param clockNanos current time in nanoseconds, the same clock the fusion is fed with
+	 * @param seed       seed for the noise, so runs are repeatable
+	 */
+	public SimTagSource(Supplier<Pose2d> truePose, LongSupplier clockNanos, long seed) {
+		this.truePose = truePose;
+		this.clockNanos = clockNanos;
+		this.random = new Random(seed);
+		nextCaptureNanos = clockNanos.getAsLong();
+	}
+
+	@Override
+	public void poll(FusionLocalizer fusion) {
+		long now = clockNanos.getAsLong();
+		if (now >= nextCaptureNanos) {
+			nextCaptureNanos = now + (long) (PERIOD_MS * 1e6);
+			Pose2d pose = truePose.get();
+			double x = pose.position.x + random.nextGaussian() * XY_STD_DEV;
+			double y = pose.position.y + random.nextGaussian() * XY_STD_DEV;
+			if (random.nextDouble() < OUTLIER_PROBABILITY) {
+				double angle = random.nextDouble() * 2 * Math.PI;
+				x += OUTLIER_ERROR * Math.cos(angle);
+				y += OUTLIER_ERROR * Math.sin(angle);
+			}
+			double heading = pose.heading.toDouble() + random.nextGaussian() * Math.toRadians(HEADING_STD_DEV_DEG);
+			double latencyMs = LATENCY_MS;
+			if (LATENCY_JITTER_MS > 0) {
+				latencyMs += random.nextDouble() * LATENCY_JITTER_MS;
+			}
+			pending.add(new Capture(now, now + (long) (latencyMs * 1e6), x, y, heading));
+		}
+
+		if (DELIVER_IN_ORDER) {
+			while (!pending.isEmpty() && now >= pending.peek().arrivalNanos) {
+				deliver(pending.poll(), fusion);
+			}
+		} else {
+			Iterator<Capture> captures = pending.iterator();
+			while (captures.hasNext()) {
+				Capture capture = captures.next();
+				if (now >= capture.arrivalNanos) {
+					captures.remove();
+					deliver(capture, fusion);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Delivers every capture still in the pipeline, in the order it would arrive.
+	 */
+	public void flush(FusionLocalizer fusion) {
+		while (!pending.isEmpty()) {
+			Capture next = pending.peek();
+			if (!DELIVER_IN_ORDER) {
+				for (Capture capture : pending) {
+					if (capture.arrivalNanos < next.arrivalNanos) next = capture;
+				}
+			}
+			pending.remove(next);
+			deliver(next, fusion);
+		}
+	}
+
+	private void deliver(Capture capture, FusionLocalizer fusion) {
+		fusion.addVisionMeasurement(capture.timestampNanos, capture.x, capture.y, capture.heading,
+				XY_STD_DEV, Math.toRadians(HEADING_STD_DEV_DEG));
+		delivered++;
+	}
+
+	/**
+	 * @return measurements passed to the fusion so far
+	 */
+	public int getDeliveredCount() {
+		return delivered;
+	}
+}
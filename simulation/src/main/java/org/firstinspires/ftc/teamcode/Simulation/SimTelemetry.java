@@ -0,0 +1,175 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import org.firstinspires.ftc.robotcore.external.Func;
+import org.firstinspires.ftc.robotcore.external.Telemetry;
+
+/**
+ * Driver Station telemetry replacement for simulation.
+ * <p>
+ * Formats every item like the real telemetry does, so string formatting still shows up in
+ * loop timings, but nothing is transmitted. Item, Line and Log handles are not supported and
+ * are returned as null, so OpModes must not chain calls on the result of addData/addLine.
+ */
+public class SimTelemetry implements Telemetry {
+	private int itemCount = 0;
+	private int updateCount = 0;
+	private boolean autoClear = true;
+	private int msTransmissionInterval = 250;
+	private String itemSeparator = " | ";
+	private String captionValueSeparator = " : ";
+	private String lastLine = "";
+
+	/**
+	 * @return number of items added since the last update()
+	 */
+	public int getItemCount() {
+		return itemCount;
+	}
+
+	/**
+	 * @return number of update() calls since construction
+	 */
+	public int getUpdateCount() {
+		return updateCount;
+	}
+
+	/**
+	 * @return the most recently formatted item, for debugging
+	 */
+	public String getLastLine() {
+		return lastLine;
+	}
+
+	@Override
+	public Item addData(String caption, String format, Object... args) {
+		lastLine = caption + captionValueSeparator + String.format(format, args);
+		itemCount++;
+		return null;
+	}
+
+	@Override
+	public Item addData(String caption, Object value) {
+		lastLine = caption + captionValueSeparator + value;
+		itemCount++;
+		return null;
+	}
+
+	@Override
+	public <T> Item addData(String caption, Func<T> valueProducer) {
+		return addData(caption, valueProducer.value());
+	}
+
+	@Override
+	public <T> Item addData(String caption, String format, Func<T> valueProducer) {
+		return addData(caption, format, valueProducer.value());
+	}
+
+	@Override
+	public boolean removeItem(Item item) {
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		itemCount = 0;
+	}
+
+	@Override
+	public void clearAll() {
+		itemCount = 0;
+	}
+
+	@Override
+	public Object addAction(Runnable action) {
+		return action;
+	}
+
+	@Override
+	public boolean removeAction(Object token) {
+		return false;
+	}
+
+	@Override
+	public void speak(String text) {
+	}
+
+	@Override
+	public void speak(String text, String languageCode, String countryCode) {
+	}
+
+	@Override
+	public boolean update() {
+		updateCount++;
+		if (autoClear) {
+			itemCount = 0;
+		}
+		return true;
+	}
+
+	@Override
+	public Line addLine() {
+		itemCount++;
+		return null;
+	}
+
+	@Override
+	public Line addLine(String lineCaption) {
+		lastLine = lineCaption;
+		itemCount++;
+		return null;
+	}
+
+	@Override
+	public boolean removeLine(Line line) {
+		return false;
+	}
+
+	@Override
+	public boolean isAutoClear() {
+		return autoClear;
+	}
+
+	@Override
+	public void setAutoClear(boolean autoClear) {
+		this.autoClear = autoClear;
+	}
+
+	@Override
+	public int getMsTransmissionInterval() {
+		return msTransmissionInterval;
+	}
+
+	@Override
+	public void setMsTransmissionInterval(int msTransmissionInterval) {
+		this.msTransmissionInterval = msTransmissionInterval;
+	}
+
+	@Override
+	public String getItemSeparator() {
+		return itemSeparator;
+	}
+
+	@Override
+	public void setItemSeparator(String itemSeparator) {
+		this.itemSeparator = itemSeparator;
+	}
+
+	@Override
+	public String getCaptionValueSeparator() {
+		return captionValueSeparator;
+	}
+
+	@Override
+	public void setCaptionValueSeparator(String captionValueSeparator) {
+		this.captionValueSeparator = captionValueSeparator;
+	}
+
+	@Override
+	public void setDisplayFormat(DisplayFormat displayFormat) {
+	}
+
+	@Override
+	public Log log() {
+		return null;
+	}
+}
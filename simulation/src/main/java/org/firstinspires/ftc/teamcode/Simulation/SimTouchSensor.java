@@ -0,0 +1,57 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.qualcomm.robotcore.hardware.TouchSensor;
+
+/**
+ * Simulated touch or magnetic limit switch.
+ */
+public class SimTouchSensor implements TouchSensor {
+	private final String name;
+	private boolean pressed = false;
+
+	public SimTouchSensor(String name) {
+		this.name = name;
+	}
+
+	public void setPressed(boolean pressed) {
+		this.pressed = pressed;
+	}
+
+	@Override
+	public double getValue() {
+		return pressed ? 1.0 : 0.0;
+	}
+
+	@Override
+	public boolean isPressed() {
+		return pressed;
+	}
+
+	@Override
+	public Manufacturer getManufacturer() {
+		return Manufacturer.Other;
+	}
+
+	@Override
+	public String getDeviceName() {
+		return "Simulated Touch Sensor";
+	}
+
+	@Override
+	public String getConnectionInfo() {
+		return "sim:" + name;
+	}
+
+	@Override
+	public int getVersion() {
+		return 1;
+	}
+
+	@Override
+	public void resetDeviceConfigurationForOpMode() {
+	}
+
+	@Override
+	public void close() {
+	}
+}
@@ -0,0 +1,47 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.qualcomm.robotcore.hardware.VoltageSensor;
+
+/**
+ * Simulated battery voltage sensor.
+ */
+public class SimVoltageSensor implements VoltageSensor {
+	private double voltage = 12.5;
+
+	public void setVoltage(double voltage) {
+		this.voltage = voltage;
+	}
+
+	@Override
+	public double getVoltage() {
+		return voltage;
+	}
+
+	@Override
+	public Manufacturer getManufacturer() {
+		return Manufacturer.Other;
+	}
+
+	@Override
+	public String getDeviceName() {
+		return "Simulated Voltage Sensor";
+	}
+
+	@Override
+	public String getConnectionInfo() {
+		return "sim:battery";
+	}
+
+	@Override
+	public int getVersion() {
+		return 1;
+	}
+
+	@Override
+	public void resetDeviceConfigurationForOpMode() {
+	}
+
+	@Override
+	public void close() {
+	}
+}
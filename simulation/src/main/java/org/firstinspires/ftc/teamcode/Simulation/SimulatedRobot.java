@@ -0,0 +1,379 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import org.firstinspires.ftc.robotcore.external.navigation.DistanceUnit;
+import org.firstinspires.ftc.teamcode.Utilities.BallColor;
+
+/**
+ * Hardware-free stand-in for the robot.
+ * <p>
+ * Builds a HardwareMap populated with simulated devices under the same names as the robot
+ * configuration, so HardwareInitializer, MecanumDrive and the OpModes run unchanged. Call
+ * step(dt) before every OpMode loop to advance the physics:
+ * - Drivetrain: mecanum kinematics with wheel lag (see SimDrivetrain), handed to MecanumDrive as its localizer
+ * - Flywheels: first-order inertia towards power * free speed, scaled by battery voltage
+ * - Spindexer: CR servo with first-order response, read through the 8192 tick encoder on "rearRight"
+ * - Balls: fed into the slot at the intake while intake and door run, seen by the color sensors
+ *   at the color station, and launched (with an RPM dip) while the transfer feeds at the shooter
+ * <p>
+ * The subsystems are singletons that keep the devices they were first initialized with, so use a
+ * single SimulatedRobot per JVM and run every OpMode against it.
+ * step() does not allocate.
+ */
+public class SimulatedRobot {
+	// --- Flywheel ---
+	/**
+	 * Free speed of the shooter motors at 12 V and full power, in RPM.
+	 */
+	public static double FLYWHEEL_FREE_SPEED_RPM = 6000;
+	/**
+	 * Time constant of the flywheel's response to a power change, in seconds.
+	 */
+	public static double FLYWHEEL_TIME_CONSTANT = 0.6;
+	/**
+	 * Fraction of flywheel speed lost when a ball is launched.
+	 */
+	public static double SHOT_SPEED_LOSS = 0.15;
+	/**
+	 * Minimum flywheel speed at which the transfer can launch a ball, in RPM.
+	 */
+	public static double MIN_SHOT_RPM = 1000;
+
+	// --- Spindexer ---
+	/**
+	 * Spindexer speed at full CR servo power, in RPM.
+	 */
+	public static double SPINDEXER_FREE_SPEED_RPM = 50;
+	/**
+	 * Time constant of the spindexer's response to a power change, in seconds.
+	 */
+	public static double SPINDEXER_TIME_CONSTANT = 0.05;
+	/**
+	 * Half-width of the window around zero where the spindexer limit switch reads pressed, in degrees.
+	 */
+	public static double ZERO_SWITCH_WINDOW_DEGREES = 2;
+
+	// --- Balls ---
+	/**
+	 * Spindexer angle relative to a slot's center at which that slot is under the intake, in degrees.
+	 */
+	public static double INTAKE_STATION_DEGREES = 0;
+	/**
+	 * Spindexer angle relative to a slot's center at which that slot is in front of the color sensors.
+	 */
+	public static double COLOR_STATION_DEGREES = 15;
+	/**
+	 * Spindexer angle relative to a slot's center at which that slot is in line with the shooter.
+	 */
+	public static double SHOOTER_STATION_DEGREES = 131.011;
+	/**
+	 * Half-width of the window in which a slot counts as being at a station, in degrees.
+	 */
+	public static double STATION_WINDOW_DEGREES = 8;
+	/**
+	 * Time the intake and door must run before a queued ball drops into the slot, in seconds.
+	 */
+	public static double INTAKE_TRAVEL_TIME = 0.4;
+	/**
+	 * How long the intake touch sensors stay pressed after a ball drops in, in seconds.
+	 */
+	public static double TOUCH_PULSE_TIME = 0.15;
+
+	// --- Battery ---
+	/**
+	 * Open-circuit battery voltage.
+	 */
+	public static double BATTERY_VOLTAGE = 12.8;
+	/**
+	 * Voltage drop per unit of total absolute motor power, approximating internal resistance.
+	 */
+	public static double BATTERY_SAG_PER_POWER = 0.25;
+
+	private static final double FLYWHEEL_TICKS_PER_REV = 28;
+	private static final double SPINDEXER_TICKS_PER_REV = 8192;
+	private static final double[] SLOT_CENTERS = {0.0, 120.0, 240.0};
+	private static final int MAX_QUEUED_BALLS = 16;
+
+	public final SimHardwareMap hardwareMap;
+
+	public final SimMotor frontLeft, rearLeft, rearRight, frontRight;
+	public final SimMotor upperShooter, lowerShooter, intake;
+	public final SimCRServo spindexer, transferLeft, transferRight, intakeDoorLeft, intakeDoorRight;
+	public final SimColorSensor colourLeft, colourRight;
+	public final SimTouchSensor spindexerZero, touchLeft, touchRight;
+	public final SimDistanceSensor frontDistance;
+	public final SimServo rgbIndicator;
+	public final SimVoltageSensor battery;
+	public final SimDrivetrain drivetrain;
+
+	private double timeSeconds = 0;
+
+	// Flywheel state in each motor's own frame, in revolutions and RPM
+	private double upperRevs = 0, upperRPM = 0;
+	private double lowerRevs = 0, lowerRPM = 0;
+
+	// Spindexer state, in revolutions and RPM
+	private double spindexerRevs = 0, spindexerRPM = 0;
+
+	// Balls physically in each slot, and balls waiting at the intake (ring buffer)
+	private final BallColor[] slots = {BallColor.EMPTY, BallColor.EMPTY, BallColor.EMPTY};
+	private final BallColor[] intakeQueue = new BallColor[MAX_QUEUED_BALLS];
+	private int queueHead = 0, queueSize = 0;
+	private double intakeRunTime = 0;
+	private double touchReleaseTime = 0;
+	private int ballsIntaken = 0, ballsShot = 0;
+
+	public SimulatedRobot() {
+		hardwareMap = new SimHardwareMap();
+
+		// Drive motors; "rearRight" doubles as the spindexer's through-bore encoder port
+		frontLeft = addMotor("frontLeft", 537.7);
+		rearLeft = addMotor("rearLeft", 537.7);
+		rearRight = addMotor("rearRight", SPINDEXER_TICKS_PER_REV);
+		frontRight = addMotor("frontRight", 537.7);
+
+		upperShooter = addMotor("upperShooter", FLYWHEEL_TICKS_PER_REV);
+		lowerShooter = addMotor("lowerShooter", FLYWHEEL_TICKS_PER_REV);
+		intake = addMotor("intake", 145.1);
+
+		spindexer = addCRServo("spindexer");
+		transferLeft = addCRServo("transferLeft");
+		transferRight = addCRServo("transferRight");
+		intakeDoorLeft = addCRServo("intakeDoorLeft");
+		intakeDoorRight = addCRServo("intakeDoorRight");
+
+		colourLeft = new SimColorSensor("colourLeft");
+		colourRight = new SimColorSensor("colourRight");
+		hardwareMap.put("colourLeft", colourLeft);
+		hardwareMap.put("colourRight", colourRight);
+
+		spindexerZero = new SimTouchSensor("spindexerZero");
+		touchLeft = new SimTouchSensor("touchLeft");
+		touchRight = new SimTouchSensor("touchRight");
+		hardwareMap.put("spindexerZero", spindexerZero);
+		hardwareMap.put("touchLeft", touchLeft);
+		hardwareMap.put("touchRight", touchRight);
+
+		frontDistance = new SimDistanceSensor("frontDistance");
+		frontDistance.setDistance(100, DistanceUnit.CM);
+		hardwareMap.put("frontDistance", frontDistance);
+
+		rgbIndicator = new SimServo("rgbIndicator");
+		hardwareMap.put("rgbIndicator", rgbIndicator);
+
+		battery = new SimVoltageSensor();
+		battery.setVoltage(BATTERY_VOLTAGE);
+		hardwareMap.put("battery", battery);
+		hardwareMap.voltageSensor.put("battery", battery);
+
+		drivetrain = new SimDrivetrain(frontLeft, rearLeft, rearRight, frontRight);
+
+		updateSensors();
+	}
+
+	private SimMotor addMotor(String name, double ticksPerRev) {
+		SimMotor motor = new SimMotor(name, ticksPerRev);
+		hardwareMap.put(name, motor);
+		return motor;
+	}
+
+	private SimCRServo addCRServo(String name) {
+		SimCRServo servo = new SimCRServo(name);
+		hardwareMap.put(name, servo);
+		return servo;
+	}
+
+	/**
+	 * Places balls directly into the spindexer slots, e.g. for autonomous preloads.
+	 *
+	 * @param colors colors for slots 0, 1 and 2; missing entries leave the slot empty
+	 */
+	public void preload(BallColor... colors) {
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = i < colors.length ? colors[i] : BallColor.EMPTY;
+		}
+	}
+
+	/**
+	 * Queues a ball at the intake. It is picked up the next time the intake and door run with an
+	 * empty slot under the intake.
+	 *
+	 * @param color the ball's color
+	 * @return false if the queue is full
+	 */
+	public boolean queueIntakeBall(BallColor color) {
+		if (queueSize == MAX_QUEUED_BALLS) {
+			return false;
+		}
+		intakeQueue[(queueHead + queueSize) % MAX_QUEUED_BALLS] = color;
+		queueSize++;
+		return true;
+	}
+
+	/**
+	 * Advances the simulation by one time step and updates every sensor reading.
+	 *
+	 * @param dt time step in seconds
+	 */
+	public void step(double dt) {
+		timeSeconds += dt;
+
+		double totalPower = Math.abs(upperShooter.getAppliedPower()) + Math.abs(lowerShooter.getAppliedPower())
+				+ Math.abs(intake.getAppliedPower()) + Math.abs(frontLeft.getAppliedPower())
+				+ Math.abs(rearLeft.getAppliedPower()) + Math.abs(rearRight.getAppliedPower())
+				+ Math.abs(frontRight.getAppliedPower());
+		double voltage = BATTERY_VOLTAGE - BATTERY_SAG_PER_POWER * totalPower;
+		battery.setVoltage(voltage);
+		double voltageScale = voltage / 12.0;
+
+		// Flywheels
+		double flywheelAlpha = dt / (FLYWHEEL_TIME_CONSTANT + dt);
+		upperRPM += flywheelAlpha * (upperShooter.getAppliedPower() * FLYWHEEL_FREE_SPEED_RPM * voltageScale - upperRPM);
+		lowerRPM += flywheelAlpha * (lowerShooter.getAppliedPower() * FLYWHEEL_FREE_SPEED_RPM * voltageScale - lowerRPM);
+		upperRevs += upperRPM / 60.0 * dt;
+		lowerRevs += lowerRPM / 60.0 * dt;
+
+		// Spindexer
+		double spindexerAlpha = dt / (SPINDEXER_TIME_CONSTANT + dt);
+		spindexerRPM += spindexerAlpha * (spindexer.getAppliedPower() * SPINDEXER_FREE_SPEED_RPM - spindexerRPM);
+		spindexerRevs += spindexerRPM / 60.0 * dt;
+
+		drivetrain.step(dt, voltage);
+
+		stepIntake(dt);
+		stepShooter();
+		updateSensors();
+	}
+
+	private void stepIntake(double dt) {
+		// Code-frame powers: the subsystems already account for mirrored mounting
+		boolean feeding = intake.getPower() > 0.5 && intakeDoorLeft.getPower() > 0.5;
+		int slot = slotAt(INTAKE_STATION_DEGREES);
+		if (!feeding || queueSize == 0 || slot < 0 || slots[slot] != BallColor.EMPTY) {
+			intakeRunTime = 0;
+			return;
+		}
+
+		intakeRunTime += dt;
+		if (intakeRunTime >= INTAKE_TRAVEL_TIME) {
+			slots[slot] = intakeQueue[queueHead];
+			intakeQueue[queueHead] = null;
+			queueHead = (queueHead + 1) % MAX_QUEUED_BALLS;
+			queueSize--;
+			intakeRunTime = 0;
+			touchReleaseTime = timeSeconds + TOUCH_PULSE_TIME;
+			ballsIntaken++;
+		}
+	}
+
+	private void stepShooter() {
+		boolean feeding = transferLeft.getPower() > 0.5;
+		double flywheelRPM = (Math.abs(upperRPM) + Math.abs(lowerRPM)) / 2;
+		int slot = slotAt(SHOOTER_STATION_DEGREES);
+		if (!feeding || flywheelRPM < MIN_SHOT_RPM || slot < 0 || slots[slot] == BallColor.EMPTY) {
+			return;
+		}
+
+		slots[slot] = BallColor.EMPTY;
+		upperRPM *= 1 - SHOT_SPEED_LOSS;
+		lowerRPM *= 1 - SHOT_SPEED_LOSS;
+		ballsShot++;
+	}
+
+	private void updateSensors() {
+		upperShooter.setEncoderState(upperRevs * FLYWHEEL_TICKS_PER_REV, upperRPM / 60.0 * FLYWHEEL_TICKS_PER_REV);
+		lowerShooter.setEncoderState(lowerRevs * FLYWHEEL_TICKS_PER_REV, lowerRPM / 60.0 * FLYWHEEL_TICKS_PER_REV);
+		rearRight.setEncoderState(spindexerRevs * SPINDEXER_TICKS_PER_REV, spindexerRPM / 60.0 * SPINDEXER_TICKS_PER_REV);
+
+		double spindexerDegrees = wrapDegrees(spindexerRevs * 360.0);
+		spindexerZero.setPressed(Math.abs(signedDegrees(spindexerDegrees)) <= ZERO_SWITCH_WINDOW_DEGREES);
+
+		boolean touched = timeSeconds < touchReleaseTime;
+		touchLeft.setPressed(touched);
+		touchRight.setPressed(touched);
+
+		int slot = slotAt(COLOR_STATION_DEGREES);
+		BallColor seen = slot < 0 ? BallColor.EMPTY : slots[slot];
+		setColor(seen);
+	}
+
+	private void setColor(BallColor color) {
+		switch (color) {
+			case GREEN:
+				colourLeft.setColor(40, 160, 70, 270);
+				colourRight.setColor(40, 160, 70, 270);
+				break;
+			case PURPLE:
+				colourLeft.setColor(110, 60, 200, 370);
+				colourRight.setColor(110, 60, 200, 370);
+				break;
+			default:
+				colourLeft.setColor(30, 30, 30, 90);
+				colourRight.setColor(30, 30, 30, 90);
+				break;
+		}
+	}
+
+	/**
+	 * Returns the slot whose center is within STATION_WINDOW_DEGREES of a station.
+	 *
+	 * @param stationDegrees spindexer angle relative to a slot center at which that slot is at the station
+	 * @return slot index, or -1 if no slot is at the station
+	 */
+	private int slotAt(double stationDegrees) {
+		double spindexerDegrees = wrapDegrees(spindexerRevs * 360.0);
+		for (int i = 0; i < SLOT_CENTERS.length; i++) {
+			double error = signedDegrees(spindexerDegrees - SLOT_CENTERS[i] - stationDegrees);
+			if (Math.abs(error) <= STATION_WINDOW_DEGREES) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static double wrapDegrees(double degrees) {
+		double wrapped = degrees % 360.0;
+		return wrapped < 0 ? wrapped + 360.0 : wrapped;
+	}
+
+	private static double signedDegrees(double degrees) {
+		double wrapped = wrapDegrees(degrees);
+		return wrapped > 180.0 ? wrapped - 360.0 : wrapped;
+	}
+
+	/**
+	 * @return simulated time since construction, in seconds
+	 */
+	public double getTimeSeconds() {
+		return timeSeconds;
+	}
+
+	/**
+	 * @return true flywheel speed averaged over both motors, in RPM
+	 */
+	public double getFlywheelRPM() {
+		return (Math.abs(upperRPM) + Math.abs(lowerRPM)) / 2;
+	}
+
+	/**
+	 * @return true spindexer angle, in revolutions
+	 */
+	public double getSpindexerRevolutions() {
+		return spindexerRevs;
+	}
+
+	/**
+	 * @param slotIndex slot 0, 1 or 2
+	 * @return the ball physically in that slot
+	 */
+	public BallColor getSlot(int slotIndex) {
+		return slots[slotIndex];
+	}
+
+	public int getBallsIntaken() {
+		return ballsIntaken;
+	}
+
+	public int getBallsShot() {
+		return ballsShot;
+	}
+}
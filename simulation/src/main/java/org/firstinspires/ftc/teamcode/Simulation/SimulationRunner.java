@@ -0,0 +1,152 @@
+package org.firstinspires.ftc.teamcode.Simulation;
+
+import com.acmerobotics.roadrunner.Pose2d;
+import com.qualcomm.robotcore.eventloop.opmode.OpMode;
+import com.qualcomm.robotcore.hardware.Gamepad;
+
+import org.firstinspires.ftc.teamcode.OpModes.Auto.BlueAudienceAuto;
+import org.firstinspires.ftc.teamcode.OpModes.TeleOp.MainTeleOp;
+import org.firstinspires.ftc.teamcode.Roadrunner.MecanumDrive;
+import org.firstinspires.ftc.teamcode.Utilities.BallColor;
+
+/**
+ * Runs an OpMode against a SimulatedRobot as fast as the host allows.
+ * <p>
+ * Each loop advances the physics by a fixed simulated time step, lets an optional Script set the
+ * gamepads, and calls the OpMode's loop(). Wall-clock loop rate is reported at the end, which
+ * makes this usable as a throughput benchmark and as a CI smoke test of the full OpMode.
+ * <p>
+ * Code that waits on System.nanoTime() (e.g. IntakeBall's settle time) still waits in wall time,
+ * not simulated time.
+ */
+public class SimulationRunner {
+	/**
+	 * Called before every loop to drive inputs, e.g. gamepad sticks and buttons.
+	 */
+	public interface Script {
+		/**
+		 * @param loopIndex   index of the upcoming loop, starting at 0
+		 * @param opMode      the OpMode being run; its gamepads can be modified
+		 * @param robot       the simulated robot
+		 */
+		void beforeLoop(int loopIndex, OpMode opMode, SimulatedRobot robot);
+	}
+
+	/**
+	 * Summary of a simulation run.
+	 */
+	public static class Result {
+		public final String opModeName;
+		public final int loops;
+		public final double simulatedSeconds;
+		public final double wallSeconds;
+
+		Result(String opModeName, int loops, double simulatedSeconds, double wallSeconds) {
+			this.opModeName = opModeName;
+			this.loops = loops;
+			this.simulatedSeconds = simulatedSeconds;
+			this.wallSeconds = wallSeconds;
+		}
+
+		public double getLoopsPerSecond() {
+			return wallSeconds > 0 ? loops / wallSeconds : 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s: %d loops, %.2f s simulated, %.3f s wall, %.0f loops/s",
+					opModeName, loops, simulatedSeconds, wallSeconds, getLoopsPerSecond());
+		}
+	}
+
+	/**
+	 * Runs init(), start(), the given number of loops, and stop().
+	 *
+	 * @param opMode    the OpMode to run
+	 * @param robot     the simulated robot providing the HardwareMap
+	 * @param loops     number of loop() calls
+	 * @param dtSeconds simulated time advanced before each loop
+	 * @param script    optional input script, may be null
+	 * @return timing summary of the loop phase
+	 */
+	public static Result run(OpMode opMode, SimulatedRobot robot, int loops, double dtSeconds, Script script) {
+		opMode.hardwareMap = robot.hardwareMap;
+		opMode.telemetry = new SimTelemetry();
+		opMode.gamepad1 = new Gamepad();
+		opMode.gamepad2 = new Gamepad();
+
+		opMode.init();
+		opMode.start();
+
+		long startNanos = System.nanoTime();
+		double startSimSeconds = robot.getTimeSeconds();
+		for (int i = 0; i < loops; i++) {
+			robot.step(dtSeconds);
+			if (script != null) {
+				script.beforeLoop(i, opMode, robot);
+			}
+			opMode.loop();
+		}
+		long endNanos = System.nanoTime();
+
+		opMode.stop();
+
+		// The OpModes from mainTeleOp() and blueAudienceAuto() are anonymous subclasses
+		Class<?> opModeClass = opMode.getClass();
+		String opModeName = opModeClass.isAnonymousClass()
+				? opModeClass.getSuperclass().getSimpleName() : opModeClass.getSimpleName();
+		return new Result(opModeName, loops,
+				robot.getTimeSeconds() - startSimSeconds, (endNanos - startNanos) / 1e9);
+	}
+
+	/**
+	 * @return a MainTeleOp that drives with the robot's SimDrivetrain as its localizer
+	 */
+	public static MainTeleOp mainTeleOp(SimulatedRobot robot) {
+		return new MainTeleOp() {
+			@Override
+			protected MecanumDrive createDrive(Pose2d pose) {
+				return new MecanumDrive(hardwareMap, pose, robot.drivetrain);
+			}
+		};
+	}
+
+	/**
+	 * @return a BlueAudienceAuto that drives with the robot's SimDrivetrain as its localizer
+	 */
+	public static BlueAudienceAuto blueAudienceAuto(SimulatedRobot robot) {
+		return new BlueAudienceAuto() {
+			@Override
+			protected MecanumDrive createDrive(Pose2d pose) {
+				return new MecanumDrive(hardwareMap, pose, robot.drivetrain);
+			}
+		};
+	}
+
+	/**
+	 * Benchmarks MainTeleOp and BlueAudienceAuto back to back on one simulated robot.
+	 * Optional argument: number of loops per OpMode (default 20000).
+	 */
+	public static void main(String[] args) {
+		int loops = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		double dt = 0.001;
+
+		SimulatedRobot robot = new SimulatedRobot();
+		robot.preload(BallColor.GREEN, BallColor.PURPLE, BallColor.PURPLE);
+
+		// Driver holds a gentle forward/turn; operator spins up the shooter and runs the intake
+		Result teleOp = run(mainTeleOp(robot), robot, loops, dt, (i, opMode, r) -> {
+			opMode.gamepad1.left_stick_y = -0.5f;
+			opMode.gamepad1.right_stick_x = 0.2f;
+			opMode.gamepad2.right_trigger = 1.0f;
+			opMode.gamepad2.left_trigger = (i / 2000) % 2 == 0 ? 1.0f : 0.0f;
+		});
+		System.out.println(teleOp);
+
+		robot.preload(BallColor.GREEN, BallColor.PURPLE, BallColor.PURPLE);
+		Result auto = run(blueAudienceAuto(robot), robot, loops, dt, null);
+		System.out.println(auto);
+
+		System.out.println("Balls shot: " + robot.getBallsShot() + ", flywheel RPM: " + Math.round(robot.getFlywheelRPM()));
+	}
+}